@@ -0,0 +1,9 @@
+-- Adds the keys used to page through the changelog to an existing database.
+START TRANSACTION;
+
+ALTER TABLE `task_changelog`
+  DROP KEY `taskId`,
+  ADD KEY `taskId` (`taskId`,`changedAt`,`id`),
+  ADD KEY `changedAt` (`changedAt`,`id`);
+
+COMMIT;
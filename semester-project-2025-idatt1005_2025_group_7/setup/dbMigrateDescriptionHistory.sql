@@ -0,0 +1,17 @@
+-- Adds the description history to an existing database. The current description of every task
+-- becomes the first snapshot of its history, and later edits are stored as diffs against it.
+START TRANSACTION;
+
+CREATE TABLE `task_description_history` (
+  `taskId` varchar(36) NOT NULL,
+  `revision` int NOT NULL,
+  `snapshot` tinyint(1) NOT NULL,
+  `content` text NOT NULL,
+  PRIMARY KEY (`taskId`,`revision`),
+  CONSTRAINT `task_description_history_ibfk_1` FOREIGN KEY (`taskId`) REFERENCES `task` (`taskId`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `task_description_history` (`taskId`, `revision`, `snapshot`, `content`)
+SELECT `taskId`, 0, 1, COALESCE(`description`, '') FROM `task`;
+
+COMMIT;
@@ -0,0 +1,43 @@
+-- Partitions an existing database by household. Every task and user is moved into the default
+-- household, which clients without a HOUSEHOLD_ID keep using, so existing clients are unaffected.
+START TRANSACTION;
+
+CREATE TABLE `household` (
+  `householdId` varchar(36) NOT NULL,
+  `name` varchar(255) NOT NULL,
+  PRIMARY KEY (`householdId`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE `household_member` (
+  `householdId` varchar(36) NOT NULL,
+  `userId` varchar(36) NOT NULL,
+  PRIMARY KEY (`householdId`,`userId`),
+  KEY `userId` (`userId`),
+  CONSTRAINT `household_member_ibfk_1` FOREIGN KEY (`householdId`) REFERENCES `household` (`householdId`) ON DELETE CASCADE,
+  CONSTRAINT `household_member_ibfk_2` FOREIGN KEY (`userId`) REFERENCES `user` (`userId`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `household` (`householdId`, `name`) VALUES
+('00000000-0000-0000-0000-000000000001', 'Home');
+
+INSERT INTO `household_member` (`householdId`, `userId`)
+SELECT '00000000-0000-0000-0000-000000000001', `userId` FROM `user`;
+
+-- The default only moves the existing rows, new tasks must name their household
+ALTER TABLE `task`
+  ADD COLUMN `householdId` varchar(36) NOT NULL DEFAULT '00000000-0000-0000-0000-000000000001' AFTER `taskId`;
+
+ALTER TABLE `task`
+  ALTER COLUMN `householdId` DROP DEFAULT,
+  ADD KEY `householdId` (`householdId`,`taskId`),
+  ADD CONSTRAINT `task_ibfk_1` FOREIGN KEY (`householdId`) REFERENCES `household` (`householdId`) ON DELETE CASCADE;
+
+ALTER TABLE `task_archive`
+  ADD COLUMN `householdId` varchar(36) NOT NULL DEFAULT '00000000-0000-0000-0000-000000000001' AFTER `taskId`;
+
+ALTER TABLE `task_archive`
+  ALTER COLUMN `householdId` DROP DEFAULT,
+  DROP KEY `archiveDate`,
+  ADD KEY `householdId` (`householdId`,`archiveDate`,`taskId`);
+
+COMMIT;
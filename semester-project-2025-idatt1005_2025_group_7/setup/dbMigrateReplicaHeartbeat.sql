@@ -0,0 +1,18 @@
+-- Adds the heartbeat the application measures the lag of a read replica with. The primary
+-- stamps the row every second, and the replica is as far behind as its copy of the stamp is.
+-- Needs the event scheduler of the primary to be on (event_scheduler = ON).
+START TRANSACTION;
+
+CREATE TABLE `replication_heartbeat` (
+  `id` int NOT NULL,
+  `beatAt` timestamp(3) NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `replication_heartbeat` (`id`, `beatAt`) VALUES (1, CURRENT_TIMESTAMP(3));
+
+CREATE EVENT `replication_heartbeat_beat`
+  ON SCHEDULE EVERY 1 SECOND
+  DO UPDATE `replication_heartbeat` SET `beatAt` = CURRENT_TIMESTAMP(3) WHERE `id` = 1;
+
+COMMIT;
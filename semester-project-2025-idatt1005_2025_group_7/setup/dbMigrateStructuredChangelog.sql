@@ -0,0 +1,109 @@
+-- Converts the changelog of an existing database from one sentence per changed field to one
+-- structured entry per edit, with the changed fields encoded in the fields column (see
+-- FieldChange). Entries that cannot be converted, like assignees whose name is not unique, keep
+-- their description and are still shown as they are.
+START TRANSACTION;
+
+ALTER TABLE `task_changelog`
+  MODIFY `description` text DEFAULT NULL,
+  ADD COLUMN `fields` text DEFAULT NULL AFTER `description`;
+
+-- Size of the changelog before the migration
+SELECT COUNT(*) AS `entries`,
+  SUM(LENGTH(`id`) + LENGTH(`taskId`) + LENGTH(`description`) + LENGTH(`changedBy`) + 5)
+    AS `bytes`
+FROM `task_changelog`;
+
+UPDATE `task_changelog` SET `fields` = 'C::=1', `description` = NULL
+WHERE `description` = 'Task was completed';
+
+UPDATE `task_changelog` SET `fields` = 'C::=0', `description` = NULL
+WHERE `description` = 'Task was restored';
+
+UPDATE `task_changelog`
+SET `fields` = CONCAT('P:=',
+    REGEXP_REPLACE(`description`, '^Priority was changed from ([A-Z]+) to ([A-Z]+)$', '$1'), ':=',
+    REGEXP_REPLACE(`description`, '^Priority was changed from ([A-Z]+) to ([A-Z]+)$', '$2')),
+  `description` = NULL
+WHERE `description` REGEXP '^Priority was changed from [A-Z]+ to [A-Z]+$';
+
+UPDATE `task_changelog`
+SET `fields` = CONCAT('S:=',
+    REGEXP_REPLACE(`description`, '^Size was changed from ([A-Z]+) to ([A-Z]+)$', '$1'), ':=',
+    REGEXP_REPLACE(`description`, '^Size was changed from ([A-Z]+) to ([A-Z]+)$', '$2')),
+  `description` = NULL
+WHERE `description` REGEXP '^Size was changed from [A-Z]+ to [A-Z]+$';
+
+UPDATE `task_changelog`
+SET `fields` = CONCAT('U:=',
+    DATE_FORMAT(STR_TO_DATE(REGEXP_REPLACE(`description`,
+        '^Due date was changed from (.+) to (.+)$', '$1'), '%d/%m/%y'), '%Y-%m-%dT00:00'), ':=',
+    DATE_FORMAT(STR_TO_DATE(REGEXP_REPLACE(`description`,
+        '^Due date was changed from (.+) to (.+)$', '$2'), '%d/%m/%y'), '%Y-%m-%dT00:00')),
+  `description` = NULL
+WHERE `description` REGEXP '^Due date was changed from [0-9/]+ to [0-9/]+$';
+
+-- Names and descriptions may contain the separators of the fields, which are escaped
+UPDATE `task_changelog`
+SET `fields` = CONCAT('N:=',
+    REPLACE(REPLACE(REPLACE(REGEXP_REPLACE(`description`,
+        '^Name was changed from \'(.*)\' to \'(.*)\'$', '$1', 1, 0, 'n'),
+        '\\', '\\\\'), ':', '\\:'), ';', '\\;'), ':=',
+    REPLACE(REPLACE(REPLACE(REGEXP_REPLACE(`description`,
+        '^Name was changed from \'(.*)\' to \'(.*)\'$', '$2', 1, 0, 'n'),
+        '\\', '\\\\'), ':', '\\:'), ';', '\\;')),
+  `description` = NULL
+WHERE REGEXP_LIKE(`description`, '^Name was changed from \'.*\' to \'.*\'$', 'n');
+
+UPDATE `task_changelog`
+SET `fields` = CONCAT('D:=',
+    REPLACE(REPLACE(REPLACE(REGEXP_REPLACE(`description`,
+        '^Description was updated from \'(.*)\' to \'(.*)\'$', '$1', 1, 0, 'n'),
+        '\\', '\\\\'), ':', '\\:'), ';', '\\;'), ':=',
+    REPLACE(REPLACE(REPLACE(REGEXP_REPLACE(`description`,
+        '^Description was updated from \'(.*)\' to \'(.*)\'$', '$2', 1, 0, 'n'),
+        '\\', '\\\\'), ':', '\\:'), ';', '\\;')),
+  `description` = NULL
+WHERE REGEXP_LIKE(`description`, '^Description was updated from \'.*\' to \'.*\'$', 'n');
+
+-- Assignees were logged by name, so only names that belong to a single user are converted
+UPDATE `task_changelog` `c`
+JOIN (SELECT CONCAT(`firstName`, ' ', `lastName`) AS `name`, MIN(`userId`) AS `userId`
+    FROM `user` GROUP BY `name` HAVING COUNT(*) = 1) `u`
+  ON `c`.`description` = CONCAT(`u`.`name`, ' was added as an assignee')
+SET `c`.`fields` = CONCAT('A::=', `u`.`userId`), `c`.`description` = NULL;
+
+UPDATE `task_changelog` `c`
+JOIN (SELECT CONCAT(`firstName`, ' ', `lastName`) AS `name`, MIN(`userId`) AS `userId`
+    FROM `user` GROUP BY `name` HAVING COUNT(*) = 1) `u`
+  ON `c`.`description` = CONCAT(`u`.`name`, ' was removed from this task')
+SET `c`.`fields` = CONCAT('A:=', `u`.`userId`, ':'), `c`.`description` = NULL;
+
+-- The fields of one edit were logged in the same second, and are merged into one entry
+SET SESSION group_concat_max_len = 16777216;
+
+CREATE TEMPORARY TABLE `merged_changelog` AS
+SELECT MIN(`id`) AS `id`, `taskId`, `changedBy`, `changedAt`,
+  GROUP_CONCAT(`fields` ORDER BY `id` SEPARATOR ';') AS `fields`
+FROM `task_changelog`
+WHERE `fields` IS NOT NULL
+GROUP BY `taskId`, `changedBy`, `changedAt`;
+
+DELETE `c` FROM `task_changelog` `c`
+JOIN `merged_changelog` `m` ON `c`.`taskId` = `m`.`taskId` AND `c`.`changedBy` = `m`.`changedBy`
+  AND `c`.`changedAt` = `m`.`changedAt`
+WHERE `c`.`fields` IS NOT NULL AND `c`.`id` <> `m`.`id`;
+
+UPDATE `task_changelog` `c`
+JOIN `merged_changelog` `m` ON `c`.`id` = `m`.`id`
+SET `c`.`fields` = `m`.`fields`;
+
+DROP TEMPORARY TABLE `merged_changelog`;
+
+-- Size of the changelog after the migration
+SELECT COUNT(*) AS `entries`,
+  SUM(LENGTH(`id`) + LENGTH(`taskId`) + COALESCE(LENGTH(`description`), 0)
+    + COALESCE(LENGTH(`fields`), 0) + LENGTH(`changedBy`) + 5) AS `bytes`
+FROM `task_changelog`;
+
+COMMIT;
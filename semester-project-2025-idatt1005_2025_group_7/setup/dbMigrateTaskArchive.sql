@@ -0,0 +1,15 @@
+-- Adds the archive of completed tasks to an existing database. Tasks are moved into it by the
+-- task archiver of the application, so no rows are moved here.
+START TRANSACTION;
+
+CREATE TABLE `task_archive` (
+  `taskId` varchar(36) NOT NULL,
+  `name` varchar(255) NOT NULL,
+  `archiveDate` datetime NOT NULL,
+  `archivedAt` datetime NOT NULL,
+  `payload` mediumblob NOT NULL,
+  PRIMARY KEY (`taskId`),
+  KEY `archiveDate` (`archiveDate`,`taskId`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+COMMIT;
@@ -0,0 +1,10 @@
+-- Adds the version columns used for optimistic concurrency to an existing database.
+START TRANSACTION;
+
+ALTER TABLE `task`
+  ADD COLUMN `version` int NOT NULL DEFAULT '0';
+
+ALTER TABLE `user`
+  ADD COLUMN `version` int NOT NULL DEFAULT '0';
+
+COMMIT;
@@ -2,8 +2,22 @@ SET SQL_MODE = "NO_AUTO_VALUE_ON_ZERO";
 START TRANSACTION;
 SET time_zone = "+00:00";
 
+CREATE TABLE `household` (
+  `householdId` varchar(36) NOT NULL,
+  `name` varchar(255) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `household` (`householdId`, `name`) VALUES
+('00000000-0000-0000-0000-000000000001', 'Home');
+
+CREATE TABLE `household_member` (
+  `householdId` varchar(36) NOT NULL,
+  `userId` varchar(36) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
 CREATE TABLE `task` (
   `taskId` varchar(36) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `householdId` varchar(36) NOT NULL,
   `completed` tinyint(1) NOT NULL DEFAULT '0',
   `name` varchar(255) NOT NULL,
   `description` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci,
@@ -12,7 +26,8 @@ CREATE TABLE `task` (
   `completedDate` datetime DEFAULT NULL,
   `priority` varchar(255) DEFAULT NULL,
   `taskWeight` int DEFAULT NULL,
-  `taskSize` varchar(255) DEFAULT NULL
+  `taskSize` varchar(255) DEFAULT NULL,
+  `version` int NOT NULL DEFAULT '0'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
 
@@ -24,11 +39,35 @@ CREATE TABLE `task_assignees` (
 CREATE TABLE `task_changelog` (
   `id` varchar(36) NOT NULL,
   `taskId` varchar(36) NOT NULL,
-  `description` text NOT NULL,
+  `description` text DEFAULT NULL,
+  `fields` text DEFAULT NULL,
   `changedBy` varchar(36) NOT NULL,
   `changedAt` datetime NOT NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
+CREATE TABLE `task_archive` (
+  `taskId` varchar(36) NOT NULL,
+  `householdId` varchar(36) NOT NULL,
+  `name` varchar(255) NOT NULL,
+  `archiveDate` datetime NOT NULL,
+  `archivedAt` datetime NOT NULL,
+  `payload` mediumblob NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE `task_description_history` (
+  `taskId` varchar(36) NOT NULL,
+  `revision` int NOT NULL,
+  `snapshot` tinyint(1) NOT NULL,
+  `content` text NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE `replication_heartbeat` (
+  `id` int NOT NULL,
+  `beatAt` timestamp(3) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `replication_heartbeat` (`id`, `beatAt`) VALUES (1, CURRENT_TIMESTAMP(3));
+
 CREATE TABLE `user` (
   `userId` varchar(36) NOT NULL,
   `firstName` varchar(255) DEFAULT NULL,
@@ -37,12 +76,21 @@ CREATE TABLE `user` (
   `passwordHash` blob NOT NULL,
   `salt` blob NOT NULL,
   `workloadCapacity` int NOT NULL,
-  `sickness` tinyint NOT NULL DEFAULT '0'
+  `sickness` tinyint NOT NULL DEFAULT '0',
+  `version` int NOT NULL DEFAULT '0'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
 
+ALTER TABLE `household`
+  ADD PRIMARY KEY (`householdId`);
+
+ALTER TABLE `household_member`
+  ADD PRIMARY KEY (`householdId`,`userId`),
+  ADD KEY `userId` (`userId`);
+
 ALTER TABLE `task`
-  ADD PRIMARY KEY (`taskId`) USING BTREE;
+  ADD PRIMARY KEY (`taskId`) USING BTREE,
+  ADD KEY `householdId` (`householdId`,`taskId`);
 
 ALTER TABLE `task_assignees`
   ADD PRIMARY KEY (`taskId`,`userId`),
@@ -51,12 +99,30 @@ ALTER TABLE `task_assignees`
 
 ALTER TABLE `task_changelog`
   ADD PRIMARY KEY (`id`),
-  ADD KEY `taskId` (`taskId`),
+  ADD KEY `taskId` (`taskId`,`changedAt`,`id`),
+  ADD KEY `changedAt` (`changedAt`,`id`),
   ADD KEY `changedBy` (`changedBy`);
 
+ALTER TABLE `task_archive`
+  ADD PRIMARY KEY (`taskId`),
+  ADD KEY `householdId` (`householdId`,`archiveDate`,`taskId`);
+
+ALTER TABLE `task_description_history`
+  ADD PRIMARY KEY (`taskId`,`revision`);
+
+ALTER TABLE `replication_heartbeat`
+  ADD PRIMARY KEY (`id`);
+
 ALTER TABLE `user`
   ADD PRIMARY KEY (`userId`);
 
+ALTER TABLE `household_member`
+  ADD CONSTRAINT `household_member_ibfk_1` FOREIGN KEY (`householdId`) REFERENCES `household` (`householdId`) ON DELETE CASCADE,
+  ADD CONSTRAINT `household_member_ibfk_2` FOREIGN KEY (`userId`) REFERENCES `user` (`userId`) ON DELETE CASCADE;
+
+ALTER TABLE `task`
+  ADD CONSTRAINT `task_ibfk_1` FOREIGN KEY (`householdId`) REFERENCES `household` (`householdId`) ON DELETE CASCADE;
+
 ALTER TABLE `task_assignees`
   ADD CONSTRAINT `fk_taskId` FOREIGN KEY (`taskId`) REFERENCES `task` (`taskId`) ON DELETE CASCADE ON UPDATE CASCADE,
   ADD CONSTRAINT `fk_userId` FOREIGN KEY (`userId`) REFERENCES `user` (`userId`) ON DELETE CASCADE ON UPDATE CASCADE;
@@ -64,4 +130,11 @@ ALTER TABLE `task_assignees`
 ALTER TABLE `task_changelog`
   ADD CONSTRAINT `task_changelog_ibfk_1` FOREIGN KEY (`taskId`) REFERENCES `task` (`taskId`) ON DELETE CASCADE,
   ADD CONSTRAINT `task_changelog_ibfk_2` FOREIGN KEY (`changedBy`) REFERENCES `user` (`userId`) ON DELETE CASCADE;
+
+ALTER TABLE `task_description_history`
+  ADD CONSTRAINT `task_description_history_ibfk_1` FOREIGN KEY (`taskId`) REFERENCES `task` (`taskId`) ON DELETE CASCADE;
+
+CREATE EVENT `replication_heartbeat_beat`
+  ON SCHEDULE EVERY 1 SECOND
+  DO UPDATE `replication_heartbeat` SET `beatAt` = CURRENT_TIMESTAMP(3) WHERE `id` = 1;
 COMMIT;
@@ -4,20 +4,36 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.input.InputEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
+import no.ntnu.idatx1005.analytics.CapacityTimeline;
+import no.ntnu.idatx1005.analytics.FairnessLedger;
+import no.ntnu.idatx1005.analytics.InsightsAggregator;
+import no.ntnu.idatx1005.analytics.TaskAnalytics;
+import no.ntnu.idatx1005.analytics.WorkloadLedger;
+import no.ntnu.idatx1005.database.RemoteStore;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.navigation.ViewFactory;
 import no.ntnu.idatx1005.navigation.ViewNavigator;
 import no.ntnu.idatx1005.observer.ButtonClickHandler;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
+import no.ntnu.idatx1005.observer.PendingWritesObserver;
 import no.ntnu.idatx1005.observer.TaskEventManager;
+import no.ntnu.idatx1005.search.TaskSearchIndex;
 import no.ntnu.idatx1005.service.DatabaseService;
 import no.ntnu.idatx1005.storage.DatabaseRefresher;
+import no.ntnu.idatx1005.storage.LocalSnapshotStore;
+import no.ntnu.idatx1005.storage.OutboxReplayer;
+import no.ntnu.idatx1005.storage.PendingWrite;
+import no.ntnu.idatx1005.storage.StartupLoader;
+import no.ntnu.idatx1005.storage.TaskArchiver;
 import no.ntnu.idatx1005.view.container.LoginView;
 import no.ntnu.idatx1005.view.container.MainView;
 import no.ntnu.idatx1005.view.container.SignUpView;
+import no.ntnu.idatx1005.view.content.HeaderView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,15 +83,76 @@ public class MainApp extends Application {
 
     this.primaryStage = primaryStage;
     this.taskManager = new TaskEventManager(DatabaseService.getInstance());
+    taskManager.addObserver(InsightsAggregator.getInstance());
+    taskManager.addObserver(TaskAnalytics.getInstance());
+    taskManager.addObserver(CapacityTimeline.getInstance());
+    taskManager.addObserver(WorkloadLedger.getInstance());
+    taskManager.addObserver(FairnessLedger.getInstance());
     this.viewControllers = new HashMap<>();
 
-    DatabaseRefresher.getInstance().start();
+    // Registers the search index before the first synchronization so it is built on startup.
+    TaskSearchIndex.getInstance();
+    // Nothing but the initial load is needed until someone logs in.
+    DatabaseRefresher.getInstance().pause(DatabaseRefresher.PauseReason.LOGGED_OUT);
+    StartupLoader startupLoader = StartupLoader.getInstance();
+    startupLoader.addObserver(taskManager);
+    startupLoader.whenReady(StartupLoader.Stage.COMPLETED_TASKS).thenRun(() -> {
+      DatabaseRefresher.getInstance().start();
+      TaskArchiver.getInstance().start();
+      LocalSnapshotStore.getInstance().start();
+      startOutboxReplayer();
+    });
+    startupLoader.start();
 
     initializeViews();
     setupStage();
+    HeaderView headerView = mainView.getContentView().getHeaderView();
+    RemoteStore.instance().getCircuitBreaker().addObserver(state ->
+        Platform.runLater(() -> headerView.showConnectionState(state)));
     logger.info("Application startup completed");
   }
 
+  /**
+   * Starts replaying the writes that are waiting in the outbox, and shows how many are left in
+   * the header. The scheduled refreshes are paused while writes are waiting, so they do not undo
+   * the writes in the local storage before they are stored.
+   */
+  private void startOutboxReplayer() {
+    HeaderView headerView = mainView.getContentView().getHeaderView();
+    OutboxReplayer replayer = OutboxReplayer.getInstance();
+    replayer.addObserver(new PendingWritesObserver() {
+      @Override
+      public void onPendingWritesChanged(int pendingCount) {
+        if (pendingCount > 0) {
+          DatabaseRefresher.getInstance().pause(DatabaseRefresher.PauseReason.PENDING_WRITES);
+        } else {
+          DatabaseRefresher.getInstance().resume(DatabaseRefresher.PauseReason.PENDING_WRITES);
+        }
+        Platform.runLater(() -> headerView.showPendingWrites(pendingCount));
+      }
+
+      @Override
+      public void onWriteConflict(PendingWrite write) {
+        headerView.showWriteConflict(write);
+      }
+
+      @Override
+      public void onWriteFailed(PendingWrite write) {
+        headerView.showWriteFailure(write);
+      }
+    });
+    replayer.start();
+  }
+
+  /**
+   * Stops the application, saving a snapshot of the local storage for the next start.
+   */
+  @Override
+  public void stop() {
+    logger.info("Stopping H.O.M.E. Application");
+    LocalSnapshotStore.getInstance().stop();
+  }
+
   /**
    * Returns the task manager.
    *
@@ -138,6 +215,9 @@ public class MainApp extends Application {
   public void setUser(User user) {
     loggedInUser = user;
     taskManager.setLoggedInUser(user);
+    if (user != null) {
+      DatabaseRefresher.getInstance().resume(DatabaseRefresher.PauseReason.LOGGED_OUT);
+    }
   }
 
   /**
@@ -195,6 +275,16 @@ public class MainApp extends Application {
     Scene scene = new Scene(root, 1280, 720);
     scene.getStylesheets().add("stylesheets/styles.css");
 
+    DatabaseRefresher refresher = DatabaseRefresher.getInstance();
+    scene.addEventFilter(InputEvent.ANY, event -> refresher.recordActivity());
+    primaryStage.iconifiedProperty().addListener((observable, wasHidden, isHidden) -> {
+      if (isHidden) {
+        refresher.pause(DatabaseRefresher.PauseReason.HIDDEN);
+      } else {
+        refresher.resume(DatabaseRefresher.PauseReason.HIDDEN);
+      }
+    });
+
     primaryStage.setTitle("H.O.M.E. Application");
     primaryStage.setScene(scene);
     primaryStage.show();
@@ -0,0 +1,25 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+
+/**
+ * <h3>Analytics Snapshot Record</h3>
+ *
+ * <p>An immutable snapshot of the statistics kept by {@link TaskAnalytics}, for all tasks and
+ * per priority, size and assigned user.
+ *
+ * @param firstWeek the Monday of the first week in the window
+ * @param overall the statistics of all completed tasks
+ * @param byPriority the statistics per priority
+ * @param bySize the statistics per size
+ * @param byUser the statistics per assigned user
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record AnalyticsSnapshot(LocalDate firstWeek, AnalyticsStats overall,
+    Map<Priority, AnalyticsStats> byPriority, Map<Size, AnalyticsStats> bySize,
+    Map<UUID, AnalyticsStats> byUser) {}
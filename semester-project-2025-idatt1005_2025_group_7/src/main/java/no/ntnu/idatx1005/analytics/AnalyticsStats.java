@@ -0,0 +1,30 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.util.List;
+
+/**
+ * <h3>Analytics Stats Record</h3>
+ *
+ * <p>Throughput, overdue rate and lead time percentiles over a rolling window of weeks.
+ *
+ * @param completed the number of tasks completed in the window
+ * @param weeklyThroughput the number of tasks completed per week, oldest week first
+ * @param overdueRate the share of completed tasks that were completed after their due date
+ * @param p50Minutes the median lead time in minutes
+ * @param p90Minutes the 90th percentile lead time in minutes
+ * @param p99Minutes the 99th percentile lead time in minutes
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record AnalyticsStats(long completed, List<Long> weeklyThroughput, double overdueRate,
+    long p50Minutes, long p90Minutes, long p99Minutes) {
+
+  /**
+   * Returns the average number of tasks completed per week in the window.
+   *
+   * @return the average weekly throughput
+   */
+  public double averageThroughput() {
+    return weeklyThroughput.isEmpty() ? 0 : (double) completed / weeklyThroughput.size();
+  }
+}
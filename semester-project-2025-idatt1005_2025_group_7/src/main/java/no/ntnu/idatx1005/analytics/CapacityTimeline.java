@@ -0,0 +1,377 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.observer.StorageSyncObserver;
+import no.ntnu.idatx1005.observer.TaskEventObserver;
+import no.ntnu.idatx1005.storage.H2Manager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Capacity timeline of the users.</h3>
+ *
+ * <p>Keeps a {@link LoadTimeline} per user with the size of every open task assigned to the user
+ * on the day the task is due. The timelines are updated one task at a time from task events and
+ * storage synchronizations, so the load of a user in any range of days, and therefore the peaks
+ * the distribution should avoid, are answered without scanning the tasks.
+ *
+ * <p>The capacity of a user is spread over a week of {@link #PEAK_WINDOW_DAYS} days, so the load
+ * due in the week up to a day is compared with the full capacity of the user.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class CapacityTimeline implements TaskEventObserver, StorageSyncObserver {
+  private static final Logger logger = LoggerFactory.getLogger(CapacityTimeline.class);
+  /** The number of days the capacity of a user is spread over. */
+  public static final int PEAK_WINDOW_DAYS = 7;
+  private static CapacityTimeline instance;
+
+  private final Clock clock;
+  private final Map<UUID, LoadTimeline> timelines;
+  private final Map<UUID, TaskLoad> loads;
+
+  /**
+   * The parts of a task the timelines depend on.
+   */
+  private record TaskLoad(List<UUID> assignees, long dueDay, int size) {
+
+    /**
+     * Creates the load of a task.
+     *
+     * @param task the task
+     * @return the load of the task, or null if the task is completed or has no assignees
+     */
+    static TaskLoad of(Task task) {
+      if (task.isCompleted() || task.getAssignedUserIds().isEmpty()) {
+        return null;
+      }
+      return new TaskLoad(List.copyOf(task.getAssignedUserIds()),
+          task.getDueDate().toLocalDate().toEpochDay(), task.getSize().getValue());
+    }
+  }
+
+  /**
+   * Constructs an empty capacity timeline.
+   *
+   * @param clock the clock used to determine the current day
+   */
+  CapacityTimeline(Clock clock) {
+    this.clock = clock;
+    this.timelines = new HashMap<>();
+    this.loads = new HashMap<>();
+  }
+
+  /**
+   * Returns the instance of the capacity timeline. The first time it is requested, the timeline
+   * is filled from the local storage and registered for storage synchronizations.
+   *
+   * @return the capacity timeline instance
+   */
+  public static synchronized CapacityTimeline getInstance() {
+    if (instance == null) {
+      instance = new CapacityTimeline(Clock.systemDefaultZone());
+      instance.synchronize(H2Manager.getOpenTasks());
+      H2Manager.addSyncObserver(instance);
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the current day.
+   *
+   * @return the current day
+   */
+  public LocalDate getToday() {
+    return LocalDate.now(clock);
+  }
+
+  /**
+   * Updates the timelines with the current state of a task.
+   *
+   * @param task the task
+   */
+  public synchronized void apply(Task task) {
+    update(task.getId(), TaskLoad.of(task));
+  }
+
+  /**
+   * Removes a task from the timelines.
+   *
+   * @param taskId the ID of the task
+   */
+  public synchronized void remove(UUID taskId) {
+    update(taskId, null);
+  }
+
+  /**
+   * Brings the timelines in line with the given tasks. Tasks that are unchanged since the last
+   * update do not touch the timelines, and tasks that are no longer present are removed.
+   *
+   * @param tasks all open tasks
+   */
+  public synchronized void synchronize(List<Task> tasks) {
+    Set<UUID> present = new HashSet<>();
+    for (Task task : tasks) {
+      present.add(task.getId());
+      update(task.getId(), TaskLoad.of(task));
+    }
+    for (UUID taskId : new ArrayList<>(loads.keySet())) {
+      if (!present.contains(taskId)) {
+        update(taskId, null);
+      }
+    }
+  }
+
+  /**
+   * Brings the timelines in line with the given tasks only, leaving the other tasks as they are.
+   * Tasks whose ID is given but that are not among the stored tasks were deleted, and are
+   * removed.
+   *
+   * @param taskIds the IDs of the tasks that changed
+   * @param storedTasks the stored state of the tasks that still exist, by their ID
+   */
+  public synchronized void synchronizeTasks(Set<UUID> taskIds, Map<UUID, Task> storedTasks) {
+    for (UUID taskId : taskIds) {
+      Task task = storedTasks.get(taskId);
+      update(taskId, task == null ? null : TaskLoad.of(task));
+    }
+  }
+
+  /**
+   * Returns the load of a user due between two days, both inclusive.
+   *
+   * @param userId the ID of the user
+   * @param from the first day
+   * @param to the last day
+   * @return the load due in the range
+   */
+  public synchronized int getLoad(UUID userId, LocalDate from, LocalDate to) {
+    LoadTimeline timeline = timelines.get(userId);
+    return timeline == null ? 0 : timeline.getLoad(from.toEpochDay(), to.toEpochDay());
+  }
+
+  /**
+   * Returns the load of a user that is overdue, that is due before today.
+   *
+   * @param userId the ID of the user
+   * @return the overdue load
+   */
+  public synchronized int getOverdueLoad(UUID userId) {
+    LoadTimeline timeline = timelines.get(userId);
+    return timeline == null ? 0 : timeline.loadUpTo(getToday().toEpochDay() - 1);
+  }
+
+  /**
+   * Returns the total open load of a user.
+   *
+   * @param userId the ID of the user
+   * @return the total open load
+   */
+  public synchronized int getTotalLoad(UUID userId) {
+    LoadTimeline timeline = timelines.get(userId);
+    return timeline == null ? 0 : timeline.getTotal();
+  }
+
+  /**
+   * Returns the load of a user per day, starting at the given day.
+   *
+   * @param userId the ID of the user
+   * @param from the first day
+   * @param days the number of days
+   * @return the load per day
+   */
+  public synchronized int[] getDailyLoad(UUID userId, LocalDate from, int days) {
+    int[] dailyLoad = new int[days];
+    LoadTimeline timeline = timelines.get(userId);
+    if (timeline != null) {
+      long firstDay = from.toEpochDay();
+      for (int i = 0; i < days; i++) {
+        dailyLoad[i] = timeline.getLoad(firstDay + i);
+      }
+    }
+    return dailyLoad;
+  }
+
+  /**
+   * Returns the load of a user in the week up to and including a day. Overdue load counts
+   * towards the current week, since it still has to be done.
+   *
+   * @param userId the ID of the user
+   * @param day the last day of the week
+   * @return the load in the week
+   */
+  public synchronized int getWeekLoad(UUID userId, LocalDate day) {
+    LocalDate today = getToday();
+    LocalDate from = day.minusDays(PEAK_WINDOW_DAYS - 1L);
+    if (from.isBefore(today)) {
+      return getOverdueLoad(userId) + getLoad(userId, today, day);
+    }
+    return getLoad(userId, from, day);
+  }
+
+  /**
+   * Returns the highest load a user would have in any week if a task of the given size due on
+   * the given day was assigned to them. Only the weeks the task falls in are checked.
+   *
+   * @param user the user
+   * @param dueDate the day the task is due
+   * @param size the size of the task
+   * @return the peak weekly load with the task
+   */
+  public synchronized int getPeakLoadWith(User user, LocalDate dueDate, int size) {
+    LocalDate today = getToday();
+    LocalDate dueDay = dueDate.isBefore(today) ? today : dueDate;
+    int peak = 0;
+    for (int i = 0; i < PEAK_WINDOW_DAYS; i++) {
+      LocalDate windowEnd = dueDay.plusDays(i);
+      peak = Math.max(peak, getWeekLoad(user.getId(), windowEnd));
+    }
+    return peak + size;
+  }
+
+  /**
+   * Returns whether a task of the given size due on the given day would push a user over their
+   * capacity in any week.
+   *
+   * @param user the user
+   * @param dueDate the day the task is due
+   * @param size the size of the task
+   * @return true if the task would overload the user, false otherwise
+   */
+  public boolean wouldOverload(User user, LocalDate dueDate, int size) {
+    return getPeakLoadWith(user, dueDate, size) > user.getTaskCapacity();
+  }
+
+  /**
+   * Replaces the load of a task in the timelines.
+   *
+   * @param taskId the ID of the task
+   * @param next the new load of the task, or null if it no longer has load
+   */
+  private void update(UUID taskId, TaskLoad next) {
+    TaskLoad previous = loads.get(taskId);
+    if (Objects.equals(previous, next)) {
+      return;
+    }
+    if (previous != null) {
+      for (UUID userId : previous.assignees()) {
+        LoadTimeline timeline = timelines.get(userId);
+        if (timeline != null) {
+          timeline.add(previous.dueDay(), -previous.size());
+          if (timeline.isEmpty()) {
+            timelines.remove(userId);
+          }
+        }
+      }
+      loads.remove(taskId);
+    }
+    if (next != null) {
+      for (UUID userId : next.assignees()) {
+        timelines.computeIfAbsent(userId, key -> new LoadTimeline())
+            .add(next.dueDay(), next.size());
+      }
+      loads.put(taskId, next);
+    }
+    logger.trace("Capacity timeline updated for task {}", taskId);
+  }
+
+  /**
+   * Applies the stored state of a task, since the task in an event may be outdated.
+   *
+   * @param task the task from the event
+   */
+  private void applyStored(Task task) {
+    Task storedTask = H2Manager.getTaskById(task.getId());
+    if (storedTask == null) {
+      remove(task.getId());
+    } else {
+      apply(storedTask);
+    }
+  }
+
+  /**
+   * Updates the timelines with the created task.
+   *
+   * @param task the task that was created
+   */
+  @Override
+  public void onTaskCreated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Updates the timelines with the updated task.
+   *
+   * @param task the task that was updated
+   */
+  @Override
+  public void onTaskUpdated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Removes the deleted task from the timelines.
+   *
+   * @param task the task that was deleted
+   */
+  @Override
+  public void onTaskDeleted(Task task) {
+    remove(task.getId());
+  }
+
+  /**
+   * Adds the assigned task to the timeline of the user.
+   *
+   * @param task the task that was assigned
+   * @param user the user the task was assigned to
+   */
+  @Override
+  public void onTaskAssigned(Task task, User user) {
+    applyStored(task);
+  }
+
+  /**
+   * Removes the completed task from the timelines.
+   *
+   * @param task the task that was completed
+   */
+  @Override
+  public void onTaskCompleted(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * The timelines are updated on storage synchronization instead.
+   */
+  @Override
+  public void onCacheRefreshed() {
+    // Not needed
+  }
+
+  /**
+   * Updates the timelines with the synchronized tasks, only reading the tasks that changed when
+   * they are known.
+   *
+   * @param taskIds the IDs of the tasks that changed, or null if any task may have changed
+   */
+  @Override
+  public void onLocalStorageSynchronized(Set<UUID> taskIds) {
+    if (taskIds == null) {
+      synchronize(H2Manager.getOpenTasks());
+    } else if (!taskIds.isEmpty()) {
+      synchronizeTasks(taskIds, H2Manager.getTasksByIds(taskIds));
+    }
+  }
+}
@@ -0,0 +1,385 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.observer.StorageSyncObserver;
+import no.ntnu.idatx1005.observer.TaskEventObserver;
+import no.ntnu.idatx1005.service.DatabaseService;
+import no.ntnu.idatx1005.storage.H2Manager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Ledger of the work users completed recently.</h3>
+ *
+ * <p>Keeps the size of the tasks every user completed per week, over the last
+ * {@link #LONG_WINDOW_WEEKS} weeks. The work of a task is credited to its assignees, or to the
+ * user who completed it if it had none. The weekly sums are updated one task at a time from task
+ * events and storage synchronizations, so the work of a user over the last
+ * {@link #SHORT_WINDOW_WEEKS} or {@link #LONG_WINDOW_WEEKS} weeks is a sum of a few weeks, and the
+ * history is never rescanned.
+ *
+ * <p>Tasks completed before completion dates were stored have no completion date. On startup,
+ * the completions in the changelog of the window are backfilled once, so those tasks are credited
+ * in the week they were completed.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class FairnessLedger implements TaskEventObserver, StorageSyncObserver {
+  private static final Logger logger = LoggerFactory.getLogger(FairnessLedger.class);
+  /** The number of weeks of the short window. */
+  public static final int SHORT_WINDOW_WEEKS = 4;
+  /** The number of weeks of the long window. */
+  public static final int LONG_WINDOW_WEEKS = 12;
+  private static FairnessLedger instance;
+
+  private final Clock clock;
+  private final Map<UUID, Credit> credits;
+  private final Map<UUID, TreeMap<LocalDate, Integer>> weeklyWork;
+  private final Map<UUID, TaskChange> loggedCompletions;
+
+  /**
+   * The work a completed task is credited with.
+   */
+  private record Credit(LocalDate weekStart, int size, List<UUID> users) {
+  }
+
+  /**
+   * Constructs an empty ledger.
+   *
+   * @param clock the clock used to determine the current week
+   */
+  FairnessLedger(Clock clock) {
+    this.clock = clock;
+    this.credits = new HashMap<>();
+    this.weeklyWork = new HashMap<>();
+    this.loggedCompletions = new HashMap<>();
+  }
+
+  /**
+   * Returns the instance of the ledger. The first time it is requested, the ledger is filled
+   * from the changelog in the remote database and the completed tasks in the local storage, and
+   * registered for storage synchronizations.
+   *
+   * @return the ledger instance
+   */
+  public static synchronized FairnessLedger getInstance() {
+    if (instance == null) {
+      instance = new FairnessLedger(Clock.systemDefaultZone());
+      instance.backfill(DatabaseService.getInstance().getCompletionChangesSince(
+          instance.getWindowStart().atStartOfDay()), H2Manager.getCompletedTasks());
+      H2Manager.addSyncObserver(instance);
+    }
+    return instance;
+  }
+
+  /**
+   * Fills the ledger from the completions in the changelog and the completed tasks.
+   *
+   * @param completionChanges the changelog entries of completions, oldest first
+   * @param completedTasks the completed tasks
+   */
+  public synchronized void backfill(List<TaskChange> completionChanges,
+      List<Task> completedTasks) {
+    // Only the latest completion of a task counts, if it was restored and completed again
+    completionChanges.forEach(change -> loggedCompletions.put(change.taskId(), change));
+    synchronize(completedTasks);
+    logger.info("Fairness ledger backfilled with {} completed tasks", credits.size());
+  }
+
+  /**
+   * Updates the ledger with the current state of a task.
+   *
+   * @param task the task
+   */
+  public synchronized void apply(Task task) {
+    update(task.getId(), creditOf(task));
+  }
+
+  /**
+   * Removes a task from the ledger.
+   *
+   * @param taskId the ID of the task
+   */
+  public synchronized void remove(UUID taskId) {
+    update(taskId, null);
+  }
+
+  /**
+   * Brings the ledger in line with the given completed tasks. Tasks that are unchanged since the
+   * last update do not touch the ledger, and tasks that are no longer present are removed.
+   *
+   * @param completedTasks all completed tasks
+   */
+  public synchronized void synchronize(List<Task> completedTasks) {
+    Set<UUID> present = new HashSet<>();
+    for (Task task : completedTasks) {
+      present.add(task.getId());
+      update(task.getId(), creditOf(task));
+    }
+    for (UUID taskId : new ArrayList<>(credits.keySet())) {
+      if (!present.contains(taskId)) {
+        update(taskId, null);
+      }
+    }
+    dropOldWeeks();
+  }
+
+  /**
+   * Brings the ledger in line with the given tasks only, leaving the other tasks as they are.
+   * Tasks whose ID is given but that are not among the stored tasks were deleted, and are
+   * removed.
+   *
+   * @param taskIds the IDs of the tasks that changed
+   * @param storedTasks the stored state of the tasks that still exist, by their ID
+   */
+  public synchronized void synchronizeTasks(Set<UUID> taskIds, Map<UUID, Task> storedTasks) {
+    for (UUID taskId : taskIds) {
+      Task task = storedTasks.get(taskId);
+      update(taskId, task == null ? null : creditOf(task));
+    }
+    dropOldWeeks();
+  }
+
+  /**
+   * Returns the size of the tasks a user completed in the given number of weeks up to and
+   * including the current week.
+   *
+   * @param userId the ID of the user
+   * @param weeks the number of weeks, at most {@link #LONG_WINDOW_WEEKS}
+   * @return the completed work of the user
+   */
+  public synchronized int getCompletedWork(UUID userId, int weeks) {
+    TreeMap<LocalDate, Integer> weeksOfUser = weeklyWork.get(userId);
+    if (weeksOfUser == null) {
+      return 0;
+    }
+    LocalDate currentWeek = getCurrentWeekStart();
+    int work = 0;
+    for (int size : weeksOfUser.subMap(currentWeek.minusWeeks(weeks - 1L), true,
+        currentWeek, true).values()) {
+      work += size;
+    }
+    return work;
+  }
+
+  /**
+   * Returns the recent work of a user, used to spread new tasks fairly. It is the average of
+   * the work completed in the short window and the work completed in the long window scaled to
+   * the length of the short window, so recent work weighs the most while a busy month earlier in
+   * the quarter still counts.
+   *
+   * @param user the user
+   * @return the recent work of the user
+   */
+  public double getRecentWork(User user) {
+    double shortWork = getCompletedWork(user.getId(), SHORT_WINDOW_WEEKS);
+    double longWork = getCompletedWork(user.getId(), LONG_WINDOW_WEEKS)
+        * SHORT_WINDOW_WEEKS / (double) LONG_WINDOW_WEEKS;
+    return (shortWork + longWork) / 2;
+  }
+
+  /**
+   * Returns the Monday of the current week.
+   *
+   * @return the start of the current week
+   */
+  private LocalDate getCurrentWeekStart() {
+    return weekStartOf(LocalDate.now(clock));
+  }
+
+  /**
+   * Returns the Monday of the first week of the long window.
+   *
+   * @return the start of the window
+   */
+  private LocalDate getWindowStart() {
+    return getCurrentWeekStart().minusWeeks(LONG_WINDOW_WEEKS - 1L);
+  }
+
+  /**
+   * Returns the Monday of the week of a day.
+   *
+   * @param day the day
+   * @return the start of the week
+   */
+  private static LocalDate weekStartOf(LocalDate day) {
+    return day.minusDays(day.getDayOfWeek().getValue() - 1L);
+  }
+
+  /**
+   * Creates the credit of a task. The completion date of the task is used, or the time of its
+   * completion in the changelog if it has none.
+   *
+   * @param task the task
+   * @return the credit of the task, or null if the task is not completed within the window
+   */
+  private Credit creditOf(Task task) {
+    if (!task.isCompleted()) {
+      return null;
+    }
+    TaskChange loggedCompletion = loggedCompletions.get(task.getId());
+    LocalDateTime completedAt = task.getCompletedDate();
+    if (completedAt == null && loggedCompletion != null) {
+      completedAt = loggedCompletion.changedAt();
+    }
+    if (completedAt == null) {
+      return null;
+    }
+    LocalDate weekStart = weekStartOf(completedAt.toLocalDate());
+    if (weekStart.isBefore(getWindowStart())) {
+      return null;
+    }
+
+    List<UUID> users = List.copyOf(task.getAssignedUserIds());
+    if (users.isEmpty() && loggedCompletion != null && loggedCompletion.changedBy() != null) {
+      users = List.of(loggedCompletion.changedBy());
+    }
+    return users.isEmpty() ? null : new Credit(weekStart, task.getSize().getValue(), users);
+  }
+
+  /**
+   * Replaces the credit of a task in the weekly sums.
+   *
+   * @param taskId the ID of the task
+   * @param next the new credit of the task, or null if it has none
+   */
+  private void update(UUID taskId, Credit next) {
+    Credit previous = credits.get(taskId);
+    if (Objects.equals(previous, next)) {
+      return;
+    }
+    if (previous != null) {
+      for (UUID userId : previous.users()) {
+        TreeMap<LocalDate, Integer> weeksOfUser = weeklyWork.get(userId);
+        if (weeksOfUser != null) {
+          weeksOfUser.computeIfPresent(previous.weekStart(),
+              (week, work) -> work == previous.size() ? null : work - previous.size());
+          if (weeksOfUser.isEmpty()) {
+            weeklyWork.remove(userId);
+          }
+        }
+      }
+      credits.remove(taskId);
+    }
+    if (next != null) {
+      for (UUID userId : next.users()) {
+        weeklyWork.computeIfAbsent(userId, key -> new TreeMap<>())
+            .merge(next.weekStart(), next.size(), Integer::sum);
+      }
+      credits.put(taskId, next);
+    }
+  }
+
+  /**
+   * Drops the weeks that have left the window.
+   */
+  private void dropOldWeeks() {
+    LocalDate windowStart = getWindowStart();
+    credits.values().removeIf(credit -> credit.weekStart().isBefore(windowStart));
+    weeklyWork.values().forEach(weeksOfUser -> weeksOfUser.headMap(windowStart).clear());
+    weeklyWork.values().removeIf(TreeMap::isEmpty);
+  }
+
+  /**
+   * Applies the stored state of a task, since the task in an event may be outdated.
+   *
+   * @param task the task from the event
+   */
+  private void applyStored(Task task) {
+    Task storedTask = H2Manager.getTaskById(task.getId());
+    if (storedTask == null) {
+      remove(task.getId());
+    } else {
+      apply(storedTask);
+    }
+  }
+
+  /**
+   * Created tasks are not completed, so they are not credited.
+   *
+   * @param task the task that was created
+   */
+  @Override
+  public void onTaskCreated(Task task) {
+    // Not needed
+  }
+
+  /**
+   * Updates the ledger with the updated task, which may have been completed or restored.
+   *
+   * @param task the task that was updated
+   */
+  @Override
+  public void onTaskUpdated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Removes the deleted task from the ledger.
+   *
+   * @param task the task that was deleted
+   */
+  @Override
+  public void onTaskDeleted(Task task) {
+    remove(task.getId());
+  }
+
+  /**
+   * Updates the ledger with the assigned task, whose credit moves if it is completed.
+   *
+   * @param task the task that was assigned
+   * @param user the user the task was assigned to
+   */
+  @Override
+  public void onTaskAssigned(Task task, User user) {
+    applyStored(task);
+  }
+
+  /**
+   * Credits the completed task to its assignees.
+   *
+   * @param task the task that was completed
+   */
+  @Override
+  public void onTaskCompleted(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * The ledger is updated on storage synchronization instead.
+   */
+  @Override
+  public void onCacheRefreshed() {
+    // Not needed
+  }
+
+  /**
+   * Updates the ledger with the synchronized completed tasks, only reading the tasks that
+   * changed when they are known.
+   *
+   * @param taskIds the IDs of the tasks that changed, or null if any task may have changed
+   */
+  @Override
+  public void onLocalStorageSynchronized(Set<UUID> taskIds) {
+    if (taskIds == null) {
+      synchronize(H2Manager.getCompletedTasks());
+    } else if (!taskIds.isEmpty()) {
+      synchronizeTasks(taskIds, H2Manager.getTasksByIds(taskIds));
+    }
+  }
+}
@@ -0,0 +1,443 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.observer.InsightsObserver;
+import no.ntnu.idatx1005.observer.StorageSyncObserver;
+import no.ntnu.idatx1005.observer.TaskEventObserver;
+import no.ntnu.idatx1005.storage.H2Manager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Incremental aggregation of task insights.</h3>
+ *
+ * <p>Keeps the counters shown in the insights view up to date: the tasks completed today and
+ * this week, the number of open tasks per priority and the pending tasks. A small snapshot of
+ * every task is kept, so each task event or storage synchronization only moves the tasks that
+ * actually changed between counters, instead of recomputing everything from the database.
+ *
+ * <p>The counters for today and this week roll over at midnight on a schedule. Observers are
+ * notified with a new {@link InsightsSummary} every time the counters change.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class InsightsAggregator implements TaskEventObserver, StorageSyncObserver {
+  private static final Logger logger = LoggerFactory.getLogger(InsightsAggregator.class);
+  private static final int PENDING_PREVIEW_SIZE = 5;
+  private static InsightsAggregator instance;
+
+  private final Clock clock;
+  private final Map<UUID, TaskSnapshot> snapshots;
+  private final Map<UUID, String> completedToday;
+  private final Map<UUID, String> completedThisWeek;
+  private final Map<UUID, String> openTasks;
+  private final Map<Priority, Integer> openByPriority;
+  private final List<InsightsObserver> observers;
+  private LocalDate today;
+  private LocalDate weekStart;
+
+  /**
+   * The parts of a task the counters depend on.
+   */
+  private record TaskSnapshot(String name, boolean completed, Priority priority,
+      LocalDate completedDay) {
+
+    /**
+     * Creates the snapshot of a task.
+     *
+     * @param task the task
+     * @return the snapshot of the task
+     */
+    static TaskSnapshot of(Task task) {
+      LocalDateTime completedDate = task.getCompletedDate();
+      return new TaskSnapshot(task.getName(), task.isCompleted(), task.getPriority(),
+          completedDate == null ? null : completedDate.toLocalDate());
+    }
+  }
+
+  /**
+   * Constructs an empty aggregator.
+   *
+   * @param clock the clock used to determine the current day
+   */
+  InsightsAggregator(Clock clock) {
+    this.clock = clock;
+    this.snapshots = new HashMap<>();
+    this.completedToday = new LinkedHashMap<>();
+    this.completedThisWeek = new LinkedHashMap<>();
+    this.openTasks = new LinkedHashMap<>();
+    this.openByPriority = new EnumMap<>(Priority.class);
+    this.observers = new CopyOnWriteArrayList<>();
+    for (Priority priority : Priority.values()) {
+      openByPriority.put(priority, 0);
+    }
+    setCurrentDay(LocalDate.now(clock));
+  }
+
+  /**
+   * Returns the instance of the aggregator. The first time it is requested, the aggregator is
+   * filled from the local storage, registered for storage synchronizations and the day rollover
+   * is scheduled.
+   *
+   * @return the aggregator instance
+   */
+  public static synchronized InsightsAggregator getInstance() {
+    if (instance == null) {
+      instance = new InsightsAggregator(Clock.systemDefaultZone());
+      instance.synchronize(H2Manager.getAllTasks());
+      H2Manager.addSyncObserver(instance);
+      instance.scheduleRollover();
+    }
+    return instance;
+  }
+
+  /**
+   * Adds an observer that is notified every time the insights change.
+   *
+   * @param observer the observer to add
+   */
+  public void addObserver(InsightsObserver observer) {
+    observers.add(observer);
+  }
+
+  /**
+   * Removes an insights observer.
+   *
+   * @param observer the observer to remove
+   */
+  public void removeObserver(InsightsObserver observer) {
+    observers.remove(observer);
+  }
+
+  /**
+   * Returns an immutable snapshot of the current counters.
+   *
+   * @return the current insights
+   */
+  public synchronized InsightsSummary getSummary() {
+    return new InsightsSummary(
+        List.copyOf(completedToday.values()),
+        List.copyOf(completedThisWeek.values()),
+        Map.copyOf(openByPriority),
+        openTasks.values().stream().limit(PENDING_PREVIEW_SIZE).toList(),
+        openTasks.size());
+  }
+
+  /**
+   * Updates the counters with the current state of a task.
+   *
+   * @param task the task
+   */
+  public synchronized void apply(Task task) {
+    rolloverIfNeeded();
+    if (update(task.getId(), TaskSnapshot.of(task))) {
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Removes a task from the counters.
+   *
+   * @param taskId the ID of the task
+   */
+  public synchronized void remove(UUID taskId) {
+    rolloverIfNeeded();
+    if (update(taskId, null)) {
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Brings the counters in line with the given tasks. Tasks that are unchanged since the last
+   * update do not touch the counters, and tasks that are no longer present are removed.
+   *
+   * @param tasks all tasks
+   */
+  public synchronized void synchronize(List<Task> tasks) {
+    rolloverIfNeeded();
+    boolean changed = false;
+    Set<UUID> present = new HashSet<>();
+    for (Task task : tasks) {
+      present.add(task.getId());
+      changed |= update(task.getId(), TaskSnapshot.of(task));
+    }
+    for (UUID taskId : new ArrayList<>(snapshots.keySet())) {
+      if (!present.contains(taskId)) {
+        changed |= update(taskId, null);
+      }
+    }
+    if (changed) {
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Brings the counters in line with the given tasks only, leaving the other tasks as they are.
+   * Tasks whose ID is given but that are not among the stored tasks were deleted, and are
+   * removed.
+   *
+   * @param taskIds the IDs of the tasks that changed
+   * @param storedTasks the stored state of the tasks that still exist, by their ID
+   */
+  public synchronized void synchronizeTasks(Set<UUID> taskIds, Map<UUID, Task> storedTasks) {
+    rolloverIfNeeded();
+    boolean changed = false;
+    for (UUID taskId : taskIds) {
+      Task task = storedTasks.get(taskId);
+      changed |= update(taskId, task == null ? null : TaskSnapshot.of(task));
+    }
+    if (changed) {
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Moves the counters for today and this week to the current day. Only the completed tasks of
+   * the new day and week are kept.
+   */
+  public synchronized void rollover() {
+    setCurrentDay(LocalDate.now(clock));
+    completedToday.clear();
+    completedThisWeek.clear();
+    snapshots.forEach((taskId, snapshot) -> {
+      if (snapshot.completed()) {
+        addCompleted(taskId, snapshot);
+      }
+    });
+    logger.debug("Insights rolled over to {}", today);
+    notifyObservers();
+  }
+
+  /**
+   * Rolls the counters over if the day has changed since the last update, in case an update
+   * arrives before the scheduled rollover has run.
+   */
+  private void rolloverIfNeeded() {
+    if (!LocalDate.now(clock).equals(today)) {
+      rollover();
+    }
+  }
+
+  /**
+   * Sets the current day and the first day of the current week.
+   *
+   * @param day the current day
+   */
+  private void setCurrentDay(LocalDate day) {
+    this.today = day;
+    this.weekStart = day.minusDays(day.getDayOfWeek().getValue() - 1L);
+  }
+
+  /**
+   * Schedules the rollover at the start of every day.
+   */
+  private void scheduleRollover() {
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "insights-rollover");
+      thread.setDaemon(true);
+      return thread;
+    });
+    LocalDateTime now = LocalDateTime.now(clock);
+    long delay = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+    scheduler.scheduleAtFixedRate(this::rollover, delay, TimeUnit.DAYS.toMillis(1),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Replaces the snapshot of a task and moves it between the counters.
+   *
+   * @param taskId the ID of the task
+   * @param next the new snapshot of the task, or null if the task was removed
+   * @return true if the counters changed, false otherwise
+   */
+  private boolean update(UUID taskId, TaskSnapshot next) {
+    TaskSnapshot previous = snapshots.get(taskId);
+    if (Objects.equals(previous, next)) {
+      return false;
+    }
+    if (previous != null) {
+      subtract(taskId, previous);
+    }
+    if (next == null) {
+      snapshots.remove(taskId);
+    } else {
+      snapshots.put(taskId, next);
+      add(taskId, next);
+    }
+    return true;
+  }
+
+  /**
+   * Adds a task to the counters.
+   *
+   * @param taskId the ID of the task
+   * @param snapshot the snapshot of the task
+   */
+  private void add(UUID taskId, TaskSnapshot snapshot) {
+    if (snapshot.completed()) {
+      addCompleted(taskId, snapshot);
+    } else {
+      openTasks.put(taskId, snapshot.name());
+      openByPriority.merge(snapshot.priority(), 1, Integer::sum);
+    }
+  }
+
+  /**
+   * Adds a completed task to the counters for today and this week, if it was completed then.
+   *
+   * @param taskId the ID of the task
+   * @param snapshot the snapshot of the task
+   */
+  private void addCompleted(UUID taskId, TaskSnapshot snapshot) {
+    LocalDate completedDay = snapshot.completedDay();
+    if (completedDay == null) {
+      return;
+    }
+    if (completedDay.equals(today)) {
+      completedToday.put(taskId, snapshot.name());
+    }
+    if (!completedDay.isBefore(weekStart) && completedDay.isBefore(weekStart.plusWeeks(1))) {
+      completedThisWeek.put(taskId, snapshot.name());
+    }
+  }
+
+  /**
+   * Removes a task from the counters.
+   *
+   * @param taskId the ID of the task
+   * @param snapshot the previous snapshot of the task
+   */
+  private void subtract(UUID taskId, TaskSnapshot snapshot) {
+    if (snapshot.completed()) {
+      completedToday.remove(taskId);
+      completedThisWeek.remove(taskId);
+    } else {
+      openTasks.remove(taskId);
+      openByPriority.merge(snapshot.priority(), -1, Integer::sum);
+    }
+  }
+
+  /**
+   * Notifies all observers with the current insights.
+   */
+  private void notifyObservers() {
+    InsightsSummary summary = getSummary();
+    for (InsightsObserver observer : observers) {
+      try {
+        observer.onInsightsChanged(summary);
+      } catch (RuntimeException e) {
+        logger.error("Error notifying observer {} of insights change: {}",
+            observer.getClass().getSimpleName(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Applies the stored state of a task, since the task in an event may be outdated.
+   *
+   * @param task the task from the event
+   */
+  private void applyStored(Task task) {
+    Task storedTask = H2Manager.getTaskById(task.getId());
+    if (storedTask == null) {
+      remove(task.getId());
+    } else {
+      apply(storedTask);
+    }
+  }
+
+  /**
+   * Updates the counters with the created task.
+   *
+   * @param task the task that was created
+   */
+  @Override
+  public void onTaskCreated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Updates the counters with the updated task.
+   *
+   * @param task the task that was updated
+   */
+  @Override
+  public void onTaskUpdated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Removes the deleted task from the counters.
+   *
+   * @param task the task that was deleted
+   */
+  @Override
+  public void onTaskDeleted(Task task) {
+    remove(task.getId());
+  }
+
+  /**
+   * Assignments do not affect the insights.
+   *
+   * @param task the task that was assigned
+   * @param user the user the task was assigned to
+   */
+  @Override
+  public void onTaskAssigned(Task task, User user) {
+    // Not needed
+  }
+
+  /**
+   * Updates the counters with the completed task.
+   *
+   * @param task the task that was completed
+   */
+  @Override
+  public void onTaskCompleted(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * The counters are updated on storage synchronization instead.
+   */
+  @Override
+  public void onCacheRefreshed() {
+    // Not needed
+  }
+
+  /**
+   * Updates the counters with the synchronized tasks, only reading the tasks that changed when
+   * they are known.
+   *
+   * @param taskIds the IDs of the tasks that changed, or null if any task may have changed
+   */
+  @Override
+  public void onLocalStorageSynchronized(Set<UUID> taskIds) {
+    if (taskIds == null) {
+      synchronize(H2Manager.getAllTasks());
+    } else if (!taskIds.isEmpty()) {
+      synchronizeTasks(taskIds, H2Manager.getTasksByIds(taskIds));
+    }
+  }
+}
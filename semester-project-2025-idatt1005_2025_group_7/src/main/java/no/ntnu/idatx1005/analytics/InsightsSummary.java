@@ -0,0 +1,21 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.util.List;
+import java.util.Map;
+import no.ntnu.idatx1005.model.task.Priority;
+
+/**
+ * <h3>Insights Summary Record</h3>
+ *
+ * <p>An immutable snapshot of the counters kept by the {@link InsightsAggregator}.
+ *
+ * @param completedToday the names of the tasks completed today
+ * @param completedThisWeek the names of the tasks completed this week
+ * @param openByPriority the number of open tasks per priority
+ * @param pendingPreview the names of the first open tasks
+ * @param pendingCount the total number of open tasks
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record InsightsSummary(List<String> completedToday, List<String> completedThisWeek,
+    Map<Priority, Integer> openByPriority, List<String> pendingPreview, int pendingCount) {}
@@ -0,0 +1,156 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.util.Arrays;
+
+/**
+ * <h3>Streaming histogram of lead times.</h3>
+ *
+ * <p>A compact histogram with log-linear buckets, in the style of HdrHistogram. Values below
+ * {@code 2^SUB_BUCKET_BITS} get a bucket each, and every following power of two is split into
+ * {@code 2^(SUB_BUCKET_BITS - 1)} equally wide buckets. Percentiles are therefore accurate to
+ * about 3% of the value, while a year of lead times in minutes fits in a few hundred counters.
+ *
+ * <p>Histograms can be merged and values can be removed again, which lets rolling windows be
+ * built from one histogram per week.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class LeadTimeHistogram {
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int LINEAR_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_BUCKETS = LINEAR_BUCKETS / 2;
+
+  private long[] counts;
+  private long totalCount;
+
+  /**
+   * Constructs an empty histogram.
+   */
+  public LeadTimeHistogram() {
+    this.counts = new long[LINEAR_BUCKETS];
+    this.totalCount = 0;
+  }
+
+  /**
+   * Records a value.
+   *
+   * @param value the value to record, negative values are recorded as zero
+   */
+  public void record(long value) {
+    int index = bucketIndex(Math.max(0, value));
+    ensureCapacity(index);
+    counts[index]++;
+    totalCount++;
+  }
+
+  /**
+   * Removes a previously recorded value.
+   *
+   * @param value the value to remove
+   */
+  public void remove(long value) {
+    int index = bucketIndex(Math.max(0, value));
+    if (index < counts.length && counts[index] > 0) {
+      counts[index]--;
+      totalCount--;
+    }
+  }
+
+  /**
+   * Adds all values of another histogram to this histogram.
+   *
+   * @param other the histogram to add
+   */
+  public void add(LeadTimeHistogram other) {
+    ensureCapacity(other.counts.length - 1);
+    for (int i = 0; i < other.counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return the number of recorded values
+   */
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  /**
+   * Returns the value at the given percentile, or 0 if the histogram is empty. The returned
+   * value is the middle of the bucket the percentile falls in.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the value at the percentile
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return (lowestValue(i) + highestValue(i)) / 2;
+      }
+    }
+    return highestValue(counts.length - 1);
+  }
+
+  /**
+   * Returns the index of the bucket a value belongs to.
+   *
+   * @param value the non-negative value
+   * @return the index of the bucket
+   */
+  static int bucketIndex(long value) {
+    if (value < LINEAR_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return shift * HALF_BUCKETS + (int) (value >>> shift);
+  }
+
+  /**
+   * Returns the lowest value of a bucket.
+   *
+   * @param index the index of the bucket
+   * @return the lowest value of the bucket
+   */
+  static long lowestValue(int index) {
+    if (index < LINEAR_BUCKETS) {
+      return index;
+    }
+    int shift = index / HALF_BUCKETS - 1;
+    return (long) (index - shift * HALF_BUCKETS) << shift;
+  }
+
+  /**
+   * Returns the highest value of a bucket.
+   *
+   * @param index the index of the bucket
+   * @return the highest value of the bucket
+   */
+  static long highestValue(int index) {
+    if (index < LINEAR_BUCKETS) {
+      return index;
+    }
+    int shift = index / HALF_BUCKETS - 1;
+    return ((long) (index - shift * HALF_BUCKETS + 1) << shift) - 1;
+  }
+
+  /**
+   * Grows the counts so the given index fits.
+   *
+   * @param index the index that must fit
+   */
+  private void ensureCapacity(int index) {
+    if (index >= counts.length) {
+      counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package no.ntnu.idatx1005.analytics;
+
+/**
+ * <h3>Workload per due day.</h3>
+ *
+ * <p>A Fenwick tree (binary indexed tree) over days, keyed by epoch day. Adding load to a day and
+ * summing the load due in any range of days both take {@code O(log n)}, where {@code n} is the
+ * number of days the timeline spans. The plain load per day is kept next to the tree, so single
+ * days are read in constant time and the tree can be rebuilt in linear time when it has to grow
+ * to fit a day outside its range.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class LoadTimeline {
+  private static final int INITIAL_DAYS = 64;
+
+  private long firstDay;
+  private int[] daily;
+  private int[] tree;
+  private int total;
+
+  /**
+   * Constructs an empty timeline.
+   */
+  public LoadTimeline() {
+    this.daily = new int[0];
+    this.tree = new int[1];
+    this.total = 0;
+  }
+
+  /**
+   * Adds load to a day. Negative load removes it again.
+   *
+   * @param epochDay the epoch day the load is due on
+   * @param load the load to add
+   */
+  public void add(long epochDay, int load) {
+    ensureRange(epochDay);
+    int index = (int) (epochDay - firstDay);
+    daily[index] += load;
+    total += load;
+    for (int i = index + 1; i < tree.length; i += i & -i) {
+      tree[i] += load;
+    }
+  }
+
+  /**
+   * Returns the load due on a single day.
+   *
+   * @param epochDay the epoch day
+   * @return the load due on the day
+   */
+  public int getLoad(long epochDay) {
+    long index = epochDay - firstDay;
+    return index < 0 || index >= daily.length ? 0 : daily[(int) index];
+  }
+
+  /**
+   * Returns the load due between two days, both inclusive.
+   *
+   * @param fromEpochDay the first day
+   * @param toEpochDay the last day
+   * @return the load due in the range
+   */
+  public int getLoad(long fromEpochDay, long toEpochDay) {
+    if (toEpochDay < fromEpochDay) {
+      return 0;
+    }
+    return loadUpTo(toEpochDay) - loadUpTo(fromEpochDay - 1);
+  }
+
+  /**
+   * Returns the load due on or before a day.
+   *
+   * @param epochDay the last day
+   * @return the load due on or before the day
+   */
+  public int loadUpTo(long epochDay) {
+    long index = epochDay - firstDay;
+    if (index < 0) {
+      return 0;
+    }
+    if (index >= daily.length) {
+      return total;
+    }
+    int sum = 0;
+    for (int i = (int) index + 1; i > 0; i -= i & -i) {
+      sum += tree[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Returns the total load in the timeline.
+   *
+   * @return the total load
+   */
+  public int getTotal() {
+    return total;
+  }
+
+  /**
+   * Returns whether the timeline has no load.
+   *
+   * @return true if the timeline is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return total == 0;
+  }
+
+  /**
+   * Grows the timeline so the given day fits, and rebuilds the tree if it had to grow.
+   *
+   * @param epochDay the day that must fit
+   */
+  private void ensureRange(long epochDay) {
+    if (daily.length == 0) {
+      firstDay = epochDay - INITIAL_DAYS / 2;
+      daily = new int[INITIAL_DAYS];
+      tree = new int[INITIAL_DAYS + 1];
+      return;
+    }
+    if (epochDay >= firstDay && epochDay < firstDay + daily.length) {
+      return;
+    }
+    long newFirstDay = Math.min(firstDay, epochDay);
+    long lastDay = Math.max(firstDay + daily.length - 1, epochDay);
+    int length = daily.length;
+    while (length < lastDay - newFirstDay + 1) {
+      length *= 2;
+    }
+    // Keep some room on the side that grew, so days moving in one direction rarely rebuild
+    if (epochDay < firstDay) {
+      newFirstDay = lastDay - length + 1;
+    }
+
+    int[] grown = new int[length];
+    System.arraycopy(daily, 0, grown, (int) (firstDay - newFirstDay), daily.length);
+    firstDay = newFirstDay;
+    daily = grown;
+    tree = new int[length + 1];
+    for (int i = 1; i <= length; i++) {
+      tree[i] += daily[i - 1];
+      int parent = i + (i & -i);
+      if (parent <= length) {
+        tree[parent] += tree[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.util.List;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+
+/**
+ * <h3>Rebalance Plan Record</h3>
+ *
+ * <p>The plan made by the {@link SickLeaveRebalancer} for the open tasks of a sick user. The plan
+ * is only a preview; nothing is stored until it is committed.
+ *
+ * @param sickUser the user whose tasks are moved
+ * @param reassignments the tasks that are moved, and the user each of them is moved to
+ * @param unplacedTasks the tasks no other user has room for, which stay with the sick user
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record RebalancePlan(User sickUser, List<Reassignment> reassignments,
+    List<Task> unplacedTasks) {
+
+  /**
+   * A task moved from the sick user to another user.
+   *
+   * @param task the task
+   * @param user the user the task is moved to
+   */
+  public record Reassignment(Task task, User user) {
+  }
+
+  /**
+   * Returns whether the plan has no tasks to move.
+   *
+   * @return true if no task is moved, false otherwise
+   */
+  public boolean isEmpty() {
+    return reassignments.isEmpty();
+  }
+}
@@ -0,0 +1,135 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * <h3>Rolling window of weekly completion statistics.</h3>
+ *
+ * <p>Keeps a {@link LeadTimeHistogram} and completion counters per week, keyed by the Monday of
+ * the week. Statistics for the window are computed by merging the weeks in it, so completions
+ * can be added and removed one by one and old weeks can be dropped without rescanning tasks.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class RollingWindow {
+  private final TreeMap<LocalDate, WeekSlot> weeks;
+
+  /**
+   * The statistics of a single week.
+   */
+  private static class WeekSlot {
+    private final LeadTimeHistogram histogram = new LeadTimeHistogram();
+    private long completed;
+    private long overdue;
+  }
+
+  /**
+   * Constructs an empty window.
+   */
+  public RollingWindow() {
+    this.weeks = new TreeMap<>();
+  }
+
+  /**
+   * Adds a completion to the window.
+   *
+   * @param weekStart the Monday of the week the task was completed in
+   * @param leadTimeMinutes the lead time of the task in minutes
+   * @param overdue whether the task was completed after its due date
+   */
+  public void add(LocalDate weekStart, long leadTimeMinutes, boolean overdue) {
+    WeekSlot slot = weeks.computeIfAbsent(weekStart, week -> new WeekSlot());
+    slot.histogram.record(leadTimeMinutes);
+    slot.completed++;
+    if (overdue) {
+      slot.overdue++;
+    }
+  }
+
+  /**
+   * Removes a completion from the window. Completions in weeks that have been dropped are
+   * ignored.
+   *
+   * @param weekStart the Monday of the week the task was completed in
+   * @param leadTimeMinutes the lead time of the task in minutes
+   * @param overdue whether the task was completed after its due date
+   */
+  public void remove(LocalDate weekStart, long leadTimeMinutes, boolean overdue) {
+    WeekSlot slot = weeks.get(weekStart);
+    if (slot == null) {
+      return;
+    }
+    slot.histogram.remove(leadTimeMinutes);
+    slot.completed--;
+    if (overdue) {
+      slot.overdue--;
+    }
+    if (slot.completed <= 0) {
+      weeks.remove(weekStart);
+    }
+  }
+
+  /**
+   * Adds all completions of another window to this window.
+   *
+   * @param other the window to add
+   */
+  public void merge(RollingWindow other) {
+    other.weeks.forEach((weekStart, otherSlot) -> {
+      WeekSlot slot = weeks.computeIfAbsent(weekStart, week -> new WeekSlot());
+      slot.histogram.add(otherSlot.histogram);
+      slot.completed += otherSlot.completed;
+      slot.overdue += otherSlot.overdue;
+    });
+  }
+
+  /**
+   * Drops all weeks before the given week.
+   *
+   * @param weekStart the first week to keep
+   */
+  public void dropBefore(LocalDate weekStart) {
+    weeks.headMap(weekStart).clear();
+  }
+
+  /**
+   * Returns whether the window has no completions.
+   *
+   * @return true if the window is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return weeks.isEmpty();
+  }
+
+  /**
+   * Computes the statistics of the given number of weeks up to and including the current week.
+   *
+   * @param currentWeekStart the Monday of the current week
+   * @param weekCount the number of weeks in the window
+   * @return the statistics of the window
+   */
+  public AnalyticsStats stats(LocalDate currentWeekStart, int weekCount) {
+    LocalDate firstWeek = currentWeekStart.minusWeeks(weekCount - 1L);
+    LeadTimeHistogram histogram = new LeadTimeHistogram();
+    List<Long> throughput = new ArrayList<>(weekCount);
+    long completed = 0;
+    long overdue = 0;
+    for (int i = 0; i < weekCount; i++) {
+      WeekSlot slot = weeks.get(firstWeek.plusWeeks(i));
+      throughput.add(slot == null ? 0 : slot.completed);
+      if (slot != null) {
+        histogram.add(slot.histogram);
+        completed += slot.completed;
+        overdue += slot.overdue;
+      }
+    }
+    return new AnalyticsStats(completed, List.copyOf(throughput),
+        completed == 0 ? 0 : (double) overdue / completed,
+        histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+        histogram.getValueAtPercentile(99));
+  }
+}
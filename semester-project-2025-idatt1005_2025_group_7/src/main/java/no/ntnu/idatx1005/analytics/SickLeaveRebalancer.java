@@ -0,0 +1,173 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Rebalancer of the workload of sick users.</h3>
+ *
+ * <p>Plans how the open tasks of a user that was marked as sick are moved to the other users.
+ * Only the tasks of the sick user are planned; the assignments of everyone else are left as they
+ * are. The tasks are placed in order of priority and due date, each with the user that has the
+ * most capacity left, as long as the task fits within that capacity and does not overload the
+ * user in any week around its due date according to the {@link CapacityTimeline}.
+ *
+ * <p>The candidates are kept in a heap ordered by the capacity they have left, so a task is
+ * usually placed by looking at the top of the heap only, and a task larger than the capacity of
+ * the top candidate is known not to fit anyone.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class SickLeaveRebalancer {
+  private static final Logger logger = LoggerFactory.getLogger(SickLeaveRebalancer.class);
+  /** The order the tasks of a sick user are placed in: urgent and important tasks first. */
+  private static final Comparator<Task> PLACEMENT_ORDER = Comparator
+      .<Task>comparingInt(task -> task.getPriority().ordinal())
+      .thenComparing(Task::getDueDate)
+      .thenComparing(Comparator.<Task>comparingInt(task -> task.getSize().getValue()).reversed());
+  private static SickLeaveRebalancer instance;
+
+  private final WorkloadLedger workloadLedger;
+  private final CapacityTimeline capacityTimeline;
+
+  /**
+   * A user the tasks can be moved to, with the load already planned for them.
+   */
+  private static class Candidate {
+    private final User user;
+    private final LoadTimeline planned;
+    private int remaining;
+
+    /**
+     * Constructs a candidate.
+     *
+     * @param user the user
+     * @param remaining the capacity the user has left
+     */
+    Candidate(User user, int remaining) {
+      this.user = user;
+      this.remaining = remaining;
+      this.planned = new LoadTimeline();
+    }
+  }
+
+  /**
+   * Constructs a rebalancer reading from the given ledger and timeline.
+   *
+   * @param workloadLedger the ledger of the workloads
+   * @param capacityTimeline the capacity timeline of the users
+   */
+  SickLeaveRebalancer(WorkloadLedger workloadLedger, CapacityTimeline capacityTimeline) {
+    this.workloadLedger = workloadLedger;
+    this.capacityTimeline = capacityTimeline;
+  }
+
+  /**
+   * Returns the instance of the rebalancer.
+   *
+   * @return the rebalancer instance
+   */
+  public static synchronized SickLeaveRebalancer getInstance() {
+    if (instance == null) {
+      instance = new SickLeaveRebalancer(WorkloadLedger.getInstance(),
+          CapacityTimeline.getInstance());
+    }
+    return instance;
+  }
+
+  /**
+   * Plans how the open tasks of a sick user are moved to the users that are not sick.
+   *
+   * @param sickUser the user that was marked as sick
+   * @return the plan
+   */
+  public RebalancePlan plan(User sickUser) {
+    List<Task> tasks = new ArrayList<>(workloadLedger.getOpenTasks(sickUser.getId()));
+    tasks.sort(PLACEMENT_ORDER);
+
+    PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+        Comparator.<Candidate>comparingInt(candidate -> -candidate.remaining));
+    for (User user : workloadLedger.getUsers()) {
+      if (!user.getSickness() && !user.getId().equals(sickUser.getId())) {
+        candidates.add(new Candidate(user, workloadLedger.getAvailableCapacity(user)));
+      }
+    }
+
+    List<RebalancePlan.Reassignment> reassignments = new ArrayList<>();
+    List<Task> unplacedTasks = new ArrayList<>();
+    for (Task task : tasks) {
+      Candidate candidate = place(task, candidates);
+      if (candidate == null) {
+        unplacedTasks.add(task);
+      } else {
+        reassignments.add(new RebalancePlan.Reassignment(task, candidate.user));
+      }
+    }
+
+    logger.info("Planned sick leave of {}: {} tasks moved, {} tasks without room",
+        sickUser.getEmail(), reassignments.size(), unplacedTasks.size());
+    return new RebalancePlan(sickUser, List.copyOf(reassignments), List.copyOf(unplacedTasks));
+  }
+
+  /**
+   * Finds the candidate with the most capacity left that the task fits, and plans the task for
+   * them.
+   *
+   * @param task the task
+   * @param candidates the candidates, ordered by the capacity they have left
+   * @return the candidate the task was planned for, or null if it fits no one
+   */
+  private Candidate place(Task task, PriorityQueue<Candidate> candidates) {
+    int size = task.getSize().getValue();
+    // Overdue tasks count towards the current week
+    LocalDate today = capacityTimeline.getToday();
+    LocalDate dueDate = task.getDueDate().toLocalDate();
+    if (dueDate.isBefore(today)) {
+      dueDate = today;
+    }
+    List<Candidate> skipped = new ArrayList<>();
+    Candidate chosen = null;
+    // Once the top candidate has too little capacity left, no other candidate has enough either
+    while (!candidates.isEmpty() && candidates.peek().remaining >= size) {
+      Candidate candidate = candidates.poll();
+      if (!task.getAssignedUserIds().contains(candidate.user.getId())
+          && fitsWeeks(candidate, dueDate, size)) {
+        chosen = candidate;
+        chosen.remaining -= size;
+        chosen.planned.add(dueDate.toEpochDay(), size);
+        skipped.add(chosen);
+        break;
+      }
+      skipped.add(candidate);
+    }
+    candidates.addAll(skipped);
+    return chosen;
+  }
+
+  /**
+   * Returns whether a task fits the weeks around its due date for a candidate. The load already
+   * planned for the candidate in any of those weeks is counted in full, so the check errs on the
+   * side of not overloading the candidate.
+   *
+   * @param candidate the candidate
+   * @param dueDate the day the task is due
+   * @param size the size of the task
+   * @return true if the task fits, false otherwise
+   */
+  private boolean fitsWeeks(Candidate candidate, LocalDate dueDate, int size) {
+    long dueDay = dueDate.toEpochDay();
+    int plannedLoad = candidate.planned.getLoad(
+        dueDay - (CapacityTimeline.PEAK_WINDOW_DAYS - 1L),
+        dueDay + (CapacityTimeline.PEAK_WINDOW_DAYS - 1L));
+    int peakLoad = capacityTimeline.getPeakLoadWith(candidate.user, dueDate, size);
+    return peakLoad + plannedLoad <= candidate.user.getTaskCapacity();
+  }
+}
@@ -0,0 +1,494 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.observer.AnalyticsObserver;
+import no.ntnu.idatx1005.observer.StorageSyncObserver;
+import no.ntnu.idatx1005.observer.TaskEventObserver;
+import no.ntnu.idatx1005.storage.H2Manager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Throughput and lead time analytics.</h3>
+ *
+ * <p>Keeps a {@link RollingWindow} of weekly completion statistics for all tasks and per
+ * priority, size and assigned user. The windows are updated one completion at a time from task
+ * events and storage synchronizations, so lead time percentiles, overdue rates and weekly
+ * throughput never require sorting or rescanning all tasks.
+ *
+ * <p>On startup, the completed tasks in the local storage are backfilled once in the background.
+ * The backfill builds partial windows in parallel and merges them.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class TaskAnalytics implements TaskEventObserver, StorageSyncObserver {
+  private static final Logger logger = LoggerFactory.getLogger(TaskAnalytics.class);
+  /** The number of weeks in the rolling window. */
+  public static final int WINDOW_WEEKS = 12;
+  private static TaskAnalytics instance;
+
+  private final Clock clock;
+  private final List<AnalyticsObserver> observers;
+  private Accumulator state;
+
+  /**
+   * The parts of a completed task the statistics depend on.
+   */
+  private record Completion(LocalDate weekStart, long leadTimeMinutes, boolean overdue,
+      Priority priority, Size size, List<UUID> assignees) {
+
+    /**
+     * Creates the completion of a task.
+     *
+     * @param task the task
+     * @return the completion of the task, or null if the task is not completed
+     */
+    static Completion of(Task task) {
+      if (!task.isCompleted() || task.getCompletedDate() == null) {
+        return null;
+      }
+      LocalDate completedDay = task.getCompletedDate().toLocalDate();
+      return new Completion(
+          completedDay.minusDays(completedDay.getDayOfWeek().getValue() - 1L),
+          Duration.between(task.getCreatedDate(), task.getCompletedDate()).toMinutes(),
+          task.getCompletedDate().isAfter(task.getDueDate()),
+          task.getPriority(),
+          task.getSize(),
+          List.copyOf(task.getAssignedUserIds()));
+    }
+  }
+
+  /**
+   * The windows for all dimensions, together with the completions they contain. Accumulators
+   * built from separate sets of tasks can be merged.
+   */
+  private static class Accumulator {
+    private final RollingWindow overall = new RollingWindow();
+    private final Map<Priority, RollingWindow> byPriority = new EnumMap<>(Priority.class);
+    private final Map<Size, RollingWindow> bySize = new EnumMap<>(Size.class);
+    private final Map<UUID, RollingWindow> byUser = new HashMap<>();
+    private final Map<UUID, Completion> completions = new HashMap<>();
+
+    /**
+     * Adds a completed task to the windows.
+     *
+     * @param task the task
+     */
+    void add(Task task) {
+      Completion completion = Completion.of(task);
+      if (completion != null) {
+        add(task.getId(), completion);
+      }
+    }
+
+    /**
+     * Adds a completion to the windows.
+     *
+     * @param taskId the ID of the completed task
+     * @param completion the completion
+     */
+    void add(UUID taskId, Completion completion) {
+      completions.put(taskId, completion);
+      forEachWindow(completion, true, window -> {
+        window.add(completion.weekStart(), completion.leadTimeMinutes(), completion.overdue());
+        return window;
+      });
+    }
+
+    /**
+     * Removes a completion from the windows.
+     *
+     * @param taskId the ID of the completed task
+     */
+    void remove(UUID taskId) {
+      Completion completion = completions.remove(taskId);
+      if (completion != null) {
+        forEachWindow(completion, false, window -> {
+          window.remove(completion.weekStart(), completion.leadTimeMinutes(),
+              completion.overdue());
+          return window;
+        });
+      }
+    }
+
+    /**
+     * Applies an action to every window a completion belongs to.
+     *
+     * @param completion the completion
+     * @param create whether missing windows should be created
+     * @param action the action to apply
+     */
+    private void forEachWindow(Completion completion, boolean create,
+        Function<RollingWindow, RollingWindow> action) {
+      action.apply(overall);
+      List<RollingWindow> windows = new ArrayList<>();
+      windows.add(window(byPriority, completion.priority(), create));
+      windows.add(window(bySize, completion.size(), create));
+      completion.assignees().forEach(userId -> windows.add(window(byUser, userId, create)));
+      windows.stream().filter(Objects::nonNull).forEach(action::apply);
+    }
+
+    /**
+     * Returns the window of a key.
+     *
+     * @param windows the windows of a dimension
+     * @param key the key
+     * @param create whether the window should be created if it is missing
+     * @param <K> the type of the key
+     * @return the window, or null if it is missing and should not be created
+     */
+    private static <K> RollingWindow window(Map<K, RollingWindow> windows, K key,
+        boolean create) {
+      return create ? windows.computeIfAbsent(key, k -> new RollingWindow()) : windows.get(key);
+    }
+
+    /**
+     * Adds all windows and completions of another accumulator to this one.
+     *
+     * @param other the accumulator to merge
+     */
+    void merge(Accumulator other) {
+      overall.merge(other.overall);
+      other.byPriority.forEach((key, window) -> window(byPriority, key, true).merge(window));
+      other.bySize.forEach((key, window) -> window(bySize, key, true).merge(window));
+      other.byUser.forEach((key, window) -> window(byUser, key, true).merge(window));
+      completions.putAll(other.completions);
+    }
+
+    /**
+     * Drops the weeks before the given week from all windows.
+     *
+     * @param weekStart the first week to keep
+     */
+    void dropBefore(LocalDate weekStart) {
+      overall.dropBefore(weekStart);
+      byPriority.values().forEach(window -> window.dropBefore(weekStart));
+      bySize.values().forEach(window -> window.dropBefore(weekStart));
+      byUser.values().forEach(window -> window.dropBefore(weekStart));
+      byUser.values().removeIf(RollingWindow::isEmpty);
+    }
+  }
+
+  /**
+   * Constructs empty analytics.
+   *
+   * @param clock the clock used to determine the current week
+   */
+  TaskAnalytics(Clock clock) {
+    this.clock = clock;
+    this.observers = new CopyOnWriteArrayList<>();
+    this.state = new Accumulator();
+  }
+
+  /**
+   * Returns the instance of the analytics. The first time it is requested, the analytics are
+   * registered for storage synchronizations and the backfill is started in the background.
+   *
+   * @return the analytics instance
+   */
+  public static synchronized TaskAnalytics getInstance() {
+    if (instance == null) {
+      instance = new TaskAnalytics(Clock.systemDefaultZone());
+      H2Manager.addSyncObserver(instance);
+      TaskAnalytics analytics = instance;
+      CompletableFuture.runAsync(() -> analytics.backfill(H2Manager.getCompletedTasks()))
+          .exceptionally(e -> {
+            logger.error("Error backfilling task analytics: {}", e.getMessage());
+            return null;
+          });
+    }
+    return instance;
+  }
+
+  /**
+   * Adds an observer that is notified every time the analytics change.
+   *
+   * @param observer the observer to add
+   */
+  public void addObserver(AnalyticsObserver observer) {
+    observers.add(observer);
+  }
+
+  /**
+   * Removes an analytics observer.
+   *
+   * @param observer the observer to remove
+   */
+  public void removeObserver(AnalyticsObserver observer) {
+    observers.remove(observer);
+  }
+
+  /**
+   * Adds the given completed tasks to the analytics. Partial windows are built in parallel and
+   * merged, and tasks already added by an event while the backfill was running are skipped.
+   *
+   * @param completedTasks the completed tasks
+   */
+  public void backfill(List<Task> completedTasks) {
+    long start = System.nanoTime();
+    LocalDate firstWeek = firstWeek();
+    Accumulator backfilled = completedTasks.parallelStream()
+        .filter(task -> task.getCompletedDate() != null
+            && !task.getCompletedDate().toLocalDate().isBefore(firstWeek))
+        .collect(Accumulator::new, Accumulator::add, Accumulator::merge);
+
+    synchronized (this) {
+      if (state.completions.isEmpty()) {
+        state = backfilled;
+      } else {
+        backfilled.completions.forEach((taskId, completion) -> {
+          if (!state.completions.containsKey(taskId)) {
+            state.add(taskId, completion);
+          }
+        });
+      }
+    }
+    logger.info("Task analytics backfilled with {} completed tasks in {} ms",
+        backfilled.completions.size(), (System.nanoTime() - start) / 1_000_000);
+    notifyObservers();
+  }
+
+  /**
+   * Updates the analytics with the current state of a task. Tasks that are not completed are
+   * removed from the analytics.
+   *
+   * @param task the task
+   */
+  public void apply(Task task) {
+    boolean changed;
+    synchronized (this) {
+      changed = update(task.getId(), Completion.of(task));
+    }
+    if (changed) {
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Brings the analytics in line with the given tasks. Only completions that were added, changed
+   * or removed since the last update touch the windows.
+   *
+   * @param tasks all tasks
+   */
+  public void synchronize(List<Task> tasks) {
+    boolean changed = false;
+    synchronized (this) {
+      Set<UUID> present = new HashSet<>();
+      for (Task task : tasks) {
+        present.add(task.getId());
+        changed |= update(task.getId(), Completion.of(task));
+      }
+      for (UUID taskId : new ArrayList<>(state.completions.keySet())) {
+        if (!present.contains(taskId)) {
+          changed |= update(taskId, null);
+        }
+      }
+    }
+    if (changed) {
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Brings the analytics in line with the given tasks only, leaving the other tasks as they are.
+   * Tasks whose ID is given but that are not among the stored tasks were deleted, and are
+   * removed.
+   *
+   * @param taskIds the IDs of the tasks that changed
+   * @param storedTasks the stored state of the tasks that still exist, by their ID
+   */
+  public void synchronizeTasks(Set<UUID> taskIds, Map<UUID, Task> storedTasks) {
+    boolean changed = false;
+    synchronized (this) {
+      for (UUID taskId : taskIds) {
+        Task task = storedTasks.get(taskId);
+        changed |= update(taskId, task == null ? null : Completion.of(task));
+      }
+    }
+    if (changed) {
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Returns an immutable snapshot of the statistics of the current rolling window. Weeks that
+   * have moved out of the window are dropped.
+   *
+   * @return the current analytics
+   */
+  public synchronized AnalyticsSnapshot getSnapshot() {
+    LocalDate firstWeek = firstWeek();
+    LocalDate currentWeek = firstWeek.plusWeeks(WINDOW_WEEKS - 1L);
+    state.dropBefore(firstWeek);
+
+    Map<Priority, AnalyticsStats> byPriority = new EnumMap<>(Priority.class);
+    state.byPriority.forEach((key, window) ->
+        byPriority.put(key, window.stats(currentWeek, WINDOW_WEEKS)));
+    Map<Size, AnalyticsStats> bySize = new EnumMap<>(Size.class);
+    state.bySize.forEach((key, window) -> bySize.put(key, window.stats(currentWeek, WINDOW_WEEKS)));
+    Map<UUID, AnalyticsStats> byUser = new HashMap<>();
+    state.byUser.forEach((key, window) -> byUser.put(key, window.stats(currentWeek, WINDOW_WEEKS)));
+
+    return new AnalyticsSnapshot(firstWeek, state.overall.stats(currentWeek, WINDOW_WEEKS),
+        Map.copyOf(byPriority), Map.copyOf(bySize), Map.copyOf(byUser));
+  }
+
+  /**
+   * Returns the Monday of the first week in the rolling window.
+   *
+   * @return the first week in the window
+   */
+  private LocalDate firstWeek() {
+    LocalDate today = LocalDate.now(clock);
+    return today.minusDays(today.getDayOfWeek().getValue() - 1L)
+        .minusWeeks(WINDOW_WEEKS - 1L);
+  }
+
+  /**
+   * Replaces the completion of a task. Must be called while synchronized on the analytics.
+   *
+   * @param taskId the ID of the task
+   * @param next the new completion of the task, or null if it is not completed
+   * @return true if the windows changed, false otherwise
+   */
+  private boolean update(UUID taskId, Completion next) {
+    Completion previous = state.completions.get(taskId);
+    if (Objects.equals(previous, next)) {
+      return false;
+    }
+    state.remove(taskId);
+    if (next != null) {
+      state.add(taskId, next);
+    }
+    return true;
+  }
+
+  /**
+   * Notifies all observers with the current analytics.
+   */
+  private void notifyObservers() {
+    if (observers.isEmpty()) {
+      return;
+    }
+    AnalyticsSnapshot snapshot = getSnapshot();
+    for (AnalyticsObserver observer : observers) {
+      try {
+        observer.onAnalyticsChanged(snapshot);
+      } catch (RuntimeException e) {
+        logger.error("Error notifying observer {} of analytics change: {}",
+            observer.getClass().getSimpleName(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Applies the stored state of a task, since the task in an event may be outdated.
+   *
+   * @param task the task from the event
+   */
+  private void applyStored(Task task) {
+    Task storedTask = H2Manager.getTaskById(task.getId());
+    if (storedTask != null) {
+      apply(storedTask);
+    }
+  }
+
+  /**
+   * Updates the analytics with the created task.
+   *
+   * @param task the task that was created
+   */
+  @Override
+  public void onTaskCreated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Updates the analytics with the updated task.
+   *
+   * @param task the task that was updated
+   */
+  @Override
+  public void onTaskUpdated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Removes the deleted task from the analytics.
+   *
+   * @param task the task that was deleted
+   */
+  @Override
+  public void onTaskDeleted(Task task) {
+    boolean changed;
+    synchronized (this) {
+      changed = update(task.getId(), null);
+    }
+    if (changed) {
+      notifyObservers();
+    }
+  }
+
+  /**
+   * Updates the analytics with the new assignees of the task.
+   *
+   * @param task the task that was assigned
+   * @param user the user the task was assigned to
+   */
+  @Override
+  public void onTaskAssigned(Task task, User user) {
+    applyStored(task);
+  }
+
+  /**
+   * Updates the analytics with the completed task.
+   *
+   * @param task the task that was completed
+   */
+  @Override
+  public void onTaskCompleted(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * The analytics are updated on storage synchronization instead.
+   */
+  @Override
+  public void onCacheRefreshed() {
+    // Not needed
+  }
+
+  /**
+   * Updates the analytics with the synchronized tasks, only reading the tasks that changed when
+   * they are known.
+   *
+   * @param taskIds the IDs of the tasks that changed, or null if any task may have changed
+   */
+  @Override
+  public void onLocalStorageSynchronized(Set<UUID> taskIds) {
+    if (taskIds == null) {
+      synchronize(H2Manager.getCompletedTasks());
+    } else if (!taskIds.isEmpty()) {
+      synchronizeTasks(taskIds, H2Manager.getTasksByIds(taskIds));
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import no.ntnu.idatx1005.model.task.Task;
+
+/**
+ * <h3>Workload Change Record</h3>
+ *
+ * <p>The changes made to the {@link WorkloadLedger} by a single update, so views can patch only
+ * the affected users and tasks.
+ *
+ * @param changedUserIds the IDs of the users whose details or workload changed, including users
+ *     that were added or removed
+ * @param removedTaskIds the IDs of the tasks that are no longer open and unassigned, or that
+ *     changed and are listed in the updated tasks
+ * @param updatedTasks the open unassigned tasks that were added or changed
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record WorkloadChange(Set<UUID> changedUserIds, Set<UUID> removedTaskIds,
+    List<Task> updatedTasks) {
+
+  /**
+   * Returns whether the change is empty.
+   *
+   * @return true if nothing changed, false otherwise
+   */
+  public boolean isEmpty() {
+    return changedUserIds.isEmpty() && removedTaskIds.isEmpty() && updatedTasks.isEmpty();
+  }
+}
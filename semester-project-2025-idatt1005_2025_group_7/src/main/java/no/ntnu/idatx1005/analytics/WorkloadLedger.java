@@ -0,0 +1,479 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.observer.StorageSyncObserver;
+import no.ntnu.idatx1005.observer.TaskEventObserver;
+import no.ntnu.idatx1005.observer.WorkloadObserver;
+import no.ntnu.idatx1005.storage.H2Manager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Ledger of user workloads and unassigned tasks.</h3>
+ *
+ * <p>Keeps the open workload of every user, that is the sum of the sizes of the open tasks
+ * assigned to them, and the open tasks that are not assigned to anyone. A small entry of every
+ * task and user is kept, so each task event or storage synchronization only moves the tasks that
+ * changed, and observers are told exactly which users and tasks were affected.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class WorkloadLedger implements TaskEventObserver, StorageSyncObserver {
+  private static final Logger logger = LoggerFactory.getLogger(WorkloadLedger.class);
+  /** The order unassigned tasks are distributed in: highest priority and largest size first. */
+  public static final Comparator<Task> UNASSIGNED_TASK_ORDER = Comparator
+      .<Task>comparingInt(task -> task.getPriority().ordinal())
+      .thenComparing(Comparator.<Task>comparingInt(task -> task.getSize().ordinal()).reversed());
+  private static WorkloadLedger instance;
+
+  private final Map<UUID, User> users;
+  private final Map<UUID, UserEntry> userEntries;
+  private final Map<UUID, TaskEntry> taskEntries;
+  private final Map<UUID, Integer> workloads;
+  private final Map<UUID, Task> unassignedTasks;
+  private final Map<UUID, Map<UUID, Task>> openTasksByUser;
+  private final List<WorkloadObserver> observers;
+
+  /**
+   * The parts of a user the ledger depends on.
+   */
+  private record UserEntry(String firstName, String lastName, int capacity, boolean sick) {
+
+    /**
+     * Creates the entry of a user.
+     *
+     * @param user the user
+     * @return the entry of the user
+     */
+    static UserEntry of(User user) {
+      return new UserEntry(user.getFirstName(), user.getLastName(), user.getTaskCapacity(),
+          user.getSickness());
+    }
+  }
+
+  /**
+   * The parts of a task the ledger and the views of unassigned tasks depend on.
+   */
+  private record TaskEntry(String name, String description, Priority priority, Size size,
+      long dueDay, boolean completed, List<UUID> assignees) {
+
+    /**
+     * Creates the entry of a task.
+     *
+     * @param task the task
+     * @return the entry of the task
+     */
+    static TaskEntry of(Task task) {
+      return new TaskEntry(task.getName(), task.getDescription(), task.getPriority(),
+          task.getSize(), task.getDueDate().toLocalDate().toEpochDay(), task.isCompleted(),
+          List.copyOf(task.getAssignedUserIds()));
+    }
+
+    /**
+     * Returns whether the task is open and assigned to someone.
+     *
+     * @return true if the task adds to a workload, false otherwise
+     */
+    boolean isAssignedLoad() {
+      return !completed && !assignees.isEmpty();
+    }
+
+    /**
+     * Returns whether the task is open and not assigned to anyone.
+     *
+     * @return true if the task is unassigned, false otherwise
+     */
+    boolean isUnassigned() {
+      return !completed && assignees.isEmpty();
+    }
+  }
+
+  /**
+   * The changes collected during a single update.
+   */
+  private static class Changes {
+    private final Set<UUID> userIds = new HashSet<>();
+    private final Set<UUID> removedTaskIds = new HashSet<>();
+    private final Map<UUID, Task> updatedTasks = new LinkedHashMap<>();
+
+    /**
+     * Returns the immutable change.
+     *
+     * @return the change
+     */
+    WorkloadChange toChange() {
+      return new WorkloadChange(Set.copyOf(userIds), Set.copyOf(removedTaskIds),
+          List.copyOf(updatedTasks.values()));
+    }
+  }
+
+  /**
+   * Constructs an empty ledger.
+   */
+  WorkloadLedger() {
+    this.users = new HashMap<>();
+    this.userEntries = new HashMap<>();
+    this.taskEntries = new HashMap<>();
+    this.workloads = new HashMap<>();
+    this.unassignedTasks = new HashMap<>();
+    this.openTasksByUser = new HashMap<>();
+    this.observers = new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * Returns the instance of the ledger. The first time it is requested, the ledger is filled
+   * from the local storage and registered for storage synchronizations.
+   *
+   * @return the ledger instance
+   */
+  public static synchronized WorkloadLedger getInstance() {
+    if (instance == null) {
+      instance = new WorkloadLedger();
+      instance.synchronize(H2Manager.getAllUsers(), H2Manager.getAllTasks());
+      H2Manager.addSyncObserver(instance);
+    }
+    return instance;
+  }
+
+  /**
+   * Adds an observer that is notified every time workloads or unassigned tasks change.
+   *
+   * @param observer the observer to add
+   */
+  public void addObserver(WorkloadObserver observer) {
+    observers.add(observer);
+  }
+
+  /**
+   * Removes a workload observer.
+   *
+   * @param observer the observer to remove
+   */
+  public void removeObserver(WorkloadObserver observer) {
+    observers.remove(observer);
+  }
+
+  /**
+   * Returns the open workload of a user.
+   *
+   * @param userId the ID of the user
+   * @return the sum of the sizes of the open tasks assigned to the user
+   */
+  public synchronized int getWorkload(UUID userId) {
+    return workloads.getOrDefault(userId, 0);
+  }
+
+  /**
+   * Returns the capacity a user has left.
+   *
+   * @param user the user
+   * @return the capacity of the user minus their open workload
+   */
+  public int getAvailableCapacity(User user) {
+    return user.getTaskCapacity() - getWorkload(user.getId());
+  }
+
+  /**
+   * Returns a user in the ledger.
+   *
+   * @param userId the ID of the user
+   * @return the user, or null if the user is not in the ledger
+   */
+  public synchronized User getUser(UUID userId) {
+    return users.get(userId);
+  }
+
+  /**
+   * Returns all users in the ledger.
+   *
+   * @return the users
+   */
+  public synchronized List<User> getUsers() {
+    return List.copyOf(users.values());
+  }
+
+  /**
+   * Returns the open unassigned tasks, in the order they should be distributed in.
+   *
+   * @return the unassigned tasks
+   */
+  public synchronized List<Task> getUnassignedTasks() {
+    List<Task> tasks = new ArrayList<>(unassignedTasks.values());
+    tasks.sort(UNASSIGNED_TASK_ORDER);
+    return tasks;
+  }
+
+  /**
+   * Returns the open tasks assigned to a user.
+   *
+   * @param userId the ID of the user
+   * @return the open tasks of the user
+   */
+  public synchronized List<Task> getOpenTasks(UUID userId) {
+    Map<UUID, Task> tasks = openTasksByUser.get(userId);
+    return tasks == null ? List.of() : List.copyOf(tasks.values());
+  }
+
+  /**
+   * Updates the ledger with the current state of a task.
+   *
+   * @param task the task
+   */
+  public void apply(Task task) {
+    Changes changes = new Changes();
+    synchronized (this) {
+      updateTask(task.getId(), task, changes);
+    }
+    notifyObservers(changes);
+  }
+
+  /**
+   * Removes a task from the ledger.
+   *
+   * @param taskId the ID of the task
+   */
+  public void remove(UUID taskId) {
+    Changes changes = new Changes();
+    synchronized (this) {
+      updateTask(taskId, null, changes);
+    }
+    notifyObservers(changes);
+  }
+
+  /**
+   * Brings the ledger in line with the given users and tasks. Users and tasks that are unchanged
+   * since the last update do not touch the ledger, and those no longer present are removed.
+   *
+   * @param allUsers all users
+   * @param allTasks all tasks
+   */
+  public void synchronize(List<User> allUsers, List<Task> allTasks) {
+    Changes changes = new Changes();
+    synchronized (this) {
+      Set<UUID> presentUsers = new HashSet<>();
+      for (User user : allUsers) {
+        presentUsers.add(user.getId());
+        UserEntry next = UserEntry.of(user);
+        if (!next.equals(userEntries.put(user.getId(), next))) {
+          changes.userIds.add(user.getId());
+        }
+        users.put(user.getId(), user);
+      }
+      for (UUID userId : new ArrayList<>(users.keySet())) {
+        if (!presentUsers.contains(userId)) {
+          users.remove(userId);
+          userEntries.remove(userId);
+          changes.userIds.add(userId);
+        }
+      }
+
+      Set<UUID> presentTasks = new HashSet<>();
+      for (Task task : allTasks) {
+        presentTasks.add(task.getId());
+        updateTask(task.getId(), task, changes);
+      }
+      for (UUID taskId : new ArrayList<>(taskEntries.keySet())) {
+        if (!presentTasks.contains(taskId)) {
+          updateTask(taskId, null, changes);
+        }
+      }
+    }
+    notifyObservers(changes);
+  }
+
+  /**
+   * Brings the ledger in line with the given tasks only, leaving the users and the other tasks
+   * as they are.
+   * Tasks whose ID is given but that are not among the stored tasks were deleted, and are
+   * removed.
+   *
+   * @param taskIds the IDs of the tasks that changed
+   * @param storedTasks the stored state of the tasks that still exist, by their ID
+   */
+  public void synchronizeTasks(Set<UUID> taskIds, Map<UUID, Task> storedTasks) {
+    Changes changes = new Changes();
+    synchronized (this) {
+      for (UUID taskId : taskIds) {
+        updateTask(taskId, storedTasks.get(taskId), changes);
+      }
+    }
+    notifyObservers(changes);
+  }
+
+  /**
+   * Replaces the entry of a task and moves its size between the workloads. Must be called while
+   * synchronized on the ledger.
+   *
+   * @param taskId the ID of the task
+   * @param task the new state of the task, or null if the task was removed
+   * @param changes the changes to add to
+   */
+  private void updateTask(UUID taskId, Task task, Changes changes) {
+    TaskEntry previous = taskEntries.get(taskId);
+    TaskEntry next = task == null ? null : TaskEntry.of(task);
+    if (Objects.equals(previous, next)) {
+      return;
+    }
+
+    if (previous != null) {
+      if (previous.isAssignedLoad()) {
+        for (UUID userId : previous.assignees()) {
+          workloads.merge(userId, -previous.size().getValue(), Integer::sum);
+          Map<UUID, Task> userTasks = openTasksByUser.get(userId);
+          if (userTasks != null) {
+            userTasks.remove(taskId);
+            if (userTasks.isEmpty()) {
+              openTasksByUser.remove(userId);
+            }
+          }
+          changes.userIds.add(userId);
+        }
+      } else if (previous.isUnassigned()) {
+        unassignedTasks.remove(taskId);
+        changes.removedTaskIds.add(taskId);
+      }
+      taskEntries.remove(taskId);
+    }
+
+    if (next != null) {
+      if (next.isAssignedLoad()) {
+        for (UUID userId : next.assignees()) {
+          workloads.merge(userId, next.size().getValue(), Integer::sum);
+          openTasksByUser.computeIfAbsent(userId, key -> new HashMap<>()).put(taskId, task);
+          changes.userIds.add(userId);
+        }
+      } else if (next.isUnassigned()) {
+        unassignedTasks.put(taskId, task);
+        changes.updatedTasks.put(taskId, task);
+      }
+      taskEntries.put(taskId, next);
+    }
+  }
+
+  /**
+   * Notifies all observers of the changes, if there are any.
+   *
+   * @param changes the changes of the update
+   */
+  private void notifyObservers(Changes changes) {
+    WorkloadChange change = changes.toChange();
+    if (change.isEmpty()) {
+      return;
+    }
+    logger.debug("Workloads changed - Users: {}, Removed tasks: {}, Updated tasks: {}",
+        change.changedUserIds().size(), change.removedTaskIds().size(),
+        change.updatedTasks().size());
+    for (WorkloadObserver observer : observers) {
+      try {
+        observer.onWorkloadChanged(change);
+      } catch (RuntimeException e) {
+        logger.error("Error notifying observer {} of workload change: {}",
+            observer.getClass().getSimpleName(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Applies the stored state of a task, since the task in an event may be outdated.
+   *
+   * @param task the task from the event
+   */
+  private void applyStored(Task task) {
+    Task storedTask = H2Manager.getTaskById(task.getId());
+    if (storedTask == null) {
+      remove(task.getId());
+    } else {
+      apply(storedTask);
+    }
+  }
+
+  /**
+   * Updates the ledger with the created task.
+   *
+   * @param task the task that was created
+   */
+  @Override
+  public void onTaskCreated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Updates the ledger with the updated task.
+   *
+   * @param task the task that was updated
+   */
+  @Override
+  public void onTaskUpdated(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * Removes the deleted task from the ledger.
+   *
+   * @param task the task that was deleted
+   */
+  @Override
+  public void onTaskDeleted(Task task) {
+    remove(task.getId());
+  }
+
+  /**
+   * Moves the assigned task to the workload of the user.
+   *
+   * @param task the task that was assigned
+   * @param user the user the task was assigned to
+   */
+  @Override
+  public void onTaskAssigned(Task task, User user) {
+    applyStored(task);
+  }
+
+  /**
+   * Removes the completed task from the workloads.
+   *
+   * @param task the task that was completed
+   */
+  @Override
+  public void onTaskCompleted(Task task) {
+    applyStored(task);
+  }
+
+  /**
+   * The ledger is updated on storage synchronization instead.
+   */
+  @Override
+  public void onCacheRefreshed() {
+    // Not needed
+  }
+
+  /**
+   * Updates the ledger with the synchronized users and tasks, only reading the tasks that
+   * changed when they are known.
+   *
+   * @param taskIds the IDs of the tasks that changed, or null if any task or user may have
+   *     changed
+   */
+  @Override
+  public void onLocalStorageSynchronized(Set<UUID> taskIds) {
+    if (taskIds == null) {
+      synchronize(H2Manager.getAllUsers(), H2Manager.getAllTasks());
+    } else if (!taskIds.isEmpty()) {
+      synchronizeTasks(taskIds, H2Manager.getTasksByIds(taskIds));
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package no.ntnu.idatx1005.controller;
 
+import java.util.List;
 import javafx.application.Platform;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
@@ -69,6 +70,18 @@ public abstract class BaseViewController implements TaskEventObserver {
     Platform.runLater(() -> handleTaskAssigned(task, user));
   }
 
+  /**
+   * Observes batch assignment events. The whole batch is handled at once, so the view is only
+   * refreshed once.
+   *
+   * @param tasks the tasks that were assigned.
+   * @param user the user that was assigned the tasks.
+   */
+  @Override
+  public void onTasksAssigned(List<Task> tasks, User user) {
+    Platform.runLater(() -> handleTasksAssigned(tasks, user));
+  }
+
   /**
    * Observes task completion events.
    *
@@ -116,6 +129,17 @@ public abstract class BaseViewController implements TaskEventObserver {
    */
   protected abstract void handleTaskAssigned(Task task, User user);
 
+  /**
+   * Handles the event of several tasks being assigned to a user at once. By default, the view is
+   * refreshed once, as when the cache is refreshed.
+   *
+   * @param tasks the tasks that were assigned.
+   * @param user the user that was assigned the tasks.
+   */
+  protected void handleTasksAssigned(List<Task> tasks, User user) {
+    handleCacheRefreshed();
+  }
+
   /**
    * Handles the event of a task being completed.
    *
@@ -2,15 +2,27 @@ package no.ntnu.idatx1005.controller;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import javafx.application.Platform;
 import javafx.util.Pair;
+import no.ntnu.idatx1005.analytics.CapacityTimeline;
+import no.ntnu.idatx1005.analytics.FairnessLedger;
+import no.ntnu.idatx1005.analytics.WorkloadChange;
+import no.ntnu.idatx1005.analytics.WorkloadLedger;
+import no.ntnu.idatx1005.dao.exceptions.AssignmentConflictException;
+import no.ntnu.idatx1005.dao.exceptions.WriteRejectedException;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
 import no.ntnu.idatx1005.observer.TaskEventManager;
+import no.ntnu.idatx1005.observer.WorkloadObserver;
 import no.ntnu.idatx1005.service.DatabaseService;
-import no.ntnu.idatx1005.storage.H2Manager;
 import no.ntnu.idatx1005.view.content.DistributionView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,19 +31,26 @@ import org.slf4j.LoggerFactory;
  * <h3>Distribution View Controller</h3>
  *
  * <p>This class is responsible for handling the distribution view and the auto-distribution 
- * process. It also handles the task drop event and displays the appropriate dialogs.
- * It extends the {@link BaseViewController} class and implements the {@link ButtonClickObserver} 
- * interface.
+ * process. It also handles the task drop event and displays the appropriate dialogs. The
+ * auto-distribution uses the {@link CapacityTimeline} to avoid weeks where users are overloaded.
+ * It extends the {@link BaseViewController} class and implements the {@link ButtonClickObserver}
+ * and {@link WorkloadObserver} interfaces. Changes from the {@link WorkloadLedger} are patched
+ * into the view, instead of rebuilding it on every task event.
  *
  * @see BaseViewController
  * @see ButtonClickObserver
+ * @see WorkloadObserver
  * @author William Holtsdalen
  * @since V1.1.0
  */
-public class DistributionViewController extends BaseViewController implements ButtonClickObserver {
+public class DistributionViewController extends BaseViewController implements ButtonClickObserver,
+    WorkloadObserver {
   private static final Logger logger = LoggerFactory.getLogger(DistributionViewController.class);
   private final DistributionView distributionView;
   private final DatabaseService dbService;
+  private final CapacityTimeline capacityTimeline;
+  private final WorkloadLedger workloadLedger;
+  private final FairnessLedger fairnessLedger;
 
   /**
    * Constructs a new DistributionViewController.
@@ -44,6 +63,9 @@ public class DistributionViewController extends BaseViewController implements Bu
     super(taskManager);
     this.distributionView = distributionView;
     this.dbService  = DatabaseService.getInstance();
+    this.capacityTimeline = CapacityTimeline.getInstance();
+    this.workloadLedger = WorkloadLedger.getInstance();
+    this.fairnessLedger = FairnessLedger.getInstance();
 
     initializeView();
   }
@@ -51,30 +73,66 @@ public class DistributionViewController extends BaseViewController implements Bu
   private void initializeView() {
     logger.debug("Setting up DistributionView callbacks");
     distributionView.setTaskDropCallback(this::handleTaskDrop);
+    workloadLedger.addObserver(this);
   }
 
   /**
-   * Handles the event of a task being dropped onto a user.
+   * Handles the event of workloads or unassigned tasks changing. The event may come from a
+   * background synchronization, so the view is patched on the JavaFX application thread.
+   *
+   * @param change the users and tasks that changed
+   */
+  @Override
+  public void onWorkloadChanged(WorkloadChange change) {
+    Platform.runLater(() -> distributionView.applyWorkloadChange(change));
+  }
+
+  /**
+   * Handles the event of one or more tasks being dropped onto a user. The capacity of the user is
+   * checked once for all the tasks, and the tasks are assigned in a single batch after one
+   * confirmation.
    *
    * @param user the user
-   * @param taskid the task id
+   * @param taskIds the IDs of the dropped tasks
    */
-  public void handleTaskDrop(User user, String taskid) {
-    logger.debug("Handling task drop - User: {}, Task ID: {}", user.getEmail(), taskid);
-    Task task = H2Manager.getTaskById(UUID.fromString(taskid));
-    int numericalTaskSize = task.getSize().getValue();
-    
-    if (dbService.getUserAvailableCapacity(user) < numericalTaskSize) {
-      logger.warn("Invalid task assignment - User: {}, Task: {}, Required capacity: {}, "
-              + "Available: {}", user.getEmail(), task.getName(), numericalTaskSize,
-          dbService.getUserAvailableCapacity(user));
-      distributionView.showInvalidAssignmentDialog(user, task);
+  public void handleTaskDrop(User user, List<UUID> taskIds) {
+    logger.debug("Handling task drop - User: {}, Tasks: {}", user.getEmail(), taskIds.size());
+    Set<UUID> droppedIds = new HashSet<>(taskIds);
+    List<Task> tasks = workloadLedger.getUnassignedTasks().stream()
+        .filter(task -> droppedIds.contains(task.getId()))
+        .toList();
+    if (tasks.isEmpty()) {
+      logger.warn("Dropped tasks are no longer unassigned - User: {}", user.getEmail());
       return;
     }
 
-    if (distributionView.showConfirmAssignmentDialog(user, task)) {
-      logger.info("Assigning task - User: {}, Task: {}", user.getEmail(), task.getName());
-      taskManager.assignTask(task, user);
+    if (user.getSickness()) {
+      logger.warn("Invalid task assignment - User {} is sick", user.getEmail());
+      distributionView.showInvalidAssignmentDialog(user, tasks);
+      return;
+    }
+
+    int requiredCapacity = tasks.stream().mapToInt(task -> task.getSize().getValue()).sum();
+    int availableCapacity = workloadLedger.getAvailableCapacity(user);
+    if (availableCapacity < requiredCapacity) {
+      logger.warn("Invalid task assignment - User: {}, Tasks: {}, Required capacity: {}, "
+              + "Available: {}", user.getEmail(), tasks.size(), requiredCapacity,
+          availableCapacity);
+      distributionView.showInvalidAssignmentDialog(user, tasks);
+      return;
+    }
+
+    if (distributionView.showConfirmAssignmentDialog(user, tasks)) {
+      logger.info("Assigning tasks - User: {}, Tasks: {}", user.getEmail(), tasks.size());
+      try {
+        taskManager.assignTasks(tasks, user);
+      } catch (AssignmentConflictException e) {
+        logger.warn("Task assignment rejected - User: {}, {}", user.getEmail(), e.getMessage());
+        distributionView.showAssignmentConflictDialog(tasks);
+      } catch (DatabaseConnectionException | WriteRejectedException e) {
+        logger.error("Task assignment failed - User: {}, {}", user.getEmail(), e.getMessage());
+        distributionView.showAssignmentFailedDialog(tasks);
+      }
     }
   }
 
@@ -84,9 +142,12 @@ public class DistributionViewController extends BaseViewController implements Bu
   public void handleAutoDistribution() {
     logger.debug("Starting auto-distribution process");
     List<Task> unassignedTasks = dbService.getUnassignedTasksBySizeAndPriority();
-    List<User> availableUsers = dbService.getAllUsersByCapacity();
+    // Sick users do not receive tasks
+    List<User> availableUsers = dbService.getAllUsersByCapacity().stream()
+        .filter(user -> !user.getSickness())
+        .toList();
     List<Pair<Task, User>> assignments = calculateOptimalAssignments(unassignedTasks,
-        availableUsers);
+        availableUsers, distributionView.isFairDistribution());
 
     if (assignments.isEmpty()) {
       logger.warn("No possible assignments found in auto-distribution");
@@ -96,20 +157,50 @@ public class DistributionViewController extends BaseViewController implements Bu
 
     if (distributionView.showConfirmAutoDistributionDialog(assignments)) {
       logger.info("Executing auto-distribution with {} assignments", assignments.size());
-      assignments.forEach(pair -> taskManager.assignTask(pair.getKey(), pair.getValue()));
+      Map<User, List<Task>> tasksByUser = new LinkedHashMap<>();
+      assignments.forEach(pair -> tasksByUser
+          .computeIfAbsent(pair.getValue(), user -> new ArrayList<>()).add(pair.getKey()));
+      List<Task> rejectedTasks = new ArrayList<>();
+      List<Task> failedTasks = new ArrayList<>();
+      tasksByUser.forEach((user, tasks) -> {
+        try {
+          taskManager.assignTasks(tasks, user);
+        } catch (AssignmentConflictException e) {
+          logger.warn("Auto-distribution rejected - User: {}, {}", user.getEmail(),
+              e.getMessage());
+          rejectedTasks.addAll(tasks);
+        } catch (DatabaseConnectionException | WriteRejectedException e) {
+          logger.error("Auto-distribution failed - User: {}, {}", user.getEmail(),
+              e.getMessage());
+          failedTasks.addAll(tasks);
+        }
+      });
+      if (!rejectedTasks.isEmpty()) {
+        distributionView.showAssignmentConflictDialog(rejectedTasks);
+      }
+      if (!failedTasks.isEmpty()) {
+        distributionView.showAssignmentFailedDialog(failedTasks);
+      }
     }
   }
 
   /**
-   * Calculates the optimal assignments for the given tasks and users.
+   * Calculates the optimal assignments for the given tasks and users. A task is given to the
+   * user with the lowest weekly load around its due date, among the users with enough capacity
+   * that would not be overloaded in any of those weeks. In fair mode, the task is instead given
+   * to the user with the lowest share of their capacity taken by their open workload and the work
+   * they completed recently, according to the {@link FairnessLedger}, so the same users do not
+   * keep absorbing the large tasks.
    *
    * @param tasks the tasks to assign
    * @param users the users to assign to
+   * @param fair whether the recently completed work of the users is weighed
    * @return the optimal assignments
    */
-  private List<Pair<Task, User>> calculateOptimalAssignments(List<Task> tasks, List<User> users) {
-    logger.debug("Calculating optimal assignments - Tasks: {}, Users: {}", tasks.size(),
-        users.size());
+  private List<Pair<Task, User>> calculateOptimalAssignments(List<Task> tasks, List<User> users,
+      boolean fair) {
+    logger.debug("Calculating optimal assignments - Tasks: {}, Users: {}, Fair: {}",
+        tasks.size(), users.size(), fair);
     List<Pair<Task, User>> assignments = new ArrayList<>();
     List<Task> taskList = new ArrayList<>(tasks);
     List<User> userList = new ArrayList<>(users);
@@ -126,18 +217,34 @@ public class DistributionViewController extends BaseViewController implements Bu
       int taskSize = task.getSize().getValue();
       User bestUser = null;
       int maxCapacity = -1;
+      int minPeakLoad = Integer.MAX_VALUE;
+      double minFairnessLoad = Double.MAX_VALUE;
 
       for (User user : userList) {
         int availableCapacity = dbService.getUserAvailableCapacity(user);
-        if (availableCapacity >= taskSize && availableCapacity > maxCapacity) {
+        if (availableCapacity < taskSize) {
+          continue;
+        }
+        int peakLoad = capacityTimeline.getPeakLoadWith(user, task.getDueDate().toLocalDate(),
+            taskSize);
+        if (peakLoad > user.getTaskCapacity()) {
+          continue;
+        }
+        double fairnessLoad = fair ? (dbService.getUserWorkload(user)
+            + fairnessLedger.getRecentWork(user)) / user.getTaskCapacity() : 0;
+        if (fairnessLoad < minFairnessLoad
+            || (fairnessLoad == minFairnessLoad && (peakLoad < minPeakLoad
+            || (peakLoad == minPeakLoad && availableCapacity > maxCapacity)))) {
           bestUser = user;
           maxCapacity = availableCapacity;
+          minPeakLoad = peakLoad;
+          minFairnessLoad = fairnessLoad;
         }
       }
 
       if (bestUser != null) {
-        logger.trace("Found assignment - Task: {}, User: {}, Capacity: {}", 
-            task.getName(), bestUser.getEmail(), maxCapacity);
+        logger.trace("Found assignment - Task: {}, User: {}, Capacity: {}, Peak load: {}",
+            task.getName(), bestUser.getEmail(), maxCapacity, minPeakLoad);
         assignments.add(new Pair<>(task, bestUser));
         userList.remove(bestUser);
       }
@@ -187,8 +294,7 @@ public class DistributionViewController extends BaseViewController implements Bu
    */
   @Override
   protected void handleTaskUpdated(Task task) {
-    // Not needed
-    distributionView.refreshView();
+    logger.debug("Task updated: {}", task.getName());
   }
 
   /**
@@ -198,7 +304,7 @@ public class DistributionViewController extends BaseViewController implements Bu
    */
   @Override
   protected void handleTaskDeleted(Task task) {
-    distributionView.refreshView();
+    logger.debug("Task deleted: {}", task.getName());
   }
 
   /**
@@ -209,7 +315,19 @@ public class DistributionViewController extends BaseViewController implements Bu
    */
   @Override
   protected void handleTaskAssigned(Task task, User user) {
-    distributionView.refreshView();
+    logger.debug("Task assigned - Task: {}, User: {}", task.getName(), user.getEmail());
+  }
+
+  /**
+   * Handles the event of several tasks being assigned to a user at once. The view is patched from
+   * the {@link WorkloadLedger} instead of being refreshed.
+   *
+   * @param tasks the tasks
+   * @param user the user
+   */
+  @Override
+  protected void handleTasksAssigned(List<Task> tasks, User user) {
+    logger.debug("Tasks assigned - Tasks: {}, User: {}", tasks.size(), user.getEmail());
   }
 
   /**
@@ -219,7 +337,7 @@ public class DistributionViewController extends BaseViewController implements Bu
    */
   @Override
   protected void handleTaskCompleted(Task task) {
-    distributionView.refreshView();
+    logger.debug("Task completed: {}", task.getName());
   }
 
   /**
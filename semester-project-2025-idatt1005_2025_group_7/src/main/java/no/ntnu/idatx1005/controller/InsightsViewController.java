@@ -1,8 +1,15 @@
 package no.ntnu.idatx1005.controller;
 
+import javafx.application.Platform;
+import no.ntnu.idatx1005.analytics.AnalyticsSnapshot;
+import no.ntnu.idatx1005.analytics.InsightsAggregator;
+import no.ntnu.idatx1005.analytics.InsightsSummary;
+import no.ntnu.idatx1005.analytics.TaskAnalytics;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.observer.AnalyticsObserver;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
+import no.ntnu.idatx1005.observer.InsightsObserver;
 import no.ntnu.idatx1005.observer.TaskEventManager;
 import no.ntnu.idatx1005.view.content.InsightsView;
 import org.slf4j.Logger;
@@ -12,17 +19,24 @@ import org.slf4j.LoggerFactory;
  * <h3>Insights View Controller</h3>
  *
  * <p>This class is responsible for handling the insights view.
- * It extends the {@link BaseViewController} class and implements the {@link ButtonClickObserver}
- * interface.
+ * It extends the {@link BaseViewController} class and implements the {@link ButtonClickObserver},
+ * {@link InsightsObserver} and {@link AnalyticsObserver} interfaces. The counters shown in the
+ * view are kept up to date by the {@link InsightsAggregator}, and the lead time and throughput
+ * charts by the {@link TaskAnalytics}, which both notify the controller when they change.
  *
  * @see BaseViewController
  * @see ButtonClickObserver
+ * @see InsightsObserver
+ * @see AnalyticsObserver
  * @author William Holtsdalen
  * @since V1.1.0
  */
-public class InsightsViewController extends BaseViewController implements ButtonClickObserver {
+public class InsightsViewController extends BaseViewController implements ButtonClickObserver,
+    InsightsObserver, AnalyticsObserver {
   private static final Logger logger = LoggerFactory.getLogger(InsightsViewController.class);
   private final InsightsView insightsView;
+  private final InsightsAggregator insightsAggregator;
+  private final TaskAnalytics taskAnalytics;
 
   /**
    * Constructs a new InsightsViewController.
@@ -33,6 +47,8 @@ public class InsightsViewController extends BaseViewController implements Button
   public InsightsViewController(TaskEventManager taskManager, InsightsView insightsView) {
     super(taskManager);
     this.insightsView = insightsView;
+    this.insightsAggregator = InsightsAggregator.getInstance();
+    this.taskAnalytics = TaskAnalytics.getInstance();
     initializeView();
   }
 
@@ -41,15 +57,43 @@ public class InsightsViewController extends BaseViewController implements Button
    */
   private void initializeView() {
     logger.debug("Initializing insights view");
-    updateCharts();
+    insightsAggregator.addObserver(this);
+    taskAnalytics.addObserver(this);
+    updateCharts(insightsAggregator.getSummary());
+    insightsView.updateAnalytics(taskAnalytics.getSnapshot());
   }
 
   /**
-   * Updates the insights charts.
+   * Updates the insights charts in place.
+   *
+   * @param summary the insights to show
    */
-  private void updateCharts() {
+  private void updateCharts(InsightsSummary summary) {
     logger.debug("Updating insights charts");
-    insightsView.initializeInsightsLayout();
+    insightsView.updateInsights(summary);
+  }
+
+  /**
+   * Handles the event of the insights changing. The event may come from a background
+   * synchronization, so the view is updated on the JavaFX application thread.
+   *
+   * @param summary the current insights
+   */
+  @Override
+  public void onInsightsChanged(InsightsSummary summary) {
+    Platform.runLater(() -> updateCharts(summary));
+  }
+
+  /**
+   * Handles the event of the analytics changing. The event may come from a background
+   * synchronization or the startup backfill, so the view is updated on the JavaFX application
+   * thread.
+   *
+   * @param snapshot the current analytics
+   */
+  @Override
+  public void onAnalyticsChanged(AnalyticsSnapshot snapshot) {
+    Platform.runLater(() -> insightsView.updateAnalytics(snapshot));
   }
 
   /**
@@ -83,7 +127,6 @@ public class InsightsViewController extends BaseViewController implements Button
   @Override
   protected void handleTaskCreated(Task task) {
     logger.debug("Task created: {}", task.getName());
-    updateCharts();
   }
 
   /**
@@ -94,7 +137,6 @@ public class InsightsViewController extends BaseViewController implements Button
   @Override
   protected void handleTaskUpdated(Task task) {
     logger.debug("Task updated: {}", task.getName());
-    updateCharts();
   }
 
   /**
@@ -105,7 +147,6 @@ public class InsightsViewController extends BaseViewController implements Button
   @Override
   protected void handleTaskDeleted(Task task) {
     logger.debug("Task deleted: {}", task.getName());
-    updateCharts();
   }
 
   /**
@@ -117,7 +158,6 @@ public class InsightsViewController extends BaseViewController implements Button
   @Override
   protected void handleTaskAssigned(Task task, User user) {
     logger.debug("Task assigned - Task: {}, User: {}", task.getName(), user.getEmail());
-    updateCharts();
   }
 
   /**
@@ -128,7 +168,6 @@ public class InsightsViewController extends BaseViewController implements Button
   @Override
   protected void handleTaskCompleted(Task task) {
     logger.debug("Task completed: {}", task.getName());
-    updateCharts();
   }
 
   /**
@@ -137,6 +176,5 @@ public class InsightsViewController extends BaseViewController implements Button
   @Override
   protected void handleCacheRefreshed() {
     logger.debug("Cache refreshed");
-    updateCharts();
   }
 } 
\ No newline at end of file
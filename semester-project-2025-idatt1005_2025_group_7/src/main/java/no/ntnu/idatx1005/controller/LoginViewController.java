@@ -1,10 +1,12 @@
 package no.ntnu.idatx1005.controller;
 
 import java.util.function.Consumer;
+import javafx.application.Platform;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
 import no.ntnu.idatx1005.service.DatabaseService;
+import no.ntnu.idatx1005.storage.StartupLoader;
 import no.ntnu.idatx1005.view.container.LoginView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +26,7 @@ public class LoginViewController implements ButtonClickObserver {
   private final LoginView loginView;
   private DatabaseService dbService;
   private Consumer<User> onLoginUser;
+  private boolean isWaitingForUsers;
 
   /**
    * Constructs a new LoginViewController.
@@ -61,7 +64,8 @@ public class LoginViewController implements ButtonClickObserver {
 
   /**
    * Handles the login button action. Verifies the credentials entered by the user, and if they
-   * are valid, it calls the handleLogin method to authenticate the user.
+   * are valid, it calls the handleLogin method to authenticate the user. If the users have not
+   * been loaded yet, the login is retried as soon as they are.
    * If the user is successfully authenticated, it shows the main view, otherwise it displays an
    * error message.
    */
@@ -76,6 +80,20 @@ public class LoginViewController implements ButtonClickObserver {
       return;
     }
 
+    StartupLoader startupLoader = StartupLoader.getInstance();
+    if (!startupLoader.isReady(StartupLoader.Stage.USERS)) {
+      // The users are still being loaded, so log in as soon as they are
+      loginView.showErrorMessage("Loading users, please wait...");
+      if (!isWaitingForUsers) {
+        isWaitingForUsers = true;
+        startupLoader.whenReady(StartupLoader.Stage.USERS).thenRun(() -> Platform.runLater(() -> {
+          isWaitingForUsers = false;
+          handleLoginButtonAction();
+        }));
+      }
+      return;
+    }
+
     User user = dbService.authenticateUser(email, loginView.getPassword());
     if (user == null) {
       logger.warn("Failed login attempt for user: {}", email);
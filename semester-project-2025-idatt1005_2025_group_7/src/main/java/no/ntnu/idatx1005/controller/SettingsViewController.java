@@ -2,6 +2,9 @@ package no.ntnu.idatx1005.controller;
 
 import java.util.UUID;
 import java.util.function.Consumer;
+import no.ntnu.idatx1005.analytics.RebalancePlan;
+import no.ntnu.idatx1005.analytics.SickLeaveRebalancer;
+import no.ntnu.idatx1005.dao.exceptions.AssignmentConflictException;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
@@ -14,7 +17,9 @@ import org.slf4j.LoggerFactory;
 /**
  * <h3>Settings View Controller</h3>
  *
- * <p>This class is responsible for handling the settings view and the user settings.
+ * <p>This class is responsible for handling the settings view and the user settings. When a user
+ * marks themselves as sick, their open tasks are moved to the other users with the
+ * {@link SickLeaveRebalancer}, after a preview.
  * It extends the {@link BaseViewController} class and implements the {@link ButtonClickObserver} 
  * interface.
  *
@@ -90,6 +95,7 @@ public class SettingsViewController extends BaseViewController implements Button
     String email = settingsView.getEmail();
     int taskCapacity = settingsView.getTaskCapacity();
     boolean sicknessStatus = settingsView.getSicknessStatus();
+    boolean wasSick = settingsView.getCurrentUser().getSickness();
 
     logger.debug("Attempting to save settings for user: {}", email);
 
@@ -118,6 +124,40 @@ public class SettingsViewController extends BaseViewController implements Button
     } catch (Exception e) {
       logger.error("Failed to save settings for user: {} - {}", email, e.getMessage());
       settingsView.showErrorDialog("Failed to save settings: " + e.getMessage());
+      return;
+    }
+
+    if (!wasSick && sicknessStatus) {
+      handleSickLeave(settingsView.getCurrentUser());
+    }
+  }
+
+  /**
+   * Handles a user being marked as sick, by previewing and committing the move of their open
+   * tasks to the other users.
+   *
+   * @param sickUser the user that was marked as sick
+   */
+  private void handleSickLeave(User sickUser) {
+    RebalancePlan plan = SickLeaveRebalancer.getInstance().plan(sickUser);
+    if (plan.isEmpty()) {
+      logger.debug("No tasks to move for sick user: {}", sickUser.getEmail());
+      return;
+    }
+    if (settingsView.showRebalancePreviewDialog(plan)) {
+      try {
+        taskManager.reassignTasks(plan);
+        logger.info("Tasks moved for sick user: {}", sickUser.getEmail());
+      } catch (AssignmentConflictException e) {
+        logger.warn("Moving tasks for sick user {} rejected - {}", sickUser.getEmail(),
+            e.getMessage());
+        settingsView.showErrorDialog("Some of your tasks or the users taking them over were "
+            + "changed in the meantime. Nothing was moved, please try again.");
+      } catch (Exception e) {
+        logger.error("Failed to move tasks for sick user: {} - {}", sickUser.getEmail(),
+            e.getMessage());
+        settingsView.showErrorDialog("Failed to move your tasks: " + e.getMessage());
+      }
     }
   }
 
@@ -1,5 +1,6 @@
 package no.ntnu.idatx1005.controller;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -10,6 +11,8 @@ import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
 import no.ntnu.idatx1005.observer.TaskEventManager;
+import no.ntnu.idatx1005.search.TaskFacetIndex;
+import no.ntnu.idatx1005.service.DatabaseService;
 import no.ntnu.idatx1005.storage.H2Manager;
 import no.ntnu.idatx1005.view.content.TasksView;
 import org.slf4j.Logger;
@@ -52,6 +55,8 @@ public class TasksViewController extends BaseViewController implements ButtonCli
     logger.debug("Setting up TasksView callbacks");
     tasksView.setTaskClickCallback(this::handleTaskClick);
     tasksView.setFormatAssigneeNames(this::formatAssigneeNames);
+    tasksView.setFormatUserName(this::formatUserName);
+    tasksView.setArchivedTasksLoader(DatabaseService.getInstance()::getArchivedTasks);
     refreshTasks();
   }
 
@@ -81,6 +86,7 @@ public class TasksViewController extends BaseViewController implements ButtonCli
     ObservableList<Task> completedTasks = fetchTasks(H2Manager.getCompletedTasks());
     ObservableList<Task> openTasks = fetchTasks(H2Manager.getOpenTasks());
     tasksView.refreshTasksTable(todaysTasks, weeklyTasks, allTasks, completedTasks, openTasks);
+    tasksView.refreshFacetIndex(new TaskFacetIndex(allTasks, LocalDate.now()));
     logger.debug("Task lists refreshed - Today: {}, Week: {}, All: {}, Completed: {}, Open: {}", 
         todaysTasks.size(), weeklyTasks.size(), allTasks.size(), completedTasks.size(), 
         openTasks.size());
@@ -113,15 +119,33 @@ public class TasksViewController extends BaseViewController implements ButtonCli
     }
     StringBuilder assigneeNames = new StringBuilder();
     for (UUID userId : task.getAssignedUserIds()) {
+      // Archived tasks may be assigned to users who have since been deleted
+      User user = H2Manager.getUserById(userId);
+      if (user == null) {
+        continue;
+      }
       if (!assigneeNames.isEmpty()) {
         assigneeNames.append(", ");
       }
-      User user = H2Manager.getUserById(userId);
       assigneeNames.append(user.getFirstName());
     }
     return assigneeNames.toString();
   }
 
+  /**
+   * Formats the name of a user for the assignee facet.
+   *
+   * @param userId the ID of the user
+   * @return the full name of the user, or "Unknown user" if the user does not exist
+   */
+  public String formatUserName(UUID userId) {
+    User user = H2Manager.getUserById(userId);
+    if (user == null) {
+      return "Unknown user";
+    }
+    return user.getFirstName() + " " + user.getLastName();
+  }
+
   /**
    * Handles the event of a button being clicked.
    *
@@ -1,15 +1,27 @@
 package no.ntnu.idatx1005.dao;
 
-import static no.ntnu.idatx1005.database.DbConnectionProvider.close;
+import static no.ntnu.idatx1005.database.RemoteStore.close;
+import static no.ntnu.idatx1005.database.RemoteStore.rollback;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import no.ntnu.idatx1005.dao.exceptions.AssignmentConflictException;
 import no.ntnu.idatx1005.dao.exceptions.TaskDoesNotExistException;
 import no.ntnu.idatx1005.dao.exceptions.UserDoesNotExistException;
-import no.ntnu.idatx1005.database.DbConnectionProvider;
+import no.ntnu.idatx1005.dao.exceptions.WriteRejectedException;
+import no.ntnu.idatx1005.database.RemoteStore;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.storage.H2Manager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,16 +37,19 @@ import org.slf4j.LoggerFactory;
  */
 public class AssigneesDao {
   private static final Logger logger = LoggerFactory.getLogger(AssigneesDao.class);
-  private final DbConnectionProvider connectionProvider;
+  private final RemoteStore connectionProvider;
+  private final UUID householdId;
 
   /**
    * Constructs a new assignees data access object.
    *
    * @param connectionProvider the connection provider
+   * @param householdId the ID of the household whose tasks and members are assigned
    */
-  public AssigneesDao(DbConnectionProvider connectionProvider) {
+  public AssigneesDao(RemoteStore connectionProvider, UUID householdId) {
     logger.debug("Initializing AssigneesDao");
     this.connectionProvider = connectionProvider;
+    this.householdId = householdId;
   }
 
   /**
@@ -60,7 +75,7 @@ public class AssigneesDao {
     Connection connection = null;
     PreparedStatement preparedStatement = null;
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
       preparedStatement = connection.prepareStatement(
           "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)",
           Statement.RETURN_GENERATED_KEYS);
@@ -76,6 +91,237 @@ public class AssigneesDao {
     }
   }
 
+  /**
+   * Assigns a given user to several tasks in one batch, if neither the tasks nor the user were
+   * changed by someone else since they were read. The versions of the tasks and the user are
+   * compared and incremented in the same transaction as the assignments are inserted, so two
+   * clients can never both assign the same task, or both reserve the same capacity of the user.
+   * The changelog entries of the assignments are inserted in the same transaction, so either all
+   * or none of the assignments and their entries are stored.
+   *
+   * @param tasks the tasks, with the versions they were read with
+   * @param user the user, with the version their capacity was checked against
+   * @param changes the changelog entries of the assignments
+   * @throws TaskDoesNotExistException if one of the given tasks does not exist in the database.
+   * @throws UserDoesNotExistException if the given user does not exist in the database.
+   * @throws AssignmentConflictException if some of the tasks or the user were changed since they
+   *     were read, or a task was completed.
+   * @throws DatabaseConnectionException if the database could not be reached, or the assignment
+   *     failed for a reason that passes, like a deadlock.
+   * @throws WriteRejectedException if the database rejected the assignments.
+   */
+  public void assignUserToTasks(List<Task> tasks, User user, List<TaskChange> changes)
+      throws TaskDoesNotExistException, UserDoesNotExistException, AssignmentConflictException {
+    logger.info("Assigning user {} to {} tasks", user.getId(), tasks.size());
+    for (Task task : tasks) {
+      requireTask(task.getId());
+    }
+    requireUser(user.getId());
+    storeAssignments(tasks, user, changes);
+  }
+
+  /**
+   * Stores the assignments of a user to several tasks in one transaction, with their changelog
+   * entries, once the tasks and the user are known to exist.
+   *
+   * @param tasks the tasks, with the versions they were read with
+   * @param user the user, with the version their capacity was checked against
+   * @param changes the changelog entries of the assignments
+   * @throws AssignmentConflictException if some of the tasks or the user were changed since they
+   *     were read, or a task was completed.
+   */
+  void storeAssignments(List<Task> tasks, User user, List<TaskChange> changes)
+      throws AssignmentConflictException {
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    try {
+      connection = connectionProvider.getWriteConnection();
+      connection.setAutoCommit(false);
+      reserve(connection, tasks, List.of(user));
+      preparedStatement = connection.prepareStatement(
+          "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)");
+      for (Task task : tasks) {
+        preparedStatement.setString(1, task.getId().toString());
+        preparedStatement.setString(2, user.getId().toString());
+        preparedStatement.addBatch();
+      }
+      preparedStatement.executeBatch();
+      TaskChangeDao.insertChanges(connection, changes);
+      connection.commit();
+      logger.info("User {} assigned to {} tasks successfully", user.getId(), tasks.size());
+    } catch (AssignmentConflictException e) {
+      rollback(connection);
+      throw e;
+    } catch (SQLException e) {
+      rollback(connection);
+      throw SqlErrors.retryOrReject(e, "assigning user " + user.getId() + " to "
+          + tasks.size() + " tasks");
+    } finally {
+      close(connection, preparedStatement, null);
+    }
+  }
+
+  /**
+   * Moves several tasks from one user to other users in one batch, if neither the tasks nor the
+   * receiving users were changed by someone else since they were read. The old assignments are
+   * removed and the new ones inserted in a single transaction, together with their changelog
+   * entries, so either all or none of the tasks are moved.
+   *
+   * @param fromUserId the ID of the user the tasks are moved from
+   * @param newUsers the user every task is moved to, with the versions they were read with
+   * @param changes the changelog entries of the moves
+   * @throws TaskDoesNotExistException if one of the given tasks does not exist in the database.
+   * @throws UserDoesNotExistException if one of the given users does not exist in the database.
+   * @throws AssignmentConflictException if some of the tasks or the receiving users were changed
+   *     since they were read, or a task was completed.
+   * @throws DatabaseConnectionException if the database could not be reached, or the move failed
+   *     for a reason that passes, like a deadlock.
+   * @throws WriteRejectedException if the database rejected the move.
+   */
+  public void reassignTasks(UUID fromUserId, Map<Task, User> newUsers, List<TaskChange> changes)
+      throws TaskDoesNotExistException, UserDoesNotExistException, AssignmentConflictException {
+    logger.info("Moving {} tasks from user {}", newUsers.size(), fromUserId);
+    Map<UUID, User> receivingUsers = new LinkedHashMap<>();
+    for (Map.Entry<Task, User> entry : newUsers.entrySet()) {
+      requireTask(entry.getKey().getId());
+      requireUser(entry.getValue().getId());
+      receivingUsers.putIfAbsent(entry.getValue().getId(), entry.getValue());
+    }
+    storeReassignments(fromUserId, newUsers, receivingUsers.values(), changes);
+  }
+
+  /**
+   * Stores the move of several tasks from one user to other users in one transaction, with their
+   * changelog entries, once the tasks and the users are known to exist.
+   *
+   * @param fromUserId the ID of the user the tasks are moved from
+   * @param newUsers the user every task is moved to, with the versions they were read with
+   * @param receivingUsers every user that receives tasks, once
+   * @param changes the changelog entries of the moves
+   * @throws AssignmentConflictException if some of the tasks or the receiving users were changed
+   *     since they were read, or a task was completed.
+   */
+  void storeReassignments(UUID fromUserId, Map<Task, User> newUsers,
+      Collection<User> receivingUsers, List<TaskChange> changes)
+      throws AssignmentConflictException {
+    Connection connection = null;
+    PreparedStatement deleteStatement = null;
+    PreparedStatement insertStatement = null;
+    try {
+      connection = connectionProvider.getWriteConnection();
+      connection.setAutoCommit(false);
+      reserve(connection, List.copyOf(newUsers.keySet()), receivingUsers);
+      deleteStatement = connection.prepareStatement(
+          "DELETE FROM task_assignees WHERE taskId = ? AND userId = ?");
+      insertStatement = connection.prepareStatement(
+          "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)");
+      for (Map.Entry<Task, User> entry : newUsers.entrySet()) {
+        deleteStatement.setString(1, entry.getKey().getId().toString());
+        deleteStatement.setString(2, fromUserId.toString());
+        deleteStatement.addBatch();
+        insertStatement.setString(1, entry.getKey().getId().toString());
+        insertStatement.setString(2, entry.getValue().getId().toString());
+        insertStatement.addBatch();
+      }
+      deleteStatement.executeBatch();
+      insertStatement.executeBatch();
+      TaskChangeDao.insertChanges(connection, changes);
+      connection.commit();
+      logger.info("{} tasks moved from user {} successfully", newUsers.size(), fromUserId);
+    } catch (AssignmentConflictException e) {
+      rollback(connection);
+      throw e;
+    } catch (SQLException e) {
+      rollback(connection);
+      throw SqlErrors.retryOrReject(e, "moving " + newUsers.size() + " tasks from user "
+          + fromUserId);
+    } finally {
+      close(null, deleteStatement, null);
+      close(connection, insertStatement, null);
+    }
+  }
+
+  /**
+   * Compares and increments the versions of the given tasks and users within the transaction of
+   * the given connection. Every open task and user of the household whose version still matches
+   * is incremented; the others are collected, so the conflict lists all of them at once. A task
+   * or user of another household never matches, and conflicts like one that was changed.
+   *
+   * @param connection the connection, with a transaction in progress
+   * @param tasks the tasks, with the versions they were read with
+   * @param users the users, with the versions they were read with
+   * @throws SQLException if the versions cannot be compared
+   * @throws AssignmentConflictException if some of the tasks or users were changed since they
+   *     were read, or a task was completed.
+   */
+  private void reserve(Connection connection, List<Task> tasks, Collection<User> users)
+      throws SQLException, AssignmentConflictException {
+    List<UUID> conflictingTaskIds = new ArrayList<>();
+    List<UUID> conflictingUserIds = new ArrayList<>();
+    try (PreparedStatement reserveTask = connection.prepareStatement(
+            "UPDATE task SET version = version + 1 "
+                + "WHERE taskId = ? AND householdId = ? AND version = ? AND completed = 0");
+        PreparedStatement reserveUser = connection.prepareStatement(
+            "UPDATE user SET version = version + 1 WHERE userId = ? AND version = ? AND userId "
+                + "IN (SELECT userId FROM household_member WHERE householdId = ?)")) {
+      for (Task task : tasks) {
+        reserveTask.setString(1, task.getId().toString());
+        reserveTask.setString(2, householdId.toString());
+        reserveTask.setInt(3, task.getVersion());
+        reserveTask.addBatch();
+      }
+      int[] taskCounts = reserveTask.executeBatch();
+      for (int i = 0; i < taskCounts.length; i++) {
+        if (taskCounts[i] == 0) {
+          conflictingTaskIds.add(tasks.get(i).getId());
+        }
+      }
+
+      for (User user : users) {
+        reserveUser.setString(1, user.getId().toString());
+        reserveUser.setInt(2, user.getVersion());
+        reserveUser.setString(3, householdId.toString());
+        if (reserveUser.executeUpdate() == 0) {
+          conflictingUserIds.add(user.getId());
+        }
+      }
+    }
+
+    if (!conflictingTaskIds.isEmpty() || !conflictingUserIds.isEmpty()) {
+      logger.warn("Assignment conflict - Tasks changed: {}, Users changed: {}",
+          conflictingTaskIds.size(), conflictingUserIds.size());
+      throw new AssignmentConflictException(String.format(
+          "%d tasks and %d users were changed by someone else", conflictingTaskIds.size(),
+          conflictingUserIds.size()), conflictingTaskIds, conflictingUserIds);
+    }
+  }
+
+  /**
+   * Checks that a task exists in the local storage.
+   *
+   * @param taskId the ID of the task
+   * @throws TaskDoesNotExistException if the task does not exist
+   */
+  private void requireTask(UUID taskId) throws TaskDoesNotExistException {
+    if (H2Manager.getTaskById(taskId) == null) {
+      logger.error("Task with ID {} not found", taskId);
+      throw new TaskDoesNotExistException("Task with ID " + taskId + " not found.");
+    }
+  }
+
+  /**
+   * Checks that a user exists in the local storage.
+   *
+   * @param userId the ID of the user
+   * @throws UserDoesNotExistException if the user does not exist
+   */
+  private void requireUser(UUID userId) throws UserDoesNotExistException {
+    if (H2Manager.getUserById(userId) == null) {
+      logger.error("User with ID {} not found", userId);
+      throw new UserDoesNotExistException("User with ID " + userId + " not found.");
+    }
+  }
+
   /**
    * Removes all assignments for the given task from the database.
    *
@@ -92,7 +338,7 @@ public class AssigneesDao {
     Connection connection = null;
     PreparedStatement preparedStatement = null;
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
       preparedStatement = connection.prepareStatement(
           "DELETE FROM task_assignees WHERE taskId = ?");
       preparedStatement.setString(1, taskId.toString());
@@ -0,0 +1,178 @@
+package no.ntnu.idatx1005.dao;
+
+import static no.ntnu.idatx1005.database.RemoteStore.close;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import no.ntnu.idatx1005.database.RemoteStore;
+import no.ntnu.idatx1005.model.task.DescriptionRevision;
+import no.ntnu.idatx1005.model.task.FieldChange;
+import no.ntnu.idatx1005.model.task.TaskField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Data access object for the description history</h3>
+ *
+ * <p>A data access object for the DescriptionRevision model. It provides methods to retrieve and
+ * add revisions of the descriptions of tasks in the database. Revisions are only added together
+ * with the change of the task they belong to, so they are written on the connection of that
+ * change.
+ *
+ * @see DescriptionRevision
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class DescriptionHistoryDao {
+  private static final Logger logger = LoggerFactory.getLogger(DescriptionHistoryDao.class);
+  private final RemoteStore connectionProvider;
+
+  /**
+   * Constructs a new description history data access object.
+   *
+   * @param connectionProvider the connection provider
+   */
+  public DescriptionHistoryDao(RemoteStore connectionProvider) {
+    logger.debug("Initializing DescriptionHistoryDao");
+    this.connectionProvider = connectionProvider;
+  }
+
+  /**
+   * Stores the revision that changes the description of a task, within the transaction of the
+   * given connection, so it is stored together with the change of the task. The diff of the
+   * revision is found against the latest revision in the history rather than the local storage,
+   * which may be behind the remote database. Tasks from before the description history start it
+   * with the given old description.
+   *
+   * <p>The history is read and written on the connection that holds the lock on the row of the
+   * task, as a revision written on another connection would wait for that lock.
+   *
+   * @param connection the connection, with a transaction in progress
+   * @param taskId the ID of the task
+   * @param oldDescription the description of the task before the change, according to the local
+   *     storage
+   * @param newDescription the new description of the task
+   * @return the change of the description, to log in the changelog
+   * @throws SQLException if the history could not be read or the revision could not be stored
+   */
+  static FieldChange storeRevision(Connection connection, UUID taskId, String oldDescription,
+      String newDescription) throws SQLException {
+    int latest = latestRevision(connection, taskId);
+    String latestDescription = latest < 0 ? null : DescriptionRevision.reconstruct(
+        selectRevisions(connection, taskId, DescriptionRevision.snapshotOf(latest), latest))
+        .get(latest);
+    if (latestDescription == null) {
+      latest = DescriptionRevision.snapshotOf(latest + DescriptionRevision.SNAPSHOT_INTERVAL);
+      latestDescription = oldDescription;
+      insertRevision(connection, new DescriptionRevision(taskId, latest, true, latestDescription));
+    }
+    int revision = latest + 1;
+    insertRevision(connection,
+        DescriptionRevision.of(taskId, revision, latestDescription, newDescription));
+    logger.debug("Description revision {} stored for task {}", revision, taskId);
+    return new FieldChange(TaskField.DESCRIPTION_REVISION, String.valueOf(latest),
+        String.valueOf(revision));
+  }
+
+  /**
+   * Inserts a revision into the description history within the transaction of the given
+   * connection.
+   *
+   * @param connection the connection, with a transaction in progress
+   * @param revision the revision to insert
+   * @throws SQLException if the revision could not be inserted
+   */
+  static void insertRevision(Connection connection, DescriptionRevision revision)
+      throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "INSERT INTO task_description_history (taskId, revision, snapshot, content) "
+            + "VALUES (?, ?, ?, ?)")) {
+      preparedStatement.setString(1, revision.taskId().toString());
+      preparedStatement.setInt(2, revision.revision());
+      preparedStatement.setBoolean(3, revision.snapshot());
+      preparedStatement.setString(4, revision.content());
+      preparedStatement.executeUpdate();
+    }
+  }
+
+  /**
+   * Gets the number of the latest revision of the description of a task on the given
+   * connection.
+   *
+   * @param connection the connection
+   * @param taskId the ID of the task
+   * @return the number of the latest revision, or -1 if the task has no revisions
+   * @throws SQLException if the history could not be read
+   */
+  static int latestRevision(Connection connection, UUID taskId) throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "SELECT MAX(revision) AS latest FROM task_description_history WHERE taskId = ?")) {
+      preparedStatement.setString(1, taskId.toString());
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        if (!resultSet.next()) {
+          return -1;
+        }
+        int latest = resultSet.getInt("latest");
+        return resultSet.wasNull() ? -1 : latest;
+      }
+    }
+  }
+
+  /**
+   * Gets the revisions of the description of a task with numbers in the given range on the
+   * given connection.
+   *
+   * @param connection the connection
+   * @param taskId the ID of the task
+   * @param from the number of the first revision
+   * @param to the number of the last revision
+   * @return a list of the revisions, in order
+   * @throws SQLException if the history could not be read
+   */
+  static List<DescriptionRevision> selectRevisions(Connection connection, UUID taskId, int from,
+      int to) throws SQLException {
+    List<DescriptionRevision> revisions = new ArrayList<>();
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "SELECT * FROM task_description_history "
+            + "WHERE taskId = ? AND revision BETWEEN ? AND ? ORDER BY revision")) {
+      preparedStatement.setString(1, taskId.toString());
+      preparedStatement.setInt(2, from);
+      preparedStatement.setInt(3, to);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        while (resultSet.next()) {
+          revisions.add(new DescriptionRevision(taskId, resultSet.getInt("revision"),
+              resultSet.getBoolean("snapshot"), resultSet.getString("content")));
+        }
+      }
+    }
+    return revisions;
+  }
+
+  /**
+   * Gets the revisions of the description of a task with numbers in the given range.
+   *
+   * @param taskId the ID of the task
+   * @param from the number of the first revision
+   * @param to the number of the last revision
+   * @return a list of the revisions, in order
+   */
+  public List<DescriptionRevision> getRevisions(UUID taskId, int from, int to) {
+    logger.debug("Retrieving description revisions {} to {} of task {}", from, to, taskId);
+    Connection connection = null;
+    try {
+      connection = connectionProvider.getConnection();
+      return selectRevisions(connection, taskId, from, to);
+    } catch (SQLException e) {
+      logger.error("SQL error while retrieving description revisions of task {}: {}",
+          taskId, e.getMessage());
+      return new ArrayList<>();
+    } finally {
+      close(connection, null, null);
+    }
+  }
+}
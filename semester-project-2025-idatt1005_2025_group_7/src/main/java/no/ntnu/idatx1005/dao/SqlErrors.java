@@ -0,0 +1,64 @@
+package no.ntnu.idatx1005.dao;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import no.ntnu.idatx1005.dao.exceptions.WriteRejectedException;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>SQL Errors</h3>
+ *
+ * <p>Sorts the SQL errors of writes into errors that pass on their own, so the write can be
+ * retried, and errors that mean the database rejected the write, so retrying would not change
+ * the outcome.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+final class SqlErrors {
+  private static final Logger logger = LoggerFactory.getLogger(SqlErrors.class);
+  /** The error code of MySQL for a lock wait timeout, which has the generic state HY000. */
+  private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+  /**
+   * Not to be constructed.
+   */
+  private SqlErrors() {
+  }
+
+  /**
+   * Sorts the SQL error of a write. An error that passes, like a lost connection, a deadlock or
+   * a lock wait timeout, is returned as a {@link DatabaseConnectionException}. Any other error
+   * means the database rejected the write, and is returned as a {@link WriteRejectedException}.
+   * A conflicting change is not an error, as it matches no rows, so it never ends up here.
+   *
+   * @param e the SQL error
+   * @param action what was being done, for the log and the message
+   * @return the exception to throw
+   */
+  static RuntimeException retryOrReject(SQLException e, String action) {
+    if (isTransient(e)) {
+      logger.warn("Transient SQL error while {}: {}", action, e.getMessage());
+      return new DatabaseConnectionException(e.getMessage());
+    }
+    logger.error("SQL error while {}, the write was rejected: {}", action, e.getMessage());
+    return new WriteRejectedException("The database rejected " + action + ": " + e.getMessage());
+  }
+
+  /**
+   * Checks whether an SQL error passes on its own, so the statement can be retried: connection
+   * errors ({@code 08}), rolled back transactions like deadlocks ({@code 40}), and the lock wait
+   * timeout of MySQL, which has no state of its own.
+   *
+   * @param e the SQL error
+   * @return true if the statement can be retried, false otherwise
+   */
+  static boolean isTransient(SQLException e) {
+    String state = e.getSQLState();
+    return e instanceof SQLTransientException
+        || state != null && (state.startsWith("08") || state.startsWith("40"))
+        || e.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT;
+  }
+}
@@ -0,0 +1,302 @@
+package no.ntnu.idatx1005.dao;
+
+import static no.ntnu.idatx1005.database.RemoteStore.close;
+import static no.ntnu.idatx1005.database.RemoteStore.rollback;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import no.ntnu.idatx1005.database.RemoteStore;
+import no.ntnu.idatx1005.model.task.ArchivedTask;
+import no.ntnu.idatx1005.model.task.DescriptionRevision;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Data access object for the task archive</h3>
+ *
+ * <p>A data access object for the ArchivedTask model. It provides methods to move completed tasks
+ * into the archive and to retrieve them from it.
+ *
+ * <p>A task is archived together with its assignments, its changelog and its description
+ * history, as one compressed payload in {@code task_archive}. Its rows are deleted from the other
+ * tables in the same transaction, so a task is never both archived and in the working set. Only
+ * the tasks of the given household are archived and retrieved.
+ *
+ * @see ArchivedTask
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class TaskArchiveDao {
+  private static final Logger logger = LoggerFactory.getLogger(TaskArchiveDao.class);
+  private static final DateTimeFormatter DATE_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private final RemoteStore connectionProvider;
+  private final UUID householdId;
+
+  /**
+   * Constructs a new task archive data access object.
+   *
+   * @param connectionProvider the connection provider
+   * @param householdId the ID of the household whose tasks are archived
+   */
+  public TaskArchiveDao(RemoteStore connectionProvider, UUID householdId) {
+    logger.debug("Initializing TaskArchiveDao");
+    this.connectionProvider = connectionProvider;
+    this.householdId = householdId;
+  }
+
+  /**
+   * Gets the IDs of the completed tasks that were completed before the given time, oldest first.
+   * Tasks completed before completion dates were recorded are compared by their due date.
+   *
+   * @param cutoff the time the tasks must be completed before
+   * @param limit the maximum number of IDs
+   * @return a list of the IDs of the tasks
+   */
+  public List<UUID> getArchivableTaskIds(LocalDateTime cutoff, int limit) {
+    logger.debug("Retrieving up to {} tasks completed before {}", limit, cutoff);
+    List<UUID> taskIds = new ArrayList<>();
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    ResultSet resultSet = null;
+
+    try {
+      connection = connectionProvider.getConnection();
+      preparedStatement = connection.prepareStatement(
+          "SELECT taskId FROM task WHERE householdId = ? AND completed = 1 "
+              + "AND COALESCE(completedDate, dueDate) < ? "
+              + "ORDER BY COALESCE(completedDate, dueDate) LIMIT ?");
+
+      preparedStatement.setString(1, householdId.toString());
+      preparedStatement.setString(2, cutoff.format(DATE_FORMAT));
+      preparedStatement.setInt(3, limit);
+      resultSet = preparedStatement.executeQuery();
+
+      while (resultSet.next()) {
+        taskIds.add(UUID.fromString(resultSet.getString("taskId")));
+      }
+    } catch (SQLException e) {
+      logger.error("SQL error while retrieving tasks completed before {}: {}", cutoff,
+          e.getMessage());
+    } finally {
+      close(connection, preparedStatement, resultSet);
+    }
+
+    return taskIds;
+  }
+
+  /**
+   * Moves the given tasks into the archive in one transaction. Tasks that no longer exist or were
+   * restored since they were found are skipped.
+   *
+   * @param taskIds the IDs of the tasks to archive
+   * @return the number of tasks that were archived, or 0 if the transaction failed
+   */
+  public int archiveTasks(List<UUID> taskIds) {
+    if (taskIds.isEmpty()) {
+      return 0;
+    }
+    logger.info("Archiving {} completed tasks", taskIds.size());
+    String placeholders = String.join(", ", Collections.nCopies(taskIds.size(), "?"));
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    ResultSet resultSet = null;
+
+    try {
+      connection = connectionProvider.getWriteConnection();
+      connection.setAutoCommit(false);
+
+      // Locks the tasks, so none of them can be restored while it is being archived
+      Map<UUID, Task> tasks = new LinkedHashMap<>();
+      preparedStatement = connection.prepareStatement("SELECT * FROM task WHERE taskId IN ("
+          + placeholders + ") AND completed = 1 FOR UPDATE");
+      setTaskIds(preparedStatement, taskIds);
+      resultSet = preparedStatement.executeQuery();
+      while (resultSet.next()) {
+        Task task = constructTaskFromResultSet(resultSet);
+        tasks.put(task.getId(), task);
+      }
+      close(null, preparedStatement, resultSet);
+      if (tasks.isEmpty()) {
+        connection.commit();
+        return 0;
+      }
+      List<UUID> lockedIds = List.copyOf(tasks.keySet());
+      String lockedPlaceholders = String.join(", ", Collections.nCopies(lockedIds.size(), "?"));
+
+      preparedStatement = connection.prepareStatement(
+          "SELECT taskId, userId FROM task_assignees WHERE taskId IN (" + lockedPlaceholders + ")");
+      setTaskIds(preparedStatement, lockedIds);
+      resultSet = preparedStatement.executeQuery();
+      while (resultSet.next()) {
+        tasks.get(UUID.fromString(resultSet.getString("taskId")))
+            .addAssignedUserId(UUID.fromString(resultSet.getString("userId")));
+      }
+      close(null, preparedStatement, resultSet);
+
+      Map<UUID, List<TaskChange>> changes = new LinkedHashMap<>();
+      preparedStatement = connection.prepareStatement("SELECT * FROM task_changelog "
+          + "WHERE taskId IN (" + lockedPlaceholders + ") ORDER BY changedAt, id");
+      setTaskIds(preparedStatement, lockedIds);
+      resultSet = preparedStatement.executeQuery();
+      while (resultSet.next()) {
+        TaskChange change = TaskChangeDao.constructTaskChangeFromResultSet(resultSet);
+        changes.computeIfAbsent(change.taskId(), id -> new ArrayList<>()).add(change);
+      }
+      close(null, preparedStatement, resultSet);
+
+      Map<UUID, List<DescriptionRevision>> histories = new LinkedHashMap<>();
+      preparedStatement = connection.prepareStatement("SELECT * FROM task_description_history "
+          + "WHERE taskId IN (" + lockedPlaceholders + ") ORDER BY taskId, revision");
+      setTaskIds(preparedStatement, lockedIds);
+      resultSet = preparedStatement.executeQuery();
+      while (resultSet.next()) {
+        UUID taskId = UUID.fromString(resultSet.getString("taskId"));
+        histories.computeIfAbsent(taskId, id -> new ArrayList<>()).add(new DescriptionRevision(
+            taskId, resultSet.getInt("revision"), resultSet.getBoolean("snapshot"),
+            resultSet.getString("content")));
+      }
+      close(null, preparedStatement, resultSet);
+      resultSet = null;
+
+      preparedStatement = connection.prepareStatement("INSERT INTO task_archive "
+          + "(taskId, householdId, name, archiveDate, archivedAt, payload) "
+          + "VALUES (?, ?, ?, ?, ?, ?)");
+      String archivedAt = LocalDateTime.now().format(DATE_FORMAT);
+      for (Task task : tasks.values()) {
+        ArchivedTask archivedTask = new ArchivedTask(task,
+            changes.getOrDefault(task.getId(), List.of()),
+            histories.getOrDefault(task.getId(), List.of()));
+        preparedStatement.setString(1, task.getId().toString());
+        preparedStatement.setString(2, householdId.toString());
+        preparedStatement.setString(3, task.getName());
+        preparedStatement.setString(4, archivedTask.archiveDate().format(DATE_FORMAT));
+        preparedStatement.setString(5, archivedAt);
+        preparedStatement.setBytes(6, archivedTask.compress());
+        preparedStatement.addBatch();
+      }
+      preparedStatement.executeBatch();
+      close(null, preparedStatement, null);
+
+      // The assignments, changelog and description history are deleted with the task
+      preparedStatement = connection.prepareStatement(
+          "DELETE FROM task WHERE taskId IN (" + lockedPlaceholders + ")");
+      setTaskIds(preparedStatement, lockedIds);
+      preparedStatement.executeUpdate();
+
+      connection.commit();
+      logger.info("{} completed tasks archived successfully", tasks.size());
+      return tasks.size();
+    } catch (SQLException e) {
+      logger.error("SQL error while archiving {} tasks: {}", taskIds.size(), e.getMessage());
+      rollback(connection);
+      return 0;
+    } finally {
+      close(connection, preparedStatement, resultSet);
+    }
+  }
+
+  /**
+   * Gets a page of the archived tasks, most recently completed first. The page starts right after
+   * the given archived task, so a page is found through the index on
+   * {@code (householdId, archiveDate, taskId)} no matter how deep into the archive it is.
+   *
+   * @param after the last archived task of the previous page, or null for the first page
+   * @param limit the maximum number of archived tasks
+   * @return a list of the archived tasks of the page
+   */
+  public List<ArchivedTask> getArchivedTasks(ArchivedTask after, int limit) {
+    logger.debug("Retrieving archived tasks after {}",
+        after == null ? null : after.task().getId());
+    List<ArchivedTask> archivedTasks = new ArrayList<>();
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    ResultSet resultSet = null;
+
+    try {
+      connection = connectionProvider.getConnection();
+      preparedStatement = connection.prepareStatement(
+          "SELECT payload FROM task_archive WHERE householdId = ?"
+          + (after == null ? "" : " AND (archiveDate < ? OR (archiveDate = ? AND taskId < ?))")
+          + " ORDER BY archiveDate DESC, taskId DESC LIMIT ?");
+
+      int index = 1;
+      preparedStatement.setString(index++, householdId.toString());
+      if (after != null) {
+        String archiveDate = after.archiveDate().format(DATE_FORMAT);
+        preparedStatement.setString(index++, archiveDate);
+        preparedStatement.setString(index++, archiveDate);
+        preparedStatement.setString(index++, after.task().getId().toString());
+      }
+      preparedStatement.setInt(index, limit);
+      resultSet = preparedStatement.executeQuery();
+
+      while (resultSet.next()) {
+        try {
+          archivedTasks.add(ArchivedTask.decompress(resultSet.getBytes("payload")));
+        } catch (IllegalArgumentException e) {
+          logger.error("Skipping unreadable archived task: {}", e.getMessage());
+        }
+      }
+    } catch (SQLException e) {
+      logger.error("SQL error while retrieving archived tasks: {}", e.getMessage());
+    } finally {
+      close(connection, preparedStatement, resultSet);
+    }
+
+    return archivedTasks;
+  }
+
+  /**
+   * Sets the given task IDs as the parameters of a statement, starting at the first parameter.
+   *
+   * @param preparedStatement the statement
+   * @param taskIds the IDs of the tasks
+   * @throws SQLException if a parameter could not be set
+   */
+  private static void setTaskIds(PreparedStatement preparedStatement, List<UUID> taskIds)
+      throws SQLException {
+    for (int i = 0; i < taskIds.size(); i++) {
+      preparedStatement.setString(i + 1, taskIds.get(i).toString());
+    }
+  }
+
+  /**
+   * Constructs a Task object from a ResultSet of the task table, without its assignments.
+   *
+   * @param resultSet the ResultSet to construct from
+   * @return the constructed Task object
+   * @throws SQLException if there's an error reading from the ResultSet
+   */
+  private static Task constructTaskFromResultSet(ResultSet resultSet) throws SQLException {
+    String description = resultSet.getString("description");
+    String completedDate = resultSet.getString("completedDate");
+    Task task = new Task(
+        UUID.fromString(resultSet.getString("taskId")),
+        resultSet.getBoolean("completed"),
+        resultSet.getString("name"),
+        description == null ? "" : description,
+        LocalDateTime.parse(resultSet.getString("createdDate"), DATE_FORMAT),
+        LocalDateTime.parse(resultSet.getString("dueDate"), DATE_FORMAT),
+        Priority.valueOf(resultSet.getString("priority")),
+        Size.valueOf(resultSet.getString("taskSize")));
+    task.setCompletedDate(completedDate == null ? null
+        : LocalDateTime.parse(completedDate, DATE_FORMAT));
+    task.setVersion(resultSet.getInt("version"));
+    return task;
+  }
+}
@@ -1,6 +1,7 @@
 package no.ntnu.idatx1005.dao;
 
-import static no.ntnu.idatx1005.database.DbConnectionProvider.close;
+import static no.ntnu.idatx1005.database.RemoteStore.close;
+import static no.ntnu.idatx1005.database.RemoteStore.rollback;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -12,7 +13,10 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import no.ntnu.idatx1005.database.DbConnectionProvider;
+import no.ntnu.idatx1005.database.RemoteStore;
+import no.ntnu.idatx1005.model.task.ChangelogEntry;
+import no.ntnu.idatx1005.model.task.ChangelogPage;
+import no.ntnu.idatx1005.model.task.FieldChange;
 import no.ntnu.idatx1005.model.task.TaskChange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,16 +33,19 @@ import org.slf4j.LoggerFactory;
  */
 public class TaskChangeDao {
   private static final Logger logger = LoggerFactory.getLogger(TaskChangeDao.class);
-  private final DbConnectionProvider connectionProvider;
+  private final RemoteStore connectionProvider;
+  private final UUID householdId;
 
   /**
    * Constructs a new task change data access object.
    *
    * @param connectionProvider the connection provider
+   * @param householdId the ID of the household whose changes are reported
    */
-  public TaskChangeDao(DbConnectionProvider connectionProvider) {
+  public TaskChangeDao(RemoteStore connectionProvider, UUID householdId) {
     logger.debug("Initializing TaskChangeDao");
     this.connectionProvider = connectionProvider;
+    this.householdId = householdId;
   }
 
   /**
@@ -47,23 +54,23 @@ public class TaskChangeDao {
    * @param taskChange the changelog entry to add
    */
   public void addChange(TaskChange taskChange) {
-    logger.info("Adding change log entry for task {}: {}", taskChange.taskId(), 
-        taskChange.description());
+    logger.info("Adding change log entry for task {}", taskChange.taskId());
     Connection connection = null;
     PreparedStatement preparedStatement = null;
 
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
       preparedStatement = connection.prepareStatement(
-          "INSERT INTO task_changelog (id, taskId, description, changedBy, changedAt) "
-              + "VALUES (?, ?, ?, ?, ?)",
+          "INSERT INTO task_changelog (id, taskId, description, fields, changedBy, changedAt) "
+              + "VALUES (?, ?, ?, ?, ?, ?)",
           Statement.RETURN_GENERATED_KEYS);
 
       preparedStatement.setString(1, taskChange.id().toString());
       preparedStatement.setString(2, taskChange.taskId().toString());
       preparedStatement.setString(3, taskChange.description());
-      preparedStatement.setString(4, taskChange.changedBy().toString());
-      preparedStatement.setString(5, taskChange.changedAt().format(
+      preparedStatement.setString(4, encodeFields(taskChange));
+      preparedStatement.setString(5, taskChange.changedBy().toString());
+      preparedStatement.setString(6, taskChange.changedAt().format(
           DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
       preparedStatement.executeUpdate();
@@ -76,6 +83,102 @@ public class TaskChangeDao {
     }
   }
 
+  /**
+   * Adds several changelog entries to the database in one batch.
+   *
+   * @param taskChanges the changelog entries to add
+   */
+  public void addChanges(List<TaskChange> taskChanges) {
+    if (taskChanges.isEmpty()) {
+      return;
+    }
+    logger.info("Adding {} change log entries", taskChanges.size());
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+
+    try {
+      connection = connectionProvider.getWriteConnection();
+      connection.setAutoCommit(false);
+      insertChanges(connection, taskChanges);
+      connection.commit();
+      logger.debug("{} change log entries added successfully", taskChanges.size());
+    } catch (SQLException e) {
+      logger.error("SQL error while adding {} change log entries: {}", taskChanges.size(),
+          e.getMessage());
+      rollback(connection);
+    } finally {
+      close(connection, preparedStatement, null);
+    }
+  }
+
+  /**
+   * Inserts a changelog entry within the transaction of the given connection, so it is stored
+   * together with the change it describes.
+   *
+   * @param connection the connection, with a transaction in progress
+   * @param taskChange the changelog entry to insert
+   * @throws SQLException if the entry could not be inserted
+   */
+  static void insertChange(Connection connection, TaskChange taskChange) throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "INSERT INTO task_changelog (id, taskId, description, fields, changedBy, changedAt) "
+            + "VALUES (?, ?, ?, ?, ?, ?)")) {
+      preparedStatement.setString(1, taskChange.id().toString());
+      preparedStatement.setString(2, taskChange.taskId().toString());
+      preparedStatement.setString(3, taskChange.description());
+      preparedStatement.setString(4, encodeFields(taskChange));
+      preparedStatement.setString(5, taskChange.changedBy().toString());
+      preparedStatement.setString(6, taskChange.changedAt().format(
+          DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+      preparedStatement.executeUpdate();
+    }
+  }
+
+  /**
+   * Inserts several changelog entries in one batch within the transaction of the given
+   * connection, so they are stored together with the changes they describe.
+   *
+   * @param connection the connection, with a transaction in progress
+   * @param taskChanges the changelog entries to insert
+   * @throws SQLException if the entries could not be inserted
+   */
+  static void insertChanges(Connection connection, List<TaskChange> taskChanges)
+      throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "INSERT INTO task_changelog (id, taskId, description, fields, changedBy, changedAt) "
+            + "VALUES (?, ?, ?, ?, ?, ?)")) {
+      for (TaskChange taskChange : taskChanges) {
+        preparedStatement.setString(1, taskChange.id().toString());
+        preparedStatement.setString(2, taskChange.taskId().toString());
+        preparedStatement.setString(3, taskChange.description());
+        preparedStatement.setString(4, encodeFields(taskChange));
+        preparedStatement.setString(5, taskChange.changedBy().toString());
+        preparedStatement.setString(6, taskChange.changedAt().format(
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        preparedStatement.addBatch();
+      }
+      preparedStatement.executeBatch();
+    }
+  }
+
+  /**
+   * Checks whether a changelog entry with the given ID exists.
+   *
+   * @param connection the connection to check with
+   * @param id the ID of the changelog entry
+   * @return true if the entry exists, false otherwise
+   * @throws SQLException if the changelog could not be read
+   */
+  static boolean changeExists(Connection connection, UUID id) throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "SELECT 1 FROM task_changelog WHERE id = ?")) {
+      preparedStatement.setString(1, id.toString());
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        return resultSet.next();
+      }
+    }
+  }
+
   /**
    * Gets all changelog entries for a specific task.
    *
@@ -111,6 +214,103 @@ public class TaskChangeDao {
     return changes;
   }
 
+  /**
+   * Gets a page of the changelog entries of a task, newest first, together with the names of the
+   * users who made them. The page starts right after the given change, so a page is found through
+   * the index on {@code (taskId, changedAt, id)} no matter how deep into the changelog it is.
+   *
+   * @param taskId the ID of the task to get changelog entries for
+   * @param after the last change of the previous page, or null for the first page
+   * @param pageSize the maximum number of entries of the page
+   * @return the page of changelog entries
+   */
+  public ChangelogPage getChangePage(UUID taskId, TaskChange after, int pageSize) {
+    logger.debug("Retrieving change log page of task {} after {}", taskId,
+        after == null ? null : after.id());
+    List<ChangelogEntry> entries = new ArrayList<>();
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    ResultSet resultSet = null;
+
+    try {
+      connection = connectionProvider.getConnection();
+      preparedStatement = connection.prepareStatement(
+          "SELECT c.*, CONCAT(u.firstName, ' ', u.lastName) AS changedByName "
+              + "FROM task_changelog c LEFT JOIN user u ON u.userId = c.changedBy "
+              + "WHERE c.taskId = ?"
+              + (after == null ? "" : " AND (c.changedAt < ? OR (c.changedAt = ? AND c.id < ?))")
+              + " ORDER BY c.changedAt DESC, c.id DESC LIMIT ?");
+
+      int index = 1;
+      preparedStatement.setString(index++, taskId.toString());
+      if (after != null) {
+        String changedAt = after.changedAt().format(
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        preparedStatement.setString(index++, changedAt);
+        preparedStatement.setString(index++, changedAt);
+        preparedStatement.setString(index++, after.id().toString());
+      }
+      // One entry more than the page holds tells whether there is a next page
+      preparedStatement.setInt(index, pageSize + 1);
+      resultSet = preparedStatement.executeQuery();
+
+      while (resultSet.next()) {
+        String changedByName = resultSet.getString("changedByName");
+        entries.add(new ChangelogEntry(constructTaskChangeFromResultSet(resultSet),
+            changedByName == null ? "Unknown" : changedByName));
+      }
+    } catch (SQLException e) {
+      logger.error("SQL error while retrieving change log page of task {}: {}",
+          taskId, e.getMessage());
+    } finally {
+      close(connection, preparedStatement, resultSet);
+    }
+
+    boolean hasNext = entries.size() > pageSize;
+    return new ChangelogPage(hasNext ? entries.subList(0, pageSize) : entries, hasNext);
+  }
+
+  /**
+   * Gets the changelog entries of the tasks of the household made at or after the given time,
+   * oldest first. The entries are used for reporting, so they are read from the read replica when
+   * it is caught up.
+   *
+   * @param since the earliest time of the entries
+   * @return a list of the matching changelog entries
+   */
+  public List<TaskChange> getChangesSince(LocalDateTime since) {
+    logger.debug("Retrieving change log entries since {}", since);
+    List<TaskChange> changes = new ArrayList<>();
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    ResultSet resultSet = null;
+
+    try {
+      connection = connectionProvider.getReadConnection();
+      preparedStatement = connection.prepareStatement(
+          "SELECT * FROM task_changelog WHERE changedAt >= ? "
+              + "AND taskId IN (SELECT taskId FROM task WHERE householdId = ?) "
+              + "ORDER BY changedAt, id");
+
+      preparedStatement.setString(1, since.format(
+          DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+      preparedStatement.setString(2, householdId.toString());
+      resultSet = preparedStatement.executeQuery();
+
+      while (resultSet.next()) {
+        changes.add(constructTaskChangeFromResultSet(resultSet));
+      }
+      logger.debug("Retrieved {} change log entries since {}", changes.size(), since);
+    } catch (SQLException e) {
+      logger.error("SQL error while retrieving change log entries since {}: {}",
+          since, e.getMessage());
+    } finally {
+      close(connection, preparedStatement, resultSet);
+    }
+
+    return changes;
+  }
+
   /**
    * Constructs a TaskChange object from a ResultSet.
    *
@@ -118,17 +318,28 @@ public class TaskChangeDao {
    * @return the constructed TaskChange object
    * @throws SQLException if there's an error reading from the ResultSet
    */
-  private TaskChange constructTaskChangeFromResultSet(ResultSet resultSet) throws SQLException {
+  static TaskChange constructTaskChangeFromResultSet(ResultSet resultSet) throws SQLException {
     logger.trace("Constructing TaskChange from ResultSet");
     UUID id = UUID.fromString(resultSet.getString("id"));
     UUID taskId = UUID.fromString(resultSet.getString("taskId"));
     String description = resultSet.getString("description");
+    List<FieldChange> fields = FieldChange.decode(resultSet.getString("fields"));
     UUID changedBy = UUID.fromString(resultSet.getString("changedBy"));
     LocalDateTime changedAt = LocalDateTime.parse(
         resultSet.getString("changedAt"),
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
     );
 
-    return new TaskChange(id, taskId, description, changedBy, changedAt);
+    return new TaskChange(id, taskId, description, changedBy, changedAt, fields);
+  }
+
+  /**
+   * Encodes the changed fields of a changelog entry for the fields column.
+   *
+   * @param taskChange the changelog entry
+   * @return the encoded fields, or null if the entry is described by a text instead
+   */
+  private static String encodeFields(TaskChange taskChange) {
+    return taskChange.fields().isEmpty() ? null : FieldChange.encode(taskChange.fields());
   }
 } 
\ No newline at end of file
@@ -1,16 +1,24 @@
 package no.ntnu.idatx1005.dao;
 
-import static no.ntnu.idatx1005.database.DbConnectionProvider.close;
+import static no.ntnu.idatx1005.database.RemoteStore.close;
+import static no.ntnu.idatx1005.database.RemoteStore.rollback;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.UUID;
+import java.util.function.Function;
 import no.ntnu.idatx1005.dao.exceptions.TaskDoesNotExistException;
 import no.ntnu.idatx1005.dao.exceptions.TaskWithNameAlreadyExistsException;
-import no.ntnu.idatx1005.database.DbConnectionProvider;
+import no.ntnu.idatx1005.dao.exceptions.WriteRejectedException;
+import no.ntnu.idatx1005.database.RemoteStore;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+import no.ntnu.idatx1005.model.task.DescriptionRevision;
+import no.ntnu.idatx1005.model.task.FieldChange;
 import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
 import no.ntnu.idatx1005.storage.H2Manager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,18 +36,23 @@ import org.slf4j.LoggerFactory;
 public class TaskDao {
   private static final Logger logger = LoggerFactory.getLogger(TaskDao.class);
   private static final String TASK_NOT_FOUND_MESSAGE = "Task not found.";
-  private final DbConnectionProvider connectionProvider;
+  private final RemoteStore connectionProvider;
   private final AssigneesDao assigneesDao;
+  private final UUID householdId;
 
   /**
    * Constructs a new task data access object.
    *
    * @param connectionProvider the connection provider
+   * @param assigneesDao the data access object of the assignments
+   * @param householdId the ID of the household new tasks are added to, and the only household
+   *     whose tasks are changed or deleted
    */
-  public TaskDao(DbConnectionProvider connectionProvider, AssigneesDao assigneesDao) {
+  public TaskDao(RemoteStore connectionProvider, AssigneesDao assigneesDao, UUID householdId) {
     logger.debug("Initializing TaskDao");
     this.connectionProvider = connectionProvider;
     this.assigneesDao = assigneesDao;
+    this.householdId = householdId;
   }
 
   /**
@@ -60,10 +73,10 @@ public class TaskDao {
     Connection connection = null;
     PreparedStatement preparedStatement = null;
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
       preparedStatement = connection.prepareStatement(
-          "INSERT INTO task (taskId, name, description, createdDate, dueDate, priority, taskSize) "
-              + "VALUES (?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+          "INSERT INTO task (taskId, name, description, createdDate, dueDate, priority, taskSize, "
+              + "householdId) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
       preparedStatement.setString(1, task.getId().toString());
       preparedStatement.setString(2, task.getName());
       preparedStatement.setString(3, task.getDescription());
@@ -71,6 +84,7 @@ public class TaskDao {
       preparedStatement.setString(5, task.getDueDate().toString());
       preparedStatement.setString(6, task.getPriority().toString());
       preparedStatement.setString(7, task.getSize().toString());
+      preparedStatement.setString(8, householdId.toString());
       preparedStatement.executeUpdate();
       logger.debug("Task {} inserted into database", task.getName());
 
@@ -105,10 +119,11 @@ public class TaskDao {
     Connection connection = null;
     PreparedStatement preparedStatement = null;
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
       preparedStatement = connection.prepareStatement(
           "UPDATE task SET completed = ?, name = ?, description = ?, createdDate = ?, dueDate = ?, "
-              + "completedDate = ?, priority = ?, taskSize = ? WHERE taskId = ?");
+              + "completedDate = ?, priority = ?, taskSize = ?, version = version + 1 "
+              + "WHERE taskId = ? AND householdId = ?");
       preparedStatement.setString(1, task.isCompleted() ? "1" : "0");
       preparedStatement.setString(2, task.getName());
       preparedStatement.setString(3, task.getDescription());
@@ -119,6 +134,7 @@ public class TaskDao {
       preparedStatement.setString(7, task.getPriority().toString());
       preparedStatement.setString(8, task.getSize().toString());
       preparedStatement.setString(9, task.getId().toString());
+      preparedStatement.setString(10, householdId.toString());
       preparedStatement.executeUpdate();
 
       updateAssignments(task);
@@ -146,10 +162,11 @@ public class TaskDao {
     Connection connection = null;
     PreparedStatement preparedStatement = null;
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
       preparedStatement = connection.prepareStatement(
-          "DELETE FROM task WHERE taskId = ?");
+          "DELETE FROM task WHERE taskId = ? AND householdId = ?");
       preparedStatement.setString(1, task.getId().toString());
+      preparedStatement.setString(2, householdId.toString());
       preparedStatement.executeUpdate();
       logger.info("Task {} deleted successfully", task.getName());
     } catch (SQLException e) {
@@ -159,6 +176,211 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Adds a task that was made offline, with its assignments and the first revision of its
+   * description, in one transaction. A task that already exists was added when the write was
+   * replayed before, and is left as it is.
+   *
+   * @param task the task to add
+   * @return true, as the task is stored, now or when the write was replayed before
+   * @throws DatabaseConnectionException if the database could not be reached, or the write
+   *     failed for a reason that passes, like a deadlock
+   * @throws WriteRejectedException if the database rejected the task
+   */
+  public boolean addTaskIfAbsent(Task task) {
+    logger.info("Replaying new task: {}", task.getName());
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    try {
+      connection = connectionProvider.getWriteConnection();
+      connection.setAutoCommit(false);
+      if (taskExists(connection, task.getId())) {
+        logger.debug("Task {} was already added", task.getName());
+        return true;
+      }
+      preparedStatement = connection.prepareStatement(
+          "INSERT INTO task (taskId, completed, name, description, createdDate, dueDate, "
+              + "completedDate, priority, taskSize, householdId) "
+              + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+      preparedStatement.setString(1, task.getId().toString());
+      preparedStatement.setString(2, task.isCompleted() ? "1" : "0");
+      preparedStatement.setString(3, task.getName());
+      preparedStatement.setString(4, task.getDescription());
+      preparedStatement.setString(5, task.getCreatedDate().toString());
+      preparedStatement.setString(6, task.getDueDate().toString());
+      preparedStatement.setString(7, task.getCompletedDate() == null ? null :
+          task.getCompletedDate().toString());
+      preparedStatement.setString(8, task.getPriority().toString());
+      preparedStatement.setString(9, task.getSize().toString());
+      preparedStatement.setString(10, householdId.toString());
+      preparedStatement.executeUpdate();
+      replaceAssignees(connection, task);
+      DescriptionHistoryDao.insertRevision(connection,
+          DescriptionRevision.of(task.getId(), 0, null, task.getDescription()));
+      connection.commit();
+      logger.info("Task {} added successfully with {} assignees", task.getName(),
+          task.getAssignedUserIds().size());
+      return true;
+    } catch (SQLException e) {
+      rollback(connection);
+      throw SqlErrors.retryOrReject(e, "adding task " + task.getName());
+    } finally {
+      close(connection, preparedStatement, null);
+    }
+  }
+
+  /**
+   * Updates a task that was changed offline, if it still has the version the change was made
+   * against. The task, its assignments and the changelog entry of the change are stored in one
+   * transaction. If the version no longer matches, the change was either made by the same write
+   * when it was replayed before, which its changelog entry shows, or the task was changed by
+   * someone else in the meantime.
+   *
+   * <p>A change of the description also stores a revision of it in the same transaction, once
+   * the version matched, so a rejected change stores no revision and a revision that could not
+   * be stored rejects the change.
+   *
+   * @param task the task with its new values
+   * @param baseVersion the version of the task the change was made against
+   * @param changeId the ID of the changelog entry of the change
+   * @param oldDescription the description the change was made against, or null if the change
+   *     leaves the description as it is
+   * @param change makes the changelog entry of the change, with the given ID, from the change of
+   *     the description revision, or null if the description was left as it is
+   * @return true if the change is stored, false if the task was changed since, or deleted
+   * @throws DatabaseConnectionException if the database could not be reached, or the write
+   *     failed for a reason that passes, like a deadlock
+   * @throws WriteRejectedException if the database rejected the change
+   */
+  public boolean updateTaskIfVersion(Task task, int baseVersion, UUID changeId,
+      String oldDescription, Function<FieldChange, TaskChange> change) {
+    logger.info("Replaying update of task: {}", task.getName());
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    try {
+      connection = connectionProvider.getWriteConnection();
+      connection.setAutoCommit(false);
+      if (TaskChangeDao.changeExists(connection, changeId)) {
+        logger.debug("Update {} of task {} was already stored", changeId, task.getName());
+        return true;
+      }
+      preparedStatement = connection.prepareStatement(
+          "UPDATE task SET completed = ?, name = ?, description = ?, createdDate = ?, dueDate = ?, "
+              + "completedDate = ?, priority = ?, taskSize = ?, version = version + 1 "
+              + "WHERE taskId = ? AND householdId = ? AND version = ?");
+      preparedStatement.setString(1, task.isCompleted() ? "1" : "0");
+      preparedStatement.setString(2, task.getName());
+      preparedStatement.setString(3, task.getDescription());
+      preparedStatement.setString(4, task.getCreatedDate().toString());
+      preparedStatement.setString(5, task.getDueDate().toString());
+      preparedStatement.setString(6, task.getCompletedDate() == null ? null :
+          task.getCompletedDate().toString());
+      preparedStatement.setString(7, task.getPriority().toString());
+      preparedStatement.setString(8, task.getSize().toString());
+      preparedStatement.setString(9, task.getId().toString());
+      preparedStatement.setString(10, householdId.toString());
+      preparedStatement.setInt(11, baseVersion);
+      if (preparedStatement.executeUpdate() == 0) {
+        logger.warn("Task {} was changed since version {}", task.getName(), baseVersion);
+        rollback(connection);
+        return false;
+      }
+      replaceAssignees(connection, task);
+      FieldChange revision = oldDescription == null
+          || oldDescription.equals(task.getDescription()) ? null
+          : DescriptionHistoryDao.storeRevision(connection, task.getId(), oldDescription,
+              task.getDescription());
+      TaskChangeDao.insertChange(connection, change.apply(revision));
+      connection.commit();
+      logger.info("Task {} updated successfully in remote database", task.getName());
+      return true;
+    } catch (SQLException e) {
+      rollback(connection);
+      throw SqlErrors.retryOrReject(e, "updating task " + task.getName());
+    } finally {
+      close(connection, preparedStatement, null);
+    }
+  }
+
+  /**
+   * Deletes a task that was deleted offline, if it still has the version it was deleted at. A
+   * task that no longer exists was deleted when the write was replayed before, or by someone
+   * else, and counts as deleted.
+   *
+   * @param taskId the ID of the task to delete
+   * @param baseVersion the version of the task when it was deleted
+   * @return true if the task is deleted, false if it was changed since
+   * @throws DatabaseConnectionException if the database could not be reached, or the write
+   *     failed for a reason that passes, like a deadlock
+   * @throws WriteRejectedException if the database rejected the deletion
+   */
+  public boolean deleteTaskIfVersion(UUID taskId, int baseVersion) {
+    logger.info("Replaying deletion of task: {}", taskId);
+    Connection connection = null;
+    PreparedStatement preparedStatement = null;
+    try {
+      connection = connectionProvider.getWriteConnection();
+      preparedStatement = connection.prepareStatement(
+          "DELETE FROM task WHERE taskId = ? AND householdId = ? AND version = ?");
+      preparedStatement.setString(1, taskId.toString());
+      preparedStatement.setString(2, householdId.toString());
+      preparedStatement.setInt(3, baseVersion);
+      if (preparedStatement.executeUpdate() == 0 && taskExists(connection, taskId)) {
+        logger.warn("Task {} was changed since version {}", taskId, baseVersion);
+        return false;
+      }
+      logger.info("Task {} deleted successfully", taskId);
+      return true;
+    } catch (SQLException e) {
+      throw SqlErrors.retryOrReject(e, "deleting task " + taskId);
+    } finally {
+      close(connection, preparedStatement, null);
+    }
+  }
+
+  /**
+   * Checks whether a task exists in the household of the data access object.
+   *
+   * @param connection the connection to check with
+   * @param taskId the ID of the task
+   * @return true if the task exists, false otherwise
+   * @throws SQLException if the task could not be read
+   */
+  private boolean taskExists(Connection connection, UUID taskId) throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "SELECT 1 FROM task WHERE taskId = ? AND householdId = ?")) {
+      preparedStatement.setString(1, taskId.toString());
+      preparedStatement.setString(2, householdId.toString());
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        return resultSet.next();
+      }
+    }
+  }
+
+  /**
+   * Replaces the assignments of a task with its assigned users, within the transaction of the
+   * given connection.
+   *
+   * @param connection the connection, with a transaction in progress
+   * @param task the task with the users it is assigned to
+   * @throws SQLException if the assignments could not be replaced
+   */
+  private static void replaceAssignees(Connection connection, Task task) throws SQLException {
+    try (PreparedStatement deleteStatement = connection.prepareStatement(
+            "DELETE FROM task_assignees WHERE taskId = ?");
+        PreparedStatement insertStatement = connection.prepareStatement(
+            "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)")) {
+      deleteStatement.setString(1, task.getId().toString());
+      deleteStatement.executeUpdate();
+      for (UUID userId : task.getAssignedUserIds()) {
+        insertStatement.setString(1, task.getId().toString());
+        insertStatement.setString(2, userId.toString());
+        insertStatement.addBatch();
+      }
+      insertStatement.executeBatch();
+    }
+  }
+
   /**
    * Updates the task-user assignments in the database for the given task, by calling the
    * appropriate methods in the {@link AssigneesDao} class.
@@ -1,14 +1,16 @@
 package no.ntnu.idatx1005.dao;
 
-import static no.ntnu.idatx1005.database.DbConnectionProvider.close;
+import static no.ntnu.idatx1005.database.RemoteStore.close;
+import static no.ntnu.idatx1005.database.RemoteStore.rollback;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.UUID;
 import no.ntnu.idatx1005.dao.exceptions.UserDoesNotExistException;
 import no.ntnu.idatx1005.dao.exceptions.UserWithEmailAlreadyExistsException;
-import no.ntnu.idatx1005.database.DbConnectionProvider;
+import no.ntnu.idatx1005.database.RemoteStore;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.storage.H2Manager;
 import org.slf4j.Logger;
@@ -18,7 +20,8 @@ import org.slf4j.LoggerFactory;
  * <h3>Data access object for the User model</h3>
  *
  * <p>A data access object for the User model. It provides methods to add, get, and update users in
- * the database.
+ * the database. Users are members of households, and are added to and removed from the household
+ * of the application.
  *
  * @see User
  * @author William Holtsdalen
@@ -26,20 +29,23 @@ import org.slf4j.LoggerFactory;
  */
 public class UserDao {
   private static final Logger logger = LoggerFactory.getLogger(UserDao.class);
-  private final DbConnectionProvider connectionProvider;
+  private final RemoteStore connectionProvider;
+  private final UUID householdId;
 
   /**
    * Constructs a new user data access object.
    *
    * @param connectionProvider the connection provider
+   * @param householdId the ID of the household users are added to and removed from
    */
-  public UserDao(DbConnectionProvider connectionProvider) {
+  public UserDao(RemoteStore connectionProvider, UUID householdId) {
     logger.debug("Initializing UserDao");
     this.connectionProvider = connectionProvider;
+    this.householdId = householdId;
   }
   
   /**
-   * Adds a new user to the database.
+   * Adds a new user to the database, as a member of the household, in one transaction.
    *
    * @param user The user to add.
    * @throws UserWithEmailAlreadyExistsException If a user with the same email already exists.
@@ -57,7 +63,8 @@ public class UserDao {
     }
 
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
+      connection.setAutoCommit(false);
       preparedStatement = connection.prepareStatement(
           "INSERT INTO user "
               + "( userId, firstName, lastName, email, passwordHash, salt, workloadCapacity, "
@@ -73,8 +80,16 @@ public class UserDao {
       preparedStatement.setInt(8, user.getSickness() ? 1 : 0);
 
       preparedStatement.executeUpdate();
+      try (PreparedStatement addMember = connection.prepareStatement(
+          "INSERT INTO household_member (householdId, userId) VALUES (?, ?)")) {
+        addMember.setString(1, householdId.toString());
+        addMember.setString(2, user.getId().toString());
+        addMember.executeUpdate();
+      }
+      connection.commit();
       logger.info("User {} added successfully", user.getEmail());
     } catch (SQLException e) {
+      rollback(connection);
       logger.error("SQL error while adding user {}: {}", user.getEmail(), e.getMessage());
     } finally {
       close(connection, preparedStatement, null);
@@ -82,7 +97,9 @@ public class UserDao {
   }
 
   /**
-   * Removes the given user from the database.
+   * Removes the given user from the household, along with their assignments to the tasks of the
+   * household, in one transaction. The user is removed from the database once they are no longer
+   * a member of any household.
    *
    * @param user The user to remove.
    * @throws UserDoesNotExistException If the user does not exist in the database.
@@ -97,13 +114,30 @@ public class UserDao {
     Connection connection = null;
     PreparedStatement preparedStatement = null;
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
+      connection.setAutoCommit(false);
+      try (PreparedStatement removeAssignments = connection.prepareStatement(
+              "DELETE FROM task_assignees WHERE userId = ? "
+                  + "AND taskId IN (SELECT taskId FROM task WHERE householdId = ?)");
+          PreparedStatement removeMember = connection.prepareStatement(
+              "DELETE FROM household_member WHERE userId = ? AND householdId = ?")) {
+        for (PreparedStatement statement : new PreparedStatement[] {removeAssignments,
+            removeMember}) {
+          statement.setString(1, user.getId().toString());
+          statement.setString(2, householdId.toString());
+          statement.executeUpdate();
+        }
+      }
       preparedStatement = connection.prepareStatement(
-          "DELETE FROM user WHERE userId = ?");
+          "DELETE FROM user WHERE userId = ? AND NOT EXISTS "
+              + "(SELECT 1 FROM household_member WHERE userId = ?)");
       preparedStatement.setString(1, user.getId().toString());
+      preparedStatement.setString(2, user.getId().toString());
       preparedStatement.executeUpdate();
+      connection.commit();
       logger.info("User {} removed successfully", user.getEmail());
     } catch (SQLException e) {
+      rollback(connection);
       logger.error("SQL error while removing user {}: {}", user.getEmail(), e.getMessage());
     } finally {
       close(connection, preparedStatement, null);
@@ -121,10 +155,10 @@ public class UserDao {
     Connection connection = null;
     PreparedStatement preparedStatement = null;
     try {
-      connection = connectionProvider.getConnection();
+      connection = connectionProvider.getWriteConnection();
       preparedStatement = connection.prepareStatement(
           "UPDATE user SET firstName = ?, lastName = ?, email = ?, passwordHash = ?, salt = ?, "
-              + "workloadCapacity = ?, sickness = ? WHERE userId = ?");
+              + "workloadCapacity = ?, sickness = ?, version = version + 1 WHERE userId = ?");
       preparedStatement.setString(1, user.getFirstName());
       preparedStatement.setString(2, user.getLastName());
       preparedStatement.setString(3, user.getEmail());
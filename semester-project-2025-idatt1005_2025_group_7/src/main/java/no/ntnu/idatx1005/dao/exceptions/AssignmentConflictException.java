@@ -0,0 +1,51 @@
+package no.ntnu.idatx1005.dao.exceptions;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The class {@code AssignmentConflictException} is a custom exception that extends
+ * {@code RuntimeException}. It is thrown when an assignment is rejected because some of the
+ * tasks or users it depends on were changed by someone else since they were read. The
+ * conflicting tasks and users are listed, so only they have to be read again.
+ *
+ * @see RuntimeException
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class AssignmentConflictException extends RuntimeException {
+  private final List<UUID> conflictingTaskIds;
+  private final List<UUID> conflictingUserIds;
+
+  /**
+   * Constructs a new {@code AssignmentConflictException} with the given message and conflicts.
+   *
+   * @param message the message of the exception
+   * @param conflictingTaskIds the IDs of the tasks that were changed by someone else
+   * @param conflictingUserIds the IDs of the users that were changed by someone else
+   */
+  public AssignmentConflictException(String message, List<UUID> conflictingTaskIds,
+      List<UUID> conflictingUserIds) {
+    super(message);
+    this.conflictingTaskIds = List.copyOf(conflictingTaskIds);
+    this.conflictingUserIds = List.copyOf(conflictingUserIds);
+  }
+
+  /**
+   * Returns the IDs of the tasks that were changed by someone else.
+   *
+   * @return the IDs of the conflicting tasks
+   */
+  public List<UUID> getConflictingTaskIds() {
+    return conflictingTaskIds;
+  }
+
+  /**
+   * Returns the IDs of the users that were changed by someone else.
+   *
+   * @return the IDs of the conflicting users
+   */
+  public List<UUID> getConflictingUserIds() {
+    return conflictingUserIds;
+  }
+}
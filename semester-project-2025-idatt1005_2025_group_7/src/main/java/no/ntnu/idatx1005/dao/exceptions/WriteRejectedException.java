@@ -0,0 +1,23 @@
+package no.ntnu.idatx1005.dao.exceptions;
+
+/**
+ * The class {@code WriteRejectedException} is a custom exception that extends
+ * {@code RuntimeException}. It is thrown when the database rejects a write for a reason other
+ * than a conflicting change, like a value it does not accept, so retrying the write would not
+ * change the outcome.
+ *
+ * @see RuntimeException
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class WriteRejectedException extends RuntimeException {
+
+  /**
+   * Constructs a new {@code WriteRejectedException} with the given message.
+   *
+   * @param message the message of the exception
+   */
+  public WriteRejectedException(String message) {
+    super(message);
+  }
+}
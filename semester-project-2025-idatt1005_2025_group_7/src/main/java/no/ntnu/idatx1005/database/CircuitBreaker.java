@@ -0,0 +1,239 @@
+package no.ntnu.idatx1005.database;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import no.ntnu.idatx1005.observer.CircuitBreakerObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Circuit Breaker</h3>
+ *
+ * <p>Guards the access to the remote database, so the application stops waiting on a database
+ * that does not answer. After {@code failureThreshold} failures in a row the breaker opens, and
+ * every access fails right away instead of running into the timeouts again. Once
+ * {@code openDuration} has passed, the breaker is half open, and lets a single access through as
+ * a probe: if it succeeds the breaker closes, and if it fails the breaker opens again.
+ *
+ * <p>The breaker counts the accesses that succeeded, failed and were rejected, and how often it
+ * opened, and notifies its {@link CircuitBreakerObserver observers} of every change of state.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class CircuitBreaker {
+  private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final Clock clock;
+  private final List<CircuitBreakerObserver> observers;
+  private final LongAdder successes;
+  private final LongAdder failures;
+  private final LongAdder rejections;
+  private final LongAdder openings;
+  private State state;
+  private int consecutiveFailures;
+  private Instant openedAt;
+  private boolean isProbing;
+
+  /**
+   * The states of the breaker.
+   */
+  public enum State {
+    /** Accesses go through. */
+    CLOSED,
+    /** Accesses are rejected, because the remote database did not answer. */
+    OPEN,
+    /** A single access is let through, to find out whether the remote database answers again. */
+    HALF_OPEN
+  }
+
+  /**
+   * Constructs a closed circuit breaker.
+   *
+   * @param failureThreshold the number of failures in a row that open the breaker
+   * @param openDuration the time the breaker stays open before it lets a probe through
+   * @param clock the clock the open duration is measured with
+   */
+  public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.clock = clock;
+    this.observers = new CopyOnWriteArrayList<>();
+    this.successes = new LongAdder();
+    this.failures = new LongAdder();
+    this.rejections = new LongAdder();
+    this.openings = new LongAdder();
+    this.state = State.CLOSED;
+    this.consecutiveFailures = 0;
+    this.isProbing = false;
+  }
+
+  /**
+   * Asks to access the remote database. An open breaker rejects the access, unless the open
+   * duration has passed, in which case the access is let through as the probe of the half open
+   * breaker. Every access that is let through must be followed by {@link #recordSuccess()} or
+   * {@link #recordFailure()}.
+   *
+   * @return true if the access may go ahead, false if it is rejected
+   */
+  public boolean tryAcquire() {
+    State changed = null;
+    synchronized (this) {
+      if (state == State.OPEN
+          && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+        state = State.HALF_OPEN;
+        changed = state;
+      }
+      if (state == State.HALF_OPEN) {
+        if (isProbing) {
+          rejections.increment();
+          return false;
+        }
+        isProbing = true;
+      } else if (state == State.OPEN) {
+        rejections.increment();
+        return false;
+      }
+    }
+    notifyObservers(changed);
+    return true;
+  }
+
+  /**
+   * Records that an access succeeded, which closes the breaker.
+   */
+  public void recordSuccess() {
+    State changed = null;
+    synchronized (this) {
+      successes.increment();
+      consecutiveFailures = 0;
+      isProbing = false;
+      if (state != State.CLOSED) {
+        state = State.CLOSED;
+        changed = state;
+      }
+    }
+    notifyObservers(changed);
+  }
+
+  /**
+   * Records that an access failed. The breaker opens once the failures in a row reach the
+   * threshold, or right away if the failed access was the probe of the half open breaker.
+   */
+  public void recordFailure() {
+    State changed = null;
+    synchronized (this) {
+      failures.increment();
+      consecutiveFailures++;
+      isProbing = false;
+      if (state == State.HALF_OPEN
+          || state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+        state = State.OPEN;
+        openedAt = clock.instant();
+        openings.increment();
+        changed = state;
+      }
+    }
+    notifyObservers(changed);
+  }
+
+  /**
+   * Returns the state of the breaker.
+   *
+   * @return the state
+   */
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * Returns the number of accesses that succeeded.
+   *
+   * @return the number of successes
+   */
+  public long getSuccessCount() {
+    return successes.sum();
+  }
+
+  /**
+   * Returns the number of accesses that failed.
+   *
+   * @return the number of failures
+   */
+  public long getFailureCount() {
+    return failures.sum();
+  }
+
+  /**
+   * Returns the number of accesses that were rejected while the breaker was open.
+   *
+   * @return the number of rejections
+   */
+  public long getRejectedCount() {
+    return rejections.sum();
+  }
+
+  /**
+   * Returns how often the breaker opened.
+   *
+   * @return the number of openings
+   */
+  public long getOpenedCount() {
+    return openings.sum();
+  }
+
+  /**
+   * Adds an observer that is notified every time the state of the breaker changes.
+   *
+   * @param observer the observer to add
+   */
+  public void addObserver(CircuitBreakerObserver observer) {
+    observers.add(observer);
+  }
+
+  /**
+   * Removes a circuit breaker observer.
+   *
+   * @param observer the observer to remove
+   */
+  public void removeObserver(CircuitBreakerObserver observer) {
+    observers.remove(observer);
+  }
+
+  /**
+   * Notifies the observers of a new state, if the state changed. A failing observer does not
+   * prevent the remaining observers from being notified.
+   *
+   * @param changed the new state, or null if the state did not change
+   */
+  private void notifyObservers(State changed) {
+    if (changed == null) {
+      return;
+    }
+    logger.info("Circuit breaker {} - {}", changed, this);
+    for (CircuitBreakerObserver observer : observers) {
+      try {
+        observer.onCircuitStateChanged(changed);
+      } catch (RuntimeException e) {
+        logger.error("Error notifying {} of circuit breaker state: {}",
+            observer.getClass().getSimpleName(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the counts of the breaker.
+   *
+   * @return the counts as text
+   */
+  @Override
+  public String toString() {
+    return String.format("successes=%d, failures=%d, rejected=%d, opened=%d", getSuccessCount(),
+        getFailureCount(), getRejectedCount(), getOpenedCount());
+  }
+}
@@ -1,11 +1,15 @@
 package no.ntnu.idatx1005.database;
 
+import com.mchange.v2.c3p0.ComboPooledDataSource;
 import io.github.cdimascio.dotenv.Dotenv;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import javax.sql.DataSource;
 import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,108 +17,302 @@ import org.slf4j.LoggerFactory;
 /**
  * <h3>Database Connection Provider</h3>
  *
- * <p>The class provides a connection to the remote database. It uses the Singleton
- * design pattern to ensure that only one instance of the class is created.
+ * <p>The class provides a connection to the remote MySQL database, the default
+ * {@link RemoteStore}. It uses the Singleton design pattern to ensure that only one instance of
+ * the class is created.
+ *
+ * <p>Connections are taken from a pool, so closing a connection returns it to the pool instead
+ * of closing it, and several connections can be used at once without a new handshake each time.
+ *
+ * <p>Every wait on the remote database is bounded: connecting, waiting for a free pooled
+ * connection and waiting for the answer to a statement all time out, so a stalled database
+ * fails the access instead of hanging it. The statements of {@link #getConnection()} and
+ * {@link #getWriteConnection()}, which the user waits on, time out after {@link #QUERY_TIMEOUT},
+ * sooner than the bulk reads. Statements
+ * that fail because the primary stopped answering count as failures of the circuit breaker, like
+ * connections that could not be opened.
+ *
+ * <p>If a read replica is configured, reads that tolerate a slightly stale answer can be served
+ * by it through {@link #getReadConnection()}, while writes and every other read go to the
+ * primary.
  *
  * @author William Holtsdalen
  * @since V0.1.0
  */
-public class DbConnectionProvider {
+public class DbConnectionProvider implements RemoteStore {
   private static final Logger logger = LoggerFactory.getLogger(DbConnectionProvider.class);
   private static DbConnectionProvider databaseConnectionProvider;
+  /** The largest number of connections open at once, enough to fetch every table in parallel. */
+  private static final int MAX_POOL_SIZE = 8;
+  /** The number of seconds an unused pooled connection is kept open. */
+  private static final int MAX_IDLE_SECONDS = 300;
+  /** The longest wait for the remote database to accept a new connection. */
+  static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  /** The longest wait for a free connection of the pool. */
+  static final Duration CHECKOUT_TIMEOUT = Duration.ofSeconds(5);
+  /** The longest wait for the remote database to answer a statement. */
+  static final Duration SOCKET_TIMEOUT = Duration.ofSeconds(30);
+  /** The longest wait for the answer to a statement the user waits on. */
+  static final Duration QUERY_TIMEOUT = Duration.ofSeconds(10);
+  /** The number of failed connections in a row that open the circuit breaker. */
+  static final int FAILURE_THRESHOLD = 3;
+  /** The time the circuit breaker stays open before the remote database is probed again. */
+  static final Duration OPEN_DURATION = Duration.ofSeconds(30);
 
-  private final String url;
-  private final String username;
-  private final String password;
+  /** The largest lag of the replica that reads are still served by the replica with. */
+  static final Duration MAX_REPLICA_LAG = Duration.ofSeconds(5);
+  /** The time a measured lag of the replica is trusted for before it is measured again. */
+  static final Duration LAG_PROBE_INTERVAL = Duration.ofSeconds(10);
+
+  private final DataSource primary;
+  private final DataSource replica;
+  private final CircuitBreaker circuitBreaker;
+  private final ReplicaRouter replicaRouter;
 
   /**
    * Constructs a new database connection provider.
    *
    * <p>Initializes the database connection provider with the necessary database
-   * connection information.
+   * connection information. If {@code DATABASE_REPLICA_HOST} is set, reads that tolerate a
+   * slightly stale answer are served by the read replica on that host.
    */
   public DbConnectionProvider() {
+    this(Dotenv.load());
+  }
+
+  /**
+   * Constructs a new database connection provider from the environment variables.
+   *
+   * @param dotenv the environment variables
+   */
+  private DbConnectionProvider(Dotenv dotenv) {
+    this(pooledDataSource(dotenv, "namox.idi.ntnu.no"),
+        dotenv.get("DATABASE_REPLICA_HOST") == null ? null
+            : pooledDataSource(dotenv, dotenv.get("DATABASE_REPLICA_HOST")),
+        Clock.systemDefaultZone());
+  }
+
+  /**
+   * Constructs a database connection provider on the given data sources. Used by the tests,
+   * which stand in embedded databases for the primary and the replica.
+   *
+   * @param primary the data source of the primary, which every write goes to
+   * @param replica the data source of the read replica, or null if there is no replica
+   * @param clock the clock of the circuit breaker and the replica router
+   */
+  DbConnectionProvider(DataSource primary, DataSource replica, Clock clock) {
     logger.debug("Initializing database connection provider");
-    Dotenv dotenv = Dotenv.load();
+    this.primary = primary;
+    this.replica = replica;
+    this.circuitBreaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_DURATION, clock);
+    this.replicaRouter = new ReplicaRouter(clock, MAX_REPLICA_LAG, LAG_PROBE_INTERVAL,
+        this::measureReplicaLag);
+  }
 
+  /**
+   * Creates the connection pool of a remote database host.
+   *
+   * @param dotenv the environment variables holding the credentials
+   * @param dbIpAddress the host of the database
+   * @return the connection pool
+   * @throws DatabaseConnectionException if the credentials are missing
+   */
+  private static ComboPooledDataSource pooledDataSource(Dotenv dotenv, String dbIpAddress) {
     final String dbName = "hectome";
-    final String dbIpAddress = "namox.idi.ntnu.no";
     final int dbPort = 3306;
     final String dbKeyRetrieval = "?allowPublicKeyRetrieval=true";
     final String dbUseSsl = "useSSL=false";
-    this.url = "jdbc:mysql://" + dbIpAddress + ":" + dbPort + "/" + dbName + dbKeyRetrieval + "&"
-        + dbUseSsl;
+    final String dbTimeouts = "connectTimeout=" + CONNECT_TIMEOUT.toMillis() + "&socketTimeout="
+        + SOCKET_TIMEOUT.toMillis();
+    final String url = "jdbc:mysql://" + dbIpAddress + ":" + dbPort + "/" + dbName
+        + dbKeyRetrieval + "&" + dbUseSsl + "&" + dbTimeouts;
 
-    this.username = dotenv.get("DATABASE_USERNAME");
-    this.password = dotenv.get("DATABASE_PASSWORD");
+    final String username = dotenv.get("DATABASE_USERNAME");
+    final String password = dotenv.get("DATABASE_PASSWORD");
 
     if (username == null || password == null) {
       logger.error("Database credentials not found in environment variables");
       throw new DatabaseConnectionException("Database credentials not found in environment "
           + "variables");
     }
-    logger.debug("Database connection provider initialized with URL: {}", url);
+    ComboPooledDataSource dataSource = new ComboPooledDataSource();
+    dataSource.setJdbcUrl(url);
+    dataSource.setUser(username);
+    dataSource.setPassword(password);
+    dataSource.setMinPoolSize(1);
+    dataSource.setMaxPoolSize(MAX_POOL_SIZE);
+    dataSource.setMaxIdleTime(MAX_IDLE_SECONDS);
+    dataSource.setCheckoutTimeout((int) CHECKOUT_TIMEOUT.toMillis());
+    // Fails the checkout instead of retrying, the circuit breaker decides when to try again
+    dataSource.setAcquireRetryAttempts(1);
+    logger.debug("Database connection pool initialized with URL: {}", url);
+    return dataSource;
   }
 
   /**
-   * Returns a connection to the database.
+   * Returns a pooled connection to the primary database. The connection is guarded by the
+   * {@link CircuitBreaker}: while the remote database is known not to answer, this fails right
+   * away instead of waiting for the timeouts. The connection that probes the remote database is
+   * validated before it is handed out, as the pool may still hold connections from before the
+   * remote database stopped answering.
+   *
+   * <p>The statements of the connection time out after {@link #QUERY_TIMEOUT}, and those that
+   * fail because the primary stopped answering are recorded by the circuit breaker. The
+   * connection must not be used to write, as writes have to be recorded through
+   * {@link #getWriteConnection()}.
    *
    * @return a connection to the database
+   * @throws DatabaseConnectionException if no connection could be established, or the circuit
+   *     breaker is open
    */
+  @Override
   public Connection getConnection() {
+    return MonitoredConnection.wrap(openPrimary(), circuitBreaker, QUERY_TIMEOUT);
+  }
+
+  /**
+   * Returns a connection to the primary database for writes, like {@link #getConnection()}. The
+   * reads that follow a write are sent to the primary as well until the replica has had time to
+   * catch up, so the client always reads its own writes.
+   *
+   * @return a connection to the database
+   * @throws DatabaseConnectionException if no connection could be established, or the circuit
+   *     breaker is open
+   */
+  @Override
+  public Connection getWriteConnection() {
+    replicaRouter.recordWrite();
+    return getConnection();
+  }
+
+  /**
+   * Returns a connection for reads that tolerate an answer that is slightly behind, such as
+   * cloning and diffing the remote tables or reporting. The read is served by the replica if
+   * there is one, it is at most {@link #MAX_REPLICA_LAG} behind the primary, and nothing was
+   * written within that time. Otherwise, or if the replica cannot be reached, the read is served
+   * by the primary. The connection must not be used to write.
+   *
+   * @return a connection to the replica or the primary
+   * @throws DatabaseConnectionException if no connection could be established to either
+   */
+  @Override
+  public Connection getReadConnection() {
+    if (replica != null && replicaRouter.useReplica()) {
+      try {
+        return replica.getConnection();
+      } catch (SQLException e) {
+        replicaRouter.recordReplicaFailure();
+        logger.warn("Failed to connect to the replica, reading from the primary: {}",
+            e.getMessage());
+      }
+    }
+    return MonitoredConnection.wrap(openPrimary(), circuitBreaker, null);
+  }
+
+  /**
+   * Opens a connection to the primary through the circuit breaker.
+   *
+   * @return a connection to the primary
+   * @throws DatabaseConnectionException if no connection could be established, or the circuit
+   *     breaker is open
+   */
+  private Connection openPrimary() {
+    boolean isProbe = circuitBreaker.getState() != CircuitBreaker.State.CLOSED;
+    if (!circuitBreaker.tryAcquire()) {
+      logger.debug("Database connection rejected, the circuit breaker is open");
+      throw new DatabaseConnectionException("The remote database is not answering");
+    }
     try {
-      logger.debug("Establishing database connection to {}", url);
-      Connection conn = DriverManager.getConnection(url, username, password);
+      logger.debug("Establishing database connection");
+      Connection conn = primary.getConnection();
+      if (isProbe && !conn.isValid((int) CONNECT_TIMEOUT.toSeconds())) {
+        conn.close();
+        throw new SQLException("Pooled connection is no longer valid");
+      }
+      circuitBreaker.recordSuccess();
       logger.debug("Database connection established successfully");
       return conn;
     } catch (Exception e) {
+      circuitBreaker.recordFailure();
       logger.error("Failed to establish database connection", e);
       throw new DatabaseConnectionException(e.getMessage());
     }
   }
 
   /**
-   * Returns the singleton instance of the database connection provider.
+   * Measures how far the replica is behind the primary, by comparing the heartbeat the primary
+   * writes every second with the heartbeat the replica has applied.
    *
-   * @return the singleton instance of the database connection provider
+   * @return the lag of the replica
+   * @throws DatabaseConnectionException if the heartbeat could not be read from either side
    */
-  public static DbConnectionProvider instance() {
-    if (databaseConnectionProvider == null) {
-      logger.debug("Creating new DbConnectionProvider instance");
-      databaseConnectionProvider = new DbConnectionProvider();
+  private Duration measureReplicaLag() {
+    if (!circuitBreaker.tryAcquire()) {
+      throw new DatabaseConnectionException("The remote database is not answering");
+    }
+    Instant primaryBeat;
+    try (Connection connection = primary.getConnection()) {
+      primaryBeat = readHeartbeat(connection);
+      circuitBreaker.recordSuccess();
+    } catch (SQLException e) {
+      circuitBreaker.recordFailure();
+      throw new DatabaseConnectionException(e.getMessage());
+    }
+    try (Connection connection = replica.getConnection()) {
+      Duration lag = Duration.between(readHeartbeat(connection), primaryBeat);
+      return lag.isNegative() ? Duration.ZERO : lag;
+    } catch (SQLException e) {
+      throw new DatabaseConnectionException(e.getMessage());
     }
-    return databaseConnectionProvider;
   }
 
   /**
-   * Closes connections to database, along with resultSets, and statements.
+   * Reads the last heartbeat of a database.
    *
-   * @param connection the connection to be closed
-   * @param preparedStatement the preparedStatement to be closed
-   * @param resultSet the resultSet to be closed
+   * @param connection the connection to the database
+   * @return the time of the last heartbeat
+   * @throws SQLException if the heartbeat could not be read
    */
-  public static void close(Connection connection, PreparedStatement preparedStatement,
-      ResultSet resultSet) {
-    if (resultSet != null) {
-      try {
-        resultSet.close();
-      } catch (SQLException e) {
-        logger.error("Failed to close ResultSet: {}", e.getMessage());
-      }
-    }
-    if (preparedStatement != null) {
-      try {
-        preparedStatement.close();
-      } catch (SQLException e) {
-        logger.error("Failed to close PreparedStatement: {}", e.getMessage());
+  private static Instant readHeartbeat(Connection connection) throws SQLException {
+    try (PreparedStatement select = connection.prepareStatement(
+        "SELECT beatAt FROM replication_heartbeat WHERE id = 1");
+        ResultSet resultSet = select.executeQuery()) {
+      if (!resultSet.next()) {
+        throw new SQLException("No replication heartbeat");
       }
+      return resultSet.getTimestamp("beatAt").toInstant();
     }
-    if (connection != null) {
-      try {
-        connection.close();
-      } catch (SQLException e) {
-        logger.error("Failed to close Connection: {}", e.getMessage());
-      }
+  }
+
+  /**
+   * Returns the router that decides which reads are served by the replica.
+   *
+   * @return the replica router
+   */
+  public ReplicaRouter getReplicaRouter() {
+    return replicaRouter;
+  }
+
+  /**
+   * Returns the circuit breaker that guards the connections to the database.
+   *
+   * @return the circuit breaker
+   */
+  @Override
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Returns the singleton instance of the database connection provider.
+   *
+   * @return the singleton instance of the database connection provider
+   */
+  public static DbConnectionProvider instance() {
+    if (databaseConnectionProvider == null) {
+      logger.debug("Creating new DbConnectionProvider instance");
+      databaseConnectionProvider = new DbConnectionProvider();
     }
+    return databaseConnectionProvider;
   }
 }
@@ -0,0 +1,311 @@
+package no.ntnu.idatx1005.database;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Embedded Remote Store</h3>
+ *
+ * <p>A {@link RemoteStore} that runs the schema of the remote database in an embedded H2
+ * database in MySQL compatibility mode, in memory or in a local file. It is selected with
+ * {@code REMOTE_STORE=embedded}, so the sync and write paths can be run and benchmarked on any
+ * machine, without the shared MySQL server.
+ *
+ * <p>An empty database is seeded from {@code setup/dbSetup.sql}. The script is written for
+ * MySQL, so it is translated first: session settings, transactions and events are left out,
+ * table options and character sets are dropped, and the keys added by {@code ALTER TABLE} become
+ * indexes. The MySQL functions the application uses that H2 lacks are added as aliases of the
+ * static methods of this class.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class EmbeddedRemoteStore implements RemoteStore {
+  private static final Logger logger = LoggerFactory.getLogger(EmbeddedRemoteStore.class);
+  private static EmbeddedRemoteStore embeddedRemoteStore;
+  /** The database used if {@code EMBEDDED_STORE_URL} is not set. */
+  static final String DEFAULT_URL = "jdbc:h2:mem:hectome";
+  /** The script the database is seeded from if {@code EMBEDDED_STORE_SETUP} is not set. */
+  static final Path DEFAULT_SETUP_SCRIPT = Path.of("setup", "dbSetup.sql");
+  /** The settings that make H2 understand the SQL written for the remote MySQL database. */
+  private static final String SETTINGS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER"
+      + ";BUILTIN_ALIAS_OVERRIDE=TRUE;DB_CLOSE_DELAY=-1";
+  private static final Pattern TABLE_OPTIONS = Pattern.compile("\\)\\s*ENGINE\\s*=[^)]*$");
+  private static final Pattern CHARACTER_SET = Pattern.compile(
+      "\\s+(CHARACTER SET|COLLATE)\\s+\\w+", Pattern.CASE_INSENSITIVE);
+  private static final Pattern ALTER_TABLE = Pattern.compile(
+      "^ALTER TABLE\\s+(\\w+)\\s+(.*)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern ADD_KEY = Pattern.compile(
+      "^ADD\\s+(UNIQUE\\s+)?KEY\\s+(\\w+)\\s*(\\(.*\\))$", Pattern.CASE_INSENSITIVE);
+  private static final HexFormat HEX_FORMAT = HexFormat.of().withUpperCase();
+
+  private final String url;
+  private final CircuitBreaker circuitBreaker;
+
+  /**
+   * Constructs an embedded remote store, seeding the database if it has no tables yet.
+   *
+   * @param url the JDBC URL of the H2 database, without settings
+   * @param setupScript the MySQL script the database is seeded from
+   * @throws DatabaseConnectionException if the database could not be opened or seeded
+   */
+  public EmbeddedRemoteStore(String url, Path setupScript) {
+    logger.debug("Initializing embedded remote store at {}", url);
+    this.url = url + SETTINGS;
+    this.circuitBreaker = new CircuitBreaker(DbConnectionProvider.FAILURE_THRESHOLD,
+        DbConnectionProvider.OPEN_DURATION, Clock.systemDefaultZone());
+    try (Connection connection = DriverManager.getConnection(this.url)) {
+      registerFunctions(connection);
+      if (!hasTable(connection, "task")) {
+        seed(connection, Files.readString(setupScript, StandardCharsets.UTF_8));
+        logger.info("Embedded remote store seeded from {}", setupScript);
+      }
+    } catch (SQLException | IOException e) {
+      logger.error("Failed to set up the embedded remote store: {}", e.getMessage());
+      throw new DatabaseConnectionException("Failed to set up the embedded remote store: "
+          + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the singleton instance of the embedded remote store, on the database in
+   * {@code EMBEDDED_STORE_URL}, seeded from the script in {@code EMBEDDED_STORE_SETUP}.
+   *
+   * @return the singleton instance of the embedded remote store
+   */
+  public static EmbeddedRemoteStore instance() {
+    if (embeddedRemoteStore == null) {
+      logger.debug("Creating new EmbeddedRemoteStore instance");
+      Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+      embeddedRemoteStore = new EmbeddedRemoteStore(dotenv.get("EMBEDDED_STORE_URL", DEFAULT_URL),
+          Path.of(dotenv.get("EMBEDDED_STORE_SETUP", DEFAULT_SETUP_SCRIPT.toString())));
+    }
+    return embeddedRemoteStore;
+  }
+
+  /**
+   * Returns a connection to the embedded database, guarded by the {@link CircuitBreaker} the
+   * same way as the connections to the MySQL database.
+   *
+   * @return a connection to the embedded database
+   * @throws DatabaseConnectionException if no connection could be established, or the circuit
+   *     breaker is open
+   */
+  @Override
+  public Connection getConnection() {
+    if (!circuitBreaker.tryAcquire()) {
+      throw new DatabaseConnectionException("The remote database is not answering");
+    }
+    try {
+      Connection connection = DriverManager.getConnection(url);
+      circuitBreaker.recordSuccess();
+      return connection;
+    } catch (SQLException e) {
+      circuitBreaker.recordFailure();
+      logger.error("Failed to connect to the embedded remote store", e);
+      throw new DatabaseConnectionException(e.getMessage());
+    }
+  }
+
+  @Override
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Checks whether the database has a table.
+   *
+   * @param connection the connection to the database
+   * @param table the name of the table
+   * @return true if the table exists
+   * @throws SQLException if the tables could not be listed
+   */
+  private static boolean hasTable(Connection connection, String table) throws SQLException {
+    try (ResultSet tables = connection.getMetaData().getTables(null, null, table, null)) {
+      return tables.next();
+    }
+  }
+
+  /**
+   * Adds the MySQL functions the application uses that H2 lacks.
+   *
+   * @param connection the connection to the database
+   * @throws SQLException if a function could not be added
+   */
+  private static void registerFunctions(Connection connection) throws SQLException {
+    String className = EmbeddedRemoteStore.class.getName();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE ALIAS IF NOT EXISTS CRC32 FOR '" + className + ".crc32'");
+      statement.execute("CREATE ALIAS IF NOT EXISTS HEX FOR '" + className + ".hex'");
+      statement.execute("CREATE ALIAS IF NOT EXISTS DATE_FORMAT FOR '" + className
+          + ".dateFormat'");
+    }
+  }
+
+  /**
+   * Runs the translated statements of a MySQL script in one transaction.
+   *
+   * @param connection the connection to the database
+   * @param script the MySQL script
+   * @throws SQLException if a statement failed, in which case nothing is stored
+   */
+  private static void seed(Connection connection, String script) throws SQLException {
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : translateScript(script)) {
+        statement.execute(sql);
+      }
+      connection.commit();
+    } catch (SQLException e) {
+      RemoteStore.rollback(connection);
+      throw e;
+    }
+  }
+
+  /**
+   * Translates a MySQL script into statements H2 runs in MySQL compatibility mode.
+   *
+   * @param script the MySQL script
+   * @return the translated statements, without the terminating semicolons
+   */
+  static List<String> translateScript(String script) {
+    StringBuilder withoutComments = new StringBuilder();
+    for (String line : script.split("\n")) {
+      if (!line.stripLeading().startsWith("--")) {
+        withoutComments.append(line).append('\n');
+      }
+    }
+    List<String> statements = new ArrayList<>();
+    for (String statement : withoutComments.toString().split(";\\s*(\n|$)")) {
+      String sql = statement.strip().replace("`", "");
+      String upper = sql.toUpperCase(Locale.ROOT);
+      if (sql.isEmpty() || upper.startsWith("SET ") || upper.startsWith("START TRANSACTION")
+          || upper.equals("COMMIT") || upper.startsWith("CREATE EVENT")) {
+        continue;
+      }
+      sql = TABLE_OPTIONS.matcher(sql).replaceAll(")");
+      sql = CHARACTER_SET.matcher(sql).replaceAll("");
+      sql = sql.replaceAll("(?i)\\s+USING BTREE", "");
+      Matcher alterTable = ALTER_TABLE.matcher(sql);
+      if (alterTable.matches()) {
+        String table = alterTable.group(1);
+        for (String clause : splitClauses(alterTable.group(2))) {
+          Matcher addKey = ADD_KEY.matcher(clause);
+          statements.add(addKey.matches()
+              ? String.format("CREATE %sINDEX %s_%s ON %s %s",
+                  addKey.group(1) == null ? "" : "UNIQUE ", table, addKey.group(2), table,
+                  addKey.group(3))
+              : "ALTER TABLE " + table + " " + clause);
+        }
+      } else {
+        statements.add(sql);
+      }
+    }
+    return statements;
+  }
+
+  /**
+   * Splits the clauses of an {@code ALTER TABLE} statement at the commas outside parentheses.
+   *
+   * @param clauses the clauses
+   * @return every clause on its own
+   */
+  private static List<String> splitClauses(String clauses) {
+    List<String> split = new ArrayList<>();
+    int depth = 0;
+    int start = 0;
+    for (int i = 0; i < clauses.length(); i++) {
+      char c = clauses.charAt(i);
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == ',' && depth == 0) {
+        split.add(clauses.substring(start, i).strip());
+        start = i + 1;
+      }
+    }
+    split.add(clauses.substring(start).strip());
+    return split;
+  }
+
+  /**
+   * The {@code CRC32} function of MySQL, called by the embedded database.
+   *
+   * @param text the text to hash
+   * @return the CRC32 of the UTF-8 bytes of the text, or null if the text is null
+   */
+  public static Long crc32(String text) {
+    if (text == null) {
+      return null;
+    }
+    CRC32 crc = new CRC32();
+    crc.update(text.getBytes(StandardCharsets.UTF_8));
+    return crc.getValue();
+  }
+
+  /**
+   * The {@code HEX} function of MySQL for binary values, called by the embedded database.
+   *
+   * @param value the value
+   * @return the value as upper case hexadecimal digits, or null if the value is null
+   */
+  public static String hex(byte[] value) {
+    return value == null ? null : HEX_FORMAT.formatHex(value);
+  }
+
+  /**
+   * The {@code DATE_FORMAT} function of MySQL, called by the embedded database. Supports the
+   * {@code %Y}, {@code %m}, {@code %d}, {@code %H}, {@code %i} and {@code %s} specifiers.
+   *
+   * @param value the time to format
+   * @param format the MySQL format
+   * @return the formatted time, or null if the time is null
+   */
+  public static String dateFormat(Timestamp value, String format) {
+    if (value == null) {
+      return null;
+    }
+    LocalDateTime time = value.toLocalDateTime();
+    StringBuilder formatted = new StringBuilder();
+    for (int i = 0; i < format.length(); i++) {
+      char c = format.charAt(i);
+      if (c != '%' || i + 1 == format.length()) {
+        formatted.append(c);
+        continue;
+      }
+      char specifier = format.charAt(++i);
+      switch (specifier) {
+        case 'Y' -> formatted.append(String.format("%04d", time.getYear()));
+        case 'm' -> formatted.append(String.format("%02d", time.getMonthValue()));
+        case 'd' -> formatted.append(String.format("%02d", time.getDayOfMonth()));
+        case 'H' -> formatted.append(String.format("%02d", time.getHour()));
+        case 'i' -> formatted.append(String.format("%02d", time.getMinute()));
+        case 's' -> formatted.append(String.format("%02d", time.getSecond()));
+        default -> formatted.append(specifier);
+      }
+    }
+    return formatted.toString();
+  }
+}
@@ -0,0 +1,69 @@
+package no.ntnu.idatx1005.database;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.nio.file.Path;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Household</h3>
+ *
+ * <p>The household the application is set up for. The remote database holds the tasks and users
+ * of many households, partitioned by household: every task belongs to one household, and users
+ * are members of households. The application only syncs, indexes and writes the partition of its
+ * own household, so what a client costs stays the same as households are added.
+ *
+ * <p>The household is set with the {@code HOUSEHOLD_ID} environment variable, and defaults to
+ * {@link #DEFAULT_ID}, the household every task and user of a database from before households
+ * were introduced is moved into.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public final class Household {
+  private static final Logger logger = LoggerFactory.getLogger(Household.class);
+  /** The household of databases from before households, and of clients not set up for one. */
+  public static final UUID DEFAULT_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static UUID currentId;
+
+  /**
+   * Not to be constructed.
+   */
+  private Household() {
+  }
+
+  /**
+   * Returns the ID of the household set in the {@code HOUSEHOLD_ID} environment variable.
+   *
+   * @return the ID of the household, or {@link #DEFAULT_ID} if none is set
+   * @throws IllegalArgumentException if the set ID is not a valid UUID
+   */
+  public static synchronized UUID currentId() {
+    if (currentId == null) {
+      String id = Dotenv.configure().ignoreIfMissing().load().get("HOUSEHOLD_ID");
+      try {
+        currentId = id == null || id.isBlank() ? DEFAULT_ID : UUID.fromString(id.strip());
+      } catch (IllegalArgumentException e) {
+        logger.error("Invalid household ID {}: {}", id, e.getMessage());
+        throw new IllegalArgumentException("Invalid household ID: " + id, e);
+      }
+      logger.info("Using household {}", currentId);
+    }
+    return currentId;
+  }
+
+  /**
+   * Returns the directory the local files of the household are kept in, so the snapshot and
+   * the outbox of one household are never loaded for another. The default household keeps its
+   * files directly in {@code .home-system} in the home directory, where they were kept before
+   * households.
+   *
+   * @return the directory of the local files
+   */
+  public static Path dataDirectory() {
+    Path base = Path.of(System.getProperty("user.home"), ".home-system");
+    UUID id = currentId();
+    return id.equals(DEFAULT_ID) ? base : base.resolve("households").resolve(id.toString());
+  }
+}
@@ -0,0 +1,101 @@
+package no.ntnu.idatx1005.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Monitored Connection</h3>
+ *
+ * <p>Wraps a connection to the primary, so the {@link CircuitBreaker} also hears about the
+ * statements that fail once the connection was handed out, not only about the connections that
+ * could not be opened. A statement or a commit that fails because the remote database stopped
+ * answering is recorded as a failure of the breaker, so the breaker opens after a few of them
+ * instead of letting every caller run into the timeouts. Errors the database answered with, like
+ * a rejected value, say nothing about its availability and are not recorded.
+ *
+ * <p>The statements of the connection can be given a query timeout, so interactive calls give up
+ * on a stalled database sooner than the socket timeout the bulk reads are bounded by.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+final class MonitoredConnection implements InvocationHandler {
+  private static final Logger logger = LoggerFactory.getLogger(MonitoredConnection.class);
+  private final Object target;
+  private final CircuitBreaker circuitBreaker;
+  private final Duration queryTimeout;
+
+  /**
+   * Constructs the handler of a monitored connection or statement.
+   *
+   * @param target the connection or statement the calls are passed on to
+   * @param circuitBreaker the circuit breaker the failures are recorded by
+   * @param queryTimeout the query timeout of the statements, or null to keep the default
+   */
+  private MonitoredConnection(Object target, CircuitBreaker circuitBreaker,
+      Duration queryTimeout) {
+    this.target = target;
+    this.circuitBreaker = circuitBreaker;
+    this.queryTimeout = queryTimeout;
+  }
+
+  /**
+   * Wraps a connection, so the failures of its statements are recorded by the circuit breaker.
+   *
+   * @param connection the connection to wrap
+   * @param circuitBreaker the circuit breaker the failures are recorded by
+   * @param queryTimeout the query timeout of the statements, or null to keep the default
+   * @return the wrapped connection
+   */
+  static Connection wrap(Connection connection, CircuitBreaker circuitBreaker,
+      Duration queryTimeout) {
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[] {Connection.class},
+        new MonitoredConnection(connection, circuitBreaker, queryTimeout));
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    Object result;
+    try {
+      result = method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof SQLException cause && isCommunicationFailure(cause)) {
+        logger.warn("Remote database stopped answering during {}: {}", method.getName(),
+            cause.getMessage());
+        circuitBreaker.recordFailure();
+      }
+      throw e.getCause();
+    }
+    if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+      if (queryTimeout != null) {
+        statement.setQueryTimeout((int) queryTimeout.toSeconds());
+      }
+      return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+          new Class<?>[] {method.getReturnType()},
+          new MonitoredConnection(statement, circuitBreaker, queryTimeout));
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether an SQL error means the remote database did not answer: the connection was
+   * lost ({@code 08}), or the statement ran into its timeout.
+   *
+   * @param e the SQL error
+   * @return true if the remote database did not answer, false if it answered with an error
+   */
+  static boolean isCommunicationFailure(SQLException e) {
+    return e instanceof SQLTimeoutException
+        || e.getSQLState() != null && e.getSQLState().startsWith("08");
+  }
+}
@@ -0,0 +1,131 @@
+package no.ntnu.idatx1005.database;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Remote Store</h3>
+ *
+ * <p>The database the tasks, users and changelog are shared through. The DAOs and the
+ * {@link no.ntnu.idatx1005.storage.DatabaseCloner} only depend on this interface, so the remote
+ * database can be swapped for another backend.
+ *
+ * <p>The backend is selected with the {@code REMOTE_STORE} environment variable: {@code mysql},
+ * the default, is the shared MySQL server of {@link DbConnectionProvider}, and {@code embedded}
+ * is the {@link EmbeddedRemoteStore}, which runs the same schema in an embedded database, so the
+ * application can be run and benchmarked without the server.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public interface RemoteStore {
+
+  /**
+   * Returns a connection to the remote database, for reads that must see the latest writes.
+   * Writes go through {@link #getWriteConnection()} instead.
+   *
+   * @return a connection to the remote database
+   * @throws DatabaseConnectionException if no connection could be established
+   */
+  Connection getConnection();
+
+  /**
+   * Returns a connection to the remote database for writes, so backends with a read replica know
+   * that the replica is behind until it caught up with the write. Backends without a read
+   * replica return a regular connection.
+   *
+   * @return a connection to the remote database
+   * @throws DatabaseConnectionException if no connection could be established
+   */
+  default Connection getWriteConnection() {
+    return getConnection();
+  }
+
+  /**
+   * Returns a connection for reads that tolerate an answer that is slightly behind. The
+   * connection must not be used to write. Backends without a read replica return a regular
+   * connection.
+   *
+   * @return a connection to the remote database
+   * @throws DatabaseConnectionException if no connection could be established
+   */
+  default Connection getReadConnection() {
+    return getConnection();
+  }
+
+  /**
+   * Returns the circuit breaker that guards the connections to the remote database.
+   *
+   * @return the circuit breaker
+   */
+  CircuitBreaker getCircuitBreaker();
+
+  /**
+   * Returns the remote store selected by the {@code REMOTE_STORE} environment variable.
+   *
+   * @return the remote store
+   * @throws DatabaseConnectionException if the selected backend cannot be set up
+   */
+  static RemoteStore instance() {
+    String backend = Dotenv.configure().ignoreIfMissing().load().get("REMOTE_STORE", "mysql");
+    return "embedded".equalsIgnoreCase(backend) ? EmbeddedRemoteStore.instance()
+        : DbConnectionProvider.instance();
+  }
+
+  /**
+   * Closes connections to database, along with resultSets, and statements.
+   *
+   * @param connection the connection to be closed
+   * @param preparedStatement the preparedStatement to be closed
+   * @param resultSet the resultSet to be closed
+   */
+  static void close(Connection connection, PreparedStatement preparedStatement,
+      ResultSet resultSet) {
+    Logger logger = LoggerFactory.getLogger(RemoteStore.class);
+    if (resultSet != null) {
+      try {
+        resultSet.close();
+      } catch (SQLException e) {
+        logger.error("Failed to close ResultSet: {}", e.getMessage());
+      }
+    }
+    if (preparedStatement != null) {
+      try {
+        preparedStatement.close();
+      } catch (SQLException e) {
+        logger.error("Failed to close PreparedStatement: {}", e.getMessage());
+      }
+    }
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        logger.error("Failed to close Connection: {}", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Rolls back the current transaction of a connection. Used when a batch fails, so none of its
+   * statements are stored.
+   *
+   * @param connection the connection to roll back, may be null
+   */
+  static void rollback(Connection connection) {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.rollback();
+    } catch (SQLException e) {
+      LoggerFactory.getLogger(RemoteStore.class).error("Failed to roll back transaction: {}",
+          e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package no.ntnu.idatx1005.database;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Replica Router</h3>
+ *
+ * <p>Decides whether a read can be served by the read replica of the remote database, or has to
+ * go to the primary. A read goes to the replica only if the replica is at most {@code maxLag}
+ * behind the primary, and nothing was written to the primary within the last {@code maxLag}, so
+ * a client always reads its own writes.
+ *
+ * <p>The lag of the replica is measured at most once every {@code probeInterval}, and a lag that
+ * could not be measured counts as too large, so reads fall back to the primary until the replica
+ * is measured in time again.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class ReplicaRouter {
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+  private final Clock clock;
+  private final Duration maxLag;
+  private final Duration probeInterval;
+  private final Supplier<Duration> lagProbe;
+  private final LongAdder replicaReads;
+  private final LongAdder primaryReads;
+  private Instant lastWrite;
+  private Instant lastProbe;
+  private Duration lag;
+
+  /**
+   * Constructs a replica router.
+   *
+   * @param clock the clock the writes and probes are timed with
+   * @param maxLag the largest lag of the replica that reads are served with
+   * @param probeInterval the time a measured lag is trusted for
+   * @param lagProbe measures how far the replica is behind the primary, throwing an exception if
+   *     it could not be measured
+   */
+  public ReplicaRouter(Clock clock, Duration maxLag, Duration probeInterval,
+      Supplier<Duration> lagProbe) {
+    this.clock = clock;
+    this.maxLag = maxLag;
+    this.probeInterval = probeInterval;
+    this.lagProbe = lagProbe;
+    this.replicaReads = new LongAdder();
+    this.primaryReads = new LongAdder();
+  }
+
+  /**
+   * Returns whether the next read can be served by the replica. Measures the lag of the replica
+   * first if the last measurement is older than the probe interval.
+   *
+   * @return true if the read can go to the replica, false if it has to go to the primary
+   */
+  public synchronized boolean useReplica() {
+    Instant now = clock.instant();
+    boolean useReplica;
+    if (lastWrite != null && now.isBefore(lastWrite.plus(maxLag))) {
+      useReplica = false;
+    } else {
+      if (lastProbe == null || !now.isBefore(lastProbe.plus(probeInterval))) {
+        probe(now);
+      }
+      useReplica = lag != null && lag.compareTo(maxLag) <= 0;
+    }
+    (useReplica ? replicaReads : primaryReads).increment();
+    return useReplica;
+  }
+
+  /**
+   * Measures the lag of the replica.
+   *
+   * @param now the time of the measurement
+   */
+  private void probe(Instant now) {
+    lastProbe = now;
+    Duration previous = lag;
+    try {
+      lag = lagProbe.get();
+    } catch (RuntimeException e) {
+      lag = null;
+      logger.warn("Could not measure the lag of the replica, reading from the primary: {}",
+          e.getMessage());
+    }
+    if (lag != null && lag.compareTo(maxLag) > 0
+        && (previous == null || previous.compareTo(maxLag) <= 0)) {
+      logger.warn("Replica is {}ms behind, reading from the primary", lag.toMillis());
+    }
+  }
+
+  /**
+   * Records that the primary may have been written to, which sends the reads of the next
+   * {@code maxLag} to the primary.
+   */
+  public synchronized void recordWrite() {
+    lastWrite = clock.instant();
+  }
+
+  /**
+   * Records that the replica could not be reached. Reads go to the primary until the lag of the
+   * replica is measured again.
+   */
+  public synchronized void recordReplicaFailure() {
+    lag = null;
+  }
+
+  /**
+   * Returns the last measured lag of the replica.
+   *
+   * @return the lag, or null if it was not measured or could not be measured
+   */
+  public synchronized Duration getLag() {
+    return lag;
+  }
+
+  /**
+   * Returns the number of reads that were sent to the replica.
+   *
+   * @return the number of replica reads
+   */
+  public long getReplicaReadCount() {
+    return replicaReads.sum();
+  }
+
+  /**
+   * Returns the number of reads that were sent to the primary instead of the replica.
+   *
+   * @return the number of primary reads
+   */
+  public long getPrimaryReadCount() {
+    return primaryReads.sum();
+  }
+}
@@ -0,0 +1,207 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <h3>Archived Task Record</h3>
+ *
+ * <p>A record that represents a completed task that was moved out of the working set into the
+ * archive, together with its changelog and description history.
+ *
+ * <p>An archived task is stored as one gzip-compressed payload. The payload starts with its
+ * format version, followed by the fields of the task, its assignees, its changes and its
+ * description revisions, each list preceded by its length.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record ArchivedTask(Task task, List<TaskChange> changes,
+    List<DescriptionRevision> descriptionHistory) {
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Constructs an archived task with unmodifiable copies of the given lists.
+   *
+   * @param task the task
+   * @param changes the changes made to the task, oldest first
+   * @param descriptionHistory the revisions of the description of the task, in order
+   */
+  public ArchivedTask {
+    changes = List.copyOf(changes);
+    descriptionHistory = List.copyOf(descriptionHistory);
+  }
+
+  /**
+   * Returns the date the archived task is ordered and archived by: the date it was completed,
+   * or its due date if it was completed before completion dates were recorded.
+   *
+   * @return the date
+   */
+  public LocalDateTime archiveDate() {
+    return task.getCompletedDate() != null ? task.getCompletedDate() : task.getDueDate();
+  }
+
+  /**
+   * Compresses the archived task into its payload.
+   *
+   * @return the payload
+   */
+  public byte[] compress() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+      out.writeByte(FORMAT_VERSION);
+      writeString(out, task.getId().toString());
+      out.writeBoolean(task.isCompleted());
+      writeString(out, task.getName());
+      writeString(out, task.getDescription());
+      writeDate(out, task.getCreatedDate());
+      writeDate(out, task.getDueDate());
+      writeDate(out, task.getCompletedDate());
+      writeString(out, task.getPriority().name());
+      writeString(out, task.getSize().name());
+      out.writeInt(task.getVersion());
+      out.writeInt(task.getAssignedUserIds().size());
+      for (UUID userId : task.getAssignedUserIds()) {
+        writeString(out, userId.toString());
+      }
+
+      out.writeInt(changes.size());
+      for (TaskChange change : changes) {
+        writeString(out, change.id().toString());
+        writeString(out, change.description());
+        writeString(out, change.fields().isEmpty() ? null : FieldChange.encode(change.fields()));
+        writeString(out, change.changedBy().toString());
+        writeDate(out, change.changedAt());
+      }
+
+      out.writeInt(descriptionHistory.size());
+      for (DescriptionRevision revision : descriptionHistory) {
+        out.writeInt(revision.revision());
+        out.writeBoolean(revision.snapshot());
+        writeString(out, revision.content());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not compress archived task " + task.getId(), e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decompresses an archived task from its payload.
+   *
+   * @param payload the payload
+   * @return the archived task
+   * @throws IllegalArgumentException if the payload is not an archived task
+   */
+  public static ArchivedTask decompress(byte[] payload) {
+    try (DataInputStream in = new DataInputStream(
+        new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+      int version = in.readByte();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unknown archived task format: " + version);
+      }
+      UUID taskId = UUID.fromString(readString(in));
+      boolean completed = in.readBoolean();
+      String name = readString(in);
+      String description = readString(in);
+      LocalDateTime createdDate = readDate(in);
+      LocalDateTime dueDate = readDate(in);
+      LocalDateTime completedDate = readDate(in);
+      Priority priority = Priority.valueOf(readString(in));
+      Size size = Size.valueOf(readString(in));
+      Task task = new Task(taskId, completed, name, description, createdDate, dueDate, priority,
+          size);
+      task.setCompletedDate(completedDate);
+      task.setVersion(in.readInt());
+      for (int i = in.readInt(); i > 0; i--) {
+        task.addAssignedUserId(UUID.fromString(readString(in)));
+      }
+
+      List<TaskChange> changes = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        UUID id = UUID.fromString(readString(in));
+        String changeDescription = readString(in);
+        List<FieldChange> fields = FieldChange.decode(readString(in));
+        changes.add(new TaskChange(id, taskId, changeDescription, UUID.fromString(readString(in)),
+            readDate(in), fields));
+      }
+
+      List<DescriptionRevision> descriptionHistory = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        descriptionHistory.add(new DescriptionRevision(taskId, in.readInt(), in.readBoolean(),
+            readString(in)));
+      }
+      return new ArchivedTask(task, changes, descriptionHistory);
+    } catch (IOException | RuntimeException e) {
+      throw new IllegalArgumentException("Malformed archived task payload", e);
+    }
+  }
+
+  /**
+   * Writes a string that may be null, as its length in UTF-8 bytes followed by the bytes. Null
+   * is written as the length -1.
+   *
+   * @param out the stream to write to
+   * @param value the string, or null
+   * @throws IOException if the string could not be written
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+   *
+   * @param in the stream to read from
+   * @return the string, or null
+   * @throws IOException if the string could not be read
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a date and time that may be null, in ISO-8601.
+   *
+   * @param out the stream to write to
+   * @param value the date and time, or null
+   * @throws IOException if the date and time could not be written
+   */
+  private static void writeDate(DataOutputStream out, LocalDateTime value) throws IOException {
+    writeString(out, value == null ? null : value.toString());
+  }
+
+  /**
+   * Reads a date and time written by {@link #writeDate(DataOutputStream, LocalDateTime)}.
+   *
+   * @param in the stream to read from
+   * @return the date and time, or null
+   * @throws IOException if the date and time could not be read
+   */
+  private static LocalDateTime readDate(DataInputStream in) throws IOException {
+    String value = readString(in);
+    return value == null ? null : LocalDateTime.parse(value);
+  }
+}
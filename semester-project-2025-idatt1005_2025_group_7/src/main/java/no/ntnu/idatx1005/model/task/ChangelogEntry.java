@@ -0,0 +1,67 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <h3>Changelog Entry Record</h3>
+ *
+ * <p>A record that represents a change made to a task, together with the name of the user who
+ * made it and, if it edited the description, a summary of the edit.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record ChangelogEntry(TaskChange change, String changedByName, String descriptionDiff) {
+
+  /**
+   * Constructs a changelog entry without a summary of a description edit.
+   *
+   * @param change the change
+   * @param changedByName the name of the user who made the change
+   */
+  public ChangelogEntry(TaskChange change, String changedByName) {
+    this(change, changedByName, null);
+  }
+
+  /**
+   * Returns the revision of the description the change created.
+   *
+   * @return the number of the revision, or -1 if the change did not edit the description
+   */
+  public int descriptionRevision() {
+    return change.fields().stream()
+        .filter(field -> field.field() == TaskField.DESCRIPTION_REVISION)
+        .mapToInt(field -> Integer.parseInt(field.newValue()))
+        .findFirst()
+        .orElse(-1);
+  }
+
+  /**
+   * Returns a copy of the entry with the given summary of its description edit.
+   *
+   * @param descriptionDiff the summary of the description edit
+   * @return the copy
+   */
+  public ChangelogEntry withDescriptionDiff(String descriptionDiff) {
+    return new ChangelogEntry(change, changedByName, descriptionDiff);
+  }
+
+  /**
+   * Renders the change as text, followed by the summary of its description edit if it has one.
+   *
+   * @param userNames returns the name of the user with the given ID
+   * @return the text
+   */
+  public String describe(Function<UUID, String> userNames) {
+    if (descriptionDiff == null || change.fields().isEmpty()) {
+      return change.describe(userNames);
+    }
+    return change.fields().stream()
+        .map(field -> field.field() == TaskField.DESCRIPTION_REVISION
+            ? field.describe(userNames) + ": " + descriptionDiff
+            : field.describe(userNames))
+        .collect(Collectors.joining("; "));
+  }
+}
@@ -0,0 +1,23 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.util.List;
+
+/**
+ * <h3>Changelog Page Record</h3>
+ *
+ * <p>A record that represents a page of the changelog of a task, newest change first.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record ChangelogPage(List<ChangelogEntry> entries, boolean hasNext) {
+
+  /**
+   * Returns the last change of the page, which the next page starts after.
+   *
+   * @return the last change, or null if the page is empty
+   */
+  public TaskChange last() {
+    return entries.isEmpty() ? null : entries.getLast().change();
+  }
+}
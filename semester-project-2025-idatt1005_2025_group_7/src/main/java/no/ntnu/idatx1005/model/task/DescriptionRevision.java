@@ -0,0 +1,108 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * <h3>Description Revision Record</h3>
+ *
+ * <p>A record that represents a revision of the description of a task in its description
+ * history. Every {@value #SNAPSHOT_INTERVAL}th revision, starting with the first, is a snapshot
+ * of the whole description, and the revisions in between are {@link TextDiff diffs} against the
+ * revision before them. Any revision can therefore be reconstructed from its snapshot and at most
+ * {@code SNAPSHOT_INTERVAL - 1} diffs. Rewrites of the whole description are snapshots as well,
+ * wherever they fall.
+ *
+ * @param taskId the ID of the task
+ * @param revision the number of the revision, starting at 0
+ * @param snapshot whether the content is the whole description or a diff
+ * @param content the whole description, or the encoded diff against the revision before
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record DescriptionRevision(UUID taskId, int revision, boolean snapshot, String content) {
+  /** The number of revisions from one snapshot to the next. */
+  public static final int SNAPSHOT_INTERVAL = 8;
+
+  /**
+   * Constructs the revision that changes the description from the given old text to the given
+   * new text, as a snapshot or a diff depending on its number. A rewrite that keeps none of the
+   * old text is stored as a snapshot as well, as its diff would hold the whole new text anyway.
+   *
+   * @param taskId the ID of the task
+   * @param revision the number of the new revision
+   * @param oldText the description of the revision before
+   * @param newText the new description
+   * @return the revision
+   */
+  public static DescriptionRevision of(UUID taskId, int revision, String oldText,
+      String newText) {
+    if (isSnapshot(revision)) {
+      return new DescriptionRevision(taskId, revision, true, newText);
+    }
+    TextDiff diff = TextDiff.between(oldText, newText);
+    if (diff.replacesAll()) {
+      return new DescriptionRevision(taskId, revision, true, newText);
+    }
+    return new DescriptionRevision(taskId, revision, false, diff.encode());
+  }
+
+  /**
+   * Returns whether the revision with the given number is a snapshot.
+   *
+   * @param revision the number of the revision
+   * @return true if the revision is a snapshot, false if it is a diff
+   */
+  public static boolean isSnapshot(int revision) {
+    return revision % SNAPSHOT_INTERVAL == 0;
+  }
+
+  /**
+   * Returns the number of the snapshot the given revision is reconstructed from.
+   *
+   * @param revision the number of the revision
+   * @return the number of the snapshot at or before the revision
+   */
+  public static int snapshotOf(int revision) {
+    return revision - revision % SNAPSHOT_INTERVAL;
+  }
+
+  /**
+   * Returns the diff of the revision against the revision before it.
+   *
+   * @param previousText the description of the revision before
+   * @return the diff
+   */
+  public TextDiff diff(String previousText) {
+    return snapshot ? TextDiff.between(previousText, content) : TextDiff.decode(content);
+  }
+
+  /**
+   * Reconstructs the descriptions of consecutive revisions. Revisions before the first snapshot
+   * cannot be reconstructed and are left out.
+   *
+   * @param revisions the revisions, in order
+   * @return the description of every revision that could be reconstructed, by its number
+   */
+  public static Map<Integer, String> reconstruct(List<DescriptionRevision> revisions) {
+    Map<Integer, String> descriptions = new HashMap<>();
+    String description = null;
+    int previous = -1;
+    for (DescriptionRevision revision : revisions) {
+      if (revision.snapshot()) {
+        description = revision.content();
+      } else if (description != null && revision.revision() == previous + 1) {
+        description = TextDiff.decode(revision.content()).apply(description);
+      } else {
+        description = null;
+      }
+      previous = revision.revision();
+      if (description != null) {
+        descriptions.put(revision.revision(), description);
+      }
+    }
+    return descriptions;
+  }
+}
@@ -0,0 +1,167 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * <h3>Field Change Record</h3>
+ *
+ * <p>A record that represents the change of a single field of a task. A value is null when the
+ * field had no value, like the old value of an added assignee. The old value of a description is
+ * not stored, since it is the new value of the change before it.
+ *
+ * <p>The changes of an edit are stored together in one compact text. Every change is its field
+ * code followed by its old and new value, separated by {@code :}, and the changes are separated
+ * by {@code ;}. A value that is not null is prefixed with {@code =}, and {@code \}, {@code :} and
+ * {@code ;} in values are escaped with {@code \}, so a name change is stored as
+ * {@code N:=Old name:=New name}.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record FieldChange(TaskField field, String oldValue, String newValue) {
+  private static final char FIELD_SEPARATOR = ':';
+  private static final char CHANGE_SEPARATOR = ';';
+  private static final char VALUE_MARKER = '=';
+  private static final char ESCAPE = '\\';
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yy");
+
+  /**
+   * Encodes the given changes into their compact text.
+   *
+   * @param changes the changes
+   * @return the compact text
+   */
+  public static String encode(List<FieldChange> changes) {
+    StringBuilder encoded = new StringBuilder();
+    for (FieldChange change : changes) {
+      if (!encoded.isEmpty()) {
+        encoded.append(CHANGE_SEPARATOR);
+      }
+      encoded.append(change.field().getCode()).append(FIELD_SEPARATOR);
+      appendValue(encoded, change.oldValue());
+      encoded.append(FIELD_SEPARATOR);
+      appendValue(encoded, change.newValue());
+    }
+    return encoded.toString();
+  }
+
+  /**
+   * Appends a value to the compact text, escaping its separators.
+   *
+   * @param encoded the compact text
+   * @param value the value, or null
+   */
+  private static void appendValue(StringBuilder encoded, String value) {
+    if (value == null) {
+      return;
+    }
+    encoded.append(VALUE_MARKER);
+    for (char c : value.toCharArray()) {
+      if (c == ESCAPE || c == FIELD_SEPARATOR || c == CHANGE_SEPARATOR) {
+        encoded.append(ESCAPE);
+      }
+      encoded.append(c);
+    }
+  }
+
+  /**
+   * Decodes changes from their compact text.
+   *
+   * @param encoded the compact text, or null
+   * @return the changes, or an empty list if the text is null or empty
+   * @throws IllegalArgumentException if the text is malformed
+   */
+  public static List<FieldChange> decode(String encoded) {
+    List<FieldChange> changes = new ArrayList<>();
+    if (encoded == null || encoded.isEmpty()) {
+      return changes;
+    }
+    List<String> tokens = new ArrayList<>();
+    StringBuilder token = new StringBuilder();
+    boolean hasValue = false;
+    for (int i = 0; i <= encoded.length(); i++) {
+      char c = i < encoded.length() ? encoded.charAt(i) : CHANGE_SEPARATOR;
+      if (i < encoded.length() && c == ESCAPE) {
+        if (++i == encoded.length()) {
+          throw new IllegalArgumentException("Changelog fields end in an escape: " + encoded);
+        }
+        token.append(encoded.charAt(i));
+      } else if (c == FIELD_SEPARATOR || c == CHANGE_SEPARATOR) {
+        tokens.add(tokens.isEmpty() || hasValue ? token.toString() : null);
+        token.setLength(0);
+        hasValue = false;
+        if (c == CHANGE_SEPARATOR) {
+          changes.add(fromTokens(tokens, encoded));
+          tokens.clear();
+        }
+      } else if (c == VALUE_MARKER && token.isEmpty() && !hasValue && !tokens.isEmpty()) {
+        hasValue = true;
+      } else {
+        token.append(c);
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Constructs a change from its field code, old value and new value.
+   *
+   * @param tokens the field code, old value and new value
+   * @param encoded the compact text the tokens were read from
+   * @return the change
+   * @throws IllegalArgumentException if the tokens are not a change
+   */
+  private static FieldChange fromTokens(List<String> tokens, String encoded) {
+    if (tokens.size() != 3 || tokens.getFirst().length() != 1) {
+      throw new IllegalArgumentException("Malformed changelog fields: " + encoded);
+    }
+    return new FieldChange(TaskField.fromCode(tokens.getFirst().charAt(0)), tokens.get(1),
+        tokens.get(2));
+  }
+
+  /**
+   * Renders the change as a sentence.
+   *
+   * @param userNames returns the name of the user with the given ID
+   * @return the sentence
+   */
+  public String describe(Function<UUID, String> userNames) {
+    return switch (field) {
+      case NAME -> String.format("Name was changed from '%s' to '%s'", oldValue, newValue);
+      case DESCRIPTION -> oldValue == null
+          ? String.format("Description was updated to '%s'", newValue)
+          : String.format("Description was updated from '%s' to '%s'", oldValue, newValue);
+      case DESCRIPTION_REVISION -> "Description was edited";
+      case DUE_DATE -> String.format("Due date was changed from %s to %s",
+          LocalDateTime.parse(oldValue).format(DATE_FORMAT),
+          LocalDateTime.parse(newValue).format(DATE_FORMAT));
+      case PRIORITY -> String.format("Priority was changed from %s to %s", oldValue, newValue);
+      case SIZE -> String.format("Size was changed from %s to %s", oldValue, newValue);
+      case COMPLETED -> "1".equals(newValue) ? "Task was completed" : "Task was restored";
+      case ASSIGNEE -> describeAssignee(userNames);
+    };
+  }
+
+  /**
+   * Renders the change of an assignee as a sentence.
+   *
+   * @param userNames returns the name of the user with the given ID
+   * @return the sentence
+   */
+  private String describeAssignee(Function<UUID, String> userNames) {
+    if (oldValue == null) {
+      return userNames.apply(UUID.fromString(newValue)) + " was added as an assignee";
+    }
+    if (newValue == null) {
+      return userNames.apply(UUID.fromString(oldValue)) + " was removed from this task";
+    }
+    // Assignees are only replaced when their tasks are moved from someone on sick leave
+    return String.format("%s took over from %s, who is on sick leave",
+        userNames.apply(UUID.fromString(newValue)), userNames.apply(UUID.fromString(oldValue)));
+  }
+}
@@ -39,6 +39,7 @@ public class Task {
   private Priority priority;
   private Size size;
   private List<UUID> assignedUserIds;
+  private int version;
 
   /**
    * Constructs a new task with the given id, name, description, due date, priority, and task
@@ -128,6 +129,15 @@ public class Task {
     return completedDate;
   }
 
+  /**
+   * Returns the version of the stored task.
+   *
+   * @return the version of the stored task
+   */
+  public int getVersion() {
+    return version;
+  }
+
   /**
    * Returns the task priority.
    *
@@ -223,6 +233,17 @@ public class Task {
     this.completedDate = completedDate;
   }
 
+  /**
+   * Sets the version of the stored task. The version is incremented in the database every time
+   * the task or its assignments change, so a write can check that nobody changed the task since
+   * it was read.
+   *
+   * @param version the version of the stored task
+   */
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
   /**
    * Sets the task priority.
    *
@@ -1,15 +1,76 @@
 package no.ntnu.idatx1005.model.task;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * <h3>Task Change Record</h3>
  *
- * <p>A record that represents a change made to a task.
+ * <p>A record that represents a change made to a task. A change is either structured, as the
+ * {@link FieldChange fields} that were changed by one edit, or a description written when the
+ * change was made, which is how changes were logged before they were structured.
  *
  * @author William Holtsdalen
  * @since V1.1.0
  */
 public record TaskChange(UUID id, UUID taskId, String description, UUID changedBy, 
-    LocalDateTime changedAt) {} 
\ No newline at end of file
+    LocalDateTime changedAt, List<FieldChange> fields) {
+
+  /**
+   * Constructs a task change described by a text.
+   *
+   * @param id the ID of the change
+   * @param taskId the ID of the task that was changed
+   * @param description the description of the change
+   * @param changedBy the ID of the user who made the change
+   * @param changedAt when the change was made
+   */
+  public TaskChange(UUID id, UUID taskId, String description, UUID changedBy,
+      LocalDateTime changedAt) {
+    this(id, taskId, description, changedBy, changedAt, List.of());
+  }
+
+  /**
+   * Constructs a structured task change.
+   *
+   * @param id the ID of the change
+   * @param taskId the ID of the task that was changed
+   * @param fields the fields that were changed
+   * @param changedBy the ID of the user who made the change
+   * @param changedAt when the change was made
+   */
+  public TaskChange(UUID id, UUID taskId, List<FieldChange> fields, UUID changedBy,
+      LocalDateTime changedAt) {
+    this(id, taskId, null, changedBy, changedAt, List.copyOf(fields));
+  }
+
+  /**
+   * Returns whether the change completed the task.
+   *
+   * @param legacyDescription the description changes that completed a task were logged with
+   *     before they were structured
+   * @return true if the change completed the task, false otherwise
+   */
+  public boolean isCompletion(String legacyDescription) {
+    return fields.contains(new FieldChange(TaskField.COMPLETED, null, "1"))
+        || (fields.isEmpty() && legacyDescription.equals(description));
+  }
+
+  /**
+   * Renders the change as text. Structured changes are rendered now rather than when they are
+   * logged, so the stored changelog holds only the values that changed.
+   *
+   * @param userNames returns the name of the user with the given ID
+   * @return the text
+   */
+  public String describe(Function<UUID, String> userNames) {
+    if (fields.isEmpty()) {
+      return description;
+    }
+    return fields.stream().map(field -> field.describe(userNames))
+        .collect(Collectors.joining("; "));
+  }
+}
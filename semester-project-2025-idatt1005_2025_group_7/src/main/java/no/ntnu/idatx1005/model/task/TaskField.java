@@ -0,0 +1,65 @@
+package no.ntnu.idatx1005.model.task;
+
+/**
+ * <h3>Task Field Enum</h3>
+ *
+ * <p>The enum {@code TaskField} is used to represent the field of a task a {@link FieldChange}
+ * changed. Every field has a one-character code it is stored as in the changelog.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public enum TaskField {
+  /** The name of the task. */
+  NAME('N'),
+  /** The description of the task, as text. Only logged before the description history. */
+  DESCRIPTION('D'),
+  /** A revision of the description in the description history, as the revision numbers. */
+  DESCRIPTION_REVISION('R'),
+  /** The due date of the task, as an ISO-8601 date and time. */
+  DUE_DATE('U'),
+  /** The priority of the task. */
+  PRIORITY('P'),
+  /** The size of the task. */
+  SIZE('S'),
+  /** Whether the task is completed, as 1 or 0. */
+  COMPLETED('C'),
+  /** An assignee of the task, as the ID of the user, or both when it was replaced. */
+  ASSIGNEE('A');
+
+  private final char code;
+
+  /**
+   * Constructs a task field.
+   *
+   * @param code the code the field is stored as
+   */
+  TaskField(char code) {
+    this.code = code;
+  }
+
+  /**
+   * Returns the code the field is stored as.
+   *
+   * @return the code
+   */
+  public char getCode() {
+    return code;
+  }
+
+  /**
+   * Returns the field stored as the given code.
+   *
+   * @param code the code
+   * @return the field
+   * @throws IllegalArgumentException if no field is stored as the code
+   */
+  public static TaskField fromCode(char code) {
+    for (TaskField field : values()) {
+      if (field.code == code) {
+        return field;
+      }
+    }
+    throw new IllegalArgumentException("Unknown task field code: " + code);
+  }
+}
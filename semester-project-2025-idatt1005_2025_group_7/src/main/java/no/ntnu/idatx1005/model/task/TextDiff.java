@@ -0,0 +1,387 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <h3>Text Diff Record</h3>
+ *
+ * <p>A record that represents the difference between two versions of a text, as the edits that
+ * turn the old version into the new one. The edits are found with the Myers diff algorithm over
+ * the words, spaces and punctuation of the texts, so an edited sentence gives one small edit
+ * instead of a copy of the whole text.
+ *
+ * <p>Kept and deleted text is only stored as its length, since it can be read from the old
+ * version. A diff is stored as its edits one after another, where {@code =n} keeps and
+ * {@code -n} deletes the next {@code n} characters, and {@code +n:text} inserts the {@code n}
+ * characters after the colon, so changing "Wash the floor" to "Wash the kitchen floor" is stored
+ * as {@code =9+8:kitchen =5}.
+ *
+ * <p>The search for the edits is given up once the texts are more than
+ * {@value #MAX_EDIT_DISTANCE} token edits apart, as its time and memory grow with the number of
+ * edits. Texts that far apart share little, and their diff replaces the whole text instead.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record TextDiff(List<Edit> edits) {
+  /** The number of token edits beyond which the texts are diffed as a whole replacement. */
+  public static final int MAX_EDIT_DISTANCE = 1000;
+  private static final Pattern TOKEN = Pattern.compile("\\s+|[\\p{L}\\p{N}]+|[^\\s\\p{L}\\p{N}]");
+  private static final char KEEP = '=';
+  private static final char DELETE = '-';
+  private static final char INSERT = '+';
+  private static final char TEXT_MARKER = ':';
+
+  /**
+   * <h3>Operation Enum</h3>
+   *
+   * <p>The operation of an edit of a diff.
+   */
+  public enum Operation {
+    /** Keeps text of the old version. */
+    KEEP,
+    /** Deletes text of the old version. */
+    DELETE,
+    /** Inserts text that is not in the old version. */
+    INSERT
+  }
+
+  /**
+   * <h3>Edit Record</h3>
+   *
+   * <p>A record that represents a single edit of a diff. Only inserted text is stored, kept and
+   * deleted text is read from the old version.
+   *
+   * @param operation the operation of the edit
+   * @param length the number of characters the edit keeps, deletes or inserts
+   * @param text the inserted text, or null if the edit keeps or deletes text
+   */
+  public record Edit(Operation operation, int length, String text) {}
+
+  /**
+   * Constructs a diff with an unmodifiable copy of the given edits.
+   *
+   * @param edits the edits that turn the old version into the new one
+   */
+  public TextDiff {
+    edits = List.copyOf(edits);
+  }
+
+  /**
+   * Finds the diff between two versions of a text. Versions more than
+   * {@value #MAX_EDIT_DISTANCE} token edits apart give a diff that replaces the whole text.
+   *
+   * @param oldText the old version
+   * @param newText the new version
+   * @return the diff that turns the old version into the new one
+   */
+  public static TextDiff between(String oldText, String newText) {
+    List<String> oldTokens = tokenize(oldText);
+    List<String> newTokens = tokenize(newText);
+    List<Edit> tokenEdits = myers(oldTokens, newTokens);
+    if (tokenEdits == null) {
+      List<Edit> edits = new ArrayList<>();
+      flushChange(edits, oldText.length(), new StringBuilder(newText));
+      return new TextDiff(edits);
+    }
+    return new TextDiff(coalesce(tokenEdits, oldTokens));
+  }
+
+  /**
+   * Returns whether the diff keeps none of the old version, so storing it takes more space than
+   * storing the new version itself.
+   *
+   * @return true if the diff replaces the whole text, false if it keeps any of it
+   */
+  public boolean replacesAll() {
+    return edits.stream().noneMatch(edit -> edit.operation() == Operation.KEEP);
+  }
+
+  /**
+   * Splits a text into words, runs of whitespace and single punctuation characters.
+   *
+   * @param text the text
+   * @return the tokens of the text
+   */
+  private static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    Matcher matcher = TOKEN.matcher(text);
+    while (matcher.find()) {
+      tokens.add(matcher.group());
+    }
+    return tokens;
+  }
+
+  /**
+   * Finds the shortest edit script between two lists of tokens with the Myers diff algorithm.
+   * Every edit in the script keeps, deletes or inserts a single token, where kept and deleted
+   * edits hold the index of their token in the old list as their length.
+   *
+   * <p>The walk back only reads the diagonals the step before reached, so each step keeps the
+   * window of {@code 2d + 1} diagonals around the middle rather than the whole array, which
+   * bounds the trace by the square of the edit distance instead of its product with the length
+   * of the texts.
+   *
+   * @param a the tokens of the old version
+   * @param b the tokens of the new version
+   * @return the edits, in order, or null if the lists are more than
+   *     {@value #MAX_EDIT_DISTANCE} edits apart
+   */
+  private static List<Edit> myers(List<String> a, List<String> b) {
+    int n = a.size();
+    int m = b.size();
+    int max = n + m;
+    int[] v = new int[2 * max + 2];
+    List<int[]> trace = new ArrayList<>();
+
+    search:
+    for (int d = 0; d <= max; d++) {
+      if (d > MAX_EDIT_DISTANCE) {
+        return null;
+      }
+      trace.add(Arrays.copyOfRange(v, max - d, max + d + 1));
+      for (int k = -d; k <= d; k += 2) {
+        int x = k == -d || (k != d && v[max + k - 1] < v[max + k + 1])
+            ? v[max + k + 1]
+            : v[max + k - 1] + 1;
+        int y = x - k;
+        while (x < n && y < m && a.get(x).equals(b.get(y))) {
+          x++;
+          y++;
+        }
+        v[max + k] = x;
+        if (x >= n && y >= m) {
+          break search;
+        }
+      }
+    }
+
+    // Walk back through the furthest reaching paths to recover the edits
+    List<Edit> edits = new ArrayList<>();
+    int x = n;
+    int y = m;
+    for (int d = trace.size() - 1; d >= 0; d--) {
+      int[] previous = trace.get(d);
+      int k = x - y;
+      int previousK = k == -d || (k != d && previous[d + k - 1] < previous[d + k + 1])
+          ? k + 1
+          : k - 1;
+      int previousX = d == 0 ? 0 : previous[d + previousK];
+      int previousY = d == 0 ? 0 : previousX - previousK;
+      while (x > previousX && y > previousY) {
+        edits.add(new Edit(Operation.KEEP, --x, null));
+        y--;
+      }
+      if (d > 0) {
+        if (x == previousX) {
+          edits.add(new Edit(Operation.INSERT, 0, b.get(--y)));
+        } else {
+          edits.add(new Edit(Operation.DELETE, --x, null));
+        }
+      }
+    }
+    return edits.reversed();
+  }
+
+  /**
+   * Merges the single token edits into as few character edits as possible. Whitespace kept
+   * between two changes is made part of them, and every run of changes becomes one deletion
+   * followed by one insertion.
+   *
+   * @param tokenEdits the single token edits, in order
+   * @param oldTokens the tokens of the old version
+   * @return the merged edits
+   */
+  private static List<Edit> coalesce(List<Edit> tokenEdits, List<String> oldTokens) {
+    List<Edit> edits = new ArrayList<>();
+    int deleted = 0;
+    StringBuilder inserted = new StringBuilder();
+    int kept = 0;
+    for (int i = 0; i < tokenEdits.size(); i++) {
+      Edit edit = tokenEdits.get(i);
+      String token = edit.operation() == Operation.INSERT
+          ? edit.text()
+          : oldTokens.get(edit.length());
+      boolean bridgesChanges = edit.operation() == Operation.KEEP && token.isBlank()
+          && i > 0 && tokenEdits.get(i - 1).operation() != Operation.KEEP
+          && i + 1 < tokenEdits.size() && tokenEdits.get(i + 1).operation() != Operation.KEEP;
+      if (edit.operation() == Operation.KEEP && !bridgesChanges) {
+        flushChange(edits, deleted, inserted);
+        deleted = 0;
+        inserted.setLength(0);
+        kept += token.length();
+        continue;
+      }
+      if (kept > 0) {
+        edits.add(new Edit(Operation.KEEP, kept, null));
+        kept = 0;
+      }
+      if (edit.operation() != Operation.INSERT) {
+        deleted += token.length();
+      }
+      if (edit.operation() != Operation.DELETE) {
+        inserted.append(token);
+      }
+    }
+    flushChange(edits, deleted, inserted);
+    if (kept > 0) {
+      edits.add(new Edit(Operation.KEEP, kept, null));
+    }
+    return edits;
+  }
+
+  /**
+   * Adds the deletion and insertion of a run of changes to the edits.
+   *
+   * @param edits the edits
+   * @param deleted the number of deleted characters
+   * @param inserted the inserted text
+   */
+  private static void flushChange(List<Edit> edits, int deleted, StringBuilder inserted) {
+    if (deleted > 0) {
+      edits.add(new Edit(Operation.DELETE, deleted, null));
+    }
+    if (!inserted.isEmpty()) {
+      edits.add(new Edit(Operation.INSERT, inserted.length(), inserted.toString()));
+    }
+  }
+
+  /**
+   * Applies the diff to the old version of the text.
+   *
+   * @param oldText the old version
+   * @return the new version
+   * @throws IllegalArgumentException if the diff does not fit the old version
+   */
+  public String apply(String oldText) {
+    StringBuilder newText = new StringBuilder();
+    int position = 0;
+    for (Edit edit : edits) {
+      if (edit.operation() == Operation.INSERT) {
+        newText.append(edit.text());
+        continue;
+      }
+      if (position + edit.length() > oldText.length()) {
+        throw new IllegalArgumentException("Diff is longer than the text it is applied to");
+      }
+      if (edit.operation() == Operation.KEEP) {
+        newText.append(oldText, position, position + edit.length());
+      }
+      position += edit.length();
+    }
+    if (position != oldText.length()) {
+      throw new IllegalArgumentException("Diff is shorter than the text it is applied to");
+    }
+    return newText.toString();
+  }
+
+  /**
+   * Renders the diff as a short summary of what was added, removed and changed.
+   *
+   * @param oldText the old version of the text
+   * @return the summary, like {@code added 'kitchen', changed 'Monday' to 'Friday'}
+   */
+  public String describe(String oldText) {
+    List<String> changes = new ArrayList<>();
+    int position = 0;
+    String removed = "";
+    for (Edit edit : edits) {
+      switch (edit.operation()) {
+        case KEEP -> {
+          addChange(changes, removed, "");
+          removed = "";
+          position += edit.length();
+        }
+        case DELETE -> {
+          removed = oldText.substring(position, position + edit.length()).strip();
+          position += edit.length();
+        }
+        case INSERT -> {
+          addChange(changes, removed, edit.text().strip());
+          removed = "";
+        }
+        default -> throw new IllegalStateException("Unknown operation " + edit.operation());
+      }
+    }
+    addChange(changes, removed, "");
+    return changes.isEmpty() ? "whitespace was changed" : String.join(", ", changes);
+  }
+
+  /**
+   * Adds the summary of a run of changes, unless it only changed whitespace.
+   *
+   * @param changes the summaries
+   * @param removed the removed text
+   * @param added the added text
+   */
+  private static void addChange(List<String> changes, String removed, String added) {
+    if (!removed.isEmpty() && !added.isEmpty()) {
+      changes.add(String.format("changed '%s' to '%s'", removed, added));
+    } else if (!removed.isEmpty()) {
+      changes.add(String.format("removed '%s'", removed));
+    } else if (!added.isEmpty()) {
+      changes.add(String.format("added '%s'", added));
+    }
+  }
+
+  /**
+   * Encodes the diff into its compact text.
+   *
+   * @return the compact text
+   */
+  public String encode() {
+    StringBuilder encoded = new StringBuilder();
+    for (Edit edit : edits) {
+      switch (edit.operation()) {
+        case KEEP -> encoded.append(KEEP).append(edit.length());
+        case DELETE -> encoded.append(DELETE).append(edit.length());
+        case INSERT -> encoded.append(INSERT).append(edit.length()).append(TEXT_MARKER)
+            .append(edit.text());
+        default -> throw new IllegalStateException("Unknown operation " + edit.operation());
+      }
+    }
+    return encoded.toString();
+  }
+
+  /**
+   * Decodes a diff from its compact text.
+   *
+   * @param encoded the compact text
+   * @return the diff
+   * @throws IllegalArgumentException if the text is malformed
+   */
+  public static TextDiff decode(String encoded) {
+    List<Edit> edits = new ArrayList<>();
+    int position = 0;
+    while (position < encoded.length()) {
+      char marker = encoded.charAt(position++);
+      int start = position;
+      while (position < encoded.length() && Character.isDigit(encoded.charAt(position))) {
+        position++;
+      }
+      if (start == position) {
+        throw new IllegalArgumentException("Malformed text diff: " + encoded);
+      }
+      int length = Integer.parseInt(encoded.substring(start, position));
+      switch (marker) {
+        case KEEP -> edits.add(new Edit(Operation.KEEP, length, null));
+        case DELETE -> edits.add(new Edit(Operation.DELETE, length, null));
+        case INSERT -> {
+          if (position + 1 + length > encoded.length()
+              || encoded.charAt(position) != TEXT_MARKER) {
+            throw new IllegalArgumentException("Malformed text diff: " + encoded);
+          }
+          String text = encoded.substring(position + 1, position + 1 + length);
+          edits.add(new Edit(Operation.INSERT, length, text));
+          position += 1 + length;
+        }
+        default -> throw new IllegalArgumentException("Malformed text diff: " + encoded);
+      }
+    }
+    return new TextDiff(edits);
+  }
+}
@@ -34,6 +34,7 @@ public class User {
   private byte[] salt;
   private int taskCapacity;
   private boolean sickness;
+  private int version;
 
   /**
    * Constructs a new user with the given id, first name, last name, email, passwordHash, and
@@ -132,6 +133,15 @@ public class User {
     return sickness;
   }
 
+  /**
+   * Returns the version of the stored user.
+   *
+   * @return the version of the stored user
+   */
+  public int getVersion() {
+    return version;
+  }
+
   /**
    * Sets the user's id.
    *
@@ -211,6 +221,17 @@ public class User {
     this.sickness = bool;
   }
 
+  /**
+   * Sets the version of the stored user. The version is incremented in the database every time
+   * the user or their workload changes, so an assignment can check that nobody else reserved the
+   * capacity of the user since it was read.
+   *
+   * @param version the version of the stored user
+   */
+  public void setVersion(int version) {
+    this.version = version;
+  }
+
   /**
    * Checks if two users are equal, based on their id.
    *
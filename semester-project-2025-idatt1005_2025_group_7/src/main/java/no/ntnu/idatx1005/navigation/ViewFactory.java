@@ -111,6 +111,7 @@ public class ViewFactory {
       case "open" -> view.openTasksView();
       case "my" -> view.myTasksView();
       case "completed" -> view.completedTasksView();
+      case "faceted" -> view.facetedTasksView();
       default -> {
         logger.error("Invalid filter: {}", filter);
         throw new IllegalArgumentException("Invalid filter: " + filter);
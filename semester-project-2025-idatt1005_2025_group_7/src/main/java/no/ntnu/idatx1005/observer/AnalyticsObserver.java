@@ -0,0 +1,22 @@
+package no.ntnu.idatx1005.observer;
+
+import no.ntnu.idatx1005.analytics.AnalyticsSnapshot;
+
+/**
+ * <h3>AnalyticsObserver interface</h3>
+ *
+ * <p>This interface defines the method for observing changes to the task analytics.
+ * It is a part of the Observer pattern implementation.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public interface AnalyticsObserver {
+
+  /**
+   * Called when the task analytics have changed.
+   *
+   * @param snapshot the current analytics
+   */
+  void onAnalyticsChanged(AnalyticsSnapshot snapshot);
+}
@@ -5,6 +5,7 @@ import no.ntnu.idatx1005.MainApp;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.navigation.ViewNavigator;
 import no.ntnu.idatx1005.navigation.ViewType;
+import no.ntnu.idatx1005.storage.DatabaseRefresher;
 import no.ntnu.idatx1005.view.container.LoginView;
 import no.ntnu.idatx1005.view.container.MainView;
 import no.ntnu.idatx1005.view.container.SignUpView;
@@ -60,6 +61,7 @@ public class ButtonClickHandler implements ButtonClickObserver {
       case "open_tasks" -> navigator.navigateTo(ViewType.TASKS, Map.of("filter", "open"));
       case "my_tasks" -> navigator.navigateTo(ViewType.TASKS, Map.of("filter", "my"));
       case "completed_tasks" -> navigator.navigateTo(ViewType.TASKS, Map.of("filter", "completed"));
+      case "filter_tasks" -> navigator.navigateTo(ViewType.TASKS, Map.of("filter", "faceted"));
       case "insights" -> navigator.navigateTo(ViewType.INSIGHTS);
       case "settings" -> navigator.navigateTo(ViewType.SETTINGS);
       case "back_button" -> navigator.goBack();
@@ -101,6 +103,7 @@ public class ButtonClickHandler implements ButtonClickObserver {
    * Handles the logout button click event.
    */
   private void handleLogout() {
+    DatabaseRefresher.getInstance().pause(DatabaseRefresher.PauseReason.LOGGED_OUT);
     mainApp.getRoot().setCenter(loginView);
     navigator.resetNavHistory();
   }
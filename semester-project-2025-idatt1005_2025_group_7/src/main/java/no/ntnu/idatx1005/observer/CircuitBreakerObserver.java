@@ -0,0 +1,22 @@
+package no.ntnu.idatx1005.observer;
+
+import no.ntnu.idatx1005.database.CircuitBreaker;
+
+/**
+ * <h3>CircuitBreakerObserver interface</h3>
+ *
+ * <p>This interface defines the method for observing the {@link CircuitBreaker} that guards the
+ * access to the remote database. It is a part of the Observer pattern implementation.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public interface CircuitBreakerObserver {
+
+  /**
+   * Called after the state of the circuit breaker changed.
+   *
+   * @param state the new state
+   */
+  void onCircuitStateChanged(CircuitBreaker.State state);
+}
@@ -0,0 +1,22 @@
+package no.ntnu.idatx1005.observer;
+
+import no.ntnu.idatx1005.analytics.InsightsSummary;
+
+/**
+ * <h3>InsightsObserver interface</h3>
+ *
+ * <p>This interface defines the method for observing changes to the aggregated task insights.
+ * It is a part of the Observer pattern implementation.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public interface InsightsObserver {
+
+  /**
+   * Called when the aggregated insights have changed.
+   *
+   * @param summary the current insights
+   */
+  void onInsightsChanged(InsightsSummary summary);
+}
@@ -0,0 +1,39 @@
+package no.ntnu.idatx1005.observer;
+
+import no.ntnu.idatx1005.storage.PendingWrite;
+
+/**
+ * <h3>PendingWritesObserver interface</h3>
+ *
+ * <p>This interface defines the methods for observing the writes that are waiting in the write
+ * outbox to be replayed against the remote database. It is a part of the Observer pattern
+ * implementation.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public interface PendingWritesObserver {
+
+  /**
+   * Called after a write was added to or replayed from the outbox.
+   *
+   * @param pendingCount the number of writes that are still pending
+   */
+  void onPendingWritesChanged(int pendingCount);
+
+  /**
+   * Called after a write was rejected by the remote database, because the task was changed by
+   * someone else while the write was pending.
+   *
+   * @param write the rejected write
+   */
+  void onWriteConflict(PendingWrite write);
+
+  /**
+   * Called after a write was rejected by the remote database for another reason than a conflict,
+   * like a value it does not accept, so it could not be stored.
+   *
+   * @param write the rejected write
+   */
+  void onWriteFailed(PendingWrite write);
+}
@@ -0,0 +1,22 @@
+package no.ntnu.idatx1005.observer;
+
+import no.ntnu.idatx1005.storage.StartupLoader;
+
+/**
+ * <h3>StartupStageObserver interface</h3>
+ *
+ * <p>This interface defines the method for observing the stages of the initial load of the
+ * local storage. It is a part of the Observer pattern implementation.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public interface StartupStageObserver {
+
+  /**
+   * Called after a stage of the initial load is ready.
+   *
+   * @param stage the stage that is ready
+   */
+  void onStageReady(StartupLoader.Stage stage);
+}
@@ -0,0 +1,25 @@
+package no.ntnu.idatx1005.observer;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * <h3>StorageSyncObserver interface</h3>
+ *
+ * <p>This interface defines the method for observing synchronizations of the local storage with
+ * the remote database. It is a part of the Observer pattern implementation.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public interface StorageSyncObserver {
+
+  /**
+   * Called after the local storage has been synchronized with the remote database. It is called
+   * on a background thread, never on the JavaFX thread.
+   *
+   * @param taskIds the IDs of the tasks that changed, which may be empty, or null if any task or
+   *     user may have changed, and the whole storage must be read again
+   */
+  void onLocalStorageSynchronized(Set<UUID> taskIds);
+}
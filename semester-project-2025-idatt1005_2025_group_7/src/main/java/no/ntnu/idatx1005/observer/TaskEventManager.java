@@ -2,14 +2,20 @@ package no.ntnu.idatx1005.observer;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import no.ntnu.idatx1005.analytics.RebalancePlan;
+import no.ntnu.idatx1005.dao.exceptions.AssignmentConflictException;
 import no.ntnu.idatx1005.model.task.Priority;
 import no.ntnu.idatx1005.model.task.Size;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.service.DatabaseService;
+import no.ntnu.idatx1005.storage.DatabaseRefresher;
 import no.ntnu.idatx1005.storage.H2Manager;
+import no.ntnu.idatx1005.storage.StartupLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,7 +29,7 @@ import org.slf4j.LoggerFactory;
  * @author William Holtsdalen
  * @since V1.1.0
  */
-public class TaskEventManager implements TaskEventSubject {
+public class TaskEventManager implements TaskEventSubject, StartupStageObserver {
   private static final Logger logger = LoggerFactory.getLogger(TaskEventManager.class);
   private final DatabaseService databaseService;
   private final List<TaskEventObserver> observers;
@@ -174,10 +180,22 @@ public class TaskEventManager implements TaskEventSubject {
 
   /**
    * Refreshes the cache, by calling the appropriate method
-   * in the {@link H2Manager} class. It then notifies all observers of the cache refresh.
+   * in the {@link DatabaseRefresher} class, so it never overlaps a scheduled refresh. It then
+   * notifies all observers of the cache refresh.
    */
   public void refreshCache() {
-    H2Manager.updateLocalStorage();
+    DatabaseRefresher.getInstance().refreshNow();
+    notifyCacheRefreshed();
+  }
+
+  /**
+   * Notifies all observers of a cache refresh once a stage of the initial load is ready, so the
+   * views show the data loaded so far.
+   *
+   * @param stage the stage that is ready
+   */
+  @Override
+  public void onStageReady(StartupLoader.Stage stage) {
     notifyCacheRefreshed();
   }
 
@@ -232,6 +250,55 @@ public class TaskEventManager implements TaskEventSubject {
     });
   }
 
+  /**
+   * Assigns the given tasks to the given user in one batch, by calling the appropriate method
+   * in the {@link DatabaseService} class. It then notifies all observers once of the whole batch.
+   *
+   * @param tasks the tasks to assign
+   * @param user the user to assign the tasks to
+   * @throws AssignmentConflictException if some of the tasks or the user were changed by someone
+   *     else since they were cached.
+   * @throws no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException if the database
+   *     could not be reached, so nothing was assigned.
+   * @throws no.ntnu.idatx1005.dao.exceptions.WriteRejectedException if the database rejected the
+   *     assignments, so nothing was assigned.
+   */
+  public void assignTasks(List<Task> tasks, User user) {
+    logger.info("Assigning {} tasks to user {} {}", tasks.size(), user.getFirstName(),
+        user.getLastName());
+    List<Task> assignedTasks = databaseService.assignTasksToUser(tasks, user,
+        loggedInUser.getId());
+    logger.debug("{} tasks assigned successfully", assignedTasks.size());
+    if (!assignedTasks.isEmpty()) {
+      notifyTasksAssigned(assignedTasks, user);
+    }
+  }
+
+  /**
+   * Moves the tasks of a rebalance plan from the sick user to their new users in one batch, by
+   * calling the appropriate method in the {@link DatabaseService} class. It then notifies all
+   * observers once for every user that took over tasks.
+   *
+   * @param plan the rebalance plan to commit
+   * @throws AssignmentConflictException if some of the tasks or the new users were changed by
+   *     someone else since the plan was made.
+   * @throws no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException if the database
+   *     could not be reached, so nothing was moved.
+   * @throws no.ntnu.idatx1005.dao.exceptions.WriteRejectedException if the database rejected the
+   *     move, so nothing was moved.
+   */
+  public void reassignTasks(RebalancePlan plan) {
+    logger.info("Moving {} tasks from sick user {} {}", plan.reassignments().size(),
+        plan.sickUser().getFirstName(), plan.sickUser().getLastName());
+    List<RebalancePlan.Reassignment> reassignments = databaseService.reassignTasks(plan,
+        loggedInUser.getId());
+    logger.debug("{} tasks moved successfully", reassignments.size());
+    Map<User, List<Task>> tasksByUser = new LinkedHashMap<>();
+    reassignments.forEach(reassignment -> tasksByUser
+        .computeIfAbsent(reassignment.user(), user -> new ArrayList<>()).add(reassignment.task()));
+    tasksByUser.forEach((user, tasks) -> notifyTasksAssigned(tasks, user));
+  }
+
   /**
    * Notifies all observers of the task assignment.
    *
@@ -251,6 +318,25 @@ public class TaskEventManager implements TaskEventSubject {
     });
   }
 
+  /**
+   * Notifies all observers of the batch assignment.
+   *
+   * @param tasks the tasks to notify observers of
+   * @param user the user to notify observers of
+   */
+  private void notifyTasksAssigned(List<Task> tasks, User user) {
+    logger.debug("Notifying observers of assignment of {} tasks to {}", tasks.size(), user
+        .getFirstName());
+    new ArrayList<>(observers).forEach(o -> {
+      try {
+        o.onTasksAssigned(tasks, user);
+      } catch (Exception e) {
+        logger.error("Error notifying observer {} of task assignment: {}",
+            o.getClass().getSimpleName(), e.getMessage());
+      }
+    });
+  }
+
   /**
    * Notifies all observers of the task completion.
    *
@@ -1,5 +1,6 @@
 package no.ntnu.idatx1005.observer;
 
+import java.util.List;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
 
@@ -42,6 +43,17 @@ public interface TaskEventObserver {
    */
   void onTaskAssigned(Task task, User user);
 
+  /**
+   * Called when several tasks are assigned to a user at once. By default, every task is handled
+   * as a single assignment.
+   *
+   * @param tasks the tasks that were assigned
+   * @param user the user that the tasks were assigned to
+   */
+  default void onTasksAssigned(List<Task> tasks, User user) {
+    tasks.forEach(task -> onTaskAssigned(task, user));
+  }
+
   /**
    * Called when a task is completed.
    *
@@ -0,0 +1,22 @@
+package no.ntnu.idatx1005.observer;
+
+import no.ntnu.idatx1005.analytics.WorkloadChange;
+
+/**
+ * <h3>WorkloadObserver interface</h3>
+ *
+ * <p>This interface defines the method for observing changes to the workloads of the users and
+ * the unassigned tasks. It is a part of the Observer pattern implementation.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public interface WorkloadObserver {
+
+  /**
+   * Called when workloads or unassigned tasks have changed.
+   *
+   * @param change the users and tasks that changed
+   */
+  void onWorkloadChanged(WorkloadChange change);
+}
@@ -0,0 +1,65 @@
+package no.ntnu.idatx1005.search;
+
+import java.time.LocalDate;
+
+/**
+ * <h3>Enum for due date ranges.</h3>
+ *
+ * <p>The ranges of due dates tasks can be filtered on, relative to the current day. The ranges
+ * do not overlap, so every task falls into exactly one of them.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public enum DueRange {
+  OVERDUE("Overdue", Long.MIN_VALUE, -1),
+  TODAY("Today", 0, 0),
+  NEXT_7_DAYS("Next 7 days", 1, 7),
+  LATER("Later", 8, Long.MAX_VALUE);
+
+  private final String displayName;
+  private final long fromOffset;
+  private final long toOffset;
+
+  /**
+   * Constructs a due range from day offsets relative to the current day.
+   *
+   * @param displayName the name shown for the range
+   * @param fromOffset the first day of the range, inclusive
+   * @param toOffset the last day of the range, inclusive
+   */
+  DueRange(String displayName, long fromOffset, long toOffset) {
+    this.displayName = displayName;
+    this.fromOffset = fromOffset;
+    this.toOffset = toOffset;
+  }
+
+  /**
+   * Returns the name shown for the range.
+   *
+   * @return the name shown for the range
+   */
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  /**
+   * Returns the first epoch day of the range, inclusive.
+   *
+   * @param today the current day
+   * @return the first epoch day of the range
+   */
+  public long fromEpochDay(LocalDate today) {
+    return fromOffset == Long.MIN_VALUE ? Long.MIN_VALUE : today.toEpochDay() + fromOffset;
+  }
+
+  /**
+   * Returns the last epoch day of the range, inclusive.
+   *
+   * @param today the current day
+   * @return the last epoch day of the range
+   */
+  public long toEpochDay(LocalDate today) {
+    return toOffset == Long.MAX_VALUE ? Long.MAX_VALUE : today.toEpochDay() + toOffset;
+  }
+}
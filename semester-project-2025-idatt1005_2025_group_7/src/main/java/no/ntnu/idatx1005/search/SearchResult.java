@@ -0,0 +1,19 @@
+package no.ntnu.idatx1005.search;
+
+import java.util.UUID;
+
+/**
+ * <h3>Search Result Record</h3>
+ *
+ * <p>A record that represents a single hit in the {@link TaskSearchIndex}.
+ *
+ * @param type the type of document that matched
+ * @param taskId the ID of the task the document belongs to
+ * @param title the name of the task the document belongs to
+ * @param snippet the text of the matched document
+ * @param score the relevance score of the hit, higher is better
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record SearchResult(SearchResultType type, UUID taskId, String title, String snippet,
+    double score) {}
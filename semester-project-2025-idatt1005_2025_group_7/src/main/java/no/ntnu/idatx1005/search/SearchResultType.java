@@ -0,0 +1,15 @@
+package no.ntnu.idatx1005.search;
+
+/**
+ * <h3>Enum for search result types.</h3>
+ *
+ * <p>The type of document a search result was found in. Used as a facet when querying the
+ * {@link TaskSearchIndex}.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public enum SearchResultType {
+  TASK,
+  HISTORY
+}
@@ -0,0 +1,29 @@
+package no.ntnu.idatx1005.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h3>Search Results Record</h3>
+ *
+ * <p>A record that holds the ranked hits of a query together with the number of matching
+ * documents per {@link SearchResultType}, regardless of the type filter used in the query.
+ *
+ * @param results the ranked hits matching the type filter
+ * @param facetCounts the number of matching documents per result type
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record SearchResults(List<SearchResult> results,
+    Map<SearchResultType, Integer> facetCounts) {
+
+  /**
+   * Returns the number of matching documents of the given type.
+   *
+   * @param type the result type
+   * @return the number of matching documents of the given type
+   */
+  public int count(SearchResultType type) {
+    return facetCounts.getOrDefault(type, 0);
+  }
+}
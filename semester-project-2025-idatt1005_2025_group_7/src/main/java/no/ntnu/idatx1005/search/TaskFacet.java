@@ -0,0 +1,23 @@
+package no.ntnu.idatx1005.search;
+
+/**
+ * <h3>Enum for task facets.</h3>
+ *
+ * <p>The dimensions tasks can be filtered on in the {@link TaskFacetIndex}. The values of each
+ * facet are of the type given in the description of the constant.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public enum TaskFacet {
+  /** Values are {@link no.ntnu.idatx1005.model.task.Priority} constants. */
+  PRIORITY,
+  /** Values are {@link no.ntnu.idatx1005.model.task.Size} constants. */
+  SIZE,
+  /** Values are user IDs, or {@link TaskFacetIndex#UNASSIGNED} for tasks without assignees. */
+  ASSIGNEE,
+  /** Values are {@link Boolean}, true for completed tasks. */
+  STATUS,
+  /** Values are {@link DueRange} constants. */
+  DUE
+}
@@ -0,0 +1,201 @@
+package no.ntnu.idatx1005.search;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+
+/**
+ * <h3>Bitmap index for faceted filtering of tasks.</h3>
+ *
+ * <p>Every task gets a dense integer ID given by its position in the list the index is built
+ * from. For every facet value the index keeps a {@link BitSet} with the bits of the matching
+ * tasks set, and due dates are bucketed per epoch day so due date ranges are the union of a few
+ * buckets. Any combination of filters is therefore a handful of bitwise operations, and the
+ * number of tasks per facet value is the cardinality of the intersection with the matches of the
+ * other facets.
+ *
+ * <p>The index is an immutable snapshot and is rebuilt when the tasks change.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class TaskFacetIndex {
+  /** The assignee value used for tasks without assignees. */
+  public static final UUID UNASSIGNED = new UUID(0L, 0L);
+
+  private final List<Task> tasks;
+  private final LocalDate today;
+  private final Map<TaskFacet, Map<Object, BitSet>> bitmaps;
+  private final NavigableMap<Long, BitSet> dueDayBuckets;
+  private final BitSet all;
+
+  /**
+   * Constructs a facet index over the given tasks.
+   *
+   * @param tasks the tasks to index, in the order they should be returned in
+   * @param today the current day, used for the due date ranges
+   */
+  public TaskFacetIndex(List<Task> tasks, LocalDate today) {
+    this.tasks = List.copyOf(tasks);
+    this.today = today;
+    this.bitmaps = new EnumMap<>(TaskFacet.class);
+    this.dueDayBuckets = new TreeMap<>();
+    this.all = new BitSet(tasks.size());
+
+    for (TaskFacet facet : TaskFacet.values()) {
+      bitmaps.put(facet, new LinkedHashMap<>());
+    }
+    for (Priority priority : Priority.values()) {
+      bitmaps.get(TaskFacet.PRIORITY).put(priority, new BitSet());
+    }
+    for (Size size : Size.values()) {
+      bitmaps.get(TaskFacet.SIZE).put(size, new BitSet());
+    }
+    bitmaps.get(TaskFacet.STATUS).put(false, new BitSet());
+    bitmaps.get(TaskFacet.STATUS).put(true, new BitSet());
+
+    for (int id = 0; id < this.tasks.size(); id++) {
+      indexTask(id, this.tasks.get(id));
+    }
+
+    for (DueRange range : DueRange.values()) {
+      BitSet bitmap = new BitSet();
+      dueDayBuckets.subMap(range.fromEpochDay(today), true, range.toEpochDay(today), true)
+          .values().forEach(bitmap::or);
+      bitmaps.get(TaskFacet.DUE).put(range, bitmap);
+    }
+  }
+
+  /**
+   * Sets the bits of a task in the bitmaps of its facet values.
+   *
+   * @param id the dense ID of the task
+   * @param task the task
+   */
+  private void indexTask(int id, Task task) {
+    all.set(id);
+    bitmaps.get(TaskFacet.PRIORITY).get(task.getPriority()).set(id);
+    bitmaps.get(TaskFacet.SIZE).get(task.getSize()).set(id);
+    bitmaps.get(TaskFacet.STATUS).get(task.isCompleted()).set(id);
+
+    Map<Object, BitSet> assignees = bitmaps.get(TaskFacet.ASSIGNEE);
+    if (task.getAssignedUserIds().isEmpty()) {
+      assignees.computeIfAbsent(UNASSIGNED, key -> new BitSet()).set(id);
+    }
+    for (UUID userId : task.getAssignedUserIds()) {
+      assignees.computeIfAbsent(userId, key -> new BitSet()).set(id);
+    }
+
+    dueDayBuckets.computeIfAbsent(task.getDueDate().toLocalDate().toEpochDay(),
+        day -> new BitSet()).set(id);
+  }
+
+  /**
+   * Returns the number of tasks in the index.
+   *
+   * @return the number of tasks in the index
+   */
+  public int size() {
+    return tasks.size();
+  }
+
+  /**
+   * Returns the day the due date ranges of the index are relative to.
+   *
+   * @return the day the due date ranges are relative to
+   */
+  public LocalDate getToday() {
+    return today;
+  }
+
+  /**
+   * Returns the values of a facet that occur in the index, in a stable order.
+   *
+   * @param facet the facet
+   * @return the values of the facet
+   */
+  public List<Object> getValues(TaskFacet facet) {
+    return List.copyOf(bitmaps.get(facet).keySet());
+  }
+
+  /**
+   * Returns the bits of all tasks matching the filter.
+   *
+   * @param filter the filter
+   * @return the bits of the matching tasks
+   */
+  public BitSet match(TaskFilter filter) {
+    return matchExcept(filter, null);
+  }
+
+  /**
+   * Returns the tasks matching the filter, in the order the index was built with.
+   *
+   * @param filter the filter
+   * @return the matching tasks
+   */
+  public List<Task> getTasks(TaskFilter filter) {
+    BitSet matches = match(filter);
+    List<Task> result = new ArrayList<>(matches.cardinality());
+    for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+      result.add(tasks.get(id));
+    }
+    return result;
+  }
+
+  /**
+   * Counts the matching tasks per value of a facet. The selection of the facet itself is
+   * ignored, so the counts tell how many tasks would match if the value was selected as well.
+   *
+   * @param facet the facet to count values of
+   * @param filter the filter
+   * @return the number of tasks per value of the facet
+   */
+  public Map<Object, Integer> count(TaskFacet facet, TaskFilter filter) {
+    BitSet base = matchExcept(filter, facet);
+    Map<Object, Integer> counts = new LinkedHashMap<>();
+    bitmaps.get(facet).forEach((value, bitmap) -> {
+      BitSet intersection = (BitSet) bitmap.clone();
+      intersection.and(base);
+      counts.put(value, intersection.cardinality());
+    });
+    return counts;
+  }
+
+  /**
+   * Returns the bits of all tasks matching the selections of every facet but one.
+   *
+   * @param filter the filter
+   * @param excluded the facet to ignore, or null to use all facets
+   * @return the bits of the matching tasks
+   */
+  private BitSet matchExcept(TaskFilter filter, TaskFacet excluded) {
+    BitSet result = (BitSet) all.clone();
+    for (TaskFacet facet : TaskFacet.values()) {
+      Set<Object> selected = filter.getSelected(facet);
+      if (facet == excluded || selected.isEmpty()) {
+        continue;
+      }
+      BitSet union = new BitSet();
+      for (Object value : selected) {
+        BitSet bitmap = bitmaps.get(facet).get(value);
+        if (bitmap != null) {
+          union.or(bitmap);
+        }
+      }
+      result.and(union);
+    }
+    return result;
+  }
+}
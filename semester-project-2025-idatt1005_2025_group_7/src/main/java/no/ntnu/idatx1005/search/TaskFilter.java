@@ -0,0 +1,71 @@
+package no.ntnu.idatx1005.search;
+
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <h3>Filter for faceted task queries.</h3>
+ *
+ * <p>Holds the selected values per {@link TaskFacet}. A task matches the filter when, for every
+ * facet with a selection, it has at least one of the selected values. Facets without a
+ * selection do not restrict the result.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class TaskFilter {
+  private final Map<TaskFacet, Set<Object>> selections;
+
+  /**
+   * Constructs an empty filter that matches all tasks.
+   */
+  public TaskFilter() {
+    this.selections = new EnumMap<>(TaskFacet.class);
+  }
+
+  /**
+   * Selects the value if it is not selected, or deselects it if it is.
+   *
+   * @param facet the facet of the value
+   * @param value the value to toggle
+   */
+  public void toggle(TaskFacet facet, Object value) {
+    Set<Object> selected = selections.computeIfAbsent(facet, f -> new LinkedHashSet<>());
+    if (!selected.remove(value)) {
+      selected.add(value);
+    }
+    if (selected.isEmpty()) {
+      selections.remove(facet);
+    }
+  }
+
+  /**
+   * Returns whether the value is selected.
+   *
+   * @param facet the facet of the value
+   * @param value the value
+   * @return true if the value is selected, false otherwise
+   */
+  public boolean isSelected(TaskFacet facet, Object value) {
+    return selections.containsKey(facet) && selections.get(facet).contains(value);
+  }
+
+  /**
+   * Returns the selected values of a facet.
+   *
+   * @param facet the facet
+   * @return the selected values, empty if the facet does not restrict the result
+   */
+  public Set<Object> getSelected(TaskFacet facet) {
+    return Set.copyOf(selections.getOrDefault(facet, Set.of()));
+  }
+
+  /**
+   * Removes all selections.
+   */
+  public void clear() {
+    selections.clear();
+  }
+}
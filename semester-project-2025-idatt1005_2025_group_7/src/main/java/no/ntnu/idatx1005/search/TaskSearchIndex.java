@@ -0,0 +1,437 @@
+package no.ntnu.idatx1005.search;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.observer.StorageSyncObserver;
+import no.ntnu.idatx1005.service.DatabaseService;
+import no.ntnu.idatx1005.storage.H2Manager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Full-text search index for tasks and their change history.</h3>
+ *
+ * <p>An in-heap inverted index over the name and description of every task and the description
+ * of every changelog entry. The term dictionary is sorted, so the last term of a query is matched
+ * as a prefix, which lets the index be queried while the user is still typing.
+ *
+ * <p>The index registers itself as a {@link StorageSyncObserver} on the {@link H2Manager} and is
+ * updated incrementally after every synchronization: only documents that were added, changed or
+ * removed since the previous synchronization touch the posting lists. The changelog is not part
+ * of the local storage, so only the entries made since the previous synchronization are fetched
+ * from the remote database, and only the last {@value #HISTORY_WINDOW_DAYS} days of it are
+ * searchable, so neither the first synchronization nor the heap grows with the whole changelog.
+ * Entries that fall out of the window, or belong to tasks that no longer exist, are dropped.
+ * Changelog entries never change, so an entry is only rendered and tokenized once.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class TaskSearchIndex implements StorageSyncObserver {
+  private static final Logger logger = LoggerFactory.getLogger(TaskSearchIndex.class);
+  private static final int NAME_BOOST = 2;
+  private static final int SNIPPET_LENGTH = 120;
+  /**
+   * How far before the newest known changelog entry new entries are looked for, since entries
+   * are timestamped by the clocks of the clients that made them.
+   */
+  private static final Duration HISTORY_LOOKBACK = Duration.ofMinutes(5);
+  /** The number of days of the changelog that are searchable. */
+  static final int HISTORY_WINDOW_DAYS = 90;
+  private static TaskSearchIndex instance;
+
+  private final NavigableMap<String, Map<UUID, Integer>> postings;
+  private final Map<UUID, IndexedDocument> documents;
+  private final Map<UUID, String> taskNames;
+  private final ReentrantReadWriteLock lock;
+  private final Map<UUID, TaskChange> history;
+  private final Function<LocalDateTime, List<TaskChange>> changesSince;
+  private final Function<UUID, String> userNames;
+  private final Clock clock;
+  private LocalDateTime newestChange;
+
+  /**
+   * A document in the index, keyed by the ID of the task or changelog entry it was built from.
+   */
+  private record IndexedDocument(UUID id, SearchResultType type, UUID taskId, String text,
+      Map<String, Integer> termFrequencies, int length) {}
+
+  /**
+   * Constructs an empty search index, reading the changelog from the {@link DatabaseService} and
+   * the names of users from the {@link H2Manager}.
+   */
+  TaskSearchIndex() {
+    this(since -> DatabaseService.getInstance().getTaskChangesSince(since),
+        TaskSearchIndex::getUserName, Clock.systemDefaultZone());
+  }
+
+  /**
+   * Constructs an empty search index.
+   *
+   * @param changesSince returns the changelog entries made at or after the given time
+   * @param userNames returns the name of a user, for rendering the changelog
+   * @param clock the clock the window of the changelog is measured with
+   */
+  TaskSearchIndex(Function<LocalDateTime, List<TaskChange>> changesSince,
+      Function<UUID, String> userNames, Clock clock) {
+    this.changesSince = changesSince;
+    this.userNames = userNames;
+    this.clock = clock;
+    this.postings = new TreeMap<>();
+    this.documents = new HashMap<>();
+    this.taskNames = new HashMap<>();
+    this.lock = new ReentrantReadWriteLock();
+    this.history = new HashMap<>();
+    this.newestChange = null;
+  }
+
+  /**
+   * Returns the instance of the search index, registering it for storage synchronizations the
+   * first time it is requested.
+   *
+   * @return the search index instance
+   */
+  public static synchronized TaskSearchIndex getInstance() {
+    if (instance == null) {
+      instance = new TaskSearchIndex();
+      H2Manager.addSyncObserver(instance);
+    }
+    return instance;
+  }
+
+  /**
+   * Rebuilds the changed parts of the index from the local storage. The whole storage is read
+   * whatever changed, as the changes to the history are not known.
+   *
+   * @param taskIds the IDs of the tasks that changed, or null if any task may have changed
+   */
+  @Override
+  public void onLocalStorageSynchronized(Set<UUID> taskIds) {
+    synchronizeWithHistory(H2Manager.getAllTasks());
+  }
+
+  /**
+   * Brings the index in line with the given tasks and the recent changelog of the remote
+   * database.
+   *
+   * @param tasks all tasks that should be searchable
+   */
+  void synchronizeWithHistory(List<Task> tasks) {
+    synchronize(tasks, updateHistory(tasks));
+  }
+
+  /**
+   * Fetches the changelog entries made since the previous synchronization, but no earlier than
+   * the start of the searchable window, and drops the entries that fell out of the window or
+   * belong to tasks that no longer exist.
+   *
+   * @param tasks all tasks that should be searchable
+   * @return all changelog entries that should be searchable
+   */
+  private synchronized List<TaskChange> updateHistory(List<Task> tasks) {
+    LocalDateTime windowStart = LocalDateTime.now(clock).minusDays(HISTORY_WINDOW_DAYS);
+    LocalDateTime since = newestChange == null ? windowStart
+        : newestChange.minus(HISTORY_LOOKBACK);
+    if (since.isBefore(windowStart)) {
+      since = windowStart;
+    }
+    for (TaskChange change : changesSince.apply(since)) {
+      history.put(change.id(), change);
+      if (newestChange == null || change.changedAt().isAfter(newestChange)) {
+        newestChange = change.changedAt();
+      }
+    }
+    Set<UUID> taskIds = new HashSet<>();
+    tasks.forEach(task -> taskIds.add(task.getId()));
+    history.values().removeIf(change -> !taskIds.contains(change.taskId())
+        || change.changedAt().isBefore(windowStart));
+    return new ArrayList<>(history.values());
+  }
+
+  /**
+   * Brings the index in line with the given tasks and changes. Only tasks whose text differs from
+   * their indexed document are tokenized again, and changelog entries that are already indexed
+   * are not rendered again.
+   *
+   * @param tasks all tasks that should be searchable
+   * @param changes all changelog entries that should be searchable
+   */
+  public void synchronize(List<Task> tasks, List<TaskChange> changes) {
+    Set<UUID> incomingIds = new HashSet<>();
+    List<IndexedDocument> incoming = new ArrayList<>();
+    Map<UUID, String> names = new HashMap<>();
+    List<Task> staleTasks = new ArrayList<>();
+    List<TaskChange> newChanges = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      for (Task task : tasks) {
+        names.put(task.getId(), task.getName());
+        incomingIds.add(task.getId());
+        IndexedDocument existing = documents.get(task.getId());
+        if (existing == null || !existing.text().equals(taskText(task))) {
+          staleTasks.add(task);
+        }
+      }
+      for (TaskChange change : changes) {
+        incomingIds.add(change.id());
+        if (!documents.containsKey(change.id())) {
+          newChanges.add(change);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    for (Task task : staleTasks) {
+      incoming.add(createTaskDocument(task));
+    }
+    for (TaskChange change : newChanges) {
+      String text = change.describe(userNames);
+      incoming.add(createDocument(change.id(), SearchResultType.HISTORY, change.taskId(), text,
+          Tokenizer.tokenize(text)));
+    }
+
+    int removed = 0;
+    int indexed = 0;
+    lock.writeLock().lock();
+    try {
+      for (UUID id : new ArrayList<>(documents.keySet())) {
+        if (!incomingIds.contains(id)) {
+          removeDocument(documents.remove(id));
+          removed++;
+        }
+      }
+      for (IndexedDocument document : incoming) {
+        IndexedDocument existing = documents.get(document.id());
+        if (existing != null && existing.text().equals(document.text())) {
+          continue;
+        }
+        if (existing != null) {
+          removeDocument(existing);
+        }
+        addDocument(document);
+        indexed++;
+      }
+      taskNames.clear();
+      taskNames.putAll(names);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    logger.debug("Search index synchronized: {} documents indexed, {} removed", indexed, removed);
+  }
+
+  /**
+   * Returns the name of a user, for rendering the changelog.
+   *
+   * @param userId the ID of the user
+   * @return the name of the user, or "Unknown user" if the user does not exist
+   */
+  private static String getUserName(UUID userId) {
+    User user = H2Manager.getUserById(userId);
+    return user != null ? user.getFirstName() + " " + user.getLastName() : "Unknown user";
+  }
+
+  /**
+   * Searches the index. All terms of the query must match a document, and the last term is
+   * matched as a prefix unless the query ends with a separator.
+   *
+   * @param query the query text
+   * @param types the result types to include in the results
+   * @param limit the maximum number of results
+   * @return the ranked results together with the number of matches per result type
+   */
+  public SearchResults search(String query, Set<SearchResultType> types, int limit) {
+    Map<SearchResultType, Integer> facetCounts = new EnumMap<>(SearchResultType.class);
+    List<String> terms = Tokenizer.tokenize(query);
+    if (terms.isEmpty()) {
+      return new SearchResults(List.of(), facetCounts);
+    }
+    boolean prefixLast = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+
+    lock.readLock().lock();
+    try {
+      Map<UUID, Double> scores = null;
+      for (int i = 0; i < terms.size(); i++) {
+        boolean prefix = prefixLast && i == terms.size() - 1;
+        Map<UUID, Double> termScores = scoreTerm(terms.get(i), prefix);
+        if (scores == null) {
+          scores = termScores;
+        } else {
+          scores.keySet().retainAll(termScores.keySet());
+          scores.replaceAll((id, score) -> score + termScores.get(id));
+        }
+        if (scores.isEmpty()) {
+          break;
+        }
+      }
+
+      List<SearchResult> results = new ArrayList<>();
+      for (Map.Entry<UUID, Double> entry : scores.entrySet()) {
+        IndexedDocument document = documents.get(entry.getKey());
+        facetCounts.merge(document.type(), 1, Integer::sum);
+        if (types.contains(document.type())) {
+          double score = entry.getValue() / Math.sqrt(document.length());
+          results.add(new SearchResult(document.type(), document.taskId(),
+              taskNames.getOrDefault(document.taskId(), ""), snippet(document), score));
+        }
+      }
+      results.sort(Comparator.comparingDouble(SearchResult::score).reversed()
+          .thenComparing(SearchResult::title));
+      return new SearchResults(
+          List.copyOf(results.subList(0, Math.min(limit, results.size()))), facetCounts);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Searches all result types of the index.
+   *
+   * @param query the query text
+   * @param limit the maximum number of results
+   * @return the ranked results together with the number of matches per result type
+   */
+  public SearchResults search(String query, int limit) {
+    return search(query, EnumSet.allOf(SearchResultType.class), limit);
+  }
+
+  /**
+   * Returns the number of documents in the index.
+   *
+   * @return the number of documents in the index
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return documents.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Scores every document containing the term with tf-idf. Must be called with the read lock
+   * held.
+   *
+   * @param term the term to score
+   * @param prefix whether the term should be matched as a prefix
+   * @return the score of every matching document
+   */
+  private Map<UUID, Double> scoreTerm(String term, boolean prefix) {
+    Map<String, Map<UUID, Integer>> matching = prefix
+        ? postings.subMap(term, true, term + Character.MAX_VALUE, true)
+        : postings.containsKey(term) ? Map.of(term, postings.get(term)) : Map.of();
+
+    Map<UUID, Double> termScores = new HashMap<>();
+    matching.values().forEach(postingList -> {
+      double idf = Math.log(1 + (double) documents.size() / postingList.size());
+      postingList.forEach((id, frequency) ->
+          termScores.merge(id, frequency * idf, Double::sum));
+    });
+    return termScores;
+  }
+
+  /**
+   * Adds the postings of a document. Must be called with the write lock held.
+   *
+   * @param document the document to add
+   */
+  private void addDocument(IndexedDocument document) {
+    documents.put(document.id(), document);
+    document.termFrequencies().forEach((term, frequency) ->
+        postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), frequency));
+  }
+
+  /**
+   * Removes the postings of a document. Must be called with the write lock held.
+   *
+   * @param document the document to remove
+   */
+  private void removeDocument(IndexedDocument document) {
+    for (String term : document.termFrequencies().keySet()) {
+      Map<UUID, Integer> postingList = postings.get(term);
+      if (postingList != null) {
+        postingList.remove(document.id());
+        if (postingList.isEmpty()) {
+          postings.remove(term);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates the document for a task. Terms in the name of the task are weighted higher than
+   * terms in the description.
+   *
+   * @param task the task
+   * @return the document for the task
+   */
+  private static IndexedDocument createTaskDocument(Task task) {
+    List<String> terms = new ArrayList<>();
+    List<String> nameTerms = Tokenizer.tokenize(task.getName());
+    for (int i = 0; i < NAME_BOOST; i++) {
+      terms.addAll(nameTerms);
+    }
+    terms.addAll(Tokenizer.tokenize(task.getDescription()));
+    return createDocument(task.getId(), SearchResultType.TASK, task.getId(), taskText(task),
+        terms);
+  }
+
+  /**
+   * Returns the text of the document of a task, its name followed by its description.
+   *
+   * @param task the task
+   * @return the text of the document
+   */
+  private static String taskText(Task task) {
+    return task.getName() + "\n" + task.getDescription();
+  }
+
+  /**
+   * Creates a document from its terms.
+   *
+   * @param id the ID of the document
+   * @param type the type of the document
+   * @param taskId the ID of the task the document belongs to
+   * @param text the text of the document
+   * @param terms the terms of the document
+   * @return the document
+   */
+  private static IndexedDocument createDocument(UUID id, SearchResultType type, UUID taskId,
+      String text, List<String> terms) {
+    Map<String, Integer> frequencies = new HashMap<>();
+    terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+    return new IndexedDocument(id, type, taskId, text, frequencies,
+        Math.max(1, frequencies.size()));
+  }
+
+  /**
+   * Returns the text shown for a document in the search results.
+   *
+   * @param document the document
+   * @return the text of the document, shortened if needed
+   */
+  private static String snippet(IndexedDocument document) {
+    String text = document.type() == SearchResultType.TASK
+        ? document.text().substring(document.text().indexOf('\n') + 1)
+        : document.text();
+    return text.length() <= SNIPPET_LENGTH ? text : text.substring(0, SNIPPET_LENGTH) + "…";
+  }
+}
@@ -0,0 +1,50 @@
+package no.ntnu.idatx1005.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <h3>Tokenizer for the search index.</h3>
+ *
+ * <p>Splits text into lower-case terms on every character that is not a letter or a digit, so
+ * that Norwegian letters such as æ, ø and å are kept as part of the terms.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public final class Tokenizer {
+
+  /**
+   * Private constructor to prevent instantiation.
+   */
+  private Tokenizer() {}
+
+  /**
+   * Splits the given text into lower-case terms.
+   *
+   * @param text the text to tokenize, may be null
+   * @return the terms of the text in order of appearance
+   */
+  public static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null || text.isEmpty()) {
+      return terms;
+    }
+
+    StringBuilder term = new StringBuilder();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        term.append(c);
+      } else if (!term.isEmpty()) {
+        terms.add(term.toString().toLowerCase(Locale.ROOT));
+        term.setLength(0);
+      }
+    }
+    if (!term.isEmpty()) {
+      terms.add(term.toString().toLowerCase(Locale.ROOT));
+    }
+    return terms;
+  }
+}
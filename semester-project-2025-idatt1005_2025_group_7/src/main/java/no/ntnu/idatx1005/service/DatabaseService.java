@@ -9,23 +9,46 @@ import java.time.LocalDateTime;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IntSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import no.ntnu.idatx1005.analytics.RebalancePlan;
+import no.ntnu.idatx1005.analytics.WorkloadLedger;
 import no.ntnu.idatx1005.dao.AssigneesDao;
+import no.ntnu.idatx1005.dao.DescriptionHistoryDao;
+import no.ntnu.idatx1005.dao.TaskArchiveDao;
 import no.ntnu.idatx1005.dao.TaskChangeDao;
 import no.ntnu.idatx1005.dao.TaskDao;
 import no.ntnu.idatx1005.dao.UserDao;
+import no.ntnu.idatx1005.dao.exceptions.AssignmentConflictException;
 import no.ntnu.idatx1005.dao.exceptions.TaskDoesNotExistException;
+import no.ntnu.idatx1005.dao.exceptions.TaskWithNameAlreadyExistsException;
 import no.ntnu.idatx1005.dao.exceptions.UserDoesNotExistException;
 import no.ntnu.idatx1005.dao.exceptions.UserWithEmailAlreadyExistsException;
-import no.ntnu.idatx1005.database.DbConnectionProvider;
+import no.ntnu.idatx1005.dao.exceptions.WriteRejectedException;
+import no.ntnu.idatx1005.database.Household;
+import no.ntnu.idatx1005.database.RemoteStore;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+import no.ntnu.idatx1005.model.task.ArchivedTask;
+import no.ntnu.idatx1005.model.task.ChangelogEntry;
+import no.ntnu.idatx1005.model.task.ChangelogPage;
+import no.ntnu.idatx1005.model.task.DescriptionRevision;
+import no.ntnu.idatx1005.model.task.FieldChange;
 import no.ntnu.idatx1005.model.task.Priority;
 import no.ntnu.idatx1005.model.task.Size;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.task.TaskChange;
+import no.ntnu.idatx1005.model.task.TaskField;
 import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.storage.ChangelogPageCache;
 import no.ntnu.idatx1005.storage.H2Manager;
+import no.ntnu.idatx1005.storage.OutboxReplayer;
+import no.ntnu.idatx1005.storage.PendingWrite;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,22 +64,37 @@ import org.slf4j.LoggerFactory;
  */
 public class DatabaseService {
   private static final Logger logger = LoggerFactory.getLogger(DatabaseService.class);
+  /** The description changelog entries were logged with when a task was completed. */
+  public static final String TASK_COMPLETED_CHANGE = "Task was completed";
+  /** The number of changelog entries on a page of the changelog of a task. */
+  public static final int CHANGELOG_PAGE_SIZE = 5;
+  /** The number of archived tasks on a page of the archive. */
+  public static final int ARCHIVE_PAGE_SIZE = 25;
+  /** The number of recently viewed changelog pages that are kept in memory. */
+  private static final int CHANGELOG_CACHE_CAPACITY = 64;
   private static DatabaseService instance;
   private final AssigneesDao assigneesDao;
   private final TaskDao taskDao;
   private final UserDao userDao;
   private final TaskChangeDao taskChangeDao;
+  private final DescriptionHistoryDao descriptionHistoryDao;
+  private final TaskArchiveDao taskArchiveDao;
+  private final ChangelogPageCache changelogPages;
 
   /**
    * Constructs a new DatabaseService instance.
    */
   private DatabaseService() {
     logger.info("Initializing DatabaseService");
-    DbConnectionProvider remoteConnectionProvider = DbConnectionProvider.instance();
-    this.assigneesDao = new AssigneesDao(remoteConnectionProvider);
-    this.taskDao = new TaskDao(remoteConnectionProvider, assigneesDao);
-    this.userDao = new UserDao(remoteConnectionProvider);
-    this.taskChangeDao = new TaskChangeDao(remoteConnectionProvider);
+    RemoteStore remoteConnectionProvider = RemoteStore.instance();
+    UUID householdId = Household.currentId();
+    this.assigneesDao = new AssigneesDao(remoteConnectionProvider, householdId);
+    this.taskDao = new TaskDao(remoteConnectionProvider, assigneesDao, householdId);
+    this.userDao = new UserDao(remoteConnectionProvider, householdId);
+    this.taskChangeDao = new TaskChangeDao(remoteConnectionProvider, householdId);
+    this.descriptionHistoryDao = new DescriptionHistoryDao(remoteConnectionProvider);
+    this.taskArchiveDao = new TaskArchiveDao(remoteConnectionProvider, householdId);
+    this.changelogPages = new ChangelogPageCache(CHANGELOG_CACHE_CAPACITY);
     logger.info("DatabaseService initialization completed");
   }
 
@@ -79,14 +117,7 @@ public class DatabaseService {
    * @return a list of unassigned tasks
    */
   public List<Task> getUnassignedTasksBySizeAndPriority() {
-    List<Task> tasks = new ArrayList<>(H2Manager.getOpenTasks());
-    tasks.sort(Comparator
-        .<Task>comparingInt(task -> task.getPriority().ordinal())
-        .reversed()
-        .thenComparingInt(task -> task.getSize().ordinal())
-        .reversed()
-    );
-    return tasks.stream().filter(task -> task.getAssignedUserIds().isEmpty()).toList();
+    return WorkloadLedger.getInstance().getUnassignedTasks();
   }
 
 
@@ -136,7 +167,8 @@ public class DatabaseService {
   }
 
   /**
-   * Adds a new task to the database with the given parameters, and updates the cache afterwards.
+   * Adds a new task with the given parameters. The task is added to the local storage right
+   * away, and stored in the database in the background.
    *
    * @param title the title of the task
    * @param description the description of the task
@@ -144,10 +176,16 @@ public class DatabaseService {
    * @param priority the priority of the task
    * @param size the size of the task
    * @param assignedUserIds the list of user IDs assigned to the task
+   * @throws TaskWithNameAlreadyExistsException if a task with the given title already exists.
    */
   public void addTask(String title, String description, LocalDateTime dueDate, Priority priority,
       Size size, List<UUID> assignedUserIds) {
     logger.info("Adding new task: {}", title);
+    if (!H2Manager.getTaskByName(title).isEmpty()) {
+      logger.error("Task with name {} already exists", title);
+      throw new TaskWithNameAlreadyExistsException("Task with name " + title
+          + " already exists.");
+    }
     UUID taskId = UUID.randomUUID();
     boolean completed = false;
     LocalDateTime createdDate = LocalDateTime.now();
@@ -160,8 +198,8 @@ public class DatabaseService {
         logger.debug("Assigned user {} to task {}", user.getEmail(), title);
       }
     }
-    taskDao.addTask(task);
-    H2Manager.updateLocalStorage();
+    OutboxReplayer.getInstance().submit(new PendingWrite(UUID.randomUUID(),
+        PendingWrite.Kind.ADD_TASK, task, 0, null, List.of(), null, createdDate));
     logger.info("Task {} added successfully", title);
   }
 
@@ -169,33 +207,136 @@ public class DatabaseService {
    * Logs a change to a task in the changelog.
    *
    * @param taskId the ID of the task that was changed
-   * @param description the description of the change
+   * @param fields the fields that were changed
    * @param changedBy the ID of the user who made the change
    */
-  public void logTaskChange(UUID taskId, String description, UUID changedBy) {
+  public void logTaskChange(UUID taskId, List<FieldChange> fields, UUID changedBy) {
     TaskChange change = new TaskChange(
         UUID.randomUUID(),
         taskId,
-        description,
+        fields,
         changedBy,
         LocalDateTime.now()
     );
     taskChangeDao.addChange(change);
+    changelogPages.invalidate(taskId);
+  }
+
+  /**
+   * Retrieves a page of the changelog of a task, newest change first, with the names of the
+   * users who made the changes. Recently viewed pages are cached until the task changes.
+   * While the remote database cannot be reached, a page that is not cached is empty.
+   *
+   * @param taskId the ID of the task
+   * @param page the index of the page, starting at 0
+   * @return the page of the changelog
+   */
+  public ChangelogPage getChangelogPage(UUID taskId, int page) {
+    Task storedTask = H2Manager.getTaskById(taskId);
+    int version = storedTask == null ? 0 : storedTask.getVersion();
+    try {
+      return changelogPages.getPage(taskId, version, page,
+          (id, after) -> withDescriptionDiffs(id,
+              taskChangeDao.getChangePage(id, after, CHANGELOG_PAGE_SIZE)));
+    } catch (DatabaseConnectionException e) {
+      logger.warn("Changelog of task {} unavailable: {}", taskId, e.getMessage());
+      return new ChangelogPage(List.of(), false);
+    }
+  }
+
+  /**
+   * Adds the summaries of the description edits to the entries of a changelog page. The
+   * revisions of the page are reconstructed together, from the snapshot before the oldest one.
+   *
+   * @param taskId the ID of the task
+   * @param page the page of the changelog
+   * @return the page with the summaries of its description edits
+   */
+  private ChangelogPage withDescriptionDiffs(UUID taskId, ChangelogPage page) {
+    IntSummaryStatistics revisions = page.entries().stream()
+        .mapToInt(ChangelogEntry::descriptionRevision)
+        .filter(revision -> revision > 0)
+        .summaryStatistics();
+    if (revisions.getCount() == 0) {
+      return page;
+    }
+    List<DescriptionRevision> history = descriptionHistoryDao.getRevisions(taskId,
+        DescriptionRevision.snapshotOf(revisions.getMin() - 1), revisions.getMax());
+    Map<Integer, String> descriptions = DescriptionRevision.reconstruct(history);
+    Map<Integer, DescriptionRevision> byNumber = new HashMap<>();
+    history.forEach(revision -> byNumber.put(revision.revision(), revision));
+
+    List<ChangelogEntry> entries = page.entries().stream().map(entry -> {
+      int revision = entry.descriptionRevision();
+      String previous = descriptions.get(revision - 1);
+      if (previous == null || !byNumber.containsKey(revision)) {
+        return entry;
+      }
+      return entry.withDescriptionDiff(byNumber.get(revision).diff(previous).describe(previous));
+    }).toList();
+    return new ChangelogPage(entries, page.hasNext());
+  }
+
+  /**
+   * Retrieves the changes that completed a task made at or after the given time.
+   *
+   * @param since the earliest time of the changes
+   * @return a list of the matching changes, oldest first
+   */
+  public List<TaskChange> getCompletionChangesSince(LocalDateTime since) {
+    return getTaskChangesSince(since).stream()
+        .filter(change -> change.isCompletion(TASK_COMPLETED_CHANGE))
+        .toList();
   }
 
   /**
-   * Retrieves all changes made to a specific task.
+   * Retrieves all changes made at or after the given time. While the remote database cannot be
+   * reached, no changes are returned.
+   *
+   * @param since the earliest time of the changes
+   * @return a list of the changes, oldest first
+   */
+  public List<TaskChange> getTaskChangesSince(LocalDateTime since) {
+    try {
+      return taskChangeDao.getChangesSince(since);
+    } catch (DatabaseConnectionException e) {
+      logger.warn("Changes since {} unavailable: {}", since, e.getMessage());
+      return List.of();
+    }
+  }
+
+  /**
+   * Retrieves all changes made to a specific task. While the remote database cannot be reached,
+   * no changes are returned.
    *
    * @param taskId the ID of the task to get changes for
    * @return a list of changes made to the task
    */
   public List<TaskChange> getTaskChanges(UUID taskId) {
-    return taskChangeDao.getChangesByTaskId(taskId);
+    try {
+      return taskChangeDao.getChangesByTaskId(taskId);
+    } catch (DatabaseConnectionException e) {
+      logger.warn("Changes of task {} unavailable: {}", taskId, e.getMessage());
+      return List.of();
+    }
   }
 
   /**
-   * Updates the task in the database with the given task's id, with the properties of the given
-   * task, and updates the cache afterwards. Also logs the change in the changelog.
+   * Retrieves a page of the archived tasks, most recently completed first. Archived tasks are
+   * not part of the local storage, so they are fetched from the archive every time.
+   *
+   * @param after the last archived task of the previous page, or null for the first page
+   * @return the archived tasks of the page, or an empty list if there are no more
+   * @throws DatabaseConnectionException if the remote database cannot be reached
+   */
+  public List<ArchivedTask> getArchivedTasks(ArchivedTask after) {
+    return taskArchiveDao.getArchivedTasks(after, ARCHIVE_PAGE_SIZE);
+  }
+
+  /**
+   * Updates the task with the given task's id, with the properties of the given task. Also logs
+   * the change in the changelog. The task is updated in the local storage right away, and in the
+   * database in the background, unless someone else changed it in the meantime.
    *
    * @param task the task to update
    * @param changedBy the ID of the user who made the change
@@ -208,93 +349,119 @@ public class DatabaseService {
       throw new TaskDoesNotExistException("Task with ID " + task.getId() + " not found.");
     }
 
-    // Check for changes in each field and log them
+    // Check for changes in each field and log them together as one change
+    List<FieldChange> fields = new ArrayList<>();
     if (!storedTask.getName().equals(task.getName())) {
-      logTaskChange(task.getId(),
-          String.format("Name was changed from '%s' to '%s'",
-              storedTask.getName(), task.getName()),
-          changedBy);
-    }
-
-    if (!storedTask.getDescription().equals(task.getDescription())) {
-      logTaskChange(task.getId(),
-          String.format("Description was updated from '%s' to '%s'",
-              storedTask.getDescription(), task.getDescription()),
-          changedBy);
+      fields.add(new FieldChange(TaskField.NAME, storedTask.getName(), task.getName()));
     }
-
     if (!storedTask.getDueDate().equals(task.getDueDate())) {
-      logTaskChange(task.getId(),
-          String.format("Due date was changed from %s to %s",
-              storedTask.getDueDate().format(java.time.format.DateTimeFormatter
-                  .ofPattern("dd/MM/yy")),
-              task.getDueDate().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yy"))),
-          changedBy);
+      fields.add(new FieldChange(TaskField.DUE_DATE, storedTask.getDueDate().toString(),
+          task.getDueDate().toString()));
     }
-
     if (storedTask.getPriority() != task.getPriority()) {
-      logTaskChange(task.getId(),
-          String.format("Priority was changed from %s to %s",
-              storedTask.getPriority(), task.getPriority()),
-          changedBy);
+      fields.add(new FieldChange(TaskField.PRIORITY, storedTask.getPriority().name(),
+          task.getPriority().name()));
     }
-
     if (storedTask.getSize() != task.getSize()) {
-      logTaskChange(task.getId(),
-          String.format("Size was changed from %s to %s",
-              storedTask.getSize(), task.getSize()),
-          changedBy);
+      fields.add(new FieldChange(TaskField.SIZE, storedTask.getSize().name(),
+          task.getSize().name()));
     }
-
     if (storedTask.isCompleted() != task.isCompleted()) {
-      logTaskChange(task.getId(),
-          task.isCompleted() ? "Task was completed" : "Task was restored",
-          changedBy);
+      fields.add(new FieldChange(TaskField.COMPLETED, null, task.isCompleted() ? "1" : "0"));
     }
 
     // Check for changes in assigned users
     List<UUID> oldAssignees = new ArrayList<>(storedTask.getAssignedUserIds());
     List<UUID> newAssignees = new ArrayList<>(task.getAssignedUserIds());
-
     for (UUID userId : newAssignees) {
       if (!oldAssignees.contains(userId)) {
-        User user = H2Manager.getUserById(userId);
-        if (user != null) {
-          logTaskChange(task.getId(),
-              String.format("%s %s was added as an assignee",
-                  user.getFirstName(), user.getLastName()),
-              changedBy);
-        }
+        fields.add(new FieldChange(TaskField.ASSIGNEE, null, userId.toString()));
       }
     }
-
     for (UUID userId : oldAssignees) {
       if (!newAssignees.contains(userId)) {
-        User user = H2Manager.getUserById(userId);
-        if (user != null) {
-          logTaskChange(task.getId(),
-              String.format("%s %s was removed from this task",
-                  user.getFirstName(), user.getLastName()),
-              changedBy);
-        }
+        fields.add(new FieldChange(TaskField.ASSIGNEE, userId.toString(), null));
       }
     }
+    if (fields.isEmpty() && storedTask.getDescription().equals(task.getDescription())) {
+      logger.debug("Task {} was not changed", task.getName());
+      return;
+    }
 
-    taskDao.updateTask(task);
+    // The description revision is only added once the update is replayed
+    int baseVersion = storedTask.getVersion();
+    task.setVersion(baseVersion + 1);
+    OutboxReplayer.getInstance().submit(new PendingWrite(UUID.randomUUID(),
+        PendingWrite.Kind.UPDATE_TASK, task, baseVersion, storedTask.getDescription(), fields,
+        changedBy, LocalDateTime.now()));
     logger.info("Task {} updated successfully", task.getName());
-    H2Manager.updateLocalStorage();
   }
 
   /**
-   * Deletes the given task from the database.
+   * Deletes the given task. The task is deleted from the local storage right away, and from the
+   * database in the background, unless someone else changed it in the meantime.
    *
    * @param task the task to delete
+   * @throws TaskDoesNotExistException if the task does not exist.
    */
   public void deleteTask(Task task) {
-    taskDao.deleteTask(task);
+    Task storedTask = H2Manager.getTaskById(task.getId());
+    if (storedTask == null) {
+      logger.error("Task with ID {} not found", task.getId());
+      throw new TaskDoesNotExistException("Task with ID " + task.getId() + " not found.");
+    }
+    OutboxReplayer.getInstance().submit(new PendingWrite(UUID.randomUUID(),
+        PendingWrite.Kind.DELETE_TASK, storedTask, storedTask.getVersion(), null, List.of(), null,
+        LocalDateTime.now()));
     logger.info("Task {} deleted successfully", task.getName());
-    H2Manager.updateLocalStorage();
+  }
+
+  /**
+   * Replays a write that was applied to the local storage against the database, with its
+   * changelog entry and description revision. Updates and deletions are only stored if the task
+   * still has the version they were made against.
+   *
+   * @param write the write
+   * @return whether the write was applied, rejected because the task was changed since, or
+   *     rejected by the database for another reason
+   * @throws no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException if the database
+   *     could not be reached, or the write failed for a reason that passes
+   */
+  public PendingWrite.Outcome replayWrite(PendingWrite write) {
+    Task task = write.task();
+    boolean applied;
+    try {
+      applied = applyWrite(write, task);
+    } catch (WriteRejectedException e) {
+      return PendingWrite.Outcome.FAILED;
+    } finally {
+      changelogPages.invalidate(task.getId());
+    }
+    return applied ? PendingWrite.Outcome.APPLIED : PendingWrite.Outcome.CONFLICT;
+  }
 
+  /**
+   * Applies a write to the database.
+   *
+   * @param write the write
+   * @param task the task of the write
+   * @return true if the write was applied, false if the task was changed since
+   */
+  private boolean applyWrite(PendingWrite write, Task task) {
+    return switch (write.kind()) {
+      case ADD_TASK -> taskDao.addTaskIfAbsent(task);
+      case UPDATE_TASK -> taskDao.updateTaskIfVersion(task, write.baseVersion(), write.id(),
+          write.changesDescription() ? write.oldDescription() : null, revision -> {
+            List<FieldChange> fields = new ArrayList<>(write.fields());
+            if (revision != null) {
+              boolean renamed = !fields.isEmpty() && fields.getFirst().field() == TaskField.NAME;
+              fields.add(renamed ? 1 : 0, revision);
+            }
+            return new TaskChange(write.id(), task.getId(), fields, write.changedBy(),
+                write.createdAt());
+          });
+      case DELETE_TASK -> taskDao.deleteTaskIfVersion(task.getId(), write.baseVersion());
+    };
   }
 
   /**
@@ -327,17 +494,14 @@ public class DatabaseService {
   }
 
   /**
-   * Retrieves the workload as an integer for the given user. The workload is calculated by
-   * summarizing the sizes of all tasks assigned to the user.
+   * Retrieves the available capacity as an integer for the given user. The workload is the sum
+   * of the sizes of all open tasks assigned to the user, as kept by the {@link WorkloadLedger}.
    *
-   * @param user the user to retrieve the workload for.
-   * @return the integer representing the user's workload.
+   * @param user the user to retrieve the available capacity for.
+   * @return the integer representing the user's available capacity.
    */
   public int getUserAvailableCapacity(User user) {
-    int workload = H2Manager.getAllTasks().stream()
-        .filter(task -> task.getAssignedUserIds().contains(user.getId())
-            && !task.isCompleted()).mapToInt(task -> task.getSize().getValue()).sum();
-    return user.getTaskCapacity() - workload;
+    return WorkloadLedger.getInstance().getAvailableCapacity(user);
   }
 
   /**
@@ -347,9 +511,7 @@ public class DatabaseService {
    * @return the integer representing the user's workload.
    */
   public int getUserWorkload(User user) {
-    return getTasksAssignedToUser(user)
-        .stream().filter(task -> !task.isCompleted()).mapToInt(task ->
-            task.getSize().getValue()).sum();
+    return WorkloadLedger.getInstance().getWorkload(user.getId());
   }
 
   /**
@@ -395,6 +557,117 @@ public class DatabaseService {
     }
   }
 
+  /**
+   * Assigns the given tasks to the given user in one batch. The assignments and their changelog
+   * entries are written in a single transaction, and only the assigned tasks and the user are
+   * refreshed in the local storage afterwards. Tasks that no longer exist or are already assigned
+   * to the user are skipped.
+   *
+   * <p>The assignment only succeeds if neither the tasks nor the user were changed by someone else
+   * since they were cached, so the capacity the user was checked against is still theirs. If they
+   * were, only the conflicting rows are refreshed and nothing is assigned.
+   *
+   * @param tasks the tasks to assign
+   * @param user the user to assign the tasks to, as their capacity was checked
+   * @param changedBy the ID of the user who made the change
+   * @return the tasks that were assigned
+   * @throws AssignmentConflictException if some of the tasks or the user were changed since they
+   *     were cached.
+   * @throws DatabaseConnectionException if the database could not be reached, so nothing was
+   *     assigned.
+   * @throws WriteRejectedException if the database rejected the assignments, so nothing was
+   *     assigned.
+   */
+  public List<Task> assignTasksToUser(List<Task> tasks, User user, UUID changedBy) {
+    List<Task> assignedTasks = new ArrayList<>();
+    List<TaskChange> changes = new ArrayList<>();
+    LocalDateTime now = LocalDateTime.now();
+    List<FieldChange> fields = List.of(
+        new FieldChange(TaskField.ASSIGNEE, null, user.getId().toString()));
+    for (Task task : tasks) {
+      Task storedTask = H2Manager.getTaskById(task.getId());
+      if (storedTask != null && !storedTask.getAssignedUserIds().contains(user.getId())) {
+        assignedTasks.add(storedTask);
+        changes.add(new TaskChange(UUID.randomUUID(), storedTask.getId(), fields, changedBy,
+            now));
+      }
+    }
+    if (assignedTasks.isEmpty()) {
+      return assignedTasks;
+    }
+
+    try {
+      assigneesDao.assignUserToTasks(assignedTasks, user, changes);
+    } catch (AssignmentConflictException e) {
+      H2Manager.refreshRows(e.getConflictingTaskIds(), e.getConflictingUserIds());
+      throw e;
+    }
+    changes.forEach(change -> changelogPages.invalidate(change.taskId()));
+    logger.info("{} tasks assigned to user {} successfully", assignedTasks.size(),
+        user.getEmail());
+    H2Manager.refreshRows(assignedTasks.stream().map(Task::getId).toList(),
+        List.of(user.getId()));
+    return assignedTasks;
+  }
+
+  /**
+   * Moves the tasks of a rebalance plan from the sick user to their new users in one batch. The
+   * assignments and their changelog entries are written in a single transaction, and only the
+   * moved tasks and the users involved are refreshed in the local storage afterwards. Tasks that
+   * no longer exist or are no longer assigned to the sick user are skipped.
+   *
+   * <p>Like {@link #assignTasksToUser(List, User, UUID)}, nothing is moved if some of the tasks or
+   * the new users were changed by someone else since the plan was made.
+   *
+   * @param plan the rebalance plan
+   * @param changedBy the ID of the user who made the change
+   * @return the reassignments that were stored
+   * @throws AssignmentConflictException if some of the tasks or the new users were changed since
+   *     the plan was made.
+   * @throws DatabaseConnectionException if the database could not be reached, so nothing was
+   *     moved.
+   * @throws WriteRejectedException if the database rejected the move, so nothing was moved.
+   */
+  public List<RebalancePlan.Reassignment> reassignTasks(RebalancePlan plan, UUID changedBy) {
+    User sickUser = plan.sickUser();
+    List<RebalancePlan.Reassignment> reassignments = new ArrayList<>();
+    Map<Task, User> newUsers = new LinkedHashMap<>();
+    List<TaskChange> changes = new ArrayList<>();
+    LocalDateTime now = LocalDateTime.now();
+    for (RebalancePlan.Reassignment reassignment : plan.reassignments()) {
+      Task storedTask = H2Manager.getTaskById(reassignment.task().getId());
+      User user = reassignment.user();
+      if (storedTask == null || !storedTask.getAssignedUserIds().contains(sickUser.getId())
+          || storedTask.getAssignedUserIds().contains(user.getId())) {
+        continue;
+      }
+      reassignments.add(new RebalancePlan.Reassignment(storedTask, user));
+      newUsers.put(storedTask, user);
+      changes.add(new TaskChange(UUID.randomUUID(), storedTask.getId(),
+          List.of(new FieldChange(TaskField.ASSIGNEE, sickUser.getId().toString(),
+              user.getId().toString())),
+          changedBy, now));
+    }
+    if (reassignments.isEmpty()) {
+      return reassignments;
+    }
+
+    try {
+      assigneesDao.reassignTasks(sickUser.getId(), newUsers, changes);
+    } catch (AssignmentConflictException e) {
+      H2Manager.refreshRows(e.getConflictingTaskIds(), e.getConflictingUserIds());
+      throw e;
+    }
+    changes.forEach(change -> changelogPages.invalidate(change.taskId()));
+    logger.info("{} tasks moved from sick user {} successfully", reassignments.size(),
+        sickUser.getEmail());
+    Set<UUID> userIds = new LinkedHashSet<>();
+    userIds.add(sickUser.getId());
+    newUsers.values().forEach(user -> userIds.add(user.getId()));
+    H2Manager.refreshRows(newUsers.keySet().stream().map(Task::getId).toList(), userIds);
+    return reassignments;
+  }
+
   /**
    * Completes the given task and updates it in the database.
    *
@@ -405,6 +678,7 @@ public class DatabaseService {
     Task storedTask = H2Manager.getTaskById(task.getId());
     if (storedTask != null) {
       storedTask.setCompleted(true);
+      storedTask.setCompletedDate(LocalDateTime.now());
       updateTask(storedTask, changedBy);
       logger.info("Task {} completed successfully", task.getName());
     }
@@ -0,0 +1,113 @@
+package no.ntnu.idatx1005.storage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import no.ntnu.idatx1005.model.task.ChangelogPage;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Changelog Page Cache</h3>
+ *
+ * <p>A cache of the most recently viewed pages of the changelogs of tasks. The changelog is not
+ * part of the local storage, so its pages are fetched from the remote database when they are
+ * viewed, and kept here so paging back and forth does not fetch them again.
+ *
+ * <p>Pages are cached by the version of their task, so a page is fetched again once the task
+ * has changed. When the cache is full, the page viewed least recently is evicted.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class ChangelogPageCache {
+  private static final Logger logger = LoggerFactory.getLogger(ChangelogPageCache.class);
+  private final Map<PageKey, ChangelogPage> pages;
+
+  /**
+   * The key of a cached page.
+   *
+   * @param taskId the ID of the task
+   * @param version the version of the task the page was fetched at
+   * @param page the index of the page
+   */
+  private record PageKey(UUID taskId, int version, int page) {}
+
+  /**
+   * Constructs an empty cache.
+   *
+   * @param capacity the maximum number of pages in the cache
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public ChangelogPageCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<PageKey, ChangelogPage> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns a page of the changelog of a task. The page is fetched starting after the last change
+   * of the page before it, so the pages before it are fetched too if they are not cached.
+   *
+   * @param taskId the ID of the task
+   * @param version the current version of the task
+   * @param page the index of the page, starting at 0
+   * @param fetcher fetches the page of a task that starts after the given change, or the first
+   *     page if the change is null
+   * @return the page, or an empty page if the changelog has fewer pages
+   */
+  public ChangelogPage getPage(UUID taskId, int version, int page,
+      BiFunction<UUID, TaskChange, ChangelogPage> fetcher) {
+    ChangelogPage current = null;
+    TaskChange after = null;
+    for (int index = 0; index <= page; index++) {
+      if (current != null && !current.hasNext()) {
+        return new ChangelogPage(List.of(), false);
+      }
+      PageKey key = new PageKey(taskId, version, index);
+      synchronized (pages) {
+        current = pages.get(key);
+      }
+      if (current == null) {
+        logger.debug("Fetching page {} of the changelog of task {}", index, taskId);
+        current = fetcher.apply(taskId, after);
+        synchronized (pages) {
+          pages.put(key, current);
+        }
+      }
+      after = current.last();
+    }
+    return current;
+  }
+
+  /**
+   * Removes every cached page of a task.
+   *
+   * @param taskId the ID of the task
+   */
+  public void invalidate(UUID taskId) {
+    synchronized (pages) {
+      pages.keySet().removeIf(key -> key.taskId().equals(taskId));
+    }
+  }
+
+  /**
+   * Returns the number of pages in the cache.
+   *
+   * @return the number of pages
+   */
+  public int size() {
+    synchronized (pages) {
+      return pages.size();
+    }
+  }
+}
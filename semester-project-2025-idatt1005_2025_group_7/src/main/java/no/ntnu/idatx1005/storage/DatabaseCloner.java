@@ -1,10 +1,31 @@
 package no.ntnu.idatx1005.storage;
 
+import io.github.cdimascio.dotenv.Dotenv;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import no.ntnu.idatx1005.database.DbConnectionProvider;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import no.ntnu.idatx1005.database.Household;
+import no.ntnu.idatx1005.database.RemoteStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,195 +36,842 @@ import org.slf4j.LoggerFactory;
  * Its primary function is to clone all the rows in the remote database into the in-memory 
  * database while ensuring no duplicate rows are created.
  *
+ * <p>In {@link SyncMode#DIFF} mode, the tables are not cloned but compared through Merkle trees
+ * over their primary keys, and only the rows that differ are transferred and applied. This mode
+ * works without the version columns of the remote schema. The mode is read from the
+ * {@code SYNC_MODE} environment variable, and defaults to {@link SyncMode#CLONE}.
+ *
+ * <p>Only the partition of the {@link Household} the application is set up for is cloned: its
+ * tasks and their assignments, and the users that are its members. Every remote read is
+ * restricted to the partition, so what a sync costs does not grow with the other households.
+ *
  * @author Hector Mendana Morales
  * @since V1.1.0
  */
 public class DatabaseCloner {
   private static final Logger logger = LoggerFactory.getLogger(DatabaseCloner.class);
   private static final H2ConnectionProvider localDatabase = H2ConnectionProvider.instance();
-  private static final DbConnectionProvider remoteDatabase = DbConnectionProvider.instance();
+  private static final RemoteStore remoteDatabase = RemoteStore.instance();
+  private static final UUID household = Household.currentId();
+  private static volatile SyncMode syncMode = SyncMode.fromEnvironment();
+  private static final String MERGE_USER = "MERGE INTO \"user\" (userId, firstName, lastName, "
+      + "email, passwordHash, salt, workloadCapacity, sickness, version) KEY (userId) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_TASK = "INSERT INTO task (taskId, name, description, "
+      + "completed, createdDate, dueDate, completedDate, priority, taskSize, taskWeight, version) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_ASSIGNMENT =
+      "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)";
+  /** The columns of every table that identify a row and its version in a fingerprint. */
+  private static final Map<String, String> FINGERPRINT_COLUMNS = Map.of(
+      "user", "CONCAT(userId, ':', version)",
+      "task", "CONCAT(taskId, ':', version)",
+      "task_assignees", "CONCAT(taskId, ':', userId)");
+
+  /**
+   * The ways the in-memory database can be brought in line with the remote database.
+   */
+  public enum SyncMode {
+    /** The tables are cloned as a whole. */
+    CLONE,
+    /** Only the rows that differ are transferred, found through Merkle trees of the tables. */
+    DIFF;
+
+    /**
+     * Returns the mode set in the {@code SYNC_MODE} environment variable.
+     *
+     * @return the mode, or {@link #CLONE} if none or an unknown one is set
+     */
+    static SyncMode fromEnvironment() {
+      String mode = Dotenv.configure().ignoreIfMissing().load().get("SYNC_MODE", "clone");
+      return "diff".equalsIgnoreCase(mode) ? DIFF : CLONE;
+    }
+  }
+
+  /**
+   * Sets how the in-memory database is brought in line with the remote database.
+   *
+   * @param mode the mode
+   */
+  public static void setSyncMode(SyncMode mode) {
+    logger.info("Sync mode set to {}", mode);
+    syncMode = mode;
+  }
+
+  /**
+   * Returns how the in-memory database is brought in line with the remote database.
+   *
+   * @return the mode
+   */
+  public static SyncMode getSyncMode() {
+    return syncMode;
+  }
+
+  /**
+   * Copies the current row of a remote result set into the parameters of a local statement.
+   */
+  @FunctionalInterface
+  private interface RowCopier {
+
+    /**
+     * Copies the current row.
+     *
+     * @param row the remote result set, positioned on the row
+     * @param insert the local insert statement
+     * @throws SQLException if the row cannot be read or the parameters cannot be set
+     */
+    void copy(ResultSet row, PreparedStatement insert) throws SQLException;
+  }
 
   /**
    * Updates the in-memory database with the data from the remote database.
+   *
+   * <p>The tables are fetched concurrently, each on its own virtual thread and pooled remote
+   * connection, so the time spent waiting on the remote database is about that of the slowest
+   * table rather than the sum of all of them. If one table cannot be fetched, the fetches of the
+   * others are cancelled. The fetched rows are then loaded in one local transaction, in the order
+   * the foreign keys require, so the in-memory database is never seen half cloned.
    */
   public static void updateLocalDatabase() {
+    if (syncMode == SyncMode.DIFF) {
+      diffLocalTables(TableDiff.TABLES.stream().map(TableDiff.TableSpec::name).toList());
+      return;
+    }
     logger.info("Starting the database cloning process");
-    PreparedStatement remotePreparedStatement = null;
-    ResultSet resultSet = null;
-    PreparedStatement localPreparedStatement = null;
-    Connection remoteConnection = null;
+    long startTime = System.nanoTime();
+    Map<String, List<Object[]>> tables;
+    try {
+      tables = fetchTables(TableDiff.TABLES, Map.of());
+    } catch (SQLException e) {
+      logger.error("Failed to update local database: {}", e.getMessage());
+      throw new RuntimeException("Failed to update local database", e);
+    }
+    long fetchTime = System.nanoTime() - startTime;
+
+    Connection localConnection = null;
+    try {
+      localConnection = localDatabase.getConnection();
+      localConnection.setAutoCommit(false);
+      // Clear local tables first (in correct order due to foreign key constraints)
+      for (TableDiff.TableSpec spec : TableDiff.TABLES.reversed()) {
+        try (PreparedStatement delete = localConnection.prepareStatement(
+            "DELETE FROM " + spec.localName())) {
+          delete.executeUpdate();
+        }
+      }
+      logger.debug("Local database tables cleared successfully");
+
+      for (TableDiff.TableSpec spec : TableDiff.TABLES) {
+        List<Object[]> rows = tables.get(spec.name());
+        loadRows(localConnection, spec, rows, false);
+        logger.debug("Copied {} rows of {} to local database", rows.size(), spec.name());
+      }
+      localConnection.commit();
+      logger.info("Local database update completed successfully in {} ms ({} ms fetching)",
+          (System.nanoTime() - startTime) / 1_000_000, fetchTime / 1_000_000);
+    } catch (SQLException e) {
+      logger.error("Failed to update local database: {}", e.getMessage());
+      rollbackQuietly(localConnection);
+      throw new RuntimeException("Failed to update local database", e);
+    } finally {
+      closeQuietly(localConnection);
+    }
+  }
+
+  /**
+   * Merges the remote rows matching the given conditions into the in-memory database, without
+   * deleting any local rows. The tables are fetched concurrently like in
+   * {@link #updateLocalDatabase()}, and merged in one local transaction in the order the foreign
+   * keys require.
+   *
+   * @param conditions the SQL condition the remote rows must match, by the name of their table
+   * @return the number of rows merged
+   * @throws RuntimeException if the rows could not be merged
+   */
+  public static int mergeTables(Map<String, String> conditions) {
+    List<TableDiff.TableSpec> specs = TableDiff.TABLES.stream()
+        .filter(spec -> conditions.containsKey(spec.name()))
+        .toList();
     Connection localConnection = null;
+    try {
+      Map<String, List<Object[]>> tables = fetchTables(specs, conditions);
+      localConnection = localDatabase.getConnection();
+      localConnection.setAutoCommit(false);
+      int merged = 0;
+      for (TableDiff.TableSpec spec : specs) {
+        List<Object[]> rows = tables.get(spec.name());
+        loadRows(localConnection, spec, rows, true);
+        merged += rows.size();
+      }
+      localConnection.commit();
+      logger.debug("Merged {} rows of {} into local database", merged, conditions.keySet());
+      return merged;
+    } catch (SQLException e) {
+      logger.error("Failed to merge {} into local database: {}", conditions.keySet(),
+          e.getMessage());
+      rollbackQuietly(localConnection);
+      throw new RuntimeException("Failed to merge " + conditions.keySet()
+          + " into local database", e);
+    } finally {
+      closeQuietly(localConnection);
+    }
+  }
 
+  /**
+   * Reads the rows of every table of the in-memory database, in one transaction so the tables
+   * are read consistently with each other.
+   *
+   * @return the values of every row, in the order of the columns of the table, by table
+   * @throws RuntimeException if the tables could not be read
+   */
+  static Map<String, List<Object[]>> readLocalTables() {
+    Map<String, List<Object[]>> tables = new HashMap<>();
+    Connection localConnection = null;
     try {
-      remoteConnection = remoteDatabase.getConnection();
       localConnection = localDatabase.getConnection();
+      localConnection.setAutoCommit(false);
+      for (TableDiff.TableSpec spec : TableDiff.TABLES) {
+        List<Object[]> rows = new ArrayList<>();
+        try (PreparedStatement select = localConnection.prepareStatement(String.format(
+                "SELECT %s FROM %s", columnList(spec), spec.localName()));
+            ResultSet resultSet = select.executeQuery()) {
+          while (resultSet.next()) {
+            Object[] row = new Object[spec.columns().size()];
+            for (int i = 0; i < row.length; i++) {
+              row[i] = spec.columns().get(i).read(resultSet);
+            }
+            rows.add(row);
+          }
+        }
+        tables.put(spec.name(), rows);
+      }
+      localConnection.commit();
+      return tables;
+    } catch (SQLException e) {
+      logger.error("Failed to read local database: {}", e.getMessage());
+      rollbackQuietly(localConnection);
+      throw new RuntimeException("Failed to read local database", e);
+    } finally {
+      closeQuietly(localConnection);
+    }
+  }
+
+  /**
+   * Replaces the rows of every table of the in-memory database with the given rows, in one local
+   * transaction like in {@link #updateLocalDatabase()}, without contacting the remote database.
+   *
+   * @param tables the values of every row, in the order of the columns of the table, by table
+   * @throws RuntimeException if the rows could not be loaded
+   */
+  static void restoreLocalTables(Map<String, List<Object[]>> tables) {
+    Connection localConnection = null;
+    try {
+      localConnection = localDatabase.getConnection();
+      localConnection.setAutoCommit(false);
+      for (TableDiff.TableSpec spec : TableDiff.TABLES.reversed()) {
+        try (PreparedStatement delete = localConnection.prepareStatement(
+            "DELETE FROM " + spec.localName())) {
+          delete.executeUpdate();
+        }
+      }
+      for (TableDiff.TableSpec spec : TableDiff.TABLES) {
+        loadRows(localConnection, spec, tables.getOrDefault(spec.name(), List.of()), false);
+      }
+      localConnection.commit();
+    } catch (SQLException e) {
+      logger.error("Failed to restore local database: {}", e.getMessage());
+      rollbackQuietly(localConnection);
+      throw new RuntimeException("Failed to restore local database", e);
+    } finally {
+      closeQuietly(localConnection);
+    }
+  }
+
+  /**
+   * Fetches the rows of the given remote tables concurrently, each on its own virtual thread and
+   * remote connection. The first fetch to fail cancels the others, and its error is thrown once
+   * all of them have stopped.
+   *
+   * @param specs the tables
+   * @param conditions the SQL condition the rows must match, by table, for the tables that are
+   *     not fetched whole
+   * @return the rows of every table by name
+   * @throws SQLException if a table could not be fetched
+   */
+  private static Map<String, List<Object[]>> fetchTables(List<TableDiff.TableSpec> specs,
+      Map<String, String> conditions) throws SQLException {
+    Map<String, List<Object[]>> tables = new HashMap<>();
+    Set<Statement> running = ConcurrentHashMap.newKeySet();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      CompletionService<Map.Entry<String, List<Object[]>>> completion =
+          new ExecutorCompletionService<>(executor);
+      List<Future<Map.Entry<String, List<Object[]>>>> fetches = new ArrayList<>();
+      for (TableDiff.TableSpec spec : specs) {
+        String condition = conditions.get(spec.name());
+        fetches.add(completion.submit(
+            () -> Map.entry(spec.name(), fetchTable(spec, condition, running))));
+      }
       try {
-        // Clear local tables first (in correct order due to foreign key constraints)
-        localConnection.prepareStatement("DELETE FROM task_assignees").executeUpdate();
-        localConnection.prepareStatement("DELETE FROM task_changelog").executeUpdate();
-        localConnection.prepareStatement("DELETE FROM task").executeUpdate();
-        localConnection.prepareStatement("DELETE FROM \"user\"").executeUpdate();
-        logger.debug("Local database tables cleared successfully");
-
-        // Copy users
-        remotePreparedStatement = remoteConnection.prepareStatement("SELECT * FROM user");
-        resultSet = remotePreparedStatement.executeQuery();
-        localPreparedStatement = localConnection.prepareStatement(
-            "INSERT INTO \"user\" (userId, firstName, lastName, email, passwordHash, salt, "
-                + "workloadCapacity, sickness) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
-
-        int userCount = 0;
-        while (resultSet.next()) {
-          localPreparedStatement.setString(1, resultSet.getString(
-              "userId"));
-          localPreparedStatement.setString(2, resultSet.getString(
-              "firstName"));
-          localPreparedStatement.setString(3, resultSet.getString(
-              "lastName"));
-          localPreparedStatement.setString(4, resultSet.getString(
-              "email"));
-          localPreparedStatement.setBytes(5, resultSet.getBytes(
-              "passwordHash"));
-          localPreparedStatement.setBytes(6, resultSet.getBytes(
-              "salt"));
-          localPreparedStatement.setInt(7, resultSet.getInt(
-              "workloadCapacity"));
-          localPreparedStatement.setBoolean(8, resultSet.getBoolean(
-              "sickness"));
-          localPreparedStatement.executeUpdate();
-          userCount++;
+        for (int i = 0; i < specs.size(); i++) {
+          Map.Entry<String, List<Object[]>> table = completion.take().get();
+          tables.put(table.getKey(), table.getValue());
         }
-        logger.debug("Copied {} users to local database", userCount);
-        remotePreparedStatement.close();
-        resultSet.close();
-
-        // Copy tasks
-        remotePreparedStatement = remoteConnection.prepareStatement("SELECT * FROM task");
-        resultSet = remotePreparedStatement.executeQuery();
-        localPreparedStatement = localConnection.prepareStatement(
-            "INSERT INTO task (taskId, name, description, completed, createdDate, dueDate, "
-                + "completedDate, priority, taskSize, taskWeight) "
-                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-
-        int taskCount = 0;
-        while (resultSet.next()) {
-          localPreparedStatement.setString(1, resultSet.getString(
-              "taskId"));
-          localPreparedStatement.setString(2, resultSet.getString(
-              "name"));
-          localPreparedStatement.setString(3, resultSet.getString(
-              "description"));
-          localPreparedStatement.setBoolean(4, resultSet.getBoolean(
-              "completed"));
-          localPreparedStatement.setTimestamp(5, resultSet.getTimestamp(
-              "createdDate"));
-          localPreparedStatement.setTimestamp(6, resultSet.getTimestamp(
-              "dueDate"));
-          localPreparedStatement.setTimestamp(7, resultSet.getTimestamp(
-              "completedDate"));
-          localPreparedStatement.setString(8, resultSet.getString(
-              "priority"));
-          localPreparedStatement.setString(9, resultSet.getString(
-              "taskSize"));
-          localPreparedStatement.setInt(10, resultSet.getInt(
-              "taskWeight"));
-          localPreparedStatement.executeUpdate();
-          taskCount++;
+      } catch (ExecutionException | InterruptedException e) {
+        fetches.forEach(fetch -> fetch.cancel(true));
+        // Interrupting a thread does not stop a query in progress, cancelling the statement does
+        running.forEach(DatabaseCloner::cancelQuietly);
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+          throw new SQLException("Interrupted while fetching remote tables", e);
         }
-        logger.debug("Copied {} tasks to local database", taskCount);
-        remotePreparedStatement.close();
-        resultSet.close();
-
-        // Copy assignments
-        remotePreparedStatement = remoteConnection.prepareStatement(
-            "SELECT * FROM task_assignees");
-        resultSet = remotePreparedStatement.executeQuery();
-        localPreparedStatement = localConnection.prepareStatement(
-            "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)");
-
-        int assignmentCount = 0;
-        while (resultSet.next()) {
-          localPreparedStatement.setString(1, resultSet.getString(
-              "taskId"));
-          localPreparedStatement.setString(2, resultSet.getString(
-              "userId"));
-          localPreparedStatement.executeUpdate();
-          assignmentCount++;
+        throw e.getCause() instanceof SQLException cause ? cause
+            : new SQLException("Failed to fetch remote tables", e.getCause());
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * Fetches the rows of a remote table on its own remote connection.
+   *
+   * @param spec the table
+   * @param condition the SQL condition the rows must match, or null to fetch every row of the
+   *     partition of the household
+   * @param running the statements in progress, which the statement is added to while it runs
+   * @return the values of every row, in the order of the columns of the table
+   * @throws SQLException if the table could not be fetched
+   */
+  private static List<Object[]> fetchTable(TableDiff.TableSpec spec, String condition,
+      Set<Statement> running) throws SQLException {
+    try (Connection remoteConnection = remoteDatabase.getReadConnection()) {
+      return TableDiff.fetchPartition(remoteConnection, spec, condition, household, running);
+    }
+  }
+
+  /**
+   * Inserts fetched rows into a table of the in-memory database in one batch.
+   *
+   * @param localConnection the connection to the in-memory database
+   * @param spec the table
+   * @param rows the values of every row, in the order of the columns of the table
+   * @param merge whether rows that already exist locally are replaced instead of failing
+   * @throws SQLException if the rows cannot be inserted
+   */
+  private static void loadRows(Connection localConnection, TableDiff.TableSpec spec,
+      List<Object[]> rows, boolean merge) throws SQLException {
+    String statement = merge
+        ? String.format("MERGE INTO %s (%s) KEY (%s)", spec.localName(), columnList(spec),
+            String.join(", ", spec.keyColumns()))
+        : String.format("INSERT INTO %s (%s)", spec.localName(), columnList(spec));
+    try (PreparedStatement insert = localConnection.prepareStatement(statement + " VALUES ("
+        + String.join(", ", Collections.nCopies(spec.columns().size(), "?")) + ")")) {
+      for (Object[] row : rows) {
+        for (int i = 0; i < row.length; i++) {
+          insert.setObject(i + 1, row[i]);
         }
-        logger.debug("Copied {} task assignments to local database", assignmentCount);
-
-        remotePreparedStatement.close();
-        resultSet.close();
-
-        // Copy changelog
-        remotePreparedStatement = remoteConnection.prepareStatement(
-            "SELECT * FROM task_changelog");
-        resultSet = remotePreparedStatement.executeQuery();
-        localPreparedStatement = localConnection.prepareStatement(
-            "INSERT INTO task_changelog (id, taskId, description, changedBy, changedAt) "
-                + "VALUES (?, ?, ?, ?, ?)");
-
-        int changelogCount = 0;
-        while (resultSet.next()) {
-          localPreparedStatement.setString(1, resultSet.getString(
-              "id"));
-          localPreparedStatement.setString(2, resultSet.getString(
-              "taskId"));
-          localPreparedStatement.setString(3, resultSet.getString(
-              "description"));
-          localPreparedStatement.setString(4, resultSet.getString(
-              "changedBy"));
-          localPreparedStatement.setString(5, resultSet.getString(
-              "changedAt"));
-          localPreparedStatement.executeUpdate();
-          changelogCount++;
+        insert.addBatch();
+      }
+      insert.executeBatch();
+    }
+  }
+
+  /**
+   * Returns the columns of a table as a list for SQL.
+   *
+   * @param spec the table
+   * @return the column list
+   */
+  private static String columnList(TableDiff.TableSpec spec) {
+    return spec.columns().stream().map(TableDiff.Column::name)
+        .collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Cancels a remote statement in progress, logging any error.
+   *
+   * @param statement the statement
+   */
+  private static void cancelQuietly(Statement statement) {
+    try {
+      statement.cancel();
+    } catch (SQLException e) {
+      logger.error("Failed to cancel remote Statement: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Takes the fingerprints of the remote tables of a tier. Only one aggregate row per table is
+   * transferred, so the fingerprints are cheap to take compared to cloning the tables.
+   *
+   * @param tier the tier
+   * @return the fingerprint of every table of the tier
+   * @throws RuntimeException if the fingerprints could not be taken
+   */
+  public static List<TableFingerprint> fingerprint(RefreshTier tier) {
+    List<TableFingerprint> fingerprints = new ArrayList<>();
+    try (Connection remoteConnection = remoteDatabase.getReadConnection()) {
+      for (String table : tier.getTables()) {
+        // Without version columns, the fingerprint is the root of the Merkle tree instead
+        String rowHash = syncMode == SyncMode.DIFF
+            ? remoteSpec(remoteConnection, table).rowHashExpression()
+            : "CRC32(" + FINGERPRINT_COLUMNS.get(table) + ")";
+        fingerprints.add(TableDiff.fingerprint(remoteConnection, spec(table), rowHash,
+            household));
+      }
+    } catch (SQLException e) {
+      logger.error("Failed to take fingerprints of {}: {}", tier, e.getMessage());
+      throw new RuntimeException("Failed to take fingerprints of " + tier, e);
+    }
+    return fingerprints;
+  }
+
+  /**
+   * Replaces the tasks and their assignments in the in-memory database with the remote rows,
+   * without cloning the users. The tables are fetched concurrently
+   * like in {@link #updateLocalDatabase()}. If a task refers to a user that is not cloned yet,
+   * the whole database is cloned instead.
+   *
+   * @return the IDs of the tasks that changed, or null if every task may have changed, as the
+   *     tables were cloned as a whole
+   * @throws RuntimeException if the remote tables could not be fetched or loaded
+   */
+  public static Set<UUID> updateLocalTasks() {
+    if (syncMode == SyncMode.DIFF) {
+      Set<UUID> taskIds = new HashSet<>();
+      for (TableDiff diff : applyDiffs(RefreshTier.TASKS.getTables())) {
+        diff.getChangedFirstKeys().forEach(taskId -> taskIds.add(UUID.fromString(taskId)));
+      }
+      return taskIds;
+    }
+    logger.debug("Starting the task cloning process");
+    List<TableDiff.TableSpec> specs = TableDiff.TABLES.stream()
+        .filter(spec -> RefreshTier.TASKS.getTables().contains(spec.name()))
+        .toList();
+    Map<String, List<Object[]>> tables;
+    try {
+      tables = fetchTables(specs, Map.of());
+    } catch (SQLException e) {
+      logger.error("Failed to fetch remote tasks: {}", e.getMessage());
+      throw new RuntimeException("Failed to update local tasks", e);
+    }
+
+    Connection localConnection = null;
+    try {
+      localConnection = localDatabase.getConnection();
+      localConnection.setAutoCommit(false);
+      for (TableDiff.TableSpec spec : specs.reversed()) {
+        try (PreparedStatement delete = localConnection.prepareStatement(
+            "DELETE FROM " + spec.localName())) {
+          delete.executeUpdate();
         }
-        logger.debug("Copied {} changelog entries to local database", changelogCount);
-        logger.info("Local database update completed successfully");
-      } catch (SQLException e) {
-        logger.error("SQL error during database synchronization: {}", e.getMessage());
-        throw e;
       }
+      for (TableDiff.TableSpec spec : specs) {
+        loadRows(localConnection, spec, tables.get(spec.name()), false);
+      }
+      localConnection.commit();
+      logger.info("Copied {} tasks to local database", tables.get("task").size());
+      return null;
     } catch (SQLException e) {
-      logger.error("Failed to update local database: {}", e.getMessage());
-      throw new RuntimeException("Failed to update local database", e);
+      rollbackQuietly(localConnection);
+      if (!isIntegrityViolation(e)) {
+        logger.error("Failed to update local tasks: {}", e.getMessage());
+        throw new RuntimeException("Failed to update local tasks", e);
+      }
+      logger.warn("Tasks refer to rows that are not cloned yet, cloning the whole database "
+          + "instead: {}", e.getMessage());
+      closeQuietly(localConnection);
+      localConnection = null;
+      updateLocalDatabase();
+      return null;
     } finally {
-      logger.debug("Cleaning up database resources");
-      if (resultSet != null) {
-        try {
-          resultSet.close();
-        } catch (SQLException e) {
-          logger.error("Failed to close ResultSet: {}", e.getMessage());
+      closeQuietly(localConnection);
+    }
+  }
+
+  /**
+   * Replaces the users in the in-memory database with the remote rows, without cloning the
+   * tasks. Users that no longer exist remotely are only removed once no task refers to them.
+   */
+  public static void updateLocalUsers() {
+    if (syncMode == SyncMode.DIFF) {
+      diffLocalTables(RefreshTier.USERS.getTables());
+      return;
+    }
+    logger.debug("Starting the user cloning process");
+    Connection localConnection = null;
+    try (Connection remoteConnection = remoteDatabase.getReadConnection()) {
+      localConnection = localDatabase.getConnection();
+      localConnection.setAutoCommit(false);
+      Set<String> remoteUserIds = new HashSet<>();
+      try (PreparedStatement select = remoteConnection.prepareStatement(
+              "SELECT * FROM user WHERE " + spec("user").partition());
+          PreparedStatement merge = localConnection.prepareStatement(MERGE_USER)) {
+        select.setString(1, household.toString());
+        try (ResultSet rows = select.executeQuery()) {
+          while (rows.next()) {
+            remoteUserIds.add(rows.getString("userId"));
+            copyUser(rows, merge);
+            merge.executeUpdate();
+          }
         }
       }
-      if (remotePreparedStatement != null) {
-        try {
-          remotePreparedStatement.close();
-        } catch (SQLException e) {
-          logger.error("Failed to close remote PreparedStatement: {}", e.getMessage());
+
+      List<UUID> removedUserIds = new ArrayList<>();
+      try (PreparedStatement select = localConnection.prepareStatement(
+              "SELECT userId FROM \"user\"");
+          ResultSet rows = select.executeQuery()) {
+        while (rows.next()) {
+          if (!remoteUserIds.contains(rows.getString("userId"))) {
+            removedUserIds.add(UUID.fromString(rows.getString("userId")));
+          }
         }
       }
-      if (localPreparedStatement != null) {
-        try {
-          localPreparedStatement.close();
-        } catch (SQLException e) {
-          logger.error("Failed to close local PreparedStatement: {}", e.getMessage());
-        }
+      for (UUID userId : removedUserIds) {
+        refreshUser(remoteConnection, localConnection, userId);
       }
-      if (remoteConnection != null) {
-        try {
-          remoteConnection.close();
-        } catch (SQLException e) {
-          logger.error("Failed to close remote Connection: {}", e.getMessage());
+      localConnection.commit();
+      logger.info("Copied {} users to local database", remoteUserIds.size());
+    } catch (SQLException e) {
+      logger.error("Failed to update local users: {}", e.getMessage());
+      rollbackQuietly(localConnection);
+      throw new RuntimeException("Failed to update local users", e);
+    } finally {
+      closeQuietly(localConnection);
+    }
+  }
+
+  /**
+   * Brings the given tables of the in-memory database in line with the remote tables by
+   * comparing their Merkle trees, and applies the rows that differ as precise inserts, updates
+   * and deletes in one local transaction. The amount of data transferred depends on how much
+   * changed rather than on the size of the tables.
+   *
+   * @param tables the names of the tables
+   * @return the number of rows that were inserted, updated or deleted
+   * @throws RuntimeException if the tables could not be compared
+   */
+  public static int diffLocalTables(Collection<String> tables) {
+    int changed = 0;
+    for (TableDiff diff : applyDiffs(tables)) {
+      TableDiff.RowDiff rows = diff.getRowDiff();
+      changed += rows.inserted().size() + rows.updated().size() + rows.deleted().size();
+    }
+    logger.info("Diff of {} applied {} changed rows to local database", tables, changed);
+    return changed;
+  }
+
+  /**
+   * Brings the given tables of the in-memory database in line with the remote tables, like
+   * {@link #diffLocalTables(Collection)}.
+   *
+   * @param tables the names of the tables
+   * @return the diffs of the tables, with the rows that were inserted, updated or deleted
+   * @throws RuntimeException if the tables could not be compared
+   */
+  private static List<TableDiff> applyDiffs(Collection<String> tables) {
+    logger.debug("Starting the diff of {}", tables);
+    Connection localConnection = null;
+    try (Connection remoteConnection = remoteDatabase.getReadConnection()) {
+      localConnection = localDatabase.getConnection();
+      localConnection.setAutoCommit(false);
+      List<TableDiff> diffs = new ArrayList<>();
+      for (TableDiff.TableSpec spec : TableDiff.TABLES) {
+        if (tables.contains(spec.name())) {
+          TableDiff diff = new TableDiff(remoteSpec(remoteConnection, spec.name()), household);
+          diff.merge(remoteConnection, localConnection);
+          diffs.add(diff);
         }
       }
-      if (localConnection != null) {
-        try {
-          localConnection.close();
-        } catch (SQLException e) {
-          logger.error("Failed to close local Connection: {}", e.getMessage());
+      // Rows are deleted from the tables referring to others first
+      for (int i = diffs.size() - 1; i >= 0; i--) {
+        diffs.get(i).deleteRemoved(localConnection);
+      }
+      localConnection.commit();
+      return diffs;
+    } catch (SQLException e) {
+      logger.error("Failed to diff local tables: {}", e.getMessage());
+      rollbackQuietly(localConnection);
+      throw new RuntimeException("Failed to diff local tables", e);
+    } finally {
+      closeQuietly(localConnection);
+    }
+  }
+
+  /**
+   * Returns the spec of a table with only the columns the remote table has.
+   *
+   * @param remoteConnection the connection to the remote database
+   * @param table the name of the table
+   * @return the spec
+   * @throws SQLException if the columns of the remote table cannot be read
+   */
+  private static TableDiff.TableSpec remoteSpec(Connection remoteConnection, String table)
+      throws SQLException {
+    Set<String> columns = new HashSet<>();
+    try (ResultSet rows = remoteConnection.getMetaData().getColumns(
+        remoteConnection.getCatalog(), null, table, null)) {
+      while (rows.next()) {
+        columns.add(rows.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+      }
+    }
+    return spec(table).withRemoteColumns(columns);
+  }
+
+  /**
+   * Returns the spec of a table.
+   *
+   * @param table the name of the table
+   * @return the spec
+   */
+  private static TableDiff.TableSpec spec(String table) {
+    return TableDiff.TABLES.stream().filter(spec -> spec.name().equals(table)).findFirst()
+        .orElseThrow();
+  }
+
+  /**
+   * Refreshes the given tasks and users in the in-memory database from the remote database,
+   * without cloning anything else. The rows of the tasks and their assignments are replaced, as
+   * are the rows of the users. If the rows refer to rows that are not cloned yet, the whole
+   * database is cloned instead. The rows are read from the primary rather than the replica, as
+   * they are usually refreshed right after being written.
+   *
+   * @param taskIds the IDs of the tasks to refresh
+   * @param userIds the IDs of the users to refresh
+   * @return true if only the given rows were refreshed, false if the whole database was cloned
+   * @throws RuntimeException if the remote rows could not be read or loaded
+   */
+  public static boolean refreshRows(Collection<UUID> taskIds, Collection<UUID> userIds) {
+    logger.debug("Refreshing {} tasks and {} users in the local database", taskIds.size(),
+        userIds.size());
+    Connection localConnection = null;
+    try (Connection remoteConnection = remoteDatabase.getConnection()) {
+      localConnection = localDatabase.getConnection();
+      localConnection.setAutoCommit(false);
+      for (UUID userId : userIds) {
+        refreshUser(remoteConnection, localConnection, userId);
+      }
+      for (UUID taskId : taskIds) {
+        refreshTask(remoteConnection, localConnection, taskId);
+      }
+      localConnection.commit();
+      logger.info("Refreshed {} tasks and {} users in the local database", taskIds.size(),
+          userIds.size());
+      return true;
+    } catch (SQLException e) {
+      rollbackQuietly(localConnection);
+      if (!isIntegrityViolation(e)) {
+        logger.error("Failed to refresh rows: {}", e.getMessage());
+        throw new RuntimeException("Failed to refresh rows", e);
+      }
+      logger.warn("Rows refer to rows that are not cloned yet, cloning the whole database "
+          + "instead: {}", e.getMessage());
+      closeQuietly(localConnection);
+      localConnection = null;
+      updateLocalDatabase();
+      return false;
+    } finally {
+      closeQuietly(localConnection);
+    }
+  }
+
+  /**
+   * Replaces the row of a user in the in-memory database with the remote row. A user that is no
+   * longer a member of the household is removed like a user that no longer exists.
+   *
+   * @param remoteConnection the connection to the remote database
+   * @param localConnection the connection to the in-memory database
+   * @param userId the ID of the user
+   * @throws SQLException if the user cannot be refreshed
+   */
+  private static void refreshUser(Connection remoteConnection, Connection localConnection,
+      UUID userId) throws SQLException {
+    try (PreparedStatement select = remoteConnection.prepareStatement(
+            "SELECT * FROM user WHERE userId = ? AND " + spec("user").partition());
+        PreparedStatement delete = localConnection.prepareStatement(
+            "DELETE FROM \"user\" WHERE userId = ? AND NOT EXISTS "
+                + "(SELECT 1 FROM task_assignees WHERE userId = ?)");
+        PreparedStatement merge = localConnection.prepareStatement(
+            MERGE_USER)) {
+      select.setString(1, userId.toString());
+      select.setString(2, household.toString());
+      try (ResultSet row = select.executeQuery()) {
+        if (row.next()) {
+          copyUser(row, merge);
+          merge.executeUpdate();
+        } else {
+          delete.setString(1, userId.toString());
+          delete.setString(2, userId.toString());
+          delete.executeUpdate();
         }
       }
     }
   }
+
+  /**
+   * Replaces the row of a task and its assignments in the in-memory database with the remote
+   * rows.
+   *
+   * @param remoteConnection the connection to the remote database
+   * @param localConnection the connection to the in-memory database
+   * @param taskId the ID of the task
+   * @throws SQLException if the task cannot be refreshed
+   */
+  private static void refreshTask(Connection remoteConnection, Connection localConnection,
+      UUID taskId) throws SQLException {
+    String id = taskId.toString();
+    try (PreparedStatement deleteAssignments = localConnection.prepareStatement(
+            "DELETE FROM task_assignees WHERE taskId = ?");
+        PreparedStatement deleteTask = localConnection.prepareStatement(
+            "DELETE FROM task WHERE taskId = ?")) {
+      deleteAssignments.setString(1, id);
+      deleteAssignments.executeUpdate();
+      deleteTask.setString(1, id);
+      deleteTask.executeUpdate();
+    }
+
+    copyMatchingRows(remoteConnection, localConnection,
+        "SELECT * FROM task WHERE taskId = ? AND " + spec("task").partition(), id, INSERT_TASK,
+        DatabaseCloner::copyTask);
+    copyMatchingRows(remoteConnection, localConnection,
+        "SELECT * FROM task_assignees WHERE taskId = ? AND " + spec("task_assignees").partition(),
+        id, INSERT_ASSIGNMENT, DatabaseCloner::copyAssignment);
+  }
+
+  /**
+   * Copies the remote rows of the household matching a single ID into the in-memory database.
+   *
+   * @param remoteConnection the connection to the remote database
+   * @param localConnection the connection to the in-memory database
+   * @param selectSql the remote query, with the ID and then the household as its parameters
+   * @param id the ID
+   * @param insertSql the local insert statement
+   * @param copier the copier of the rows
+   * @throws SQLException if the rows cannot be copied
+   */
+  private static void copyMatchingRows(Connection remoteConnection, Connection localConnection,
+      String selectSql, String id, String insertSql, RowCopier copier) throws SQLException {
+    try (PreparedStatement select = remoteConnection.prepareStatement(selectSql);
+        PreparedStatement insert = localConnection.prepareStatement(insertSql)) {
+      select.setString(1, id);
+      select.setString(2, household.toString());
+      try (ResultSet rows = select.executeQuery()) {
+        copyRows(rows, insert, copier);
+      }
+    }
+  }
+
+  /**
+   * Copies all rows of a remote result set into the in-memory database.
+   *
+   * @param rows the remote rows
+   * @param insert the local insert statement
+   * @param copier the copier of the rows
+   * @return the number of rows copied
+   * @throws SQLException if the rows cannot be copied
+   */
+  private static int copyRows(ResultSet rows, PreparedStatement insert, RowCopier copier)
+      throws SQLException {
+    int count = 0;
+    while (rows.next()) {
+      copier.copy(rows, insert);
+      insert.executeUpdate();
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Copies a user row.
+   *
+   * @param row the remote user row
+   * @param insert the local user insert statement
+   * @throws SQLException if the row cannot be copied
+   */
+  private static void copyUser(ResultSet row, PreparedStatement insert) throws SQLException {
+    insert.setString(1, row.getString("userId"));
+    insert.setString(2, row.getString("firstName"));
+    insert.setString(3, row.getString("lastName"));
+    insert.setString(4, row.getString("email"));
+    insert.setBytes(5, row.getBytes("passwordHash"));
+    insert.setBytes(6, row.getBytes("salt"));
+    insert.setInt(7, row.getInt("workloadCapacity"));
+    insert.setBoolean(8, row.getBoolean("sickness"));
+    insert.setInt(9, row.getInt("version"));
+  }
+
+  /**
+   * Copies a task row.
+   *
+   * @param row the remote task row
+   * @param insert the local task insert statement
+   * @throws SQLException if the row cannot be copied
+   */
+  private static void copyTask(ResultSet row, PreparedStatement insert) throws SQLException {
+    insert.setString(1, row.getString("taskId"));
+    insert.setString(2, row.getString("name"));
+    insert.setString(3, row.getString("description"));
+    insert.setBoolean(4, row.getBoolean("completed"));
+    insert.setTimestamp(5, row.getTimestamp("createdDate"));
+    insert.setTimestamp(6, row.getTimestamp("dueDate"));
+    insert.setTimestamp(7, row.getTimestamp("completedDate"));
+    insert.setString(8, row.getString("priority"));
+    insert.setString(9, row.getString("taskSize"));
+    insert.setInt(10, row.getInt("taskWeight"));
+    insert.setInt(11, row.getInt("version"));
+  }
+
+  /**
+   * Copies an assignment row.
+   *
+   * @param row the remote assignment row
+   * @param insert the local assignment insert statement
+   * @throws SQLException if the row cannot be copied
+   */
+  private static void copyAssignment(ResultSet row, PreparedStatement insert)
+      throws SQLException {
+    insert.setString(1, row.getString("taskId"));
+    insert.setString(2, row.getString("userId"));
+  }
+
+  /**
+   * Returns whether an error is an integrity constraint violation, like a row referring to a row
+   * that does not exist. Only the in-memory database is written to while cloning, so such an
+   * error always comes from loading the rows locally, never from reading the remote rows.
+   *
+   * @param e the error
+   * @return true if the SQL state of the error is of class 23
+   */
+  private static boolean isIntegrityViolation(SQLException e) {
+    return e.getSQLState() != null && e.getSQLState().startsWith("23");
+  }
+
+  /**
+   * Rolls back a local transaction, logging any error.
+   *
+   * @param connection the connection, or null
+   */
+  private static void rollbackQuietly(Connection connection) {
+    if (connection != null) {
+      try {
+        connection.rollback();
+      } catch (SQLException e) {
+        logger.error("Failed to roll back local Connection: {}", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Closes a local connection, logging any error.
+   *
+   * @param connection the connection, or null
+   */
+  private static void closeQuietly(Connection connection) {
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        logger.error("Failed to close local Connection: {}", e.getMessage());
+      }
+    }
+  }
 }
@@ -1,8 +1,21 @@
 package no.ntnu.idatx1005.storage;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,16 +26,89 @@ import org.slf4j.LoggerFactory;
  * with data from the remote database. It uses the Singleton design pattern to ensure
  * that only one instance of the class is created.
  *
+ * <p>Every {@link RefreshTier} is refreshed on its own interval. A tier that fails to refresh is
+ * retried with exponential backoff and jitter, so clients do not hammer a remote database that
+ * is down all at the same moment. While the application is paused, for example when it is
+ * hidden or no user is logged in, or while the user is idle, nothing is refreshed; tiers that
+ * became due while paused are refreshed as soon as the application is resumed.
+ *
+ * <p>Before a tier is cloned, the fingerprints of its remote tables are compared with the ones
+ * taken at its last refresh, and the tier is only cloned if they differ. How many refreshes were
+ * executed and how many were skipped is counted in the {@link SyncMetrics}.
+ *
+ * <p>Refreshes never overlap. A manual refresh waits for a scheduled one to finish, scheduled
+ * refreshes are skipped while a manual one is running, and manual refreshes requested while
+ * another one is running share its result.
+ *
  * @author Hector Mendana Morales
  */
 public class DatabaseRefresher {
   private static final Logger logger = LoggerFactory.getLogger(DatabaseRefresher.class);
+  /** The longest a failing tier waits before it is retried, unless its interval is longer. */
+  static final Duration MAX_BACKOFF = Duration.ofMinutes(15);
+  /** The time without user activity after which the user is considered idle. */
+  static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
   private static DatabaseRefresher instance;
   private final ScheduledExecutorService scheduler;
+  private final Clock clock;
+  private final DoubleSupplier random;
+  private final Runnable fullRefresh;
+  private final Map<RefreshTier, Runnable> tierRefreshes;
+  private final Function<RefreshTier, List<TableFingerprint>> probe;
+  private final Map<RefreshTier, List<TableFingerprint>> fingerprints;
+  private final SyncMetrics metrics;
+  private final Map<RefreshTier, Duration> intervals;
+  private final Map<RefreshTier, Integer> failures;
+  private final Set<RefreshTier> dueTiers;
+  private final Set<PauseReason> pauseReasons;
+  private final ReentrantLock refreshLock;
+  private CompletableFuture<Void> manualRefresh;
+  private volatile Instant lastActivity;
   private boolean isRunning;
 
-  private DatabaseRefresher() {
-    this.scheduler = Executors.newScheduledThreadPool(1);
+  /**
+   * The reasons the scheduled refreshes can be paused for.
+   */
+  public enum PauseReason {
+    /** No user is logged in. */
+    LOGGED_OUT,
+    /** The application window is minimized. */
+    HIDDEN,
+    /** Writes are waiting to be replayed, and a refresh would undo them in the local storage. */
+    PENDING_WRITES
+  }
+
+  /**
+   * Constructs a database refresher.
+   *
+   * @param scheduler the scheduler the refreshes are run on
+   * @param clock the clock used to determine idleness
+   * @param random the source of the jitter, between 0 and 1
+   * @param fullRefresh the refresh of the whole local database
+   * @param tierRefreshes the refresh of every tier
+   * @param probe the source of the remote fingerprints of every tier
+   */
+  DatabaseRefresher(ScheduledExecutorService scheduler, Clock clock, DoubleSupplier random,
+      Runnable fullRefresh, Map<RefreshTier, Runnable> tierRefreshes,
+      Function<RefreshTier, List<TableFingerprint>> probe) {
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.random = random;
+    this.fullRefresh = fullRefresh;
+    this.tierRefreshes = new EnumMap<>(tierRefreshes);
+    this.probe = probe;
+    this.fingerprints = new EnumMap<>(RefreshTier.class);
+    this.metrics = new SyncMetrics();
+    this.intervals = new EnumMap<>(RefreshTier.class);
+    this.failures = new EnumMap<>(RefreshTier.class);
+    for (RefreshTier tier : RefreshTier.values()) {
+      intervals.put(tier, tier.getDefaultInterval());
+      failures.put(tier, 0);
+    }
+    this.dueTiers = EnumSet.noneOf(RefreshTier.class);
+    this.pauseReasons = EnumSet.noneOf(PauseReason.class);
+    this.refreshLock = new ReentrantLock();
+    this.lastActivity = clock.instant();
     this.isRunning = false;
   }
 
@@ -34,20 +120,277 @@ public class DatabaseRefresher {
   public static synchronized DatabaseRefresher getInstance() {
     if (instance == null) {
       logger.debug("Creating new DatabaseRefresher instance");
-      instance = new DatabaseRefresher();
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "database-refresher");
+        thread.setDaemon(true);
+        return thread;
+      });
+      instance = new DatabaseRefresher(scheduler, Clock.systemDefaultZone(),
+          () -> ThreadLocalRandom.current().nextDouble(), H2Manager::updateLocalStorage,
+          Map.of(RefreshTier.USERS, H2Manager::updateLocalUsers,
+              RefreshTier.TASKS, H2Manager::updateLocalTasks),
+          DatabaseCloner::fingerprint);
     }
     return instance;
   }
 
   /**
-   * Starts the database refresh service if it's not already running.
+   * Starts the database refresh service if it's not already running. Every tier is refreshed on
+   * its interval from now on; the initial load of the local database is left to the
+   * {@link StartupLoader}.
    */
   public synchronized void start() {
     if (!isRunning) {
-      Runnable refreshDatabase = H2Manager::updateLocalStorage;
-      scheduler.scheduleAtFixedRate(refreshDatabase, 0, 60, TimeUnit.SECONDS);
+      for (RefreshTier tier : RefreshTier.values()) {
+        schedule(tier, intervals.get(tier));
+      }
       logger.info("Database refresh service started successfully");
       isRunning = true;
     }
   }
+
+  /**
+   * Sets the interval a tier is refreshed at. The new interval applies from the next refresh of
+   * the tier.
+   *
+   * @param tier the tier
+   * @param interval the interval
+   * @throws IllegalArgumentException if the interval is not positive
+   */
+  public synchronized void setInterval(RefreshTier tier, Duration interval) {
+    if (interval.isZero() || interval.isNegative()) {
+      throw new IllegalArgumentException("Refresh interval must be positive");
+    }
+    intervals.put(tier, interval);
+    logger.info("Refresh interval of {} set to {}", tier, interval);
+  }
+
+  /**
+   * Returns the interval a tier is refreshed at.
+   *
+   * @param tier the tier
+   * @return the interval
+   */
+  public synchronized Duration getInterval(RefreshTier tier) {
+    return intervals.get(tier);
+  }
+
+  /**
+   * Pauses the scheduled refreshes for the given reason. They stay paused until every reason they
+   * were paused for is resumed.
+   *
+   * @param reason the reason
+   */
+  public synchronized void pause(PauseReason reason) {
+    if (pauseReasons.add(reason)) {
+      logger.debug("Database refresh paused: {}", reason);
+    }
+  }
+
+  /**
+   * Resumes the scheduled refreshes that were paused for the given reason. If no other reason
+   * remains, the tiers that became due while paused are refreshed right away.
+   *
+   * @param reason the reason
+   */
+  public synchronized void resume(PauseReason reason) {
+    if (!pauseReasons.remove(reason)) {
+      return;
+    }
+    logger.debug("Database refresh resumed: {}", reason);
+    recordActivity();
+    if (pauseReasons.isEmpty()) {
+      for (RefreshTier tier : dueTiers) {
+        schedule(tier, Duration.ZERO);
+      }
+      dueTiers.clear();
+    }
+  }
+
+  /**
+   * Returns whether the scheduled refreshes are paused.
+   *
+   * @return true if they are paused, false otherwise
+   */
+  public synchronized boolean isPaused() {
+    return !pauseReasons.isEmpty();
+  }
+
+  /**
+   * Returns the metrics of the scheduled refreshes.
+   *
+   * @return the metrics
+   */
+  public SyncMetrics getSyncMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Records that the user interacted with the application.
+   */
+  public void recordActivity() {
+    lastActivity = clock.instant();
+  }
+
+  /**
+   * Returns whether the user has not interacted with the application for
+   * {@link #IDLE_TIMEOUT}.
+   *
+   * @return true if the user is idle, false otherwise
+   */
+  public boolean isIdle() {
+    return Duration.between(lastActivity, clock.instant()).compareTo(IDLE_TIMEOUT) > 0;
+  }
+
+  /**
+   * Refreshes the whole local database right away, regardless of pauses. If another manual
+   * refresh is already running, this waits for it and shares its result instead of refreshing
+   * again.
+   *
+   * @throws RuntimeException if the local database could not be refreshed
+   */
+  public void refreshNow() {
+    CompletableFuture<Void> refresh;
+    boolean isOwner = false;
+    synchronized (this) {
+      if (manualRefresh == null) {
+        manualRefresh = new CompletableFuture<>();
+        isOwner = true;
+      }
+      refresh = manualRefresh;
+    }
+    if (!isOwner) {
+      logger.debug("Joining database refresh already in progress");
+      refresh.join();
+      return;
+    }
+
+    refreshLock.lock();
+    try {
+      Map<RefreshTier, List<TableFingerprint>> probed = new EnumMap<>(RefreshTier.class);
+      try {
+        for (RefreshTier tier : RefreshTier.values()) {
+          probed.put(tier, probe.apply(tier));
+        }
+      } catch (RuntimeException e) {
+        logger.warn("Failed to take fingerprints before refresh: {}", e.getMessage());
+        probed.clear();
+      }
+      fullRefresh.run();
+      synchronized (this) {
+        fingerprints.clear();
+        fingerprints.putAll(probed);
+        failures.replaceAll((tier, count) -> 0);
+      }
+      refresh.complete(null);
+    } catch (RuntimeException e) {
+      refresh.completeExceptionally(e);
+      throw e;
+    } finally {
+      synchronized (this) {
+        manualRefresh = null;
+      }
+      refreshLock.unlock();
+    }
+  }
+
+  /**
+   * Schedules the next refresh of a tier.
+   *
+   * @param tier the tier
+   * @param delay the delay until the refresh
+   */
+  private void schedule(RefreshTier tier, Duration delay) {
+    scheduler.schedule(() -> {
+      Duration next = runTier(tier);
+      if (next != null) {
+        schedule(tier, next);
+      }
+    }, delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Runs a scheduled refresh of a tier, unless the refreshes are paused, the user is idle, a
+   * manual refresh is running or the remote tables of the tier are unchanged. The fingerprints
+   * are taken before the tier is cloned, so a change made during the clone is cloned again on
+   * the next refresh rather than missed.
+   *
+   * @param tier the tier
+   * @return the delay until the next refresh of the tier, or null if the tier waits until the
+   *     refreshes are resumed
+   */
+  Duration runTier(RefreshTier tier) {
+    Duration interval;
+    synchronized (this) {
+      if (!pauseReasons.isEmpty()) {
+        logger.trace("Refresh of {} postponed while paused", tier);
+        metrics.record(tier, SyncMetrics.Outcome.SKIPPED);
+        dueTiers.add(tier);
+        return null;
+      }
+      interval = intervals.get(tier);
+    }
+    if (isIdle()) {
+      logger.trace("Refresh of {} skipped while idle", tier);
+      metrics.record(tier, SyncMetrics.Outcome.SKIPPED);
+      return interval;
+    }
+    if (!refreshLock.tryLock()) {
+      logger.trace("Refresh of {} skipped during manual refresh", tier);
+      metrics.record(tier, SyncMetrics.Outcome.SKIPPED);
+      return interval;
+    }
+    try {
+      List<TableFingerprint> current = probe.apply(tier);
+      boolean isUnchanged;
+      synchronized (this) {
+        isUnchanged = current.equals(fingerprints.get(tier));
+      }
+      if (isUnchanged) {
+        logger.trace("Refresh of {} skipped, nothing changed", tier);
+        metrics.record(tier, SyncMetrics.Outcome.UNCHANGED);
+      } else {
+        tierRefreshes.get(tier).run();
+        metrics.record(tier, SyncMetrics.Outcome.EXECUTED);
+        logger.debug("Refreshed {} - {}", tier, metrics);
+      }
+      synchronized (this) {
+        fingerprints.put(tier, current);
+        failures.put(tier, 0);
+      }
+      return interval;
+    } catch (RuntimeException e) {
+      int failed;
+      synchronized (this) {
+        failed = failures.merge(tier, 1, Integer::sum);
+      }
+      metrics.record(tier, SyncMetrics.Outcome.FAILED);
+      Duration delay = backoff(interval, failed, random.getAsDouble());
+      logger.warn("Refresh of {} failed {} times, retrying in {}s: {}", tier, failed,
+          delay.toSeconds(), e.getMessage());
+      return delay;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the delay before a failing refresh is retried. The delay doubles with every failure
+   * up to {@link #MAX_BACKOFF}, and half of it is random, so clients that failed together do not
+   * retry together.
+   *
+   * @param interval the interval of the tier
+   * @param failures the number of consecutive failures
+   * @param random a random number between 0 and 1
+   * @return the delay before the next attempt
+   */
+  static Duration backoff(Duration interval, int failures, double random) {
+    Duration cap = interval.compareTo(MAX_BACKOFF) > 0 ? interval : MAX_BACKOFF;
+    Duration delay = interval.multipliedBy(1L << Math.min(failures, 20));
+    if (delay.compareTo(cap) > 0) {
+      delay = cap;
+    }
+    long half = delay.toMillis() / 2;
+    return Duration.ofMillis(half + (long) (half * random));
+  }
 }
@@ -46,7 +46,8 @@ public class H2ConnectionProvider {
       createTaskTable.append("completedDate DATETIME,");
       createTaskTable.append("priority VARCHAR(255),");
       createTaskTable.append("taskSize VARCHAR(255),");
-      createTaskTable.append("taskWeight INT");
+      createTaskTable.append("taskWeight INT,");
+      createTaskTable.append("version INT DEFAULT 0");
       createTaskTable.append(");");
 
       StringBuilder createUserTable = new StringBuilder();
@@ -58,7 +59,8 @@ public class H2ConnectionProvider {
       createUserTable.append("passwordHash BLOB NOT NULL,");
       createUserTable.append("salt BLOB NOT NULL,");
       createUserTable.append("workloadCapacity INT NOT NULL,");
-      createUserTable.append("sickness BOOLEAN");
+      createUserTable.append("sickness BOOLEAN,");
+      createUserTable.append("version INT DEFAULT 0");
       createUserTable.append(");");
 
       StringBuilder createAssigneesTable = new StringBuilder();
@@ -70,21 +72,9 @@ public class H2ConnectionProvider {
       createAssigneesTable.append("FOREIGN KEY (userId) REFERENCES \"user\"(userId)");
       createAssigneesTable.append(");");
 
-      StringBuilder createChangelogTable = new StringBuilder();
-      createChangelogTable.append("CREATE TABLE IF NOT EXISTS task_changelog (");
-      createChangelogTable.append("id VARCHAR(36) PRIMARY KEY NOT NULL,");
-      createChangelogTable.append("taskId VARCHAR(36) NOT NULL,");
-      createChangelogTable.append("description TEXT NOT NULL,");
-      createChangelogTable.append("changedBy VARCHAR(36) NOT NULL,");
-      createChangelogTable.append("changedAt DATETIME NOT NULL,");
-      createChangelogTable.append("FOREIGN KEY (taskId) REFERENCES task(taskId),");
-      createChangelogTable.append("FOREIGN KEY (changedBy) REFERENCES \"user\"(userId)");
-      createChangelogTable.append(");");
-
       connection.prepareStatement(createUserTable.toString()).execute();
       connection.prepareStatement(createTaskTable.toString()).execute();
       connection.prepareStatement(createAssigneesTable.toString()).execute();
-      connection.prepareStatement(createChangelogTable.toString()).execute();
       logger.info("Database tables creation query successfully executed");
 
     } catch (Exception e) {
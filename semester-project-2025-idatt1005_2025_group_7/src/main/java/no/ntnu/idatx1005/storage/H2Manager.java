@@ -5,18 +5,27 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javafx.util.Pair;
 import no.ntnu.idatx1005.model.task.Priority;
 import no.ntnu.idatx1005.model.task.Size;
 import no.ntnu.idatx1005.model.task.Task;
-import no.ntnu.idatx1005.model.task.TaskChange;
 import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.observer.StorageSyncObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +40,13 @@ import org.slf4j.LoggerFactory;
 public class H2Manager {
   private static final Logger logger = LoggerFactory.getLogger(H2Manager.class);
   private static final H2ConnectionProvider h2database = H2ConnectionProvider.instance();
+  private static final List<StorageSyncObserver> syncObservers = new CopyOnWriteArrayList<>();
+  private static final ExecutorService syncNotifier = Executors.newSingleThreadExecutor(
+      runnable -> {
+        Thread thread = new Thread(runnable, "storage-sync-notifier");
+        thread.setDaemon(true);
+        return thread;
+      });
 
   /**
    * Private constructor to prevent instantiation.
@@ -43,6 +59,168 @@ public class H2Manager {
   public static void updateLocalStorage() {
     DatabaseCloner.updateLocalDatabase();
     logger.info("Local database updated successfully");
+    notifySyncObservers(null);
+  }
+
+  /**
+   * Updates the tasks, their assignments and their changelog in the local database with the data
+   * from the remote database, without the users.
+   */
+  public static void updateLocalTasks() {
+    notifySyncObservers(DatabaseCloner.updateLocalTasks());
+  }
+
+  /**
+   * Updates the users in the local database with the data from the remote database, without the
+   * tasks.
+   */
+  public static void updateLocalUsers() {
+    DatabaseCloner.updateLocalUsers();
+    notifySyncObservers(null);
+  }
+
+  /**
+   * Updates only the given tasks and users in the local database with the data from the remote
+   * database, for changes that are known to touch nothing else.
+   *
+   * @param taskIds the IDs of the tasks to update
+   * @param userIds the IDs of the users to update
+   */
+  public static void refreshRows(Collection<UUID> taskIds, Collection<UUID> userIds) {
+    boolean onlyRows = DatabaseCloner.refreshRows(taskIds, userIds);
+    notifySyncObservers(onlyRows && userIds.isEmpty() ? Set.copyOf(taskIds) : null);
+  }
+
+  /**
+   * Merges the remote rows matching the given conditions into the local database, without
+   * removing any local rows.
+   *
+   * @param conditions the SQL condition the remote rows must match, by the name of their table
+   */
+  public static void mergeRemoteRows(Map<String, String> conditions) {
+    DatabaseCloner.mergeTables(conditions);
+    notifySyncObservers(null);
+  }
+
+  /**
+   * Replaces the rows of the local database with the given rows, without contacting the remote
+   * database.
+   *
+   * @param tables the values of every row, in the order of the columns of the table, by table
+   */
+  static void restoreLocalStorage(Map<String, List<Object[]>> tables) {
+    DatabaseCloner.restoreLocalTables(tables);
+    notifySyncObservers(null);
+  }
+
+  /**
+   * Applies a write that is waiting to be replayed against the remote database to the local
+   * storage, in one transaction, so it is visible right away.
+   *
+   * @param write the write
+   * @throws IllegalStateException if the write could not be applied
+   */
+  public static void applyPendingWrite(PendingWrite write) {
+    Task task = write.task();
+    try (Connection connection = h2database.getConnection()) {
+      connection.setAutoCommit(false);
+      try (PreparedStatement deleteAssignees = connection.prepareStatement(
+              "DELETE FROM task_assignees WHERE taskId = ?");
+          PreparedStatement mergeTask = connection.prepareStatement(
+              "MERGE INTO task (taskId, name, description, completed, createdDate, dueDate, "
+                  + "completedDate, priority, taskSize, version) KEY (taskId) "
+                  + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+          PreparedStatement deleteTask = connection.prepareStatement(
+              "DELETE FROM task WHERE taskId = ?");
+          PreparedStatement insertAssignee = connection.prepareStatement(
+              "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)")) {
+        deleteAssignees.setString(1, task.getId().toString());
+        deleteAssignees.executeUpdate();
+        if (write.kind() == PendingWrite.Kind.DELETE_TASK) {
+          deleteTask.setString(1, task.getId().toString());
+          deleteTask.executeUpdate();
+        } else {
+          mergeTask.setString(1, task.getId().toString());
+          mergeTask.setString(2, task.getName());
+          mergeTask.setString(3, task.getDescription());
+          mergeTask.setBoolean(4, task.isCompleted());
+          mergeTask.setTimestamp(5, Timestamp.valueOf(task.getCreatedDate()));
+          mergeTask.setTimestamp(6, Timestamp.valueOf(task.getDueDate()));
+          mergeTask.setTimestamp(7, task.getCompletedDate() == null ? null
+              : Timestamp.valueOf(task.getCompletedDate()));
+          mergeTask.setString(8, task.getPriority().name());
+          mergeTask.setString(9, task.getSize().name());
+          mergeTask.setInt(10, task.getVersion());
+          mergeTask.executeUpdate();
+          for (UUID userId : task.getAssignedUserIds()) {
+            insertAssignee.setString(1, task.getId().toString());
+            insertAssignee.setString(2, userId.toString());
+            insertAssignee.addBatch();
+          }
+          insertAssignee.executeBatch();
+        }
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Could not apply write " + write.id() + " to task "
+          + task.getId() + " locally", e);
+    }
+    logger.debug("Write {} to task {} applied locally", write.kind(), task.getId());
+    notifySyncObservers(Set.of(task.getId()));
+  }
+
+  /**
+   * Brings the whole local database in line with the remote database by transferring only the
+   * rows that differ, whatever the sync mode is.
+   */
+  public static void reconcileLocalStorage() {
+    DatabaseCloner.diffLocalTables(TableDiff.TABLES.stream().map(TableDiff.TableSpec::name)
+        .toList());
+    notifySyncObservers(null);
+  }
+
+  /**
+   * Adds an observer that is notified every time the local storage has been synchronized.
+   *
+   * @param observer the observer to add
+   */
+  public static void addSyncObserver(StorageSyncObserver observer) {
+    syncObservers.add(observer);
+  }
+
+  /**
+   * Removes a storage synchronization observer.
+   *
+   * @param observer the observer to remove
+   */
+  public static void removeSyncObserver(StorageSyncObserver observer) {
+    syncObservers.remove(observer);
+  }
+
+  /**
+   * Notifies all storage synchronization observers on a background thread, one synchronization
+   * after the other. Writes are applied locally on the JavaFX thread, and observers may rescan
+   * the local storage or contact the remote database, so they must not run on the thread that
+   * changed the storage. A failing observer does not prevent the remaining observers from being
+   * notified.
+   *
+   * @param taskIds the IDs of the tasks that changed, or null if any task or user may have
+   *     changed
+   */
+  private static void notifySyncObservers(Set<UUID> taskIds) {
+    syncNotifier.execute(() -> {
+      for (StorageSyncObserver observer : syncObservers) {
+        try {
+          observer.onLocalStorageSynchronized(taskIds);
+        } catch (RuntimeException e) {
+          logger.error("Error notifying {} of storage synchronization: {}",
+              observer.getClass().getSimpleName(), e.getMessage());
+        }
+      }
+    });
   }
 
   /**
@@ -72,18 +250,35 @@ public class H2Manager {
     Priority priority = Priority.valueOf(resultSet.getString("priority"));
     Size taskSize = Size.valueOf(resultSet.getString("taskSize"));
 
-    List<UUID> assignedUserIds = getAllAssignments().stream()
-        .filter(pair -> pair.getKey().equals(id))
-        .map(Pair::getValue)
-        .toList();
-
     Task task = new Task(id, completed, name, description, createdDate, dueDate, priority,
         taskSize);
     task.setCompletedDate(completedDate);
-    task.setAssignedUserIds(assignedUserIds);
+    task.setVersion(resultSet.getInt("version"));
     return task;
   }
 
+  /**
+   * Sets the assigned user IDs of the given tasks. All assignments are read with a single query,
+   * instead of one query per task.
+   *
+   * @param tasks the tasks to set the assigned user IDs of
+   * @return the given tasks
+   */
+  private static List<Task> attachAssignments(List<Task> tasks) {
+    if (tasks.isEmpty()) {
+      return tasks;
+    }
+    Map<UUID, List<UUID>> assigneesByTask = new HashMap<>();
+    for (Pair<UUID, UUID> assignment : getAllAssignments()) {
+      assigneesByTask.computeIfAbsent(assignment.getKey(), key -> new ArrayList<>())
+          .add(assignment.getValue());
+    }
+    for (Task task : tasks) {
+      task.setAssignedUserIds(assigneesByTask.getOrDefault(task.getId(), new ArrayList<>()));
+    }
+    return tasks;
+  }
+
   /**
    * Retrieves all tasks from the local database.
    *
@@ -104,7 +299,46 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving all tasks: {}", e.getMessage());
     }
-    return tasks;
+    return attachAssignments(tasks);
+  }
+
+  /**
+   * Retrieves the tasks with the given IDs from the local database in one query.
+   *
+   * @param taskIds the IDs of the tasks to retrieve
+   * @return the tasks that exist, by their ID
+   */
+  public static Map<UUID, Task> getTasksByIds(Collection<UUID> taskIds) {
+    if (taskIds.isEmpty()) {
+      return Map.of();
+    }
+    List<Task> tasks = new ArrayList<>();
+
+    try (
+        Connection connection = h2database.getConnection();
+        PreparedStatement selectTasks = connection.prepareStatement("SELECT * FROM task "
+            + "WHERE taskId IN (" + String.join(", ", Collections.nCopies(taskIds.size(), "?"))
+            + ")")
+    ) {
+      int index = 1;
+      for (UUID taskId : taskIds) {
+        selectTasks.setString(index++, taskId.toString());
+      }
+
+      try (ResultSet rs = selectTasks.executeQuery()) {
+        while (rs.next()) {
+          tasks.add(constructTaskFromResultSet(rs));
+        }
+      }
+
+    } catch (SQLException e) {
+      logger.error("Error retrieving {} tasks by ID: {}", taskIds.size(), e.getMessage());
+    }
+    Map<UUID, Task> tasksById = new HashMap<>();
+    for (Task task : attachAssignments(tasks)) {
+      tasksById.put(task.getId(), task);
+    }
+    return tasksById;
   }
 
   /**
@@ -134,6 +368,9 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving task with ID {}: {}", taskId, e.getMessage());
     }
+    if (task != null) {
+      attachAssignments(List.of(task));
+    }
     return task;
   }
 
@@ -162,7 +399,7 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving tasks with name {}: {}", name, e.getMessage());
     }
-    return tasksWithName;
+    return attachAssignments(tasksWithName);
   }
 
   /**
@@ -187,7 +424,7 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving tasks due today: {}", e.getMessage());
     }
-    return tasksDueToday;
+    return attachAssignments(tasksDueToday);
   }
 
   /**
@@ -218,7 +455,7 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving tasks due this week: {}", e.getMessage());
     }
-    return tasksDueThisWeek;
+    return attachAssignments(tasksDueThisWeek);
   }
 
   /**
@@ -242,7 +479,7 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving tasks completed today: {}", e.getMessage());
     }
-    return tasksCompletedToday;
+    return attachAssignments(tasksCompletedToday);
   }
 
   /**
@@ -272,7 +509,7 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving tasks completed this week: {}", e.getMessage());
     }
-    return tasksCompletedThisWeek;
+    return attachAssignments(tasksCompletedThisWeek);
   }
 
   /**
@@ -299,7 +536,7 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving completed tasks: {}", e.getMessage());
     }
-    return completedTasks;
+    return attachAssignments(completedTasks);
   }
 
   /**
@@ -326,7 +563,7 @@ public class H2Manager {
     } catch (SQLException e) {
       logger.error("Error retrieving open tasks: {}", e.getMessage());
     }
-    return uncompleteTasks;
+    return attachAssignments(uncompleteTasks);
   }
 
   /**
@@ -369,7 +606,10 @@ public class H2Manager {
     byte[] salt = resultSet.getBytes("salt");
     int workloadCapacity = resultSet.getInt("workloadCapacity");
     boolean isSick = resultSet.getInt("sickness") == 1;
-    return new User(id, firstName, lastName, email, passwordHash, salt, workloadCapacity, isSick);
+    User user = new User(id, firstName, lastName, email, passwordHash, salt, workloadCapacity,
+        isSick);
+    user.setVersion(resultSet.getInt("version"));
+    return user;
   }
 
   /**
@@ -522,56 +762,4 @@ public class H2Manager {
       return false;
     }
   }
-
-  /**
-   * Retrieves all changes for a given task from the local database.
-   *
-   * @param taskId the ID of the task
-   * @return a list of all changes for the given task
-   */
-  public static List<TaskChange> getTaskChanges(UUID taskId) {
-    List<TaskChange> changes = new ArrayList<>();
-
-    try (
-        Connection connection = h2database.getConnection();
-        PreparedStatement selectChanges = connection.prepareStatement(
-            "SELECT * FROM task_changelog WHERE taskId = ? ORDER BY changedAt DESC")
-    ) {
-      selectChanges.setString(1, taskId.toString());
-
-      try (ResultSet rs = selectChanges.executeQuery()) {
-        while (rs.next()) {
-          changes.add(constructTaskChangeFromResultSet(rs));
-        }
-      }
-
-    } catch (SQLException e) {
-      logger.error("Error retrieving changes for task {}: {}", taskId, e.getMessage());
-    }
-    return changes;
-  }
-
-  /**
-   * Constructs a TaskChange object from a ResultSet.
-   *
-   * @param resultSet the ResultSet to construct the TaskChange from
-   * @return the constructed TaskChange object
-   * @throws SQLException if an error occurs while constructing the TaskChange
-   */
-  private static TaskChange constructTaskChangeFromResultSet(ResultSet resultSet) 
-      throws SQLException {
-    if (resultSet == null) {
-      logger.debug("Null ResultSet provided to constructTaskChangeFromResultSet");
-      return null;
-    }
-
-    UUID id = UUID.fromString(resultSet.getString("id"));
-    UUID taskId = UUID.fromString(resultSet.getString("taskId"));
-    String description = resultSet.getString("description");
-    UUID changedBy = UUID.fromString(resultSet.getString("changedBy"));
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    LocalDateTime changedAt = LocalDateTime.parse(resultSet.getString("changedAt"), formatter);
-
-    return new TaskChange(id, taskId, description, changedBy, changedAt);
-  }
 }
@@ -0,0 +1,285 @@
+package no.ntnu.idatx1005.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <h3>Snapshot of the local storage.</h3>
+ *
+ * <p>A copy of the rows of every table of the in-memory database, which is written to a file so
+ * the next start of the application can load it instead of copying the whole remote database.
+ *
+ * <p>The snapshot is a compact binary file. It starts with a magic number, its format version
+ * and the time it was taken, followed by every table in the order of {@link TableDiff#TABLES}:
+ * its name, its columns and their types, its number of rows and the values of the rows. A value
+ * is a marker telling whether it is null, followed by the value in the binary form of its type.
+ * The file ends with a CRC32 of everything before it, so a file that was cut short or damaged is
+ * rejected instead of loaded. The file is mapped into memory when it is read, so it is read
+ * without being copied through a stream first.
+ *
+ * @param savedAt the time the snapshot was taken
+ * @param tables the values of every row, in the order of the columns of the table, by the name
+ *     of the table
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+record LocalSnapshot(Instant savedAt, Map<String, List<Object[]>> tables) {
+  /** The magic number every snapshot starts with, "HOME" in ASCII. */
+  private static final int MAGIC = 0x484F4D45;
+  private static final int FORMAT_VERSION = 1;
+  private static final int CHECKSUM_LENGTH = Long.BYTES;
+
+  /**
+   * Writes the snapshot to the given file. It is written to a file next to it first, and moved
+   * in place once complete, so a crash while writing never leaves a half written snapshot.
+   *
+   * @param file the file
+   * @return the size of the file in bytes
+   * @throws IOException if the snapshot could not be written
+   * @throws IllegalArgumentException if a table of {@link TableDiff#TABLES} is missing
+   */
+  long writeTo(Path file) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeShort(FORMAT_VERSION);
+    out.writeLong(savedAt.toEpochMilli());
+    out.writeInt(TableDiff.TABLES.size());
+    for (TableDiff.TableSpec spec : TableDiff.TABLES) {
+      List<Object[]> rows = tables.get(spec.name());
+      if (rows == null) {
+        throw new IllegalArgumentException("Snapshot is missing table " + spec.name());
+      }
+      writeString(out, spec.name());
+      out.writeShort(spec.columns().size());
+      for (TableDiff.Column column : spec.columns()) {
+        writeString(out, column.name());
+        out.writeByte(column.type().ordinal());
+      }
+      out.writeInt(rows.size());
+      for (Object[] row : rows) {
+        for (int i = 0; i < row.length; i++) {
+          writeValue(out, spec.columns().get(i).type(), row[i]);
+        }
+      }
+    }
+    CRC32 checksum = new CRC32();
+    checksum.update(bytes.toByteArray());
+    out.writeLong(checksum.getValue());
+    out.flush();
+
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      Files.write(temporary, bytes.toByteArray());
+      try {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+    return bytes.size();
+  }
+
+  /**
+   * Reads a snapshot from the given file.
+   *
+   * @param file the file
+   * @return the snapshot
+   * @throws IOException if the file could not be read
+   * @throws IllegalArgumentException if the file is damaged, has an unknown format version, or
+   *     its tables do not match {@link TableDiff#TABLES}
+   */
+  static LocalSnapshot readFrom(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < CHECKSUM_LENGTH || channel.size() > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Snapshot has an invalid size: " + channel.size());
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      int contentLength = buffer.capacity() - CHECKSUM_LENGTH;
+      CRC32 checksum = new CRC32();
+      checksum.update(buffer.slice(0, contentLength));
+      if (checksum.getValue() != buffer.getLong(contentLength)) {
+        throw new IllegalArgumentException("Snapshot checksum does not match");
+      }
+      return read(buffer.slice(0, contentLength));
+    }
+  }
+
+  /**
+   * Reads a snapshot from its content, without the checksum.
+   *
+   * @param in the content
+   * @return the snapshot
+   * @throws IllegalArgumentException if the content is not a snapshot of {@link TableDiff#TABLES}
+   */
+  private static LocalSnapshot read(ByteBuffer in) {
+    try {
+      if (in.getInt() != MAGIC) {
+        throw new IllegalArgumentException("File is not a snapshot");
+      }
+      int version = in.getShort();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unknown snapshot format: " + version);
+      }
+      Instant savedAt = Instant.ofEpochMilli(in.getLong());
+      if (in.getInt() != TableDiff.TABLES.size()) {
+        throw new IllegalArgumentException("Snapshot tables do not match the local storage");
+      }
+      Map<String, List<Object[]>> tables = new LinkedHashMap<>();
+      for (TableDiff.TableSpec spec : TableDiff.TABLES) {
+        readLayout(in, spec);
+        int rowCount = in.getInt();
+        List<Object[]> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+          Object[] row = new Object[spec.columns().size()];
+          for (int i = 0; i < row.length; i++) {
+            row[i] = readValue(in, spec.columns().get(i).type());
+          }
+          rows.add(row);
+        }
+        tables.put(spec.name(), rows);
+      }
+      return new LocalSnapshot(savedAt, tables);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Snapshot is cut short", e);
+    }
+  }
+
+  /**
+   * Reads the name and columns of a table, and checks they match those of the local storage, so
+   * a snapshot taken before the tables changed is never loaded into them.
+   *
+   * @param in the content
+   * @param spec the table expected next
+   * @throws IllegalArgumentException if the table does not match
+   */
+  private static void readLayout(ByteBuffer in, TableDiff.TableSpec spec) {
+    boolean matches = spec.name().equals(readString(in))
+        && in.getShort() == spec.columns().size();
+    for (int i = 0; matches && i < spec.columns().size(); i++) {
+      TableDiff.Column column = spec.columns().get(i);
+      matches = column.name().equals(readString(in)) && in.get() == column.type().ordinal();
+    }
+    if (!matches) {
+      throw new IllegalArgumentException("Snapshot table " + spec.name()
+          + " does not match the local storage");
+    }
+  }
+
+  /**
+   * Writes a value that may be null, as a marker followed by the value in the form of its type.
+   *
+   * @param out the stream to write to
+   * @param type the type of the column of the value
+   * @param value the value, as read by {@link TableDiff.Column#read}, or null
+   * @throws IOException if the value could not be written
+   */
+  private static void writeValue(DataOutputStream out, TableDiff.ColumnType type, Object value)
+      throws IOException {
+    out.writeBoolean(value != null);
+    if (value == null) {
+      return;
+    }
+    switch (type) {
+      case TEXT -> writeString(out, (String) value);
+      case INT -> out.writeInt((Integer) value);
+      case BOOL -> out.writeBoolean((Boolean) value);
+      case DATETIME -> {
+        LocalDateTime dateTime = ((Timestamp) value).toLocalDateTime();
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+      }
+      case BINARY -> {
+        byte[] bytes = (byte[]) value;
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+  }
+
+  /**
+   * Reads a value written by {@link #writeValue(DataOutputStream, TableDiff.ColumnType, Object)}.
+   *
+   * @param in the content
+   * @param type the type of the column of the value
+   * @return the value, or null
+   */
+  private static Object readValue(ByteBuffer in, TableDiff.ColumnType type) {
+    if (in.get() == 0) {
+      return null;
+    }
+    return switch (type) {
+      case TEXT -> readString(in);
+      case INT -> in.getInt();
+      case BOOL -> in.get() != 0;
+      case DATETIME -> Timestamp.valueOf(
+          LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC));
+      case BINARY -> readBytes(in);
+    };
+  }
+
+  /**
+   * Writes a string as its length in UTF-8 bytes followed by the bytes.
+   *
+   * @param out the stream to write to
+   * @param value the string
+   * @throws IOException if the string could not be written
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+   *
+   * @param in the content
+   * @return the string
+   */
+  private static String readString(ByteBuffer in) {
+    return new String(readBytes(in), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a length followed by that many bytes.
+   *
+   * @param in the content
+   * @return the bytes
+   * @throws IllegalArgumentException if the length is negative
+   */
+  private static byte[] readBytes(ByteBuffer in) {
+    int length = in.getInt();
+    if (length < 0 || length > in.remaining()) {
+      throw new IllegalArgumentException("Snapshot has an invalid length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return bytes;
+  }
+}
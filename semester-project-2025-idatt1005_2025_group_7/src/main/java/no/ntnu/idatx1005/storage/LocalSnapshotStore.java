@@ -0,0 +1,217 @@
+package no.ntnu.idatx1005.storage;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import no.ntnu.idatx1005.database.Household;
+import no.ntnu.idatx1005.observer.StorageSyncObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Local Snapshot Store</h3>
+ *
+ * <p>The class keeps a {@link LocalSnapshot snapshot} of the local storage on disk, so the
+ * application can start from it instead of copying the whole remote database. It uses the
+ * Singleton design pattern to ensure that only one instance of the class is created.
+ *
+ * <p>Once the local storage is complete, the snapshot is saved periodically, but only if the
+ * local storage was synchronized since the last save, and once more when the application is
+ * stopped. On the next start the {@link StartupLoader} loads the snapshot, and then brings it in
+ * line with the remote database through the Merkle tree diff, which only transfers the rows that
+ * changed while the application was closed.
+ *
+ * <p>The snapshot holds the password hashes of the users, so the file is only readable by the
+ * user running the application, where the file system supports it. It is configured with these
+ * environment variables:
+ * <ul>
+ *   <li>{@code LOCAL_SNAPSHOT_PATH}, the file of the snapshot, by default
+ *       {@code localdb.snapshot} in the {@link Household#dataDirectory() directory of the
+ *       household}.</li>
+ *   <li>{@code LOCAL_SNAPSHOT_INTERVAL_MINUTES}, the time between two periodic saves.</li>
+ * </ul>
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class LocalSnapshotStore implements StorageSyncObserver {
+  private static final Logger logger = LoggerFactory.getLogger(LocalSnapshotStore.class);
+  /** The time between two periodic saves, unless the environment sets another one. */
+  static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(10);
+  private static LocalSnapshotStore instance;
+  private final ScheduledExecutorService scheduler;
+  private final Clock clock;
+  private final Path file;
+  private final Duration interval;
+  private final Supplier<Map<String, List<Object[]>>> tableReader;
+  private final Consumer<Map<String, List<Object[]>>> tableRestorer;
+  private volatile boolean isChanged;
+  private boolean isRunning;
+
+  /**
+   * Constructs a local snapshot store.
+   *
+   * @param scheduler the scheduler the periodic saves are run on
+   * @param clock the clock the snapshots are timestamped with
+   * @param file the file of the snapshot
+   * @param interval the time between two periodic saves
+   * @param tableReader reads the rows of every table of the local storage
+   * @param tableRestorer replaces the rows of every table of the local storage
+   */
+  LocalSnapshotStore(ScheduledExecutorService scheduler, Clock clock, Path file,
+      Duration interval, Supplier<Map<String, List<Object[]>>> tableReader,
+      Consumer<Map<String, List<Object[]>>> tableRestorer) {
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.file = file;
+    this.interval = interval;
+    this.tableReader = tableReader;
+    this.tableRestorer = tableRestorer;
+    this.isChanged = false;
+    this.isRunning = false;
+  }
+
+  /**
+   * Returns the singleton instance of the LocalSnapshotStore.
+   *
+   * @return the singleton instance of the LocalSnapshotStore
+   */
+  public static synchronized LocalSnapshotStore getInstance() {
+    if (instance == null) {
+      logger.debug("Creating new LocalSnapshotStore instance");
+      Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+      String path = dotenv.get("LOCAL_SNAPSHOT_PATH");
+      Path file = path == null || path.isBlank()
+          ? Household.dataDirectory().resolve("localdb.snapshot")
+          : Path.of(path.strip());
+      Duration interval = DEFAULT_INTERVAL;
+      try {
+        String minutes = dotenv.get("LOCAL_SNAPSHOT_INTERVAL_MINUTES");
+        if (minutes != null && !minutes.isBlank() && Integer.parseInt(minutes.strip()) > 0) {
+          interval = Duration.ofMinutes(Integer.parseInt(minutes.strip()));
+        }
+      } catch (NumberFormatException e) {
+        logger.error("Invalid snapshot interval, using the default interval: {}",
+            e.getMessage());
+      }
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "local-snapshot");
+        thread.setDaemon(true);
+        return thread;
+      });
+      instance = new LocalSnapshotStore(scheduler, Clock.systemUTC(), file, interval,
+          DatabaseCloner::readLocalTables, H2Manager::restoreLocalStorage);
+    }
+    return instance;
+  }
+
+  /**
+   * Loads the snapshot into the local storage, replacing its rows. A missing, damaged or outdated
+   * snapshot is not loaded, and leaves the local storage as it was.
+   *
+   * @return true if the snapshot was loaded, false otherwise
+   */
+  public boolean load() {
+    if (!Files.isRegularFile(file)) {
+      logger.info("No local snapshot at {}, loading from the remote database", file);
+      return false;
+    }
+    long startTime = System.nanoTime();
+    try {
+      LocalSnapshot snapshot = LocalSnapshot.readFrom(file);
+      tableRestorer.accept(snapshot.tables());
+      logger.info("Loaded local snapshot taken at {} with {} rows in {} ms", snapshot.savedAt(),
+          snapshot.tables().values().stream().mapToInt(List::size).sum(),
+          (System.nanoTime() - startTime) / 1_000_000);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not load local snapshot, loading from the remote database: {}",
+          e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Starts the periodic saves, if they are not already running. It must only be started once the
+   * local storage is complete, so a partly loaded local storage is never saved.
+   */
+  public synchronized void start() {
+    if (!isRunning) {
+      H2Manager.addSyncObserver(this);
+      scheduler.scheduleWithFixedDelay(this::saveIfChanged, interval.toSeconds(),
+          interval.toSeconds(), TimeUnit.SECONDS);
+      logger.info("Local snapshot service started, saving to {} every {}", file, interval);
+      isRunning = true;
+    }
+  }
+
+  /**
+   * Stops the periodic saves, and saves the snapshot one last time if the local storage was
+   * synchronized since the last save.
+   */
+  public synchronized void stop() {
+    if (isRunning) {
+      H2Manager.removeSyncObserver(this);
+      scheduler.shutdownNow();
+      isRunning = false;
+      saveIfChanged();
+    }
+  }
+
+  /**
+   * Marks the local storage as changed since the last save, unless the synchronization changed
+   * nothing.
+   *
+   * @param taskIds the IDs of the tasks that changed, or null if any task or user may have
+   *     changed
+   */
+  @Override
+  public void onLocalStorageSynchronized(Set<UUID> taskIds) {
+    if (taskIds == null || !taskIds.isEmpty()) {
+      isChanged = true;
+    }
+  }
+
+  /**
+   * Saves the snapshot if the local storage was synchronized since the last save.
+   */
+  private void saveIfChanged() {
+    if (isChanged) {
+      save();
+    }
+  }
+
+  /**
+   * Saves a snapshot of the local storage, replacing the previous one. A failed save is logged,
+   * and the local storage is saved again on the next run.
+   *
+   * @return true if the snapshot was saved, false otherwise
+   */
+  public synchronized boolean save() {
+    long startTime = System.nanoTime();
+    // Cleared first, so a synchronization while saving is saved on the next run
+    isChanged = false;
+    try {
+      long size = new LocalSnapshot(clock.instant(), tableReader.get()).writeTo(file);
+      logger.info("Saved local snapshot of {} bytes in {} ms", size,
+          (System.nanoTime() - startTime) / 1_000_000);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      logger.error("Failed to save local snapshot: {}", e.getMessage());
+      isChanged = true;
+      return false;
+    }
+  }
+}
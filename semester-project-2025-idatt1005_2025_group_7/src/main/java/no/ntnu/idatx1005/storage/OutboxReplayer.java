@@ -0,0 +1,393 @@
+package no.ntnu.idatx1005.storage;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import no.ntnu.idatx1005.database.Household;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+import no.ntnu.idatx1005.observer.PendingWritesObserver;
+import no.ntnu.idatx1005.service.DatabaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Outbox Replayer</h3>
+ *
+ * <p>The class applies writes to the local storage right away, and replays them against the
+ * remote database in the background, through the {@link WriteOutbox}. It uses the Singleton
+ * design pattern to ensure that only one instance of the class is created.
+ *
+ * <p>A write is stored in the outbox before it is applied to the local storage, so it is never
+ * lost once it was accepted, even if the application is closed before it was replayed. Writes are
+ * replayed in the order they were made, in batches of {@value #BATCH_SIZE}, as soon as they are
+ * submitted. If the remote database cannot be reached, replaying stops at the write that failed,
+ * and is retried later; the later writes wait, so writes are never applied out of order. A write
+ * the remote database rejects because the task was changed by someone else in the meantime is
+ * dropped, and reported to the {@link PendingWritesObserver observers}. The writes to the same
+ * task that were queued behind it were made on top of the rejected write, so they are dropped
+ * and reported with it rather than replayed against a version they were not made for, and the
+ * task is refreshed from the remote database right away.
+ *
+ * <p>A write the remote database rejects for another reason, and a write that fails with
+ * anything but a lost connection {@value #MAX_ATTEMPTS} times in a row, like a write that cannot
+ * be read back, is moved to a second outbox of dead letters and reported as failed, so a single
+ * broken write never holds up the writes after it. The dead letters are kept for recovery by
+ * hand. A lost connection never counts as a failed attempt, so no write is given up during an
+ * outage.
+ *
+ * <p>Once every write was replayed, the tasks that were written are refreshed from the remote
+ * database, which replaces the local values with the stored ones.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class OutboxReplayer {
+  private static final Logger logger = LoggerFactory.getLogger(OutboxReplayer.class);
+  /** The most writes replayed before the replayed writes are acknowledged in the outbox. */
+  static final int BATCH_SIZE = 50;
+  /** The time before writes are replayed again after the remote database could not be reached. */
+  static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+  /** The most failed attempts of a write, not counting lost connections, before it is dropped. */
+  static final int MAX_ATTEMPTS = 5;
+  private static OutboxReplayer instance;
+  private final ScheduledExecutorService scheduler;
+  private final WriteOutbox outbox;
+  private final WriteOutbox deadLetters;
+  private final Function<PendingWrite, PendingWrite.Outcome> replay;
+  private final Consumer<PendingWrite> localApply;
+  private final Consumer<Collection<UUID>> localRefresh;
+  private final List<PendingWritesObserver> observers;
+  private final Set<UUID> replayedTaskIds;
+  private final Set<UUID> staleWriteIds;
+  private final Map<UUID, Integer> failedAttempts;
+  private final Object replayLock;
+  private boolean isStarted;
+  private boolean isRetryScheduled;
+
+  /**
+   * Constructs an outbox replayer.
+   *
+   * @param scheduler the scheduler the writes are replayed on
+   * @param outbox the outbox the pending writes are kept in
+   * @param deadLetters the outbox the writes that could not be stored are moved to
+   * @param replay replays a write against the remote database, throwing an exception if the
+   *     remote database could not be reached
+   * @param localApply applies a write to the local storage
+   * @param localRefresh refreshes the tasks with the given IDs in the local storage
+   */
+  OutboxReplayer(ScheduledExecutorService scheduler, WriteOutbox outbox, WriteOutbox deadLetters,
+      Function<PendingWrite, PendingWrite.Outcome> replay, Consumer<PendingWrite> localApply,
+      Consumer<Collection<UUID>> localRefresh) {
+    this.scheduler = scheduler;
+    this.outbox = outbox;
+    this.deadLetters = deadLetters;
+    this.replay = replay;
+    this.localApply = localApply;
+    this.localRefresh = localRefresh;
+    this.observers = new CopyOnWriteArrayList<>();
+    this.replayedTaskIds = new LinkedHashSet<>();
+    this.staleWriteIds = new HashSet<>();
+    this.failedAttempts = new HashMap<>();
+    this.replayLock = new Object();
+    this.isStarted = false;
+    this.isRetryScheduled = false;
+  }
+
+  /**
+   * Returns the singleton instance of the OutboxReplayer. The outbox is stored in the file set in
+   * the {@code WRITE_OUTBOX_PATH} environment variable, by default {@code outbox.log} in the
+   * {@link Household#dataDirectory() directory of the household}, and its dead letters in the
+   * same file with the extension {@code .dead}.
+   *
+   * @return the singleton instance of the OutboxReplayer
+   */
+  public static synchronized OutboxReplayer getInstance() {
+    if (instance == null) {
+      logger.debug("Creating new OutboxReplayer instance");
+      String path = Dotenv.configure().ignoreIfMissing().load().get("WRITE_OUTBOX_PATH");
+      Path file = path == null || path.isBlank()
+          ? Household.dataDirectory().resolve("outbox.log")
+          : Path.of(path.strip());
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-replayer");
+        thread.setDaemon(true);
+        return thread;
+      });
+      instance = new OutboxReplayer(scheduler, new WriteOutbox(file),
+          new WriteOutbox(file.resolveSibling(file.getFileName() + ".dead")),
+          write -> DatabaseService.getInstance().replayWrite(write),
+          H2Manager::applyPendingWrite, taskIds -> H2Manager.refreshRows(taskIds, List.of()));
+    }
+    return instance;
+  }
+
+  /**
+   * Starts replaying the writes, beginning with the ones left from the last run. It must only be
+   * started once the local storage is complete, so the refresh after the replay finds the tasks.
+   */
+  public synchronized void start() {
+    if (!isStarted) {
+      isStarted = true;
+      logger.info("Outbox replayer started with {} pending writes", outbox.size());
+      notifyPendingWrites();
+      scheduler.execute(this::replayScheduled);
+    }
+  }
+
+  /**
+   * Submits a write. It is stored in the outbox, applied to the local storage, and replayed
+   * against the remote database in the background.
+   *
+   * @param write the write
+   * @throws java.io.UncheckedIOException if the write could not be stored in the outbox, in which
+   *     case it is not applied either
+   */
+  public void submit(PendingWrite write) {
+    outbox.append(write);
+    localApply.accept(write);
+    logger.debug("Write {} to task {} submitted, {} writes pending", write.kind(),
+        write.task().getId(), outbox.size());
+    notifyPendingWrites();
+    synchronized (this) {
+      if (isStarted) {
+        scheduler.execute(this::replayScheduled);
+      }
+    }
+  }
+
+  /**
+   * Replays the pending writes on the schedule. If the remote database could not be reached, the
+   * replay is retried after {@link #RETRY_DELAY}, unless a retry is already scheduled.
+   */
+  private void replayScheduled() {
+    try {
+      replayNow();
+    } catch (RuntimeException e) {
+      logger.warn("Could not replay {} pending writes, retrying in {}: {}", outbox.size(),
+          RETRY_DELAY, e.getMessage());
+      synchronized (this) {
+        if (!isRetryScheduled) {
+          isRetryScheduled = true;
+          scheduler.schedule(() -> {
+            synchronized (this) {
+              isRetryScheduled = false;
+            }
+            replayScheduled();
+          }, RETRY_DELAY.toSeconds(), TimeUnit.SECONDS);
+        }
+      }
+    }
+  }
+
+  /**
+   * Replays the pending writes in order, a batch at a time, until none are left.
+   *
+   * @return the number of writes that were replayed, applied or rejected
+   * @throws RuntimeException if the remote database could not be reached; the writes replayed
+   *     until then are acknowledged
+   */
+  public int replayNow() {
+    // Replays hold their own lock, so submitting a write never waits on the remote database
+    synchronized (replayLock) {
+      return replayBatches();
+    }
+  }
+
+  /**
+   * Replays the pending writes in order, a batch at a time, until none are left.
+   *
+   * @return the number of writes that were replayed
+   */
+  private int replayBatches() {
+    int replayed = 0;
+    List<PendingWrite> batch;
+    while (!(batch = outbox.peek(BATCH_SIZE)).isEmpty()) {
+      int done = 0;
+      try {
+        for (PendingWrite write : batch) {
+          boolean isStale = staleWriteIds.remove(write.id());
+          PendingWrite.Outcome outcome = isStale
+              ? PendingWrite.Outcome.CONFLICT
+              : replayOrGiveUp(write);
+          if (outcome == PendingWrite.Outcome.FAILED) {
+            deadLetters.append(write);
+          }
+          failedAttempts.remove(write.id());
+          done++;
+          replayedTaskIds.add(write.task().getId());
+          if (isStale) {
+            logger.warn("Write {} to task {} was dropped, it was made on top of a rejected write",
+                write.kind(), write.task().getId());
+            notifyConflict(write);
+          } else if (outcome == PendingWrite.Outcome.CONFLICT) {
+            logger.warn("Write {} to task {} was rejected, the task was changed since",
+                write.kind(), write.task().getId());
+            dropQueuedWrites(write);
+            notifyConflict(write);
+          } else if (outcome == PendingWrite.Outcome.FAILED) {
+            logger.error("Write {} to task {} could not be stored, moved to the dead letters",
+                write.kind(), write.task().getId());
+            notifyFailure(write);
+          }
+        }
+      } finally {
+        if (done > 0) {
+          outbox.acknowledge(done);
+          replayed += done;
+          notifyPendingWrites();
+        }
+      }
+    }
+    if (!replayedTaskIds.isEmpty()) {
+      logger.info("Replayed {} pending writes to the remote database", replayed);
+      localRefresh.accept(List.copyOf(replayedTaskIds));
+      replayedTaskIds.clear();
+    }
+    return replayed;
+  }
+
+  /**
+   * Marks the writes to the task of a rejected write that are still queued as stale, and
+   * refreshes the task from the remote database. The queued writes carry the versions the task
+   * had locally after the rejected write, which may match the version someone else gave it, so
+   * replaying them could overwrite that change. Writes submitted after the refresh are made
+   * against the stored task, and are replayed as usual.
+   *
+   * @param rejected the rejected write
+   */
+  private void dropQueuedWrites(PendingWrite rejected) {
+    UUID taskId = rejected.task().getId();
+    for (PendingWrite write : outbox.peek(outbox.size())) {
+      if (write.task().getId().equals(taskId) && !write.id().equals(rejected.id())) {
+        staleWriteIds.add(write.id());
+      }
+    }
+    localRefresh.accept(List.of(taskId));
+  }
+
+  /**
+   * Replays a write, and counts the attempts that fail for another reason than a lost
+   * connection. Once a write failed {@link #MAX_ATTEMPTS} times, it is given up as failed.
+   *
+   * @param write the write
+   * @return the outcome of the replay
+   * @throws RuntimeException if the write failed, and is to be retried later
+   */
+  private PendingWrite.Outcome replayOrGiveUp(PendingWrite write) {
+    try {
+      return replay.apply(write);
+    } catch (DatabaseConnectionException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      int attempts = failedAttempts.merge(write.id(), 1, Integer::sum);
+      if (attempts < MAX_ATTEMPTS) {
+        logger.warn("Write {} to task {} failed, attempt {} of {}: {}", write.kind(),
+            write.task().getId(), attempts, MAX_ATTEMPTS, e.toString());
+        throw e;
+      }
+      logger.error("Write {} to task {} failed {} times, giving up: {}", write.kind(),
+          write.task().getId(), attempts, e.toString());
+      return PendingWrite.Outcome.FAILED;
+    }
+  }
+
+  /**
+   * Returns the number of writes that could not be stored, and were moved to the dead letters.
+   *
+   * @return the number of dead letters
+   */
+  public int getDeadLetterCount() {
+    return deadLetters.size();
+  }
+
+  /**
+   * Returns the number of writes waiting to be replayed.
+   *
+   * @return the number of pending writes
+   */
+  public int getPendingCount() {
+    return outbox.size();
+  }
+
+  /**
+   * Adds an observer that is notified of the pending writes.
+   *
+   * @param observer the observer to add
+   */
+  public void addObserver(PendingWritesObserver observer) {
+    observers.add(observer);
+  }
+
+  /**
+   * Removes a pending writes observer.
+   *
+   * @param observer the observer to remove
+   */
+  public void removeObserver(PendingWritesObserver observer) {
+    observers.remove(observer);
+  }
+
+  /**
+   * Notifies the observers of the number of pending writes. A failing observer does not prevent
+   * the remaining observers from being notified.
+   */
+  private void notifyPendingWrites() {
+    int pendingCount = outbox.size();
+    for (PendingWritesObserver observer : observers) {
+      try {
+        observer.onPendingWritesChanged(pendingCount);
+      } catch (RuntimeException e) {
+        logger.error("Error notifying {} of pending writes: {}",
+            observer.getClass().getSimpleName(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Notifies the observers of a rejected write. A failing observer does not prevent the
+   * remaining observers from being notified.
+   *
+   * @param write the rejected write
+   */
+  private void notifyConflict(PendingWrite write) {
+    for (PendingWritesObserver observer : observers) {
+      try {
+        observer.onWriteConflict(write);
+      } catch (RuntimeException e) {
+        logger.error("Error notifying {} of a rejected write: {}",
+            observer.getClass().getSimpleName(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Notifies the observers of a write that could not be stored. A failing observer does not
+   * prevent the remaining observers from being notified.
+   *
+   * @param write the write that could not be stored
+   */
+  private void notifyFailure(PendingWrite write) {
+    for (PendingWritesObserver observer : observers) {
+      try {
+        observer.onWriteFailed(write);
+      } catch (RuntimeException e) {
+        logger.error("Error notifying {} of a failed write: {}",
+            observer.getClass().getSimpleName(), e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package no.ntnu.idatx1005.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import no.ntnu.idatx1005.model.task.FieldChange;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+
+/**
+ * <h3>Pending Write Record</h3>
+ *
+ * <p>A record that represents a write to a task that was applied to the local storage, but not
+ * yet to the remote database. Pending writes are kept in the {@link WriteOutbox} until they are
+ * replayed against the remote database.
+ *
+ * <p>Every write holds the version of the task it was made against. It is only replayed if the
+ * remote task still has that version, so a write never overwrites a change someone else made
+ * while it was pending. The ID of the write is the ID of the changelog entry it creates, so a
+ * write that was replayed but not yet acknowledged is recognized as such instead of as a
+ * conflict when it is replayed again.
+ *
+ * @param id the ID of the write, and of the changelog entry it creates
+ * @param kind the kind of the write
+ * @param task the task as it was written
+ * @param baseVersion the version of the task the write was made against
+ * @param oldDescription the description of the task before an update, or null
+ * @param fields the fields an update changed, without the description
+ * @param changedBy the ID of the user who made the write
+ * @param createdAt when the write was made
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record PendingWrite(UUID id, Kind kind, Task task, int baseVersion, String oldDescription,
+    List<FieldChange> fields, UUID changedBy, LocalDateTime createdAt) {
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * The kinds of writes.
+   */
+  public enum Kind {
+    /** A new task. */
+    ADD_TASK,
+    /** A change to an existing task. */
+    UPDATE_TASK,
+    /** The deletion of a task. */
+    DELETE_TASK
+  }
+
+  /**
+   * The outcomes of replaying a write against the remote database.
+   */
+  public enum Outcome {
+    /** The write was applied, now or when it was replayed before. */
+    APPLIED,
+    /** The write was rejected, because the task was changed by someone else since. */
+    CONFLICT,
+    /** The write was rejected by the database for another reason, like a value it refused. */
+    FAILED
+  }
+
+  /**
+   * Constructs a pending write with an unmodifiable copy of the changed fields.
+   *
+   * @param id the ID of the write, and of the changelog entry it creates
+   * @param kind the kind of the write
+   * @param task the task as it was written
+   * @param baseVersion the version of the task the write was made against
+   * @param oldDescription the description of the task before an update, or null
+   * @param fields the fields an update changed, without the description
+   * @param changedBy the ID of the user who made the write
+   * @param createdAt when the write was made
+   */
+  public PendingWrite {
+    fields = List.copyOf(fields);
+  }
+
+  /**
+   * Returns whether the write changed the description of the task.
+   *
+   * @return true if the description was changed, false otherwise
+   */
+  public boolean changesDescription() {
+    return oldDescription != null && !oldDescription.equals(task.getDescription());
+  }
+
+  /**
+   * Encodes the write into the payload of an outbox record.
+   *
+   * @return the payload
+   */
+  byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(FORMAT_VERSION);
+      writeString(out, id.toString());
+      writeString(out, kind.name());
+      out.writeInt(baseVersion);
+      writeString(out, oldDescription);
+      writeString(out, fields.isEmpty() ? null : FieldChange.encode(fields));
+      writeString(out, changedBy == null ? null : changedBy.toString());
+      writeString(out, createdAt.toString());
+
+      writeString(out, task.getId().toString());
+      out.writeBoolean(task.isCompleted());
+      writeString(out, task.getName());
+      writeString(out, task.getDescription());
+      writeString(out, task.getCreatedDate().toString());
+      writeString(out, task.getDueDate().toString());
+      writeString(out, task.getCompletedDate() == null ? null
+          : task.getCompletedDate().toString());
+      writeString(out, task.getPriority().name());
+      writeString(out, task.getSize().name());
+      out.writeInt(task.getVersion());
+      out.writeInt(task.getAssignedUserIds().size());
+      for (UUID userId : task.getAssignedUserIds()) {
+        writeString(out, userId.toString());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not encode pending write " + id, e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decodes a write from the payload of an outbox record.
+   *
+   * @param payload the payload
+   * @return the write
+   * @throws IllegalArgumentException if the payload is not a pending write
+   */
+  static PendingWrite decode(byte[] payload) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      int version = in.readByte();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unknown pending write format: " + version);
+      }
+      UUID id = UUID.fromString(readString(in));
+      Kind kind = Kind.valueOf(readString(in));
+      int baseVersion = in.readInt();
+      String oldDescription = readString(in);
+      List<FieldChange> fields = FieldChange.decode(readString(in));
+      String changedBy = readString(in);
+      LocalDateTime createdAt = LocalDateTime.parse(readString(in));
+
+      UUID taskId = UUID.fromString(readString(in));
+      boolean completed = in.readBoolean();
+      String name = readString(in);
+      String description = readString(in);
+      LocalDateTime createdDate = LocalDateTime.parse(readString(in));
+      LocalDateTime dueDate = LocalDateTime.parse(readString(in));
+      String completedDate = readString(in);
+      Priority priority = Priority.valueOf(readString(in));
+      Size size = Size.valueOf(readString(in));
+      Task task = new Task(taskId, completed, name, description, createdDate, dueDate, priority,
+          size);
+      task.setCompletedDate(completedDate == null ? null : LocalDateTime.parse(completedDate));
+      task.setVersion(in.readInt());
+      for (int i = in.readInt(); i > 0; i--) {
+        task.addAssignedUserId(UUID.fromString(readString(in)));
+      }
+      return new PendingWrite(id, kind, task, baseVersion, oldDescription, fields,
+          changedBy == null ? null : UUID.fromString(changedBy), createdAt);
+    } catch (IOException | RuntimeException e) {
+      throw new IllegalArgumentException("Malformed pending write payload", e);
+    }
+  }
+
+  /**
+   * Writes a string that may be null, as its length in UTF-8 bytes followed by the bytes. Null
+   * is written as the length -1.
+   *
+   * @param out the stream to write to
+   * @param value the string, or null
+   * @throws IOException if the string could not be written
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+   *
+   * @param in the stream to read from
+   * @return the string, or null
+   * @throws IOException if the string could not be read
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,52 @@
+package no.ntnu.idatx1005.storage;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * <h3>Refresh tier of the local storage.</h3>
+ *
+ * <p>The tables of the local storage are refreshed in tiers, each with its own interval. Tasks
+ * change often, while users only change when someone edits their settings.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public enum RefreshTier {
+  /** The users. */
+  USERS(Duration.ofMinutes(10), List.of("user")),
+  /** The tasks and their assignments. */
+  TASKS(Duration.ofSeconds(60), List.of("task", "task_assignees"));
+
+  private final Duration defaultInterval;
+  private final List<String> tables;
+
+  /**
+   * Constructs a refresh tier.
+   *
+   * @param defaultInterval the interval the tier is refreshed at by default
+   * @param tables the remote tables the tier consists of
+   */
+  RefreshTier(Duration defaultInterval, List<String> tables) {
+    this.defaultInterval = defaultInterval;
+    this.tables = tables;
+  }
+
+  /**
+   * Returns the interval the tier is refreshed at by default.
+   *
+   * @return the default interval
+   */
+  public Duration getDefaultInterval() {
+    return defaultInterval;
+  }
+
+  /**
+   * Returns the remote tables the tier consists of.
+   *
+   * @return the names of the tables
+   */
+  public List<String> getTables() {
+    return tables;
+  }
+}
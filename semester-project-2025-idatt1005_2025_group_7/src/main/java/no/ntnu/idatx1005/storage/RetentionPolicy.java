@@ -0,0 +1,105 @@
+package no.ntnu.idatx1005.storage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.function.Function;
+
+/**
+ * <h3>Retention policy of the working set.</h3>
+ *
+ * <p>The policy decides how long completed tasks stay in the working set before they are moved
+ * into the archive, and how the {@link TaskArchiver} moves them. It is read from the environment,
+ * like the credentials of the remote database, with these variables:
+ * <ul>
+ *   <li>{@code ARCHIVE_AFTER_MONTHS}, the age in months of the completed tasks that are
+ *       archived, at least {@value #MIN_COMPLETED_TASK_MONTHS} so the fairness windows are never
+ *       cut short.</li>
+ *   <li>{@code ARCHIVE_BATCH_SIZE}, the number of tasks archived in one transaction.</li>
+ *   <li>{@code ARCHIVE_INTERVAL_HOURS}, the time between two runs of the archiver.</li>
+ * </ul>
+ *
+ * @param completedTaskAge how long ago a task must have been completed to be archived
+ * @param batchSize the number of tasks archived in one transaction
+ * @param interval the time between two runs of the archiver
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record RetentionPolicy(Period completedTaskAge, int batchSize, Duration interval) {
+  /** The shortest age in months of completed tasks that are archived. */
+  public static final int MIN_COMPLETED_TASK_MONTHS = 3;
+  /** The policy used when the environment does not configure one. */
+  public static final RetentionPolicy DEFAULT =
+      new RetentionPolicy(Period.ofMonths(6), 100, Duration.ofHours(6));
+
+  /**
+   * Constructs a retention policy.
+   *
+   * @param completedTaskAge how long ago a task must have been completed to be archived
+   * @param batchSize the number of tasks archived in one transaction
+   * @param interval the time between two runs of the archiver
+   * @throws IllegalArgumentException if the age is shorter than the minimum, or the batch size
+   *     or interval is not positive
+   */
+  public RetentionPolicy {
+    if (completedTaskAge.toTotalMonths() < MIN_COMPLETED_TASK_MONTHS) {
+      throw new IllegalArgumentException("Completed tasks must be kept for at least "
+          + MIN_COMPLETED_TASK_MONTHS + " months");
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Archive batch size must be positive");
+    }
+    if (interval.isZero() || interval.isNegative()) {
+      throw new IllegalArgumentException("Archive interval must be positive");
+    }
+  }
+
+  /**
+   * Reads a retention policy from the environment. Variables that are not set keep the value of
+   * the {@link #DEFAULT default policy}.
+   *
+   * @param environment returns the value of the environment variable with the given name, or
+   *     null if it is not set
+   * @return the retention policy
+   * @throws IllegalArgumentException if a variable is not a number, or the policy is invalid
+   */
+  public static RetentionPolicy fromEnvironment(Function<String, String> environment) {
+    int months = readInt(environment, "ARCHIVE_AFTER_MONTHS",
+        (int) DEFAULT.completedTaskAge().toTotalMonths());
+    int batchSize = readInt(environment, "ARCHIVE_BATCH_SIZE", DEFAULT.batchSize());
+    int hours = readInt(environment, "ARCHIVE_INTERVAL_HOURS", (int) DEFAULT.interval().toHours());
+    return new RetentionPolicy(Period.ofMonths(months), batchSize, Duration.ofHours(hours));
+  }
+
+  /**
+   * Reads a whole number from the environment.
+   *
+   * @param environment returns the value of the environment variable with the given name
+   * @param name the name of the variable
+   * @param defaultValue the value used if the variable is not set
+   * @return the number
+   * @throws IllegalArgumentException if the variable is not a number
+   */
+  private static int readInt(Function<String, String> environment, String name,
+      int defaultValue) {
+    String value = environment.apply(name);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.strip());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a whole number, but was " + value, e);
+    }
+  }
+
+  /**
+   * Returns the time tasks must have been completed before to be archived at the given time.
+   *
+   * @param now the current time
+   * @return the cutoff
+   */
+  public LocalDateTime cutoff(LocalDateTime now) {
+    return now.minus(completedTaskAge);
+  }
+}
@@ -0,0 +1,290 @@
+package no.ntnu.idatx1005.storage;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import no.ntnu.idatx1005.observer.StartupStageObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Startup Loader</h3>
+ *
+ * <p>The class loads the local storage progressively when the application starts, so the
+ * application becomes usable before the whole remote database has been copied. It uses the
+ * Singleton design pattern to ensure that only one instance of the class is created.
+ *
+ * <p>The data is loaded in {@link Stage stages}, in order of how soon it is needed: the users
+ * first, so someone can log in, then the open tasks and their assignments, so the main views can
+ * be shown, and finally the completed tasks. The changelog is not part of the local storage; it
+ * is fetched a page at a time when it is viewed. Every stage is merged into the local storage as
+ * soon as it is fetched, and is published as ready both to the
+ * {@link StartupStageObserver observers} and through {@link #whenReady(Stage)}.
+ *
+ * <p>If a stage fails to load, the rest of the local storage is loaded with one full refresh
+ * instead. The remaining stages are marked ready either way, so nothing waits forever on a stage;
+ * the scheduled refreshes fill in whatever is still missing.
+ *
+ * <p>If a {@link LocalSnapshotStore snapshot} of the local storage from the previous run can be
+ * loaded, every stage is ready as soon as it is loaded, and the local storage is then reconciled
+ * with the remote database, transferring only the rows that changed since. The time until the
+ * local storage was usable is logged either way, so cold and warm starts can be compared.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class StartupLoader {
+  private static final Logger logger = LoggerFactory.getLogger(StartupLoader.class);
+  private static StartupLoader instance;
+  private final Executor executor;
+  private final BooleanSupplier snapshotLoader;
+  private final Runnable reconcile;
+  private final Consumer<Stage> stageLoader;
+  private final Runnable fullRefresh;
+  private final Map<Stage, CompletableFuture<Void>> readiness;
+  private final List<StartupStageObserver> observers;
+  private boolean isStarted;
+
+  /**
+   * A stage of the initial load, in the order the stages are loaded.
+   */
+  public enum Stage {
+    /** The users, needed to log in. */
+    USERS(Map.of("user", "TRUE")),
+    /** The open tasks and their assignments, needed to show the main views. */
+    OPEN_TASKS(Map.of(
+        "task", "completed = 0",
+        "task_assignees", "taskId IN (SELECT taskId FROM task WHERE completed = 0)")),
+    /** The completed tasks and their assignments. */
+    COMPLETED_TASKS(Map.of(
+        "task", "completed = 1",
+        "task_assignees", "taskId IN (SELECT taskId FROM task WHERE completed = 1)"));
+
+    private final Map<String, String> conditions;
+
+    /**
+     * Constructs a stage.
+     *
+     * @param conditions the SQL condition the remote rows of the stage match, by table
+     */
+    Stage(Map<String, String> conditions) {
+      this.conditions = conditions;
+    }
+
+    /**
+     * Returns the SQL condition the remote rows of the stage match, by the name of their table.
+     *
+     * @return the conditions
+     */
+    public Map<String, String> getConditions() {
+      return conditions;
+    }
+  }
+
+  /**
+   * Constructs a startup loader.
+   *
+   * @param executor the executor the stages are loaded on
+   * @param stageLoader the loader of a single stage
+   * @param fullRefresh the refresh of the whole local database, used if a stage fails
+   */
+  StartupLoader(Executor executor, Consumer<Stage> stageLoader, Runnable fullRefresh) {
+    this(executor, () -> false, () -> { }, stageLoader, fullRefresh);
+  }
+
+  /**
+   * Constructs a startup loader that first tries to start from a snapshot of the local storage.
+   *
+   * @param executor the executor the stages are loaded on
+   * @param snapshotLoader loads the snapshot, returning whether it was loaded
+   * @param reconcile the reconciliation of the local storage with the remote database, run after
+   *     the snapshot was loaded
+   * @param stageLoader the loader of a single stage
+   * @param fullRefresh the refresh of the whole local database, used if a stage fails
+   */
+  StartupLoader(Executor executor, BooleanSupplier snapshotLoader, Runnable reconcile,
+      Consumer<Stage> stageLoader, Runnable fullRefresh) {
+    this.executor = executor;
+    this.snapshotLoader = snapshotLoader;
+    this.reconcile = reconcile;
+    this.stageLoader = stageLoader;
+    this.fullRefresh = fullRefresh;
+    this.readiness = new EnumMap<>(Stage.class);
+    for (Stage stage : Stage.values()) {
+      readiness.put(stage, new CompletableFuture<>());
+    }
+    this.observers = new CopyOnWriteArrayList<>();
+    this.isStarted = false;
+  }
+
+  /**
+   * Returns the singleton instance of the StartupLoader.
+   *
+   * @return the singleton instance of the StartupLoader
+   */
+  public static synchronized StartupLoader getInstance() {
+    if (instance == null) {
+      logger.debug("Creating new StartupLoader instance");
+      instance = new StartupLoader(runnable -> {
+        Thread thread = new Thread(runnable, "startup-loader");
+        thread.setDaemon(true);
+        thread.start();
+      }, () -> LocalSnapshotStore.getInstance().load(), H2Manager::reconcileLocalStorage,
+          stage -> H2Manager.mergeRemoteRows(stage.getConditions()),
+          () -> DatabaseRefresher.getInstance().refreshNow());
+    }
+    return instance;
+  }
+
+  /**
+   * Starts loading the stages in the background, if they are not already being loaded.
+   */
+  public synchronized void start() {
+    if (!isStarted) {
+      isStarted = true;
+      executor.execute(this::loadStages);
+    }
+  }
+
+  /**
+   * Returns a future that is completed once the given stage is ready.
+   *
+   * @param stage the stage
+   * @return the future
+   */
+  public CompletableFuture<Void> whenReady(Stage stage) {
+    return readiness.get(stage).copy();
+  }
+
+  /**
+   * Returns whether the given stage is ready.
+   *
+   * @param stage the stage
+   * @return true if the stage is ready, false otherwise
+   */
+  public boolean isReady(Stage stage) {
+    return readiness.get(stage).isDone();
+  }
+
+  /**
+   * Adds an observer that is notified every time a stage is ready.
+   *
+   * @param observer the observer to add
+   */
+  public void addObserver(StartupStageObserver observer) {
+    observers.add(observer);
+  }
+
+  /**
+   * Removes a startup stage observer.
+   *
+   * @param observer the observer to remove
+   */
+  public void removeObserver(StartupStageObserver observer) {
+    observers.remove(observer);
+  }
+
+  /**
+   * Loads every stage in order, from the snapshot if it can be loaded, or else from the remote
+   * database. If a stage fails, the remaining stages are loaded with one full refresh instead.
+   */
+  void loadStages() {
+    long startTime = System.nanoTime();
+    if (loadSnapshot()) {
+      for (Stage stage : Stage.values()) {
+        markReady(stage);
+      }
+      logger.info("Warm start: local storage ready from snapshot after {} ms",
+          (System.nanoTime() - startTime) / 1_000_000);
+      reconcileSnapshot();
+      return;
+    }
+    for (Stage stage : Stage.values()) {
+      try {
+        stageLoader.accept(stage);
+      } catch (RuntimeException e) {
+        logger.error("Failed to load {}, refreshing the whole local database instead: {}",
+            stage, e.getMessage());
+        loadRemainingStages(stage);
+        return;
+      }
+      logger.info("Startup stage {} ready after {} ms", stage,
+          (System.nanoTime() - startTime) / 1_000_000);
+      markReady(stage);
+    }
+    logger.info("Cold start: local storage ready from the remote database after {} ms",
+        (System.nanoTime() - startTime) / 1_000_000);
+  }
+
+  /**
+   * Loads the snapshot of the local storage. A snapshot that fails to load is treated as
+   * missing.
+   *
+   * @return true if the snapshot was loaded, false otherwise
+   */
+  private boolean loadSnapshot() {
+    try {
+      return snapshotLoader.getAsBoolean();
+    } catch (RuntimeException e) {
+      logger.error("Failed to load the local snapshot: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Reconciles the local storage loaded from the snapshot with the remote database. If it fails,
+   * the snapshot stays in use until the scheduled refreshes bring it up to date.
+   */
+  private void reconcileSnapshot() {
+    long startTime = System.nanoTime();
+    try {
+      reconcile.run();
+      logger.info("Local snapshot reconciled with the remote database in {} ms",
+          (System.nanoTime() - startTime) / 1_000_000);
+    } catch (RuntimeException e) {
+      logger.error("Failed to reconcile the local snapshot: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Loads the given stage and the ones after it with one full refresh, and marks them ready
+   * whether or not the refresh succeeds.
+   *
+   * @param failedStage the first stage that failed to load
+   */
+  private void loadRemainingStages(Stage failedStage) {
+    try {
+      fullRefresh.run();
+    } catch (RuntimeException e) {
+      logger.error("Full refresh after failed startup stage failed: {}", e.getMessage());
+    }
+    for (Stage stage : Stage.values()) {
+      if (stage.compareTo(failedStage) >= 0) {
+        markReady(stage);
+      }
+    }
+  }
+
+  /**
+   * Marks a stage as ready and notifies the observers. A failing observer does not prevent the
+   * remaining observers from being notified.
+   *
+   * @param stage the stage
+   */
+  private void markReady(Stage stage) {
+    readiness.get(stage).complete(null);
+    for (StartupStageObserver observer : observers) {
+      try {
+        observer.onStageReady(stage);
+      } catch (RuntimeException e) {
+        logger.error("Error notifying {} of startup stage {}: {}",
+            observer.getClass().getSimpleName(), stage, e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package no.ntnu.idatx1005.storage;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h3>Metrics of the scheduled refreshes.</h3>
+ *
+ * <p>Counts per {@link RefreshTier} how many scheduled refreshes were executed, how many were
+ * skipped because the fingerprints of the tier were unchanged, how many were skipped because the
+ * application was paused or idle, and how many failed.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class SyncMetrics {
+  private final Map<RefreshTier, Map<Outcome, LongAdder>> counters;
+
+  /**
+   * The outcomes of a scheduled refresh.
+   */
+  public enum Outcome {
+    /** The tier was cloned. */
+    EXECUTED,
+    /** The tier was not cloned, because its fingerprints were unchanged. */
+    UNCHANGED,
+    /** The tier was not cloned, because the application was paused or idle. */
+    SKIPPED,
+    /** The tier could not be probed or cloned. */
+    FAILED
+  }
+
+  /**
+   * Constructs empty metrics.
+   */
+  public SyncMetrics() {
+    this.counters = new EnumMap<>(RefreshTier.class);
+    for (RefreshTier tier : RefreshTier.values()) {
+      Map<Outcome, LongAdder> tierCounters = new EnumMap<>(Outcome.class);
+      for (Outcome outcome : Outcome.values()) {
+        tierCounters.put(outcome, new LongAdder());
+      }
+      counters.put(tier, tierCounters);
+    }
+  }
+
+  /**
+   * Records the outcome of a scheduled refresh.
+   *
+   * @param tier the tier
+   * @param outcome the outcome
+   */
+  public void record(RefreshTier tier, Outcome outcome) {
+    counters.get(tier).get(outcome).increment();
+  }
+
+  /**
+   * Returns how many scheduled refreshes of a tier had the given outcome.
+   *
+   * @param tier the tier
+   * @param outcome the outcome
+   * @return the number of refreshes
+   */
+  public long getCount(RefreshTier tier, Outcome outcome) {
+    return counters.get(tier).get(outcome).sum();
+  }
+
+  /**
+   * Returns the share of the probed refreshes of a tier that found nothing changed.
+   *
+   * @param tier the tier
+   * @return the share between 0 and 1, or 0 if the tier was never probed
+   */
+  public double getUnchangedRatio(RefreshTier tier) {
+    long unchanged = getCount(tier, Outcome.UNCHANGED);
+    long probed = unchanged + getCount(tier, Outcome.EXECUTED);
+    return probed == 0 ? 0 : (double) unchanged / probed;
+  }
+
+  /**
+   * Returns the counts of every tier and outcome.
+   *
+   * @return the counts as text
+   */
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder();
+    for (RefreshTier tier : RefreshTier.values()) {
+      text.append(tier).append(counters.get(tier)).append(' ');
+    }
+    return text.toString().trim();
+  }
+}
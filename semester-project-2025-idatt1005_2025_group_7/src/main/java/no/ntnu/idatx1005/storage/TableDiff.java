@@ -0,0 +1,655 @@
+package no.ntnu.idatx1005.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Merkle tree diff of a table.</h3>
+ *
+ * <p>Compares a remote table with its local mirror without relying on version columns. Every row
+ * is hashed with CRC32 over a canonical text of its columns, and the rows are grouped into
+ * buckets by the first characters of their key. The remote database computes the hashes of the
+ * buckets itself, so only one row per bucket is transferred. Buckets are compared level by
+ * level, from the first character of the key to the first {@link #LEAF_DEPTH} characters, and
+ * only the rows of the buckets that still differ are transferred and compared row by row.
+ *
+ * <p>Only the partition of one household of the remote table is compared, as the mirror only
+ * holds the rows of that household. The clone and the fingerprints of the
+ * {@link DatabaseCloner} read the remote tables through {@link #fetchPartition} and
+ * {@link #fingerprint} for the same reason.
+ *
+ * <p>The rows that differ are merged into the mirror right away, while the rows to delete are
+ * only collected, so the caller can delete them in the order the foreign keys require.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+class TableDiff {
+  private static final Logger logger = LoggerFactory.getLogger(TableDiff.class);
+  /** The number of key characters the leaf buckets are grouped by. */
+  static final int LEAF_DEPTH = 2;
+  private static final String SEPARATOR = "|";
+  private static final DateTimeFormatter DATE_TIME_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private static final HexFormat HEX_FORMAT = HexFormat.of().withUpperCase();
+
+  /** The tables of the database, parents before the tables referring to them. */
+  static final List<TableSpec> TABLES = List.of(
+      new TableSpec("user", "\"user\"", List.of("userId"),
+          // Users still referred to by tasks in the mirror are deleted with the tasks instead
+          "NOT EXISTS (SELECT 1 FROM task_assignees a WHERE a.userId = \"user\".userId)",
+          "userId IN (SELECT userId FROM household_member WHERE householdId = ?)", List.of(
+          new Column("userId", ColumnType.TEXT, false),
+          new Column("firstName", ColumnType.TEXT, false),
+          new Column("lastName", ColumnType.TEXT, false),
+          new Column("email", ColumnType.TEXT, false),
+          new Column("passwordHash", ColumnType.BINARY, false),
+          new Column("salt", ColumnType.BINARY, false),
+          new Column("workloadCapacity", ColumnType.INT, false),
+          new Column("sickness", ColumnType.BOOL, false),
+          new Column("version", ColumnType.INT, true))),
+      new TableSpec("task", "task", List.of("taskId"), "", "householdId = ?", List.of(
+          new Column("taskId", ColumnType.TEXT, false),
+          new Column("name", ColumnType.TEXT, false),
+          new Column("description", ColumnType.TEXT, false),
+          new Column("completed", ColumnType.BOOL, false),
+          new Column("createdDate", ColumnType.DATETIME, false),
+          new Column("dueDate", ColumnType.DATETIME, false),
+          new Column("completedDate", ColumnType.DATETIME, false),
+          new Column("priority", ColumnType.TEXT, false),
+          new Column("taskSize", ColumnType.TEXT, false),
+          new Column("taskWeight", ColumnType.INT, false),
+          new Column("version", ColumnType.INT, true))),
+      new TableSpec("task_assignees", "task_assignees", List.of("taskId", "userId"), "",
+          "taskId IN (SELECT taskId FROM task WHERE householdId = ?)", List.of(
+          new Column("taskId", ColumnType.TEXT, false),
+          new Column("userId", ColumnType.TEXT, false))));
+
+  /**
+   * The types of columns, which determine their canonical text.
+   */
+  enum ColumnType {
+    TEXT,
+    INT,
+    BOOL,
+    DATETIME,
+    BINARY
+  }
+
+  /**
+   * A column of a table.
+   *
+   * @param name the name of the column
+   * @param type the type of the column
+   * @param optional whether the column may be missing in the remote table
+   */
+  record Column(String name, ColumnType type, boolean optional) {
+
+    /**
+     * Returns the MySQL expression of the canonical text of the column. The expression sticks
+     * to functions the {@link no.ntnu.idatx1005.database.EmbeddedRemoteStore} understands as
+     * well, so the tables of either backend can be diffed.
+     *
+     * @return the expression
+     */
+    String remoteExpression() {
+      return switch (type) {
+        case TEXT -> String.format("COALESCE(%s, '')", name);
+        case INT -> String.format("COALESCE(CONCAT(%s, ''), '')", name);
+        case BOOL -> String.format("CASE WHEN %s <> 0 THEN '1' ELSE '0' END", name);
+        case DATETIME -> String.format(
+            "COALESCE(DATE_FORMAT(%s, '%%Y-%%m-%%d %%H:%%i:%%s'), '')", name);
+        case BINARY -> String.format("COALESCE(HEX(%s), '')", name);
+      };
+    }
+
+    /**
+     * Returns the canonical text of the column in the current row, matching
+     * {@link #remoteExpression()}.
+     *
+     * @param row the row
+     * @return the canonical text
+     * @throws SQLException if the column cannot be read
+     */
+    String canonical(ResultSet row) throws SQLException {
+      return switch (type) {
+        case TEXT -> {
+          String value = row.getString(name);
+          yield value == null ? "" : value;
+        }
+        case INT -> {
+          int value = row.getInt(name);
+          yield row.wasNull() ? "" : Integer.toString(value);
+        }
+        case BOOL -> row.getBoolean(name) ? "1" : "0";
+        case DATETIME -> {
+          Timestamp value = row.getTimestamp(name);
+          yield value == null ? "" : value.toLocalDateTime().format(DATE_TIME_FORMAT);
+        }
+        case BINARY -> {
+          byte[] value = row.getBytes(name);
+          yield value == null ? "" : HEX_FORMAT.formatHex(value);
+        }
+      };
+    }
+
+    /**
+     * Reads the column of the current row.
+     *
+     * @param row the row
+     * @return the value, or null
+     * @throws SQLException if the column cannot be read
+     */
+    Object read(ResultSet row) throws SQLException {
+      return switch (type) {
+        case TEXT -> row.getString(name);
+        case INT -> row.getObject(name) == null ? null : row.getInt(name);
+        case BOOL -> row.getBoolean(name);
+        case DATETIME -> row.getTimestamp(name);
+        case BINARY -> row.getBytes(name);
+      };
+    }
+
+    /**
+     * Copies the column of the current row into a parameter of a statement.
+     *
+     * @param row the row
+     * @param statement the statement
+     * @param index the index of the parameter
+     * @throws SQLException if the column cannot be copied
+     */
+    void copy(ResultSet row, PreparedStatement statement, int index) throws SQLException {
+      statement.setObject(index, read(row));
+    }
+  }
+
+  /**
+   * A table and how it is mirrored.
+   *
+   * @param name the name of the remote table
+   * @param localName the name of the local table
+   * @param keyColumns the columns of the primary key, the first of which the buckets are
+   *     grouped by
+   * @param deleteGuard the condition a row of the mirror must meet to be deleted, or empty
+   * @param partition the condition a remote row must meet to be in the partition of a
+   *     household, with the ID of the household as its only parameter
+   * @param columns the columns
+   */
+  record TableSpec(String name, String localName, List<String> keyColumns, String deleteGuard,
+      String partition, List<Column> columns) {
+
+    /**
+     * Returns the spec with only the columns the remote table has.
+     *
+     * @param remoteColumns the lower case names of the columns of the remote table
+     * @return the spec
+     */
+    TableSpec withRemoteColumns(Set<String> remoteColumns) {
+      return new TableSpec(name, localName, keyColumns, deleteGuard, partition, columns.stream()
+          .filter(column -> !column.optional()
+              || remoteColumns.contains(column.name().toLowerCase(Locale.ROOT)))
+          .toList());
+    }
+
+    /**
+     * Returns the MySQL expression of the hash of a row.
+     *
+     * @return the expression
+     */
+    String rowHashExpression() {
+      return columns.stream().map(Column::remoteExpression)
+          .collect(Collectors.joining(", ", "CRC32(CONCAT_WS('" + SEPARATOR + "', ", "))"));
+    }
+
+    /**
+     * Returns the column the buckets are grouped by.
+     *
+     * @return the name of the column
+     */
+    String bucketColumn() {
+      return keyColumns.getFirst();
+    }
+  }
+
+  /**
+   * The hash of a bucket.
+   *
+   * @param count the number of rows in the bucket
+   * @param checksum the sum of the hashes of the rows
+   */
+  record Bucket(long count, long checksum) {
+
+    /**
+     * Returns the bucket with one more row.
+     *
+     * @param rowHash the hash of the row
+     * @return the bucket
+     */
+    Bucket plus(long rowHash) {
+      return new Bucket(count + 1, checksum + rowHash);
+    }
+  }
+
+  /**
+   * The rows of a table that differ between the remote table and its mirror.
+   *
+   * @param inserted the keys of the rows only the remote table has
+   * @param updated the keys of the rows that differ
+   * @param deleted the keys of the rows only the mirror has
+   */
+  record RowDiff(Set<String> inserted, Set<String> updated, Set<String> deleted) {
+
+    /**
+     * Returns whether the rows are equal.
+     *
+     * @return true if nothing differs, false otherwise
+     */
+    boolean isEmpty() {
+      return inserted.isEmpty() && updated.isEmpty() && deleted.isEmpty();
+    }
+  }
+
+  private final TableSpec spec;
+  private final String householdId;
+  private final Map<String, Long> localRows;
+  private final Map<String, String> localBuckets;
+  private final List<List<String>> deletedKeys;
+  private RowDiff rowDiff;
+
+  /**
+   * Constructs the diff of a table.
+   *
+   * @param spec the table, with the columns the remote table has
+   * @param householdId the ID of the household whose partition of the remote table is mirrored
+   */
+  TableDiff(TableSpec spec, UUID householdId) {
+    this.spec = spec;
+    this.householdId = householdId.toString();
+    this.localRows = new HashMap<>();
+    this.localBuckets = new HashMap<>();
+    this.deletedKeys = new ArrayList<>();
+    this.rowDiff = new RowDiff(Set.of(), Set.of(), Set.of());
+  }
+
+  /**
+   * Returns the diff of the rows, once {@link #merge(Connection, Connection)} has run.
+   *
+   * @return the diff of the rows
+   */
+  RowDiff getRowDiff() {
+    return rowDiff;
+  }
+
+  /**
+   * Returns the values of the first key column of the rows that differ, like the IDs of the
+   * tasks whose assignments were inserted or deleted, once
+   * {@link #merge(Connection, Connection)} has run.
+   *
+   * @return the values of the inserted, updated and deleted rows
+   */
+  Set<String> getChangedFirstKeys() {
+    Set<String> keys = new HashSet<>();
+    for (Set<String> rows : List.of(rowDiff.inserted(), rowDiff.updated(), rowDiff.deleted())) {
+      for (String key : rows) {
+        keys.add(key.split("\\" + SEPARATOR, -1)[0]);
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Compares the remote table with its mirror, and merges the rows that are missing or differ in
+   * the mirror. The rows to delete are collected for {@link #deleteRemoved(Connection)}.
+   *
+   * @param remoteConnection the connection to the remote database
+   * @param localConnection the connection to the mirror
+   * @throws SQLException if the tables cannot be compared
+   */
+  void merge(Connection remoteConnection, Connection localConnection) throws SQLException {
+    hashLocalRows(localConnection);
+
+    Set<String> mismatching = mismatching(bucketsAt(1, null),
+        remoteBuckets(remoteConnection, 1, Set.of()));
+    for (int depth = 2; depth <= LEAF_DEPTH && !mismatching.isEmpty(); depth++) {
+      mismatching = mismatching(bucketsAt(depth, mismatching),
+          remoteBuckets(remoteConnection, depth, mismatching));
+    }
+    if (mismatching.isEmpty()) {
+      logger.debug("Table {} is unchanged", spec.name());
+      return;
+    }
+
+    Set<String> leaves = mismatching;
+    Map<String, Long> localLeafRows = new HashMap<>();
+    localRows.forEach((key, hash) -> {
+      if (leaves.contains(localBuckets.get(key))) {
+        localLeafRows.put(key, hash);
+      }
+    });
+    Map<String, Long> remoteLeafRows = new HashMap<>();
+    try (PreparedStatement select = remoteConnection.prepareStatement(String.format(
+            "SELECT %s, %s AS rowHash FROM %s WHERE %s AND LEFT(%s, %d) IN (%s)", columnList(),
+            spec.rowHashExpression(), spec.name(), spec.partition(), spec.bucketColumn(),
+            LEAF_DEPTH, placeholders(leaves.size())));
+        PreparedStatement merge = localConnection.prepareStatement(String.format(
+            "MERGE INTO %s (%s) KEY (%s) VALUES (%s)", spec.localName(), columnList(),
+            String.join(", ", spec.keyColumns()), placeholders(spec.columns().size())))) {
+      select.setString(1, householdId);
+      bind(select, leaves, 2);
+      try (ResultSet rows = select.executeQuery()) {
+        while (rows.next()) {
+          String key = key(rows);
+          long hash = rows.getLong("rowHash");
+          remoteLeafRows.put(key, hash);
+          Long localHash = localLeafRows.get(key);
+          if (localHash == null || localHash != hash) {
+            for (int i = 0; i < spec.columns().size(); i++) {
+              spec.columns().get(i).copy(rows, merge, i + 1);
+            }
+            merge.executeUpdate();
+          }
+        }
+      }
+    }
+
+    rowDiff = diffRows(localLeafRows, remoteLeafRows);
+    for (String key : rowDiff.deleted()) {
+      deletedKeys.add(List.of(key.split("\\" + SEPARATOR, -1)));
+    }
+    logger.debug("Table {} differs in {} buckets - Inserted: {}, Updated: {}, Deleted: {}",
+        spec.name(), leaves.size(), rowDiff.inserted().size(), rowDiff.updated().size(),
+        rowDiff.deleted().size());
+  }
+
+  /**
+   * Deletes the rows of the mirror the remote table no longer has.
+   *
+   * @param localConnection the connection to the mirror
+   * @throws SQLException if the rows cannot be deleted
+   */
+  void deleteRemoved(Connection localConnection) throws SQLException {
+    if (deletedKeys.isEmpty()) {
+      return;
+    }
+    String condition = spec.keyColumns().stream().map(column -> column + " = ?")
+        .collect(Collectors.joining(" AND "));
+    if (!spec.deleteGuard().isEmpty()) {
+      condition += " AND " + spec.deleteGuard();
+    }
+    try (PreparedStatement delete = localConnection.prepareStatement(
+        "DELETE FROM " + spec.localName() + " WHERE " + condition)) {
+      for (List<String> key : deletedKeys) {
+        bind(delete, key, 1);
+        delete.addBatch();
+      }
+      delete.executeBatch();
+    }
+  }
+
+  /**
+   * Returns the keys of the buckets whose hashes differ.
+   *
+   * @param local the buckets of the mirror
+   * @param remote the buckets of the remote table
+   * @return the keys of the buckets that differ
+   */
+  static Set<String> mismatching(Map<String, Bucket> local, Map<String, Bucket> remote) {
+    Set<String> keys = new HashSet<>(local.keySet());
+    keys.addAll(remote.keySet());
+    keys.removeIf(key -> local.getOrDefault(key, new Bucket(0, 0))
+        .equals(remote.getOrDefault(key, new Bucket(0, 0))));
+    return keys;
+  }
+
+  /**
+   * Returns which rows differ between the mirror and the remote table.
+   *
+   * @param local the hashes of the rows of the mirror by key
+   * @param remote the hashes of the rows of the remote table by key
+   * @return the diff of the rows
+   */
+  static RowDiff diffRows(Map<String, Long> local, Map<String, Long> remote) {
+    Set<String> inserted = new HashSet<>();
+    Set<String> updated = new HashSet<>();
+    remote.forEach((key, hash) -> {
+      Long localHash = local.get(key);
+      if (localHash == null) {
+        inserted.add(key);
+      } else if (!localHash.equals(hash)) {
+        updated.add(key);
+      }
+    });
+    Set<String> deleted = new HashSet<>(local.keySet());
+    deleted.removeAll(remote.keySet());
+    return new RowDiff(inserted, updated, deleted);
+  }
+
+  /**
+   * Reads the rows of the partition of a household of a remote table.
+   *
+   * @param remoteConnection the connection to the remote database
+   * @param spec the table
+   * @param condition the SQL condition the rows must match, or null to read every row of the
+   *     partition
+   * @param householdId the ID of the household
+   * @param running the statements in progress, which the statement is added to while it runs,
+   *     so it can be cancelled
+   * @return the values of every row, in the order of the columns of the table
+   * @throws SQLException if the rows cannot be read
+   */
+  static List<Object[]> fetchPartition(Connection remoteConnection, TableSpec spec,
+      String condition, UUID householdId, Set<Statement> running) throws SQLException {
+    List<Object[]> rows = new ArrayList<>();
+    String where = " WHERE " + spec.partition()
+        + (condition == null ? "" : " AND (" + condition + ")");
+    try (PreparedStatement select = remoteConnection.prepareStatement(String.format(
+        "SELECT %s FROM %s%s", spec.columns().stream().map(Column::name)
+            .collect(Collectors.joining(", ")), spec.name(), where))) {
+      select.setString(1, householdId.toString());
+      running.add(select);
+      try (ResultSet resultSet = select.executeQuery()) {
+        while (resultSet.next()) {
+          Object[] row = new Object[spec.columns().size()];
+          for (int i = 0; i < row.length; i++) {
+            row[i] = spec.columns().get(i).read(resultSet);
+          }
+          rows.add(row);
+        }
+      } finally {
+        running.remove(select);
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Takes the fingerprint of the partition of a household of a remote table. Only one aggregate
+   * row is transferred.
+   *
+   * @param remoteConnection the connection to the remote database
+   * @param spec the table
+   * @param rowHash the MySQL expression of the hash of a row
+   * @param householdId the ID of the household
+   * @return the fingerprint of the partition
+   * @throws SQLException if the fingerprint cannot be taken
+   */
+  static TableFingerprint fingerprint(Connection remoteConnection, TableSpec spec,
+      String rowHash, UUID householdId) throws SQLException {
+    try (PreparedStatement select = remoteConnection.prepareStatement(String.format(
+        "SELECT COUNT(*), COALESCE(SUM(%s), 0) FROM %s WHERE %s", rowHash, spec.name(),
+        spec.partition()))) {
+      select.setString(1, householdId.toString());
+      try (ResultSet row = select.executeQuery()) {
+        row.next();
+        return new TableFingerprint(spec.name(), row.getLong(1), row.getLong(2));
+      }
+    }
+  }
+
+  /**
+   * Returns the hash of the canonical text of a row, as the remote database computes it.
+   *
+   * @param values the canonical text of every column
+   * @return the hash
+   */
+  static long hashRow(List<String> values) {
+    CRC32 crc = new CRC32();
+    crc.update(String.join(SEPARATOR, values).getBytes(StandardCharsets.UTF_8));
+    return crc.getValue();
+  }
+
+  /**
+   * Hashes every row of the mirror.
+   *
+   * @param localConnection the connection to the mirror
+   * @throws SQLException if the rows cannot be read
+   */
+  private void hashLocalRows(Connection localConnection) throws SQLException {
+    try (PreparedStatement select = localConnection.prepareStatement(
+            "SELECT " + columnList() + " FROM " + spec.localName());
+        ResultSet rows = select.executeQuery()) {
+      List<String> values = new ArrayList<>(spec.columns().size());
+      while (rows.next()) {
+        values.clear();
+        for (Column column : spec.columns()) {
+          values.add(column.canonical(rows));
+        }
+        String key = key(rows);
+        localRows.put(key, hashRow(values));
+        localBuckets.put(key, prefix(rows.getString(spec.bucketColumn()), LEAF_DEPTH));
+      }
+    }
+  }
+
+  /**
+   * Returns the buckets of the mirror at a depth.
+   *
+   * @param depth the number of key characters the buckets are grouped by
+   * @param parents the keys of the buckets one level up to include, or null for all
+   * @return the buckets by key
+   */
+  private Map<String, Bucket> bucketsAt(int depth, Set<String> parents) {
+    Map<String, Bucket> buckets = new TreeMap<>();
+    localRows.forEach((key, hash) -> {
+      String bucket = prefix(localBuckets.get(key), depth);
+      if (parents == null || parents.contains(prefix(bucket, depth - 1))) {
+        buckets.merge(bucket, new Bucket(1, hash),
+            (previous, row) -> previous.plus(row.checksum()));
+      }
+    });
+    return buckets;
+  }
+
+  /**
+   * Returns the buckets of the remote table at a depth, as computed by the remote database.
+   *
+   * @param remoteConnection the connection to the remote database
+   * @param depth the number of key characters the buckets are grouped by
+   * @param parents the keys of the buckets one level up to include, or empty for all
+   * @return the buckets by key
+   * @throws SQLException if the buckets cannot be read
+   */
+  private Map<String, Bucket> remoteBuckets(Connection remoteConnection, int depth,
+      Collection<String> parents) throws SQLException {
+    String where = " WHERE " + spec.partition() + (parents.isEmpty() ? ""
+        : String.format(" AND LEFT(%s, %d) IN (%s)", spec.bucketColumn(), depth - 1,
+            placeholders(parents.size())));
+    Map<String, Bucket> buckets = new TreeMap<>();
+    try (PreparedStatement select = remoteConnection.prepareStatement(String.format(
+        "SELECT LEFT(%1$s, %2$d) AS bucket, COUNT(*), COALESCE(SUM(%3$s), 0) FROM %4$s%5$s "
+            + "GROUP BY LEFT(%1$s, %2$d)", spec.bucketColumn(), depth,
+        spec.rowHashExpression(), spec.name(), where))) {
+      select.setString(1, householdId);
+      bind(select, parents, 2);
+      try (ResultSet rows = select.executeQuery()) {
+        while (rows.next()) {
+          buckets.put(rows.getString(1), new Bucket(rows.getLong(2), rows.getLong(3)));
+        }
+      }
+    }
+    return buckets;
+  }
+
+  /**
+   * Returns the key of the current row.
+   *
+   * @param row the row
+   * @return the key columns joined by the separator
+   * @throws SQLException if the key cannot be read
+   */
+  private String key(ResultSet row) throws SQLException {
+    List<String> values = new ArrayList<>(spec.keyColumns().size());
+    for (String column : spec.keyColumns()) {
+      values.add(row.getString(column));
+    }
+    return String.join(SEPARATOR, values);
+  }
+
+  /**
+   * Returns the columns of the table as a list for SQL.
+   *
+   * @return the column list
+   */
+  private String columnList() {
+    return spec.columns().stream().map(Column::name).collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Returns the first characters of a key.
+   *
+   * @param key the key
+   * @param length the number of characters
+   * @return the prefix
+   */
+  private static String prefix(String key, int length) {
+    return key.length() <= length ? key : key.substring(0, length);
+  }
+
+  /**
+   * Returns a list of parameter placeholders for SQL.
+   *
+   * @param count the number of placeholders
+   * @return the placeholders
+   */
+  private static String placeholders(int count) {
+    return String.join(", ", Collections.nCopies(count, "?"));
+  }
+
+  /**
+   * Binds values to consecutive parameters of a statement.
+   *
+   * @param statement the statement
+   * @param values the values
+   * @param firstIndex the index of the first parameter
+   * @throws SQLException if a value cannot be bound
+   */
+  private static void bind(PreparedStatement statement, Collection<String> values,
+      int firstIndex) throws SQLException {
+    int index = firstIndex;
+    for (String value : values) {
+      statement.setString(index++, value);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package no.ntnu.idatx1005.storage;
+
+/**
+ * <h3>Fingerprint of a remote table.</h3>
+ *
+ * <p>The number of rows in a table together with a checksum over the key and version of every
+ * row. Any insert, delete or versioned update changes the fingerprint, so two equal fingerprints
+ * taken at different times mean the table did not change in between.
+ *
+ * @param table the name of the table
+ * @param rowCount the number of rows
+ * @param checksum the sum of the checksums of the rows
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public record TableFingerprint(String table, long rowCount, long checksum) {}
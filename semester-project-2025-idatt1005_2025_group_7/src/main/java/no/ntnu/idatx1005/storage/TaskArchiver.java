@@ -0,0 +1,166 @@
+package no.ntnu.idatx1005.storage;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+import no.ntnu.idatx1005.dao.TaskArchiveDao;
+import no.ntnu.idatx1005.database.Household;
+import no.ntnu.idatx1005.database.RemoteStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Task Archiver</h3>
+ *
+ * <p>The class provides a scheduled service that moves completed tasks out of the working set
+ * into the archive, as decided by the {@link RetentionPolicy}. It uses the Singleton design
+ * pattern to ensure that only one instance of the class is created.
+ *
+ * <p>Tasks are archived in batches, one transaction each, so a run never holds locks on many
+ * tasks at once, and at most {@value #MAX_BATCHES_PER_RUN} batches are archived per run, so a
+ * large backlog is worked off over several runs instead of in one long burst. Once tasks were
+ * archived, the tasks of the local storage are refreshed, which drops the archived tasks from
+ * it. The completed tasks in the working set therefore never grow beyond the tasks completed
+ * within the retention period, no matter how long the household has used the application.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class TaskArchiver {
+  private static final Logger logger = LoggerFactory.getLogger(TaskArchiver.class);
+  /** The most batches archived in one run. */
+  static final int MAX_BATCHES_PER_RUN = 20;
+  /** The time from the start of the service to its first run. */
+  private static final Duration INITIAL_DELAY = Duration.ofMinutes(5);
+  private static TaskArchiver instance;
+  private final ScheduledExecutorService scheduler;
+  private final Clock clock;
+  private final RetentionPolicy policy;
+  private final BiFunction<LocalDateTime, Integer, List<UUID>> archivableTasks;
+  private final ToIntFunction<List<UUID>> archive;
+  private final Runnable localRefresh;
+  private boolean isRunning;
+
+  /**
+   * Constructs a task archiver.
+   *
+   * @param scheduler the scheduler the runs are run on
+   * @param clock the clock the age of the tasks is measured with
+   * @param policy the retention policy
+   * @param archivableTasks returns the IDs of at most the given number of tasks completed before
+   *     the given time, oldest first
+   * @param archive archives the tasks with the given IDs, returning how many were archived
+   * @param localRefresh the refresh of the tasks of the local storage
+   */
+  TaskArchiver(ScheduledExecutorService scheduler, Clock clock, RetentionPolicy policy,
+      BiFunction<LocalDateTime, Integer, List<UUID>> archivableTasks,
+      ToIntFunction<List<UUID>> archive, Runnable localRefresh) {
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.policy = policy;
+    this.archivableTasks = archivableTasks;
+    this.archive = archive;
+    this.localRefresh = localRefresh;
+    this.isRunning = false;
+  }
+
+  /**
+   * Returns the singleton instance of the TaskArchiver. The retention policy is read from the
+   * environment, or the default policy is used if the environment configures an invalid one.
+   *
+   * @return the singleton instance of the TaskArchiver
+   */
+  public static synchronized TaskArchiver getInstance() {
+    if (instance == null) {
+      logger.debug("Creating new TaskArchiver instance");
+      RetentionPolicy policy;
+      try {
+        policy = RetentionPolicy.fromEnvironment(Dotenv.load()::get);
+      } catch (IllegalArgumentException e) {
+        logger.error("Invalid retention policy, using the default policy: {}", e.getMessage());
+        policy = RetentionPolicy.DEFAULT;
+      }
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-archiver");
+        thread.setDaemon(true);
+        return thread;
+      });
+      TaskArchiveDao taskArchiveDao = new TaskArchiveDao(RemoteStore.instance(),
+          Household.currentId());
+      instance = new TaskArchiver(scheduler, Clock.systemDefaultZone(), policy,
+          taskArchiveDao::getArchivableTaskIds, taskArchiveDao::archiveTasks,
+          H2Manager::updateLocalTasks);
+    }
+    return instance;
+  }
+
+  /**
+   * Starts the archive service if it's not already running. The first run is a few minutes
+   * after the start, so it does not compete with the initial load of the local storage.
+   */
+  public synchronized void start() {
+    if (!isRunning) {
+      scheduler.scheduleWithFixedDelay(this::runScheduled, INITIAL_DELAY.toSeconds(),
+          policy.interval().toSeconds(), TimeUnit.SECONDS);
+      logger.info("Task archive service started, archiving tasks completed more than {} ago",
+          policy.completedTaskAge());
+      isRunning = true;
+    }
+  }
+
+  /**
+   * Runs the archiver on its schedule. A failed run is logged and retried on the next run.
+   */
+  private void runScheduled() {
+    try {
+      archiveNow();
+    } catch (RuntimeException e) {
+      logger.error("Archiving completed tasks failed: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Archives the tasks completed before the retention period, in batches, and refreshes the
+   * local storage if any task was archived.
+   *
+   * @return the number of tasks that were archived
+   */
+  public synchronized int archiveNow() {
+    LocalDateTime cutoff = policy.cutoff(LocalDateTime.now(clock));
+    int archived = 0;
+    for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+      List<UUID> taskIds = archivableTasks.apply(cutoff, policy.batchSize());
+      if (taskIds.isEmpty()) {
+        break;
+      }
+      int batchArchived = archive.applyAsInt(taskIds);
+      archived += batchArchived;
+      // A short or failed batch means there is nothing more to archive, or the database is down
+      if (batchArchived < policy.batchSize()) {
+        break;
+      }
+    }
+    if (archived > 0) {
+      logger.info("Archived {} tasks completed before {}", archived, cutoff);
+      localRefresh.run();
+    }
+    return archived;
+  }
+
+  /**
+   * Returns the retention policy of the archiver.
+   *
+   * @return the retention policy
+   */
+  public RetentionPolicy getPolicy() {
+    return policy;
+  }
+}
@@ -0,0 +1,228 @@
+package no.ntnu.idatx1005.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <h3>Write Outbox</h3>
+ *
+ * <p>A durable queue of the {@link PendingWrite writes} that were applied to the local storage,
+ * but not yet to the remote database, in the order they were made.
+ *
+ * <p>The outbox is an append-only file. Every write is appended as a record of the length of its
+ * payload, the payload and a CRC32 of the payload, and the file is forced to the disk before
+ * {@link #append(PendingWrite)} returns, so a write survives a crash as soon as it is accepted.
+ * When the outbox is opened, the records are read back up to the first one that was cut short
+ * or damaged, which can only be the last one being appended during a crash, and the file is
+ * truncated after the last intact record. Writes that were replayed are acknowledged a batch at
+ * a time, which rewrites the file with the remaining writes only.
+ *
+ * @author Hector Mendana Morales
+ * @since V1.3.0
+ */
+public class WriteOutbox {
+  private static final Logger logger = LoggerFactory.getLogger(WriteOutbox.class);
+  /** The size of the length and the checksum around the payload of a record. */
+  private static final int RECORD_OVERHEAD = Integer.BYTES + Integer.BYTES;
+  private final Path file;
+  private final Deque<PendingWrite> writes;
+
+  /**
+   * Opens the outbox in the given file, reading back the writes that are still pending. The file
+   * is created once the first write is appended.
+   *
+   * @param file the file of the outbox
+   * @throws UncheckedIOException if the file exists but could not be read
+   */
+  public WriteOutbox(Path file) {
+    this.file = file;
+    this.writes = new ArrayDeque<>();
+    try {
+      recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not open write outbox " + file, e);
+    }
+  }
+
+  /**
+   * Reads the intact records of the file, and truncates it after the last of them.
+   *
+   * @throws IOException if the file could not be read or truncated
+   */
+  private void recover() throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+      while (content.hasRemaining() && channel.read(content) >= 0) {
+        // Reads the whole file
+      }
+      content.flip();
+      int intactLength = 0;
+      while (content.remaining() >= RECORD_OVERHEAD) {
+        int length = content.getInt();
+        if (length < 0 || length > content.remaining() - Integer.BYTES) {
+          break;
+        }
+        byte[] payload = new byte[length];
+        content.get(payload);
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        if ((int) checksum.getValue() != content.getInt()) {
+          break;
+        }
+        try {
+          writes.add(PendingWrite.decode(payload));
+        } catch (IllegalArgumentException e) {
+          break;
+        }
+        intactLength = content.position();
+      }
+      if (intactLength < channel.size()) {
+        logger.warn("Discarding {} bytes of a damaged record at the end of the write outbox",
+            channel.size() - intactLength);
+        channel.truncate(intactLength);
+        channel.force(true);
+      }
+    }
+    logger.info("Opened write outbox with {} pending writes", writes.size());
+  }
+
+  /**
+   * Appends a write to the outbox, and forces it to the disk.
+   *
+   * @param write the write
+   * @throws UncheckedIOException if the write could not be stored
+   */
+  public synchronized void append(PendingWrite write) {
+    byte[] payload = write.encode();
+    ByteBuffer record = record(payload);
+    try {
+      Path directory = file.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+        while (record.hasRemaining()) {
+          channel.write(record);
+        }
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not append write " + write.id() + " to outbox", e);
+    }
+    // Keeps the stored copy, so later changes to the task do not alter the write
+    writes.add(PendingWrite.decode(payload));
+  }
+
+  /**
+   * Frames the payload of a write as a record of the outbox.
+   *
+   * @param payload the encoded write
+   * @return the record, ready to be written
+   */
+  private static ByteBuffer record(byte[] payload) {
+    CRC32 checksum = new CRC32();
+    checksum.update(payload);
+    ByteBuffer record = ByteBuffer.allocate(payload.length + RECORD_OVERHEAD);
+    record.putInt(payload.length).put(payload).putInt((int) checksum.getValue()).flip();
+    return record;
+  }
+
+  /**
+   * Returns the oldest pending writes, in the order they were made.
+   *
+   * @param limit the maximum number of writes
+   * @return the writes
+   */
+  public synchronized List<PendingWrite> peek(int limit) {
+    return writes.stream().limit(limit).toList();
+  }
+
+  /**
+   * Removes the given number of the oldest writes from the outbox, once they were replayed.
+   *
+   * @param count the number of writes
+   * @throws UncheckedIOException if the remaining writes could not be stored
+   */
+  public synchronized void acknowledge(int count) {
+    List<PendingWrite> remaining = new ArrayList<>(writes).subList(Math.min(count,
+        writes.size()), writes.size());
+    try {
+      if (remaining.isEmpty()) {
+        Files.deleteIfExists(file);
+      } else {
+        rewrite(remaining);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not acknowledge " + count + " replayed writes", e);
+    }
+    for (int i = 0; i < count && !writes.isEmpty(); i++) {
+      writes.removeFirst();
+    }
+  }
+
+  /**
+   * Replaces the file with one holding only the given writes. The new file is written next to
+   * the outbox first, and moved in place once complete.
+   *
+   * @param remaining the writes
+   * @throws IOException if the file could not be written
+   */
+  private void rewrite(List<PendingWrite> remaining) throws IOException {
+    Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(),
+        file.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        for (PendingWrite write : remaining) {
+          ByteBuffer record = record(write.encode());
+          while (record.hasRemaining()) {
+            channel.write(record);
+          }
+        }
+        channel.force(true);
+      }
+      try {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Returns the number of pending writes.
+   *
+   * @return the number of pending writes
+   */
+  public synchronized int size() {
+    return writes.size();
+  }
+
+  /**
+   * Returns whether no writes are pending.
+   *
+   * @return true if no writes are pending, false otherwise
+   */
+  public synchronized boolean isEmpty() {
+    return writes.isEmpty();
+  }
+}
@@ -1,5 +1,7 @@
 package no.ntnu.idatx1005.view.component;
 
+import java.util.List;
+import java.util.UUID;
 import java.util.function.BiConsumer;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -17,7 +19,8 @@ import no.ntnu.idatx1005.model.user.User;
  * <h3>Available User Card</h3>
  *
  * <p>This class represents a card that displays a user's workload and capacity. It allows for
- * dragging and dropping other task cards onto the card.
+ * dragging and dropping other task cards onto the card. The card can be reused for another user
+ * with {@link #setUser(User, int)}, so it can be used as the graphic of a list cell.
  *
  * @author William Holtsdalen
  * @since V1.1.0
@@ -29,17 +32,17 @@ public class AvailableUserCard extends HBox {
   private static final String GREEN_BAR  = "green-bar";
   private static final String[] barColorStyleClasses = {RED_BAR, ORANGE_BAR, YELLOW_BAR, GREEN_BAR};
 
-  private final User user;
-  private final String userName;
+  private User user;
   private int userWorkLoad;
   private int totalCapacity;
 
+  private Label userLabel;
   private Label userWorkloadLabel;
   private ProgressBar userWorkloadProgressBar;
 
-  /* Callback for when a task is dropped on this card. The first argument is this card's user, and
-   * the second argument is the dropped task's id as a string. */
-  private BiConsumer<User, String> onDragDropped;
+  /* Callback for when tasks are dropped on this card. The first argument is this card's user, and
+   * the second argument is the IDs of the dropped tasks. */
+  private BiConsumer<User, List<UUID>> onDragDropped;
 
   /**
    * Constructs an AvailableUserCard with the given user and current workload.
@@ -48,22 +51,38 @@ public class AvailableUserCard extends HBox {
    * @param currentWorkload the current workload of the user
    */
   public AvailableUserCard(User user, int currentWorkload) {
-    this.user = user;
-    this.userName = user.getFirstName() + " " + user.getLastName();
-    this.userWorkLoad = currentWorkload;
-    this.totalCapacity = user.getTaskCapacity();
-
     this.getStyleClass().add("available-user-card");
     initialize();
     configureDragProperties();
-    updateUserWorkload(userWorkLoad, totalCapacity);
+    setUser(user, currentWorkload);
+  }
+
+  /**
+   * Shows the given user and workload on the card.
+   *
+   * @param user the user to display on the card
+   * @param currentWorkload the current workload of the user
+   */
+  public void setUser(User user, int currentWorkload) {
+    this.user = user;
+    userLabel.setText(user.getFirstName() + " " + user.getLastName());
+    updateUserWorkload(currentWorkload, user.getTaskCapacity());
+  }
+
+  /**
+   * Returns the user displayed on the card.
+   *
+   * @return the user displayed on the card
+   */
+  public User getUser() {
+    return user;
   }
 
   /**
    * Initializes the card with the given user and current workload.
    */
   private void initialize() {
-    Label userLabel = new Label(userName);
+    userLabel = new Label();
     userLabel.getStyleClass().add("distribution-user-label");
 
     Region spacer = new Region();
@@ -143,8 +162,12 @@ public class AvailableUserCard extends HBox {
       Dragboard db = event.getDragboard();
       boolean success = false;
       if (db.hasString() && onDragDropped != null) {
-        onDragDropped.accept(user, db.getString());
-        success = true;
+        try {
+          onDragDropped.accept(user, UnassignedTaskCard.parseDragPayload(db.getString()));
+          success = true;
+        } catch (IllegalArgumentException e) {
+          success = false;
+        }
       }
       event.setDropCompleted(success);
       event.consume();
@@ -166,11 +189,11 @@ public class AvailableUserCard extends HBox {
   }
 
   /**
-   * Sets the callback for when a task is dropped on this card.
+   * Sets the callback for when tasks are dropped on this card.
    *
    * @param onDragDropped the callback to set
    */
-  public void setOnDragDropped(BiConsumer<User, String> onDragDropped) {
+  public void setOnDragDropped(BiConsumer<User, List<UUID>> onDragDropped) {
     this.onDragDropped = onDragDropped;
   }
 }
@@ -1,5 +1,10 @@
 package no.ntnu.idatx1005.view.component;
 
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.control.Label;
 import javafx.scene.input.ClipboardContent;
@@ -17,7 +22,9 @@ import no.ntnu.idatx1005.model.task.Task;
  * <h3>Unassigned Task Card</h3>
  *
  * <p>This class represents a card that displays an unassigned task. It allows for
- * dragging and dropping itself onto other cards such as {@link AvailableUserCard}.
+ * dragging and dropping itself onto other cards such as {@link AvailableUserCard}. The card can be
+ * reused for another task with {@link #setTask(Task)}, so it can be used as the graphic of a list
+ * cell.
  *
  * @author William Holtsdalen
  * @since V1.1.0
@@ -29,7 +36,18 @@ public class UnassignedTaskCard extends HBox {
   private static final String[] PRIORITY_COLOR_CLASSES = {HIGH_PRIORITY, MEDIUM_PRIORITY, 
     LOW_PRIORITY};
 
-  private final Task task;
+  /** The separator between the task IDs in the drag payload. */
+  public static final String DRAG_ID_SEPARATOR = ",";
+
+  private Task task;
+  /* Supplies the tasks dragged together with this card, such as the selected tasks of a list. */
+  private Supplier<List<Task>> draggedTasks;
+
+  private Label taskNameLabel;
+  private Label taskDescriptionLabel;
+  private Label taskPriorityLabel;
+  private Label taskSizeLabel;
+  private StringConverter<Size> sizeStringConverter;
 
   /**
    * Constructs an UnassignedTaskCard with the given task.
@@ -37,30 +55,89 @@ public class UnassignedTaskCard extends HBox {
    * @param task the task to display on the card
    */
   public UnassignedTaskCard(Task task) {
-    this.task = task;
-
     this.getStyleClass().add("unassigned-task-card");
     initialize();
     configureDragProperties();
+    setTask(task);
   }
 
   /**
-   * Initializes the card with the given task.
+   * Shows the given task on the card.
+   *
+   * @param task the task to display on the card
+   */
+  public void setTask(Task task) {
+    this.task = task;
+    taskNameLabel.setText(task.getName());
+    taskDescriptionLabel.setText(task.getDescription());
+    taskPriorityLabel.setText(task.getPriority().toString());
+    taskSizeLabel.setText(sizeStringConverter.toString(task.getSize()));
+  }
+
+  /**
+   * Returns the task displayed on the card.
+   *
+   * @return the task displayed on the card
+   */
+  public Task getTask() {
+    return task;
+  }
+
+  /**
+   * Sets the supplier of the tasks that are dragged when this card is dragged. If the supplied
+   * tasks do not contain the task of this card, only this card's task is dragged.
+   *
+   * @param draggedTasks the supplier of the dragged tasks
+   */
+  public void setDraggedTasks(Supplier<List<Task>> draggedTasks) {
+    this.draggedTasks = draggedTasks;
+  }
+
+  /**
+   * Parses the task IDs of a drag payload.
+   *
+   * @param payload the drag payload
+   * @return the task IDs in the payload
+   * @throws IllegalArgumentException if the payload contains an invalid ID
+   */
+  public static List<UUID> parseDragPayload(String payload) {
+    return Stream.of(payload.split(DRAG_ID_SEPARATOR))
+        .map(String::trim)
+        .filter(id -> !id.isEmpty())
+        .map(UUID::fromString)
+        .toList();
+  }
+
+  /**
+   * Returns the drag payload of the card, the IDs of the dragged tasks.
+   *
+   * @return the drag payload
+   */
+  private String getDragPayload() {
+    List<Task> tasks = draggedTasks == null ? List.of() : draggedTasks.get();
+    if (tasks.stream().noneMatch(selected -> selected.getId().equals(task.getId()))) {
+      return task.getId().toString();
+    }
+    return tasks.stream()
+        .map(selected -> selected.getId().toString())
+        .collect(Collectors.joining(DRAG_ID_SEPARATOR));
+  }
+
+  /**
+   * Initializes the nodes of the card.
    */
   private void initialize() {
-    Label taskNameLabel = new Label(task.getName());
+    taskNameLabel = new Label();
     taskNameLabel.getStyleClass().add("unassigned-task-name-label");
-    Label taskDescriptionLabel = new Label(task.getDescription());
+    taskDescriptionLabel = new Label();
     taskDescriptionLabel.getStyleClass().add("unassigned-task-description-label");
     final VBox taskInfoBox = new VBox(taskNameLabel, taskDescriptionLabel);
 
     Region spacer = new Region();
     HBox.setHgrow(spacer, Priority.ALWAYS);
 
-    Label taskPriorityLabel = new Label(task.getPriority().toString());
+    taskPriorityLabel = new Label();
     taskPriorityLabel.getStyleClass().add("unassigned-task-priority-label");
-    setPriorityStyleClass(taskPriorityLabel,
-        task.getPriority().toString().toLowerCase() + "-priority");
 
     taskPriorityLabel.textProperty().addListener((observable, oldValue, newValue) -> {
       String priorityStringValue = newValue.toLowerCase() + "-priority";
@@ -72,9 +149,9 @@ public class UnassignedTaskCard extends HBox {
       }
     });
 
-    Label taskSizeLabel = new Label();
+    taskSizeLabel = new Label();
     taskSizeLabel.getStyleClass().add("unassigned-task-size-label");
-    final StringConverter<Size> sizeStringConverter = new StringConverter<>() {
+    sizeStringConverter = new StringConverter<>() {
       @Override
       public String toString(Size size) {
         return switch (size) {
@@ -91,7 +168,6 @@ public class UnassignedTaskCard extends HBox {
         return null;
       }
     };
-    taskSizeLabel.setText(sizeStringConverter.toString(task.getSize()));
 
     VBox taskSizePriorityBox = new VBox(taskPriorityLabel, taskSizeLabel);
     taskSizePriorityBox.getStyleClass().add("task-size-priority-box");
@@ -118,7 +194,7 @@ public class UnassignedTaskCard extends HBox {
       Dragboard db = this.startDragAndDrop(TransferMode.ANY);
 
       ClipboardContent content = new ClipboardContent();
-      content.putString(task.getId().toString());
+      content.putString(getDragPayload());
       db.setContent(content);
 
       SnapshotParameters parameters = new SnapshotParameters();
@@ -1,22 +1,37 @@
 package no.ntnu.idatx1005.view.content;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.BiConsumer;
 import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Pos;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.Tooltip;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.util.Pair;
+import no.ntnu.idatx1005.analytics.CapacityTimeline;
+import no.ntnu.idatx1005.analytics.WorkloadChange;
+import no.ntnu.idatx1005.analytics.WorkloadLedger;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
 import no.ntnu.idatx1005.observer.ButtonClickSubject;
-import no.ntnu.idatx1005.service.DatabaseService;
 import no.ntnu.idatx1005.view.component.AvailableUserCard;
 import no.ntnu.idatx1005.view.component.UnassignedTaskCard;
 import no.ntnu.idatx1005.view.container.ContentView;
@@ -26,8 +41,17 @@ import no.ntnu.idatx1005.view.container.ContentView;
  *
  * <p>The view is meant to be used as a child of the {@link ContentView} class. The view is a
  * {@link HBox} that contains two {@link VBox} containers: one for the available users and one for
- * the unassigned tasks. It implements the {@link ButtonClickSubject} interface to notify observers
- * when a button in the view is clicked.
+ * the unassigned tasks. Below the unassigned tasks, a heatmap shows the load of every user per due
+ * day for the next weeks, read from the {@link CapacityTimeline}. It implements the
+ * {@link ButtonClickSubject} interface to notify observers when a button in the view is clicked.
+ *
+ * <p>The users, the unassigned tasks and the heatmap rows are shown in {@link ListView}s, which
+ * only create cells for the rows in the viewport and reuse them while scrolling. Changes from the
+ * {@link WorkloadLedger} are patched into the lists with
+ * {@link #applyWorkloadChange(WorkloadChange)}, so only the affected rows are updated.
+ *
+ * <p>Several unassigned tasks can be selected with shortcut-click or shift-click and dragged onto
+ * a user together, so they are assigned in a single batch.
  *
  * @see HBox
  * @see ContentView
@@ -36,22 +60,50 @@ import no.ntnu.idatx1005.view.container.ContentView;
  * @since V1.1.0
  */
 public class DistributionView extends HBox implements ButtonClickSubject {
-  private final DatabaseService dbService;
+  private static final int HEATMAP_WEEKS = 2;
+  private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("dd");
+  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE dd.MM");
+  private static final String[] HEATMAP_LEVELS = {"capacity-heatmap-cell-empty",
+    "capacity-heatmap-cell-low", "capacity-heatmap-cell-medium", "capacity-heatmap-cell-high",
+    "capacity-heatmap-cell-over"};
+
+  private final WorkloadLedger workloadLedger;
+  private final CapacityTimeline capacityTimeline;
   private final List<ButtonClickObserver> observers;
+  private final ObservableList<User> availableUsers;
+  private final ObservableList<User> heatmapUsers;
+  private final ObservableList<Task> unassignedTasks;
+  private final Comparator<User> userOrder;
+  private final Comparator<Task> taskOrder;
+  private final HBox heatmapHeader;
+  private ListView<Task> tasksListView;
+  private ToggleButton fairDistributionToggle;
+  private LocalDate heatmapStart;
 
-  private BiConsumer<User, String> taskDropCallback;
+  private BiConsumer<User, List<UUID>> taskDropCallback;
 
   /**
    * Constructs a new distribution view.
    */
   public DistributionView() {
-    this.dbService = DatabaseService.getInstance();
+    this.workloadLedger = WorkloadLedger.getInstance();
+    this.capacityTimeline = CapacityTimeline.getInstance();
     this.observers = new ArrayList<>();
+    this.availableUsers = FXCollections.observableArrayList();
+    this.heatmapUsers = FXCollections.observableArrayList();
+    this.unassignedTasks = FXCollections.observableArrayList();
+    // Most available capacity first, the IDs make the order total for the binary searches
+    this.userOrder = Comparator
+        .<User>comparingInt(user -> -workloadLedger.getAvailableCapacity(user))
+        .thenComparing(User::getId);
+    this.taskOrder = WorkloadLedger.UNASSIGNED_TASK_ORDER.thenComparing(Task::getId);
+    this.heatmapHeader = new HBox();
 
     this.getStyleClass().add("content");
     this.setSpacing(10);
 
     initialize();
+    reloadItems();
   }
 
   /**
@@ -102,12 +154,23 @@ public class DistributionView extends HBox implements ButtonClickSubject {
   private void initialize() {
     Label availableUsersLabel = new Label("Available users");
     availableUsersLabel.getStyleClass().add("distribution-available-users-label");
-    VBox usersContainer = new VBox(availableUsersLabel, createUsersContainer());
+    fairDistributionToggle = new ToggleButton("Fair distribution");
+    fairDistributionToggle.getStyleClass().add("fair-distribution-toggle");
+    fairDistributionToggle.setTooltip(new Tooltip("Auto-distribution also weighs the work every "
+        + "user completed over the last weeks"));
+    Region labelSpacer = new Region();
+    HBox.setHgrow(labelSpacer, Priority.ALWAYS);
+    HBox usersHeader = new HBox(availableUsersLabel, labelSpacer, fairDistributionToggle);
+    usersHeader.setAlignment(Pos.CENTER_LEFT);
+    VBox usersContainer = new VBox(usersHeader, createUsersContainer());
     usersContainer.getStyleClass().add("distribution-users-container");
 
     Label unassignedTasksLabel = new Label("Unassigned tasks");
     unassignedTasksLabel.getStyleClass().add("distribution-unassigned-tasks-label");
-    VBox tasksContainer = new VBox(unassignedTasksLabel, createUnassignedTasksContainer());
+    Label capacityLabel = new Label("Capacity timeline");
+    capacityLabel.getStyleClass().add("distribution-unassigned-tasks-label");
+    VBox tasksContainer = new VBox(unassignedTasksLabel, createUnassignedTasksContainer(),
+        capacityLabel, createCapacityHeatmap());
     tasksContainer.getStyleClass().add("distribution-unassigned-tasks-container");
     HBox.setHgrow(tasksContainer, Priority.ALWAYS);
     VBox.setVgrow(tasksContainer, Priority.ALWAYS);
@@ -124,6 +187,90 @@ public class DistributionView extends HBox implements ButtonClickSubject {
     return this;
   }
 
+  /**
+   * Replaces the items of all lists with the current contents of the ledger.
+   */
+  private void reloadItems() {
+    List<User> users = new ArrayList<>(workloadLedger.getUsers());
+    users.sort(userOrder);
+    heatmapUsers.setAll(users);
+    availableUsers.setAll(users.stream().filter(this::isAvailable).toList());
+    List<Task> tasks = new ArrayList<>(workloadLedger.getUnassignedTasks());
+    tasks.sort(taskOrder);
+    unassignedTasks.setAll(tasks);
+    updateHeatmapHeader();
+  }
+
+  /**
+   * Patches the lists with the users and tasks that changed. Changed users are moved to their
+   * new position, and only the cells of the changed rows are updated.
+   *
+   * @param change the users and tasks that changed
+   */
+  public void applyWorkloadChange(WorkloadChange change) {
+    for (UUID userId : change.changedUserIds()) {
+      User user = workloadLedger.getUser(userId);
+      removeUser(availableUsers, userId);
+      removeUser(heatmapUsers, userId);
+      if (user != null) {
+        insertSorted(heatmapUsers, user, userOrder);
+        if (isAvailable(user)) {
+          insertSorted(availableUsers, user, userOrder);
+        }
+      }
+    }
+
+    if (!change.removedTaskIds().isEmpty()) {
+      unassignedTasks.removeIf(task -> change.removedTaskIds().contains(task.getId()));
+    }
+    for (Task task : change.updatedTasks()) {
+      insertSorted(unassignedTasks, task, taskOrder);
+    }
+
+    if (!capacityTimeline.getToday().equals(heatmapStart)) {
+      updateHeatmapHeader();
+      heatmapUsers.setAll(new ArrayList<>(heatmapUsers));
+    }
+  }
+
+  /**
+   * Returns whether a user can be given tasks, that is the user is not sick and has capacity left.
+   *
+   * @param user the user
+   * @return true if the user is available, false otherwise
+   */
+  private boolean isAvailable(User user) {
+    return !user.getSickness() && workloadLedger.getAvailableCapacity(user) > 0;
+  }
+
+  /**
+   * Removes a user from a list of users.
+   *
+   * @param users the list of users
+   * @param userId the ID of the user to remove
+   */
+  private static void removeUser(ObservableList<User> users, UUID userId) {
+    for (int i = 0; i < users.size(); i++) {
+      if (users.get(i).getId().equals(userId)) {
+        users.remove(i);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Inserts an item into a sorted list at its position.
+   *
+   * @param items the sorted list
+   * @param item the item to insert
+   * @param order the order of the list
+   * @param <T> the type of the items
+   */
+  private static <T> void insertSorted(ObservableList<T> items, T item, Comparator<T> order) {
+    int index = Collections.binarySearch(items, item, order);
+    items.add(index < 0 ? -index - 1 : index, item);
+  }
+
   /**
    * Creates the users container.
    *
@@ -135,26 +282,53 @@ public class DistributionView extends HBox implements ButtonClickSubject {
     VBox.setVgrow(usersContainer, Priority.ALWAYS);
     usersContainer.getStyleClass().add("distribution-users-container");
 
-    ScrollPane usersScrollPane = new ScrollPane();
-    usersScrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-    usersScrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-    usersScrollPane.getStyleClass().add("distribution-users-scroll-pane");
-    usersScrollPane.setFitToWidth(true);
-
-    VBox usersScrollPaneContent = new VBox();
-    usersScrollPaneContent.getStyleClass().add("distribution-users-scroll-pane-content");
-    for (User user : dbService.getAllUsersByCapacity()) {
-      if (dbService.getUserAvailableCapacity(user) == 0) {
-        continue;
+    ListView<User> usersListView = new ListView<>(availableUsers);
+    usersListView.getStyleClass().addAll("distribution-users-scroll-pane",
+        "distribution-list-view");
+    usersListView.setFocusTraversable(false);
+    usersListView.setCellFactory(listView -> new UserCardCell());
+    VBox.setVgrow(usersListView, Priority.ALWAYS);
+
+    usersContainer.getChildren().add(usersListView);
+    VBox wrapper = new VBox(usersContainer);
+    VBox.setVgrow(wrapper, Priority.ALWAYS);
+    return wrapper;
+  }
+
+  /**
+   * List cell showing an {@link AvailableUserCard}. The card is created once per cell and reused
+   * for every user the cell shows.
+   */
+  private class UserCardCell extends ListCell<User> {
+    private AvailableUserCard card;
+
+    /**
+     * Shows the given user in the cell.
+     *
+     * @param user the user
+     * @param empty whether the cell is empty
+     */
+    @Override
+    protected void updateItem(User user, boolean empty) {
+      super.updateItem(user, empty);
+      if (empty || user == null) {
+        setGraphic(null);
+        return;
       }
-      AvailableUserCard userCard = new AvailableUserCard(user, dbService.getUserWorkload(user));
-      // Using runLater here to make sure the callback has been set before setting it on the card.
-      Platform.runLater(() -> userCard.setOnDragDropped(taskDropCallback));
-      usersScrollPaneContent.getChildren().add(userCard);
+      int workload = workloadLedger.getWorkload(user.getId());
+      if (card == null) {
+        card = new AvailableUserCard(user, workload);
+        card.setOnDragDropped((droppedOn, taskIds) -> {
+          if (taskDropCallback != null) {
+            taskDropCallback.accept(droppedOn, taskIds);
+          }
+          tasksListView.getSelectionModel().clearSelection();
+        });
+      } else {
+        card.setUser(user, workload);
+      }
+      setGraphic(card);
     }
-    usersScrollPane.setContent(usersScrollPaneContent);
-    usersContainer.getChildren().add(usersScrollPane);
-    return new VBox(usersContainer);
   }
 
   /**
@@ -168,29 +342,175 @@ public class DistributionView extends HBox implements ButtonClickSubject {
     VBox.setVgrow(tasksContainer, Priority.ALWAYS);
     tasksContainer.getStyleClass().add("distribution-unassigned-tasks-container");
 
-    ScrollPane tasksScrollPane = new ScrollPane();
-    tasksScrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-    tasksScrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-    tasksScrollPane.getStyleClass().add("distribution-tasks-scroll-pane");
-    tasksScrollPane.setFitToWidth(true);
-    tasksScrollPane.setFitToHeight(true);
-    VBox.setVgrow(tasksScrollPane, Priority.ALWAYS);
-
-
-    VBox tasksScrollPaneContent = new VBox();
-    VBox.setVgrow(tasksScrollPaneContent, Priority.ALWAYS);
-    tasksScrollPaneContent.getStyleClass().add("distribution-tasks-scroll-pane-content");
-    for (Task task : dbService.getUnassignedTasksBySizeAndPriority()) {
-      UnassignedTaskCard taskCard = new UnassignedTaskCard(task);
-      taskCard.setOnMouseClicked(mouseEvent ->
-          notifyObserversWithTask("edit_task", task));
-      tasksScrollPaneContent.getChildren().add(taskCard);
-    }
-    tasksScrollPane.setContent(tasksScrollPaneContent);
-    tasksContainer.getChildren().add(tasksScrollPane);
+    tasksListView = new ListView<>(unassignedTasks);
+    tasksListView.getStyleClass().addAll("distribution-tasks-scroll-pane",
+        "distribution-list-view");
+    tasksListView.setFocusTraversable(false);
+    tasksListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+    tasksListView.setCellFactory(listView -> new TaskCardCell());
+    VBox.setVgrow(tasksListView, Priority.ALWAYS);
+
+    tasksContainer.getChildren().add(tasksListView);
     return tasksContainer;
   }
 
+  /**
+   * List cell showing an {@link UnassignedTaskCard}. The card is created once per cell and reused
+   * for every task the cell shows.
+   */
+  private class TaskCardCell extends ListCell<Task> {
+    private UnassignedTaskCard card;
+
+    /**
+     * Shows the given task in the cell.
+     *
+     * @param task the task
+     * @param empty whether the cell is empty
+     */
+    @Override
+    protected void updateItem(Task task, boolean empty) {
+      super.updateItem(task, empty);
+      if (empty || task == null) {
+        setGraphic(null);
+        return;
+      }
+      if (card == null) {
+        card = new UnassignedTaskCard(task);
+        card.setDraggedTasks(DistributionView.this::getSelectedTasks);
+        // Shortcut-click and shift-click select tasks for a batch drag instead of editing them
+        card.setOnMouseClicked(mouseEvent -> {
+          if (!mouseEvent.isShortcutDown() && !mouseEvent.isShiftDown()) {
+            notifyObserversWithTask("edit_task", card.getTask());
+          }
+        });
+      } else {
+        card.setTask(task);
+      }
+      setGraphic(card);
+    }
+  }
+
+  /**
+   * Creates the heatmap with the load of every user per due day. The first column holds the
+   * overdue load, and the color of a cell shows the load of the day compared to the daily share
+   * of the user's capacity.
+   *
+   * @return the capacity heatmap
+   */
+  private VBox createCapacityHeatmap() {
+    heatmapHeader.getStyleClass().add("capacity-heatmap-row");
+
+    ListView<User> heatmapListView = new ListView<>(heatmapUsers);
+    heatmapListView.getStyleClass().addAll("capacity-heatmap", "distribution-list-view");
+    heatmapListView.setFocusTraversable(false);
+    heatmapListView.setPrefHeight(200);
+    heatmapListView.setCellFactory(listView -> new HeatmapRowCell());
+
+    VBox heatmap = new VBox(heatmapHeader, heatmapListView);
+    heatmap.getStyleClass().add("distribution-tasks-scroll-pane");
+    return heatmap;
+  }
+
+  /**
+   * Updates the day labels of the heatmap, starting at the current day.
+   */
+  private void updateHeatmapHeader() {
+    heatmapStart = capacityTimeline.getToday();
+    Label nameHeader = new Label();
+    nameHeader.getStyleClass().add("capacity-heatmap-name");
+    Label overdueHeader = new Label("!");
+    overdueHeader.getStyleClass().addAll("capacity-heatmap-header", "capacity-heatmap-cell");
+    Tooltip.install(overdueHeader, new Tooltip("Overdue"));
+    heatmapHeader.getChildren().setAll(nameHeader, overdueHeader);
+    for (int day = 0; day < HEATMAP_WEEKS * 7; day++) {
+      Label dayLabel = new Label(heatmapStart.plusDays(day).format(DAY_FORMATTER));
+      dayLabel.getStyleClass().addAll("capacity-heatmap-header", "capacity-heatmap-cell");
+      heatmapHeader.getChildren().add(dayLabel);
+    }
+  }
+
+  /**
+   * List cell showing the heatmap row of a user. The cells of the row are created once and
+   * recolored for every user the cell shows.
+   */
+  private class HeatmapRowCell extends ListCell<User> {
+    private final HBox row = new HBox();
+    private final Label nameLabel = new Label();
+    private final List<Region> dayCells = new ArrayList<>();
+    private final List<Tooltip> tooltips = new ArrayList<>();
+
+    /**
+     * Constructs a heatmap row cell.
+     */
+    HeatmapRowCell() {
+      row.getStyleClass().add("capacity-heatmap-row");
+      nameLabel.getStyleClass().add("capacity-heatmap-name");
+      row.getChildren().add(nameLabel);
+      for (int day = 0; day < HEATMAP_WEEKS * 7 + 1; day++) {
+        Region cell = new Region();
+        cell.getStyleClass().add("capacity-heatmap-cell");
+        Tooltip tooltip = new Tooltip();
+        Tooltip.install(cell, tooltip);
+        dayCells.add(cell);
+        tooltips.add(tooltip);
+        row.getChildren().add(cell);
+      }
+    }
+
+    /**
+     * Shows the heatmap row of the given user in the cell.
+     *
+     * @param user the user
+     * @param empty whether the cell is empty
+     */
+    @Override
+    protected void updateItem(User user, boolean empty) {
+      super.updateItem(user, empty);
+      if (empty || user == null) {
+        setGraphic(null);
+        return;
+      }
+      nameLabel.setText(user.getFirstName());
+      double dailyCapacity = (double) user.getTaskCapacity() / CapacityTimeline.PEAK_WINDOW_DAYS;
+
+      int overdueLoad = capacityTimeline.getOverdueLoad(user.getId());
+      updateHeatmapCell(dayCells.get(0), overdueLoad, dailyCapacity);
+      tooltips.get(0).setText(String.format("%s: %d overdue", user.getFirstName(), overdueLoad));
+
+      int[] dailyLoad = capacityTimeline.getDailyLoad(user.getId(), heatmapStart,
+          HEATMAP_WEEKS * 7);
+      for (int day = 0; day < dailyLoad.length; day++) {
+        updateHeatmapCell(dayCells.get(day + 1), dailyLoad[day], dailyCapacity);
+        tooltips.get(day + 1).setText(String.format("%s, %s: %d due", user.getFirstName(),
+            heatmapStart.plusDays(day).format(DATE_FORMATTER), dailyLoad[day]));
+      }
+      setGraphic(row);
+    }
+  }
+
+  /**
+   * Colors a cell of the capacity heatmap.
+   *
+   * @param cell the heatmap cell
+   * @param load the load of the cell
+   * @param dailyCapacity the daily share of the user's capacity
+   */
+  private static void updateHeatmapCell(Region cell, int load, double dailyCapacity) {
+    cell.getStyleClass().removeAll(HEATMAP_LEVELS);
+    double ratio = dailyCapacity <= 0 ? load : load / dailyCapacity;
+    if (load == 0) {
+      cell.getStyleClass().add(HEATMAP_LEVELS[0]);
+    } else if (ratio <= 0.5) {
+      cell.getStyleClass().add(HEATMAP_LEVELS[1]);
+    } else if (ratio <= 1) {
+      cell.getStyleClass().add(HEATMAP_LEVELS[2]);
+    } else if (ratio <= 2) {
+      cell.getStyleClass().add(HEATMAP_LEVELS[3]);
+    } else {
+      cell.getStyleClass().add(HEATMAP_LEVELS[4]);
+    }
+  }
+
   /**
    * Shows a confirmation dialog for an assignment.
    *
@@ -208,6 +528,80 @@ public class DistributionView extends HBox implements ButtonClickSubject {
     return alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
   }
 
+  /**
+   * Shows a confirmation dialog for the assignment of several tasks at once.
+   *
+   * @param user the user
+   * @param tasks the tasks
+   * @return true if the user confirms the assignment, false otherwise
+   */
+  public boolean showConfirmAssignmentDialog(User user, List<Task> tasks) {
+    if (tasks.size() == 1) {
+      return showConfirmAssignmentDialog(user, tasks.getFirst());
+    }
+    Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+    alert.setTitle("Confirm Assignment");
+    alert.setHeaderText(String.format("Confirm assignment of %d tasks", tasks.size()));
+    alert.setContentText(String.format("Do you want to assign these tasks to %s %s?%n%n%s",
+        user.getFirstName(), user.getLastName(), formatTaskNames(tasks)));
+
+    return alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
+  }
+
+  /**
+   * Shows a dialog when an invalid assignment of several tasks at once is attempted.
+   *
+   * @param user the user
+   * @param tasks the tasks
+   */
+  public void showInvalidAssignmentDialog(User user, List<Task> tasks) {
+    if (tasks.size() == 1) {
+      showInvalidAssignmentDialog(user, tasks.getFirst());
+      return;
+    }
+    Platform.runLater(() -> {
+      Alert alert = new Alert(Alert.AlertType.WARNING);
+      alert.setTitle("Invalid Assignment");
+      alert.setHeaderText(String.format("Cannot assign %d tasks to user", tasks.size()));
+      alert.setContentText(String.format(
+          "User %s %s does not have enough capacity for these tasks:%n%n%s",
+          user.getFirstName(), user.getLastName(), formatTaskNames(tasks)));
+      alert.showAndWait();
+    });
+  }
+
+  /**
+   * Formats the names of the given tasks as a list, one task per line.
+   *
+   * @param tasks the tasks
+   * @return the formatted task names
+   */
+  private String formatTaskNames(List<Task> tasks) {
+    StringBuilder names = new StringBuilder();
+    for (Task task : tasks) {
+      names.append("- ").append(task.getName()).append(System.lineSeparator());
+    }
+    return names.toString().strip();
+  }
+
+  /**
+   * Returns whether auto-distribution should weigh the work users completed recently.
+   *
+   * @return true if fair distribution is selected, false otherwise
+   */
+  public boolean isFairDistribution() {
+    return fairDistributionToggle.isSelected();
+  }
+
+  /**
+   * Returns the selected unassigned tasks.
+   *
+   * @return the selected tasks
+   */
+  public List<Task> getSelectedTasks() {
+    return List.copyOf(tasksListView.getSelectionModel().getSelectedItems());
+  }
+
   /**
    * Shows a dialog when an invalid assignment is attempted.
    *
@@ -225,12 +619,48 @@ public class DistributionView extends HBox implements ButtonClickSubject {
     });
   }
 
+  /**
+   * Shows a dialog when an assignment was rejected because some of the tasks or users were
+   * changed by someone else in the meantime.
+   *
+   * @param tasks the tasks that were not assigned
+   */
+  public void showAssignmentConflictDialog(List<Task> tasks) {
+    Platform.runLater(() -> {
+      Alert alert = new Alert(Alert.AlertType.WARNING);
+      alert.setTitle("Assignment Conflict");
+      alert.setHeaderText("Tasks changed by someone else");
+      alert.setContentText(String.format("These tasks were not assigned, because they or their "
+          + "users were changed in the meantime. The board has been updated, please try again."
+          + "%n%n%s", formatTaskNames(tasks)));
+      alert.showAndWait();
+    });
+  }
+
+  /**
+   * Shows a dialog when an assignment could not be stored, because the database could not be
+   * reached or refused it.
+   *
+   * @param tasks the tasks that were not assigned
+   */
+  public void showAssignmentFailedDialog(List<Task> tasks) {
+    Platform.runLater(() -> {
+      Alert alert = new Alert(Alert.AlertType.ERROR);
+      alert.setTitle("Assignment Failed");
+      alert.setHeaderText("Tasks could not be assigned");
+      alert.setContentText(String.format("These tasks were not assigned, because the database "
+          + "could not store the assignment. Please try again later.%n%n%s",
+          formatTaskNames(tasks)));
+      alert.showAndWait();
+    });
+  }
+
   /**
    * Sets the task drop callback.
    *
    * @param callback the callback to set
    */
-  public void setTaskDropCallback(BiConsumer<User, String> callback) {
+  public void setTaskDropCallback(BiConsumer<User, List<UUID>> callback) {
     this.taskDropCallback = callback;
   }
 
@@ -272,9 +702,10 @@ public class DistributionView extends HBox implements ButtonClickSubject {
   }
 
   /**
-   * Refreshes the view with current cached data.
+   * Refreshes the view with current cached data. The lists keep their cells, only the items are
+   * replaced.
    */
   public void refreshView() {
-    Platform.runLater(this::initialize);
+    Platform.runLater(this::reloadItems);
   }
 }
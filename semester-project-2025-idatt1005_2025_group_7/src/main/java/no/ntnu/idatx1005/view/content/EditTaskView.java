@@ -13,6 +13,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -26,11 +27,12 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
+import no.ntnu.idatx1005.model.task.ChangelogEntry;
 import no.ntnu.idatx1005.model.task.Priority;
 import no.ntnu.idatx1005.model.task.Size;
 import no.ntnu.idatx1005.model.task.Task;
-import no.ntnu.idatx1005.model.task.TaskChange;
 import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.service.DatabaseService;
 import no.ntnu.idatx1005.storage.H2Manager;
 import no.ntnu.idatx1005.view.container.ContentView;
 
@@ -61,14 +63,14 @@ public class EditTaskView extends HBox {
   private MFXDatePicker dueDateField;
   private ListView<HBox> assignedUsersListView;
   private ListView<HBox> availableUsersListView;
-  private MFXTableView<TaskChange> changelogTable;
+  private MFXTableView<ChangelogEntry> changelogTable;
   private HBox paginationControls;
   
   private List<User> assignedUsersList;
-  private final ObservableList<TaskChange> changelogEntries;
+  private final ObservableList<ChangelogEntry> changelogEntries;
   private Task task;
-  private static final int ROWS_PER_PAGE = 5;
   private int currentPage = 0;
+  private boolean hasNextPage = false;
 
 
   /**
@@ -244,27 +246,25 @@ public class EditTaskView extends HBox {
     changelogTable.setFooterVisible(false);
     changelogTable.setStyle("-fx-pref-height: 225; -fx-max-width: infinity;");
 
-    MFXTableColumn<TaskChange> dateColumn = new MFXTableColumn<>("Date", false);
+    MFXTableColumn<ChangelogEntry> dateColumn = new MFXTableColumn<>("Date", false);
     dateColumn.setMinWidth(150);
     dateColumn.setMaxWidth(150);
-    dateColumn.setRowCellFactory(change -> new MFXTableRowCell<>(taskChange -> 
-        taskChange.changedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
+    dateColumn.setRowCellFactory(change -> new MFXTableRowCell<>(entry ->
+        entry.change().changedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
 
-    MFXTableColumn<TaskChange> userColumn = new MFXTableColumn<>("Changed By", false);
+    // The names are resolved by the query that fetches the page, not per cell
+    MFXTableColumn<ChangelogEntry> userColumn = new MFXTableColumn<>("Changed By", false);
     userColumn.setMinWidth(150);
     userColumn.setMaxWidth(150);
-    userColumn.setRowCellFactory(change -> new MFXTableRowCell<>(taskChange -> {
-      User user = H2Manager.getUserById(taskChange.changedBy());
-      return user != null ? user.getFirstName() + " " + user.getLastName() : "Unknown";
-    }));
+    userColumn.setRowCellFactory(change -> new MFXTableRowCell<>(ChangelogEntry::changedByName));
 
-    MFXTableColumn<TaskChange> descriptionColumn = 
+    MFXTableColumn<ChangelogEntry> descriptionColumn = 
         new MFXTableColumn<>("Change Description", false);
     descriptionColumn.setMinWidth(300);
     descriptionColumn.setPrefWidth(500);
     descriptionColumn.setRowCellFactory(change -> {
-      final MFXTableRowCell<TaskChange, String> cell = 
-          new MFXTableRowCell<>(TaskChange::description);
+      final MFXTableRowCell<ChangelogEntry, String> cell = 
+          new MFXTableRowCell<>(entry -> entry.describe(this::getUserName));
       Tooltip tooltip = new Tooltip();
       tooltip.setShowDelay(javafx.util.Duration.millis(200));
       tooltip.setWrapText(true);
@@ -287,8 +287,7 @@ public class EditTaskView extends HBox {
     MFXButton prevButton = new MFXButton("Previous");
     prevButton.setOnAction(e -> {
       if (currentPage > 0) {
-        currentPage--;
-        updateChangelogPage();
+        loadChangelogPage(currentPage - 1);
       }
     });
     
@@ -297,9 +296,8 @@ public class EditTaskView extends HBox {
     
     MFXButton nextButton = new MFXButton("Next");
     nextButton.setOnAction(e -> {
-      if ((currentPage + 1) * ROWS_PER_PAGE < changelogEntries.size()) {
-        currentPage++;
-        updateChangelogPage();
+      if (hasNextPage) {
+        loadChangelogPage(currentPage + 1);
       }
     });
     
@@ -311,28 +309,49 @@ public class EditTaskView extends HBox {
     return container;
   }
 
+  /**
+   * Returns the name of a user, for rendering the changelog.
+   *
+   * @param userId the ID of the user
+   * @return the name of the user, or "Unknown user" if the user does not exist
+   */
+  private String getUserName(UUID userId) {
+    User user = H2Manager.getUserById(userId);
+    return user != null ? user.getFirstName() + " " + user.getLastName() : "Unknown user";
+  }
+
+  /**
+   * Fetches a page of the changelog in the background, and shows it once it is fetched.
+   *
+   * @param page the index of the page, starting at 0
+   */
+  private void loadChangelogPage(int page) {
+    UUID taskId = task.getId();
+    CompletableFuture.supplyAsync(() -> DatabaseService.getInstance().getChangelogPage(taskId,
+        page)).thenAccept(changelogPage -> Platform.runLater(() -> {
+          if (taskId.equals(task.getId())) {
+            currentPage = page;
+            hasNextPage = changelogPage.hasNext();
+            changelogEntries.setAll(changelogPage.entries());
+            updateChangelogPage();
+          }
+        }));
+  }
+
   /**
    * Updates the changelog page.
    */
   private void updateChangelogPage() {
-    int startIndex = currentPage * ROWS_PER_PAGE;
-    int endIndex = Math.min(startIndex + ROWS_PER_PAGE, changelogEntries.size());
-    int totalPages = (int) Math.ceil((double) changelogEntries.size() / ROWS_PER_PAGE);
-    
-    ObservableList<TaskChange> pageEntries = FXCollections.observableArrayList(
-        changelogEntries.subList(startIndex, endIndex)
-    );
-    
-    changelogTable.setItems(pageEntries);
+    changelogTable.setItems(FXCollections.observableArrayList(changelogEntries));
     changelogTable.update();
     
     Text pageInfo = (Text) paginationControls.getChildren().get(1);
-    pageInfo.setText(String.format("Page %d of %d", currentPage + 1, totalPages));
+    pageInfo.setText(String.format("Page %d", currentPage + 1));
     
     MFXButton prevButton = (MFXButton) paginationControls.getChildren().get(0);
     MFXButton nextButton = (MFXButton) paginationControls.getChildren().get(2);
     prevButton.setDisable(currentPage == 0);
-    nextButton.setDisable((currentPage + 1) * ROWS_PER_PAGE >= changelogEntries.size());
+    nextButton.setDisable(!hasNextPage);
   }
 
   /**
@@ -405,13 +424,10 @@ public class EditTaskView extends HBox {
   }
 
   /**
-   * Loads the changelog entries for the task.
+   * Loads the first page of the changelog entries for the task.
    */
   private void loadChangelogEntries() {
-    List<TaskChange> changes = H2Manager.getTaskChanges(task.getId());
-    changelogEntries.setAll(changes);
-    currentPage = 0;
-    updateChangelogPage();
+    loadChangelogPage(0);
   }
 
   /**
@@ -5,12 +5,21 @@ import io.github.palexdev.materialfx.controls.MFXTextField;
 import io.github.palexdev.mfxresources.fonts.MFXFontIcon;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.Alert;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
@@ -23,10 +32,16 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.stage.Popup;
 import javafx.util.Duration;
+import no.ntnu.idatx1005.database.CircuitBreaker;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
 import no.ntnu.idatx1005.observer.ButtonClickSubject;
+import no.ntnu.idatx1005.search.SearchResult;
+import no.ntnu.idatx1005.search.SearchResultType;
+import no.ntnu.idatx1005.search.SearchResults;
+import no.ntnu.idatx1005.search.TaskSearchIndex;
 import no.ntnu.idatx1005.storage.H2Manager;
+import no.ntnu.idatx1005.storage.PendingWrite;
 import no.ntnu.idatx1005.view.container.MainView;
 
 /**
@@ -47,6 +62,11 @@ public class HeaderView extends HBox implements ButtonClickSubject {
   private static final String DEFAULT_STYLE_CLASS = "header";
   private static final Color TEXT_COLOR = Color.WHITE;
   private static final Color ICON_COLOR = Color.rgb(255, 255, 255);
+  private static final int MAX_SEARCH_RESULTS = 25;
+  private static final String FACET_STYLE = "-fx-background-color: #404040; -fx-text-fill: white; "
+      + "-fx-background-radius: 5;";
+  private static final String SELECTED_FACET_STYLE = "-fx-background-color: #5A5A5A; "
+      + "-fx-text-fill: white; -fx-background-radius: 5;";
 
   private Region spacer;
   private MFXButton backButton;
@@ -61,6 +81,12 @@ public class HeaderView extends HBox implements ButtonClickSubject {
   private MFXTextField searchBar;
   private Popup searchResultsPopup;
   private ListView<HBox> searchResultsList;
+  private ToggleGroup searchFacetGroup;
+  private ToggleButton allFacetButton;
+  private ToggleButton tasksFacetButton;
+  private ToggleButton historyFacetButton;
+  private Text pendingWritesText;
+  private Text connectionText;
 
   private final List<ButtonClickObserver> observers;
 
@@ -102,6 +128,20 @@ public class HeaderView extends HBox implements ButtonClickSubject {
     this.saveSettingsButton = initializeTextButton(new MFXButton(),
         "Save Settings", actionEvent -> notifyObservers("save_settings"));
 
+    this.pendingWritesText = new Text();
+    pendingWritesText.setFill(Color.LIGHTGRAY);
+    pendingWritesText.setVisible(false);
+    pendingWritesText.setManaged(false);
+    this.connectionText = new Text();
+    connectionText.setFill(Color.rgb(255, 165, 0));
+    connectionText.setVisible(false);
+    connectionText.setManaged(false);
+    Tooltip.install(connectionText, new Tooltip(
+        "The database is not answering. Tasks are shown as they were last loaded."));
+    Tooltip.install(pendingWritesText, new Tooltip(
+        "Your changes are saved on this device, and will be stored once the database can be "
+            + "reached again."));
+
     backButton.setStyle("-fx-border-color: #D9D9D9; -fx-border-width: 1px; "
         + "-fx-border-radius: 5;");
     newTaskButton.setStyle("-fx-border-color: #D9D9D9; -fx-border-width: 1px; "
@@ -130,8 +170,30 @@ public class HeaderView extends HBox implements ButtonClickSubject {
     searchResultsList.setMaxHeight(300);
     searchResultsList.setMinWidth(400);
     searchResultsList.setStyle("-fx-background-color: #2B2B2B; -fx-text-fill: white;");
-    
-    VBox popupContent = new VBox(searchResultsList);
+
+    searchFacetGroup = new ToggleGroup();
+    allFacetButton = initializeFacetButton(null);
+    tasksFacetButton = initializeFacetButton(SearchResultType.TASK);
+    historyFacetButton = initializeFacetButton(SearchResultType.HISTORY);
+    allFacetButton.setSelected(true);
+    searchFacetGroup.selectedToggleProperty().addListener((observable, oldToggle, newToggle) -> {
+      // Keeps one facet selected at all times.
+      if (newToggle == null) {
+        oldToggle.setSelected(true);
+        return;
+      }
+      searchFacetGroup.getToggles().forEach(toggle -> ((ToggleButton) toggle).setStyle(
+          toggle == newToggle ? SELECTED_FACET_STYLE : FACET_STYLE));
+      if (searchBar != null) {
+        handleSearchTextChanged(searchBar.getText());
+      }
+    });
+    allFacetButton.setStyle(SELECTED_FACET_STYLE);
+
+    HBox facetBar = new HBox(5, allFacetButton, tasksFacetButton, historyFacetButton);
+    facetBar.setPadding(new Insets(0, 0, 5, 0));
+
+    VBox popupContent = new VBox(facetBar, searchResultsList);
     popupContent.setStyle("-fx-background-color: #2B2B2B; -fx-padding: 5;");
 
     searchResultsPopup = new Popup();
@@ -141,7 +203,24 @@ public class HeaderView extends HBox implements ButtonClickSubject {
   }
 
   /**
-   * Handles the event when the text in the search bar is changed.
+   * Initializes a toggle button for filtering the search results on a result type.
+   *
+   * @param type the result type the button filters on, or null for all result types
+   * @return the initialized toggle button
+   */
+  private ToggleButton initializeFacetButton(SearchResultType type) {
+    ToggleButton button = new ToggleButton();
+    button.setUserData(type);
+    button.setToggleGroup(searchFacetGroup);
+    button.setStyle(FACET_STYLE);
+    return button;
+  }
+
+  /**
+   * Handles the event when the text in the search bar is changed. The text is looked up in the
+   * {@link TaskSearchIndex}, which matches words in the names and descriptions of tasks as well
+   * as in their change history. The tasks of all results are loaded in one query, as this runs
+   * on every keystroke.
    *
    * @param searchText the text in the search bar
    */
@@ -151,24 +230,79 @@ public class HeaderView extends HBox implements ButtonClickSubject {
       return;
     }
 
-    List<Task> matchingTasks = H2Manager.getAllTasks().stream()
-        .filter(task -> task.getName().toLowerCase().contains(searchText.toLowerCase()))
-        .toList();
+    SearchResultType facet = (SearchResultType) searchFacetGroup.getSelectedToggle().getUserData();
+    Set<SearchResultType> types = facet == null ? EnumSet.allOf(SearchResultType.class)
+        : EnumSet.of(facet);
+    SearchResults searchResults = TaskSearchIndex.getInstance().search(searchText, types,
+        MAX_SEARCH_RESULTS);
+
+    int taskCount = searchResults.count(SearchResultType.TASK);
+    int historyCount = searchResults.count(SearchResultType.HISTORY);
+    allFacetButton.setText("All (" + (taskCount + historyCount) + ")");
+    tasksFacetButton.setText("Tasks (" + taskCount + ")");
+    historyFacetButton.setText("History (" + historyCount + ")");
 
     searchResultsList.getItems().clear();
 
-    matchingTasks.forEach(task -> 
-        searchResultsList.getItems().add(createSearchResultItem(task)));
+    Map<UUID, Task> tasksById = H2Manager.getTasksByIds(searchResults.results().stream()
+        .map(SearchResult::taskId).collect(Collectors.toSet()));
+    for (SearchResult result : searchResults.results()) {
+      Task task = tasksById.get(result.taskId());
+      if (task == null) {
+        continue;
+      }
+      searchResultsList.getItems().add(result.type() == SearchResultType.TASK
+          ? createSearchResultItem(task) : createHistoryResultItem(task, result));
+    }
 
-    if (!matchingTasks.isEmpty() && !searchResultsPopup.isShowing()) {
+    boolean anyMatches = taskCount + historyCount > 0;
+    if (anyMatches && !searchResultsPopup.isShowing()) {
       searchResultsPopup.show(searchBar, 
           searchBar.localToScreen(0, 0).getX(),
           searchBar.localToScreen(0, 0).getY() + searchBar.getHeight());
-    } else if (matchingTasks.isEmpty()) {
+    } else if (!anyMatches) {
       searchResultsPopup.hide();
     }
   }
 
+  /**
+   * Creates a search result item for a change in the history of a task that is displayed in the
+   * search results popup.
+   *
+   * @param task the task the change was made to
+   * @param result the search result for the change
+   * @return the search result item
+   */
+  private HBox createHistoryResultItem(Task task, SearchResult result) {
+    MFXFontIcon historyIcon = new MFXFontIcon("fas-clock", 14);
+    historyIcon.setColor(Color.LIGHTGRAY);
+
+    Text taskName = new Text(task.getName());
+    taskName.setFill(Color.WHITE);
+
+    Text changeText = new Text(result.snippet());
+    changeText.setFill(Color.LIGHTGRAY);
+    changeText.setWrappingWidth(340);
+
+    HBox item = new HBox(historyIcon, new VBox(4, taskName, changeText));
+    item.setAlignment(Pos.CENTER_LEFT);
+    item.setPadding(new Insets(12));
+    item.setSpacing(12);
+    item.setStyle("-fx-background-color: #2B2B2B;");
+    item.setOnMouseEntered(e -> item.setStyle("-fx-background-color: #3D3D3D;"
+        + "-fx-scale-x: 1.03; -fx-scale-y: 1.03;"));
+    item.setOnMouseExited(e -> item.setStyle("-fx-background-color: #2B2B2B; "
+        + "-fx-scale-x: 1; -fx-scale-y: 1;"));
+
+    item.setOnMouseClicked(e -> {
+      notifyObserversWithTask("edit_task", task);
+      searchResultsPopup.hide();
+      searchBar.clear();
+    });
+
+    return item;
+  }
+
   /**
    * Creates a search result item for a task that is displayed in the search results popup.
    *
@@ -290,7 +424,7 @@ public class HeaderView extends HBox implements ButtonClickSubject {
     icon.setColor(ICON_COLOR);
     
     searchBar = new MFXTextField();
-    searchBar.setPromptText("Search tasks...");
+    searchBar.setPromptText("Search tasks and history...");
     searchBar.setLeadingIcon(icon);
     searchBar.setPadding(new Insets(0, 5, 0, 5));
     searchBar.setStyle("-fx-border-color: #D9D9D9; -fx-border-width: 1px; -fx-border-radius: 5;");
@@ -303,13 +437,75 @@ public class HeaderView extends HBox implements ButtonClickSubject {
     leftOptions.setAlignment(Pos.CENTER_LEFT);
     leftOptions.getStyleClass().add(DEFAULT_STYLE_CLASS);
 
-    HBox rightOptions = new HBox(refreshStorageButton, newTaskButton, distributeButton, userButton);
+    HBox rightOptions = new HBox(connectionText, pendingWritesText, refreshStorageButton,
+        newTaskButton, distributeButton, userButton);
     rightOptions.setAlignment(Pos.CENTER_RIGHT);
     rightOptions.getStyleClass().add(DEFAULT_STYLE_CLASS);
 
     this.getChildren().setAll(leftOptions, spacer, rightOptions);
   }
 
+  /**
+   * Shows how many changes are waiting to be stored in the database, next to the buttons of the
+   * main view header. Nothing is shown when no changes are waiting.
+   *
+   * @param pendingCount the number of changes waiting to be stored
+   */
+  public void showPendingWrites(int pendingCount) {
+    pendingWritesText.setText(pendingCount == 1 ? "1 change waiting to sync"
+        : pendingCount + " changes waiting to sync");
+    pendingWritesText.setVisible(pendingCount > 0);
+    pendingWritesText.setManaged(pendingCount > 0);
+  }
+
+  /**
+   * Shows whether the database is answering, next to the buttons of the main view header.
+   * Nothing is shown while it answers.
+   *
+   * @param state the state of the circuit breaker that guards the database
+   */
+  public void showConnectionState(CircuitBreaker.State state) {
+    connectionText.setText(state == CircuitBreaker.State.HALF_OPEN ? "Reconnecting..."
+        : "Offline");
+    connectionText.setVisible(state != CircuitBreaker.State.CLOSED);
+    connectionText.setManaged(state != CircuitBreaker.State.CLOSED);
+  }
+
+  /**
+   * Shows a warning that a change could not be stored, because someone else changed the task in
+   * the meantime.
+   *
+   * @param write the change that could not be stored
+   */
+  public void showWriteConflict(PendingWrite write) {
+    Platform.runLater(() -> {
+      Alert alert = new Alert(Alert.AlertType.WARNING);
+      alert.setTitle("Change Not Saved");
+      alert.setHeaderText(String.format("Your change to \"%s\" was not saved",
+          write.task().getName()));
+      alert.setContentText("Someone else changed the task while you were offline. The task now "
+          + "shows their version.");
+      alert.showAndWait();
+    });
+  }
+
+  /**
+   * Shows an error that a change could not be stored, because the database refused it.
+   *
+   * @param write the change that could not be stored
+   */
+  public void showWriteFailure(PendingWrite write) {
+    Platform.runLater(() -> {
+      Alert alert = new Alert(Alert.AlertType.ERROR);
+      alert.setTitle("Change Not Saved");
+      alert.setHeaderText(String.format("Your change to \"%s\" was not saved",
+          write.task().getName()));
+      alert.setContentText("The database refused the change. The task now shows the stored "
+          + "version.");
+      alert.showAndWait();
+    });
+  }
+
   /**
    * Shows the new task view header.
    */
@@ -1,10 +1,10 @@
 package no.ntnu.idatx1005.view.content;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import java.util.UUID;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -13,10 +13,17 @@ import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import no.ntnu.idatx1005.analytics.AnalyticsSnapshot;
+import no.ntnu.idatx1005.analytics.AnalyticsStats;
+import no.ntnu.idatx1005.analytics.InsightsAggregator;
+import no.ntnu.idatx1005.analytics.InsightsSummary;
+import no.ntnu.idatx1005.analytics.TaskAnalytics;
 import no.ntnu.idatx1005.model.task.Priority;
-import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.storage.H2Manager;
 import no.ntnu.idatx1005.view.container.ContentView;
 
@@ -26,6 +33,11 @@ import no.ntnu.idatx1005.view.container.ContentView;
  * <p>The view extends the {@link VBox} class. The view is meant to be used as a child of the
  * {@link ContentView} class.
  *
+ * <p>The nodes of the view are created once, and {@link #updateInsights(InsightsSummary)} updates
+ * their contents and the chart data in place with the counters of the {@link InsightsAggregator}.
+ * Likewise, {@link #updateAnalytics(AnalyticsSnapshot)} updates the lead time and throughput
+ * charts with the statistics of the {@link TaskAnalytics}.
+ *
  * <p>For more information about the BarChart, see
  * <a href="https://docs.oracle.com/javafx/2/charts/bar-chart.htm">BarChart</a>.
  *
@@ -35,7 +47,15 @@ import no.ntnu.idatx1005.view.container.ContentView;
  * @since V1.1.0
  */
 public class InsightsView extends VBox {
-  private ObservableList<Task> openTasks;
+  private final VBox completedTodayItems = new VBox();
+  private final VBox completedWeekItems = new VBox();
+  private final VBox pendingItems = new VBox();
+  private final Map<Priority, XYChart.Data<String, Number>> priorityData =
+      new EnumMap<>(Priority.class);
+  private final Map<Priority, List<XYChart.Data<String, Number>>> leadTimeData =
+      new EnumMap<>(Priority.class);
+  private final List<XYChart.Data<String, Number>> throughputData = new ArrayList<>();
+  private final VBox breakdownItems = new VBox();
 
   /**
    * Constructs a new insights view.
@@ -45,7 +65,6 @@ public class InsightsView extends VBox {
     this.getStyleClass().add("content");
     VBox.setVgrow(this, javafx.scene.layout.Priority.ALWAYS);
 
-    fetchTasksFromDatabase();
     initializeInsightsLayout();
   }
 
@@ -67,7 +86,84 @@ public class InsightsView extends VBox {
     insightsLayout.getStyleClass().add("insights-layout");
     insightsLayout.setAlignment(Pos.TOP_CENTER);
 
-    this.getChildren().setAll(insightsLayout);
+    final HBox analyticsLayout = new HBox(20);
+    final VBox analyticsLeftColumn = new VBox(15);
+    final VBox analyticsRightColumn = new VBox(15);
+
+    analyticsLeftColumn.getChildren().addAll(leadTimeView(), breakdownView());
+    analyticsRightColumn.getChildren().add(throughputView());
+
+    analyticsLeftColumn.setPrefWidth(500);
+    analyticsRightColumn.setPrefWidth(500);
+
+    analyticsLayout.getChildren().addAll(analyticsLeftColumn, analyticsRightColumn);
+    analyticsLayout.getStyleClass().add("insights-layout");
+    analyticsLayout.setAlignment(Pos.TOP_CENTER);
+
+    VBox sections = new VBox(20, insightsLayout, analyticsLayout);
+    ScrollPane scrollPane = new ScrollPane(sections);
+    scrollPane.setFitToWidth(true);
+    scrollPane.getStyleClass().add("insights-scroll-pane");
+    VBox.setVgrow(scrollPane, javafx.scene.layout.Priority.ALWAYS);
+
+    this.getChildren().setAll(scrollPane);
+    updateInsights(InsightsAggregator.getInstance().getSummary());
+    updateAnalytics(TaskAnalytics.getInstance().getSnapshot());
+  }
+
+  /**
+   * Updates the contents of the view with the given insights, without recreating the boxes or
+   * the chart.
+   *
+   * @param summary the insights to show
+   */
+  public void updateInsights(InsightsSummary summary) {
+    updateTaskItems(completedTodayItems, summary.completedToday(), "No tasks completed today");
+    updateTaskItems(completedWeekItems, summary.completedThisWeek(),
+        "No tasks completed this week");
+    updatePendingItems(summary.pendingPreview(), summary.pendingCount());
+
+    for (Priority priority : Priority.values()) {
+      XYChart.Data<String, Number> data = priorityData.get(priority);
+      if (data != null) {
+        data.setYValue(summary.openByPriority().getOrDefault(priority, 0));
+      }
+    }
+  }
+
+  /**
+   * Updates the lead time and throughput charts and the breakdown with the given analytics,
+   * without recreating the charts.
+   *
+   * @param snapshot the analytics to show
+   */
+  public void updateAnalytics(AnalyticsSnapshot snapshot) {
+    for (Priority priority : Priority.values()) {
+      List<XYChart.Data<String, Number>> data = leadTimeData.get(priority);
+      AnalyticsStats stats = snapshot.byPriority().get(priority);
+      if (data != null) {
+        data.get(0).setYValue(stats == null ? 0 : toHours(stats.p50Minutes()));
+        data.get(1).setYValue(stats == null ? 0 : toHours(stats.p90Minutes()));
+        data.get(2).setYValue(stats == null ? 0 : toHours(stats.p99Minutes()));
+      }
+    }
+
+    List<Long> weeklyThroughput = snapshot.overall().weeklyThroughput();
+    for (int i = 0; i < throughputData.size() && i < weeklyThroughput.size(); i++) {
+      throughputData.get(i).setYValue(weeklyThroughput.get(i));
+    }
+
+    updateBreakdownItems(snapshot);
+  }
+
+  /**
+   * Converts minutes to hours with one decimal.
+   *
+   * @param minutes the minutes
+   * @return the hours
+   */
+  private static double toHours(long minutes) {
+    return Math.round(minutes / 6.0) / 10.0;
   }
 
   /**
@@ -85,23 +181,7 @@ public class InsightsView extends VBox {
     titleLabel.setAlignment(Pos.CENTER);
     titleLabel.setMaxWidth(Double.MAX_VALUE);
 
-    completedTasksTodayBox.getChildren().addAll(titleLabel);
-
-    List<Task> completedTasksToday = H2Manager.getTasksCompletedToday();
-
-    if (completedTasksToday.isEmpty()) {
-      Label noTasksLabel = new Label("No tasks completed today");
-      noTasksLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14px");
-      noTasksLabel.setAlignment(Pos.CENTER);
-      noTasksLabel.setMaxWidth(Double.MAX_VALUE);
-      completedTasksTodayBox.getChildren().addAll(noTasksLabel);
-    } else {
-
-      for (Task task : completedTasksToday) {
-        VBox taskItem = createTaskItem(task.getName());
-        completedTasksTodayBox.getChildren().add(taskItem);
-      }
-    }
+    completedTasksTodayBox.getChildren().addAll(titleLabel, completedTodayItems);
 
     return completedTasksTodayBox;
   }
@@ -121,25 +201,59 @@ public class InsightsView extends VBox {
     titleLabel.setAlignment(Pos.CENTER);
     titleLabel.setMaxWidth(Double.MAX_VALUE);
 
-    completedTasksWeekBox.getChildren().addAll(titleLabel);
+    completedTasksWeekBox.getChildren().addAll(titleLabel, completedWeekItems);
 
-    List<Task> completedTasksWeekly = H2Manager.getTasksCompletedThisWeek();
+    return completedTasksWeekBox;
+  }
 
-    if (completedTasksWeekly.isEmpty()) {
-      Label noTasksLabel = new Label("No tasks completed this week");
-      noTasksLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14;");
+  /**
+   * Replaces the items of a completed tasks box.
+   *
+   * @param items the container of the items
+   * @param taskNames the names of the completed tasks
+   * @param emptyText the text shown when there are no completed tasks
+   */
+  private void updateTaskItems(VBox items, List<String> taskNames, String emptyText) {
+    if (taskNames.isEmpty()) {
+      Label noTasksLabel = new Label(emptyText);
+      noTasksLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14px");
       noTasksLabel.setAlignment(Pos.CENTER);
       noTasksLabel.setMaxWidth(Double.MAX_VALUE);
-      completedTasksWeekBox.getChildren().addAll(noTasksLabel);
+      items.getChildren().setAll(noTasksLabel);
     } else {
+      items.getChildren().setAll(taskNames.stream().map(this::createTaskItem).toList());
+    }
+  }
 
-      for (Task task : completedTasksWeekly) {
-        VBox taskItem = createTaskItem(task.getName());
-        completedTasksWeekBox.getChildren().add(taskItem);
-      }
+  /**
+   * Replaces the items of the pending tasks box.
+   *
+   * @param taskNames the names of the first pending tasks
+   * @param pendingCount the total number of pending tasks
+   */
+  private void updatePendingItems(List<String> taskNames, int pendingCount) {
+    if (pendingCount == 0) {
+      Label noTasksLabel = new Label("No pending tasks");
+      noTasksLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
+      noTasksLabel.setAlignment(Pos.CENTER);
+      noTasksLabel.setMaxWidth(Double.MAX_VALUE);
+      pendingItems.getChildren().setAll(noTasksLabel);
+      return;
     }
 
-    return completedTasksWeekBox;
+    pendingItems.getChildren().clear();
+    for (String taskName : taskNames) {
+      Label taskLabel = new Label(taskName);
+      taskLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
+      pendingItems.getChildren().add(taskLabel);
+    }
+    //Limits overflow.
+    int remaining = pendingCount - taskNames.size();
+    if (remaining > 0) {
+      Label moreLabel = new Label("+" + remaining + " more");
+      moreLabel.setStyle("-fx-text-fill: white; -fx-font-size: 12px;");
+      pendingItems.getChildren().add(moreLabel);
+    }
   }
 
   /**
@@ -182,35 +296,7 @@ public class InsightsView extends VBox {
     titleLabel.setAlignment(Pos.CENTER);
     titleLabel.setMaxWidth(Double.MAX_VALUE);
 
-    pendingTasksBox.getChildren().addAll(titleLabel);
-
-    List<Task> pendingTasks = H2Manager.getOpenTasks();
-
-    if (pendingTasks.isEmpty()) {
-      Label noTasksLabel = new Label("No pending tasks");
-      noTasksLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
-      noTasksLabel.setAlignment(Pos.CENTER);
-      noTasksLabel.setMaxWidth(Double.MAX_VALUE);
-      pendingTasksBox.getChildren().addAll(noTasksLabel);
-    } else {
-      int count = 0;
-      for (Task task : pendingTasks) {
-        Label taskLabel = new Label(task.getName());
-        taskLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
-        pendingTasksBox.getChildren().add(taskLabel);
-        count++;
-        //Limits overflow.
-        if (count >= 5) {
-          int remaining = pendingTasks.size() - 5;
-          if (remaining > 0) {
-            Label moreLabel = new Label("+" + remaining + " more");
-            moreLabel.setStyle("-fx-text-fill: white; -fx-font-size: 12px;");
-            pendingTasksBox.getChildren().add(moreLabel);
-          }
-          break;
-        }
-      }
-    }
+    pendingTasksBox.getChildren().addAll(titleLabel, pendingItems);
 
     return pendingTasksBox;
   }
@@ -230,17 +316,18 @@ public class InsightsView extends VBox {
     barChart.setTitle("Pending Tasks by Priority");
     barChart.getStyleClass().add("bar-chart");
 
-    Map<Priority, Integer> taskCountByPriority = countTaskByPriority();
-
-    // Creates a data series
+    // Creates a data series, the values are updated in place by updateInsights
     XYChart.Series<String, Number> series = new XYChart.Series<>();
     series.setName("Tasks");
 
     // Adds data to series
+    Map<Priority, Integer> taskCountByPriority = InsightsAggregator.getInstance().getSummary()
+        .openByPriority();
     for (Priority priority : Priority.values()) {
-      series.getData().add(new XYChart.Data<>(
-          priority.toString(), taskCountByPriority.getOrDefault(priority, 0)
-      ));
+      XYChart.Data<String, Number> data = new XYChart.Data<>(
+          priority.toString(), taskCountByPriority.getOrDefault(priority, 0));
+      priorityData.put(priority, data);
+      series.getData().add(data);
     }
 
     // Adds series to chart
@@ -282,31 +369,154 @@ public class InsightsView extends VBox {
   }
 
   /**
-   * Counts the number of tasks for each priority.
+   * Creates the chart with lead time percentiles per priority.
    *
-   * @return A map with priority as key and task count as value
+   * @return The lead time view.
    */
-  private Map<Priority, Integer> countTaskByPriority() {
-    Map<Priority, Integer> taskCountByPriority = new EnumMap<>(Priority.class);
+  private VBox leadTimeView() {
+    final CategoryAxis xAxis = new CategoryAxis();
+    final NumberAxis yAxis = new NumberAxis();
+    xAxis.setLabel("Priority");
+    yAxis.setLabel("Lead time (hours)");
+
+    BarChart<String, Number> barChart = new BarChart<>(xAxis, yAxis);
+    barChart.setTitle("Lead Time by Priority (" + TaskAnalytics.WINDOW_WEEKS + " weeks)");
+    barChart.getStyleClass().add("bar-chart");
+
+    // One series per percentile, the values are updated in place by updateAnalytics
+    List<XYChart.Series<String, Number>> percentiles = List.of(
+        new XYChart.Series<>(), new XYChart.Series<>(), new XYChart.Series<>());
+    percentiles.get(0).setName("p50");
+    percentiles.get(1).setName("p90");
+    percentiles.get(2).setName("p99");
 
-    // Initialize counts for all priorities.
     for (Priority priority : Priority.values()) {
-      taskCountByPriority.put(priority, 0);
+      List<XYChart.Data<String, Number>> data = new ArrayList<>();
+      for (XYChart.Series<String, Number> series : percentiles) {
+        XYChart.Data<String, Number> point = new XYChart.Data<>(priority.toString(), 0);
+        series.getData().add(point);
+        data.add(point);
+      }
+      leadTimeData.put(priority, data);
     }
 
-    // Counts tasks for each priority
-    for (Task task : openTasks) {
-      Priority priority = task.getPriority();
-      taskCountByPriority.put(priority, taskCountByPriority.get(priority) + 1);
+    barChart.getData().addAll(percentiles);
+    barChart.setAnimated(false);
+    styleChart(barChart, xAxis, yAxis);
+
+    return new VBox(barChart);
+  }
+
+  /**
+   * Creates the chart with the number of completed tasks per week.
+   *
+   * @return The throughput view.
+   */
+  private VBox throughputView() {
+    final CategoryAxis xAxis = new CategoryAxis();
+    final NumberAxis yAxis = new NumberAxis();
+    xAxis.setLabel("Week");
+    yAxis.setLabel("Completed Tasks");
+
+    BarChart<String, Number> barChart = new BarChart<>(xAxis, yAxis);
+    barChart.setTitle("Weekly Throughput");
+    barChart.getStyleClass().add("bar-chart");
+
+    // Weeks are labelled relative to the current week, so the categories never change
+    XYChart.Series<String, Number> series = new XYChart.Series<>();
+    series.setName("Completed");
+    for (int weeksAgo = TaskAnalytics.WINDOW_WEEKS - 1; weeksAgo >= 0; weeksAgo--) {
+      XYChart.Data<String, Number> data =
+          new XYChart.Data<>(weeksAgo == 0 ? "Now" : "-" + weeksAgo, 0);
+      throughputData.add(data);
+      series.getData().add(data);
+    }
+
+    barChart.getData().add(series);
+    barChart.setAnimated(false);
+    barChart.setLegendVisible(false);
+    styleChart(barChart, xAxis, yAxis);
+
+    return new VBox(barChart);
+  }
+
+  /**
+   * Creates the view with overdue rates and throughput per size and user.
+   *
+   * @return The breakdown view.
+   */
+  private VBox breakdownView() {
+    VBox breakdownBox = new VBox();
+    breakdownBox.getStyleClass().add("pending-tasks-box");
+    breakdownBox.setPadding(new Insets(15));
+
+    Label titleLabel = new Label("Breakdown (" + TaskAnalytics.WINDOW_WEEKS + " weeks)");
+    titleLabel.setStyle("-fx-text-fill: white; -fx-font-size: 16px; -fx-font-weight: bold;");
+    titleLabel.setAlignment(Pos.CENTER);
+    titleLabel.setMaxWidth(Double.MAX_VALUE);
+
+    breakdownBox.getChildren().addAll(titleLabel, breakdownItems);
+
+    return breakdownBox;
+  }
+
+  /**
+   * Replaces the lines of the breakdown box.
+   *
+   * @param snapshot the analytics to show
+   */
+  private void updateBreakdownItems(AnalyticsSnapshot snapshot) {
+    List<Label> lines = new ArrayList<>();
+    lines.add(createBreakdownLine("All tasks", snapshot.overall()));
+    for (Size size : Size.values()) {
+      AnalyticsStats stats = snapshot.bySize().get(size);
+      if (stats != null && stats.completed() > 0) {
+        lines.add(createBreakdownLine("Size " + size, stats));
+      }
+    }
+    for (Map.Entry<UUID, AnalyticsStats> entry : snapshot.byUser().entrySet()) {
+      if (entry.getValue().completed() > 0) {
+        User user = H2Manager.getUserById(entry.getKey());
+        String name = user == null ? "Unknown user"
+            : user.getFirstName() + " " + user.getLastName();
+        lines.add(createBreakdownLine(name, entry.getValue()));
+      }
     }
-    return taskCountByPriority;
+    breakdownItems.getChildren().setAll(lines);
   }
 
   /**
-   * Fetches the tasks from the database.
+   * Creates a line of the breakdown box.
+   *
+   * @param name the name of the group
+   * @param stats the statistics of the group
+   * @return The breakdown line.
+   */
+  private Label createBreakdownLine(String name, AnalyticsStats stats) {
+    Label line = new Label(String.format("%s: %d completed, %.1f per week, %.0f%% overdue",
+        name, stats.completed(), stats.averageThroughput(), stats.overdueRate() * 100));
+    line.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
+    return line;
+  }
+
+  /**
+   * Styles the axes and title of a chart like the priority chart.
+   *
+   * @param barChart the chart
+   * @param xAxis the category axis
+   * @param yAxis the number axis
    */
-  private void fetchTasksFromDatabase() {
-    List<Task> openTasksFromDb = H2Manager.getOpenTasks();
-    openTasks = FXCollections.observableList(openTasksFromDb);
+  private void styleChart(BarChart<String, Number> barChart, CategoryAxis xAxis,
+      NumberAxis yAxis) {
+    xAxis.setTickLabelFill(javafx.scene.paint.Color.WHITE);
+    yAxis.setTickLabelFill(javafx.scene.paint.Color.WHITE);
+
+    xAxis.setStyle("-fx-text-fill: white;");
+    yAxis.setStyle("-fx-text-fill: white;");
+
+    final Node chartTitle = barChart.lookup(".chart-title");
+    if (chartTitle != null) {
+      chartTitle.setStyle("-fx-text-fill: white;");
+    }
   }
 }
@@ -19,6 +19,7 @@ import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
+import no.ntnu.idatx1005.analytics.RebalancePlan;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.model.user.User;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
@@ -405,4 +406,32 @@ public class SettingsView extends VBox implements ButtonClickSubject {
         + "deleted.");
     return alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
   }
+
+  /**
+   * Shows a preview of how the open tasks of a sick user are moved to the other users, and asks
+   * for confirmation.
+   *
+   * @param plan the rebalance plan to preview
+   * @return true if the user confirms the plan, false otherwise
+   */
+  public boolean showRebalancePreviewDialog(RebalancePlan plan) {
+    StringBuilder content = new StringBuilder();
+    for (RebalancePlan.Reassignment reassignment : plan.reassignments()) {
+      content.append(String.format("- %s: %s %s%n", reassignment.task().getName(),
+          reassignment.user().getFirstName(), reassignment.user().getLastName()));
+    }
+    if (!plan.unplacedTasks().isEmpty()) {
+      content.append(String.format("%nNo one has room for these tasks, so they stay with you:%n"));
+      for (Task task : plan.unplacedTasks()) {
+        content.append(String.format("- %s%n", task.getName()));
+      }
+    }
+
+    Alert alert = new Alert(AlertType.CONFIRMATION);
+    alert.setTitle("Sick Leave");
+    alert.setHeaderText(String.format("Move %d of your open tasks to others while you are sick?",
+        plan.reassignments().size()));
+    alert.setContentText(content.toString().strip());
+    return alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
+  }
 }
@@ -135,6 +135,12 @@ public class SidebarView extends VBox implements ButtonClickSubject {
     initializeButton(completedTasksButton, "Completed tasks", "fas-check-double",
         actionEvent -> notifyObservers("completed_tasks"));
 
+    MFXButton filterTasksButton = new MFXButton();
+    filterTasksButton.setStyle("-fx-border-color: #D9D9D9; -fx-border-width: 1px; "
+        + "-fx-border-radius: 5;");
+    initializeButton(filterTasksButton, "Filter Tasks", "fas-filter",
+        actionEvent -> notifyObservers("filter_tasks"));
+
     MFXButton insightsButton = new MFXButton();
     insightsButton.setStyle("-fx-border-color: #D9D9D9; -fx-border-width: 1px; "
         + "-fx-border-radius: 5;");
@@ -155,7 +161,7 @@ public class SidebarView extends VBox implements ButtonClickSubject {
     VBox.setMargin(logoutButton, new Insets(0, 10, 10, 10));
 
     VBox sidebarButtons = new VBox(allTasksButton, openTasksButton, myTasksButton,
-        completedTasksButton, insightsButton, settingsButton);
+        completedTasksButton, filterTasksButton, insightsButton, settingsButton);
     sidebarButtons.setSpacing(5);
     VBox.setMargin(sidebarButtons, new Insets(0, 10, 0, 10));
 
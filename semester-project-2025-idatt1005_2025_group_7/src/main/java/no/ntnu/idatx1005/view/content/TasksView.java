@@ -1,26 +1,40 @@
 package no.ntnu.idatx1005.view.content;
 
+import io.github.palexdev.materialfx.controls.MFXButton;
 import io.github.palexdev.materialfx.controls.MFXTableColumn;
 import io.github.palexdev.materialfx.controls.MFXTableView;
 import io.github.palexdev.materialfx.controls.cell.MFXTableRowCell;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.Node;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.util.Duration;
+import no.ntnu.idatx1005.model.task.ArchivedTask;
 import no.ntnu.idatx1005.model.task.Task;
 import no.ntnu.idatx1005.observer.ButtonClickObserver;
 import no.ntnu.idatx1005.observer.ButtonClickSubject;
+import no.ntnu.idatx1005.search.DueRange;
+import no.ntnu.idatx1005.search.TaskFacet;
+import no.ntnu.idatx1005.search.TaskFacetIndex;
+import no.ntnu.idatx1005.search.TaskFilter;
 import no.ntnu.idatx1005.view.container.ContentView;
 
 /**
@@ -39,26 +53,46 @@ import no.ntnu.idatx1005.view.container.ContentView;
  */
 public class TasksView extends VBox implements ButtonClickSubject {
   private static final Duration TOOLTIP_DELAY = Duration.millis(300);
+  private static final TaskFacet[] FACET_ORDER = {TaskFacet.STATUS, TaskFacet.PRIORITY,
+      TaskFacet.SIZE, TaskFacet.DUE, TaskFacet.ASSIGNEE};
 
   private ObservableList<Task> todaysTasks = FXCollections.observableArrayList();
   private ObservableList<Task> weeklyTasks = FXCollections.observableArrayList();
   private ObservableList<Task> allTasks = FXCollections.observableArrayList();
   private ObservableList<Task> completedTasks = FXCollections.observableArrayList();
   private ObservableList<Task> openTasks = FXCollections.observableArrayList();
+  private final ObservableList<Task> facetedTasks = FXCollections.observableArrayList();
+  private final ObservableList<Task> archivedTasks = FXCollections.observableArrayList();
   private MFXTableView<Task> todaysTasksTable;
   private MFXTableView<Task> weeklyTasksTable;
   private MFXTableView<Task> allTasksTable;
   private MFXTableView<Task> completedTasksTable;
   private MFXTableView<Task> openTasksTable;
+  private MFXTableView<Task> facetedTasksTable;
+  private MFXTableView<Task> archivedTasksTable;
+  private MFXButton archiveButton;
+  private HBox facetedTasksLayout;
+  private VBox facetPanel;
+  private Label facetResultLabel;
+  private final Map<TaskFacet, Map<Object, CheckBox>> facetValueBoxes;
+  private Map<TaskFacet, Map<Object, String>> facetValueNames;
   private final LinkedHashMap<String, String> todaysTasksColumns;
   private final LinkedHashMap<String, String> weeklyTasksColumns;
   private final LinkedHashMap<String, String> allTasksColumns;
   private final LinkedHashMap<String, String> completedTasksColumns;
   private final LinkedHashMap<String, String> openTasksColumns;
+  private final LinkedHashMap<String, String> facetedTasksColumns;
+  private final LinkedHashMap<String, String> archivedTasksColumns;
+  private final TaskFilter taskFilter;
+  private TaskFacetIndex facetIndex;
 
   private final List<ButtonClickObserver> observers;
   private Consumer<Task> taskClickCallback;
   private Function<Task, String> formatAssigneeNames;
+  private Function<UUID, String> formatUserName;
+  private Function<ArchivedTask, List<ArchivedTask>> archivedTasksLoader;
+  private ArchivedTask lastArchivedTask;
+  private boolean hasMoreArchivedTasks = true;
 
   /**
    * Constructs a new tasks view.
@@ -71,6 +105,11 @@ public class TasksView extends VBox implements ButtonClickSubject {
     this.allTasksColumns = setColumns("All tasks", false);
     this.completedTasksColumns = setColumns("Completed tasks", true);
     this.openTasksColumns = setColumns("Open tasks", false);
+    this.facetedTasksColumns = setColumns("Filtered tasks", false);
+    this.archivedTasksColumns = setColumns("Archived tasks", true);
+    this.taskFilter = new TaskFilter();
+    this.facetValueBoxes = new EnumMap<>(TaskFacet.class);
+    this.facetValueNames = Map.of();
 
     this.getStyleClass().add("content");
   }
@@ -135,6 +174,52 @@ public class TasksView extends VBox implements ButtonClickSubject {
     this.formatAssigneeNames = formatAssigneeNames;
   }
 
+  /**
+   * Sets the format user name function, used for the assignee facet.
+   *
+   * @param formatUserName the format user name function
+   */
+  public void setFormatUserName(Function<UUID, String> formatUserName) {
+    this.formatUserName = formatUserName;
+  }
+
+  /**
+   * Sets the loader of the pages of archived tasks.
+   *
+   * @param archivedTasksLoader returns the page of archived tasks after the given one, or the
+   *     first page if it is null
+   */
+  public void setArchivedTasksLoader(
+      Function<ArchivedTask, List<ArchivedTask>> archivedTasksLoader) {
+    this.archivedTasksLoader = archivedTasksLoader;
+  }
+
+  /**
+   * Refreshes the facet index used by the faceted tasks view. The current filter selection is
+   * kept. The names of the facet values, like the names of the assignees, are looked up once
+   * here, so selecting a value only updates the counts of the facet panel.
+   *
+   * @param facetIndex the facet index over all tasks
+   */
+  public void refreshFacetIndex(TaskFacetIndex facetIndex) {
+    Map<TaskFacet, Map<Object, String>> names = new EnumMap<>(TaskFacet.class);
+    for (TaskFacet facet : FACET_ORDER) {
+      Map<Object, String> valueNames = new LinkedHashMap<>();
+      facetIndex.getValues(facet).forEach(value ->
+          valueNames.put(value, formatFacetValue(facet, value)));
+      names.put(facet, valueNames);
+    }
+
+    Platform.runLater(() -> {
+      this.facetIndex = facetIndex;
+      this.facetValueNames = names;
+      if (this.getChildren().contains(facetedTasksLayout)) {
+        buildFacetPanel();
+        updateFacetedTasks();
+      }
+    });
+  }
+
   /**
    * Refreshes the tasks table.
    *
@@ -211,7 +296,61 @@ public class TasksView extends VBox implements ButtonClickSubject {
     populateTable(completedTasksTable, completedTasksColumns);
     setClickAction(completedTasksTable);
 
-    this.getChildren().setAll(completedTasksTable);
+    archiveButton = new MFXButton();
+    archiveButton.setOnAction(actionEvent -> loadArchivedTasks());
+    updateArchiveButton();
+    if (archivedTasks.isEmpty()) {
+      this.getChildren().setAll(completedTasksTable, archiveButton);
+      return;
+    }
+    // Archived tasks are not part of the working set, so they cannot be opened and edited
+    archivedTasksTable = new MFXTableView<>(archivedTasks);
+    archivedTasksTable.setFooterVisible(false);
+    populateTable(archivedTasksTable, archivedTasksColumns);
+    this.getChildren().setAll(completedTasksTable, archivedTasksTable, archiveButton);
+  }
+
+  /**
+   * Fetches the next page of archived tasks in the background, and shows it below the completed
+   * tasks once it is fetched.
+   */
+  private void loadArchivedTasks() {
+    if (archivedTasksLoader == null || !hasMoreArchivedTasks) {
+      return;
+    }
+    archiveButton.setDisable(true);
+    ArchivedTask after = lastArchivedTask;
+    CompletableFuture.supplyAsync(() -> archivedTasksLoader.apply(after))
+        .thenAccept(page -> Platform.runLater(() -> {
+          if (page.isEmpty()) {
+            hasMoreArchivedTasks = false;
+          } else {
+            lastArchivedTask = page.getLast();
+            page.forEach(archivedTask -> archivedTasks.add(archivedTask.task()));
+          }
+          if (this.getChildren().contains(completedTasksTable)) {
+            completedTasksView();
+          }
+        }))
+        .exceptionally(e -> {
+          // The archive is only kept remotely, so it can be loaded again once it answers
+          Platform.runLater(() -> archiveButton.setDisable(false));
+          return null;
+        });
+  }
+
+  /**
+   * Updates the text of the archive button to what clicking it will do.
+   */
+  private void updateArchiveButton() {
+    if (!hasMoreArchivedTasks) {
+      archiveButton.setText("No more archived tasks");
+    } else if (archivedTasks.isEmpty()) {
+      archiveButton.setText("Show archived tasks");
+    } else {
+      archiveButton.setText("Show more archived tasks");
+    }
+    archiveButton.setDisable(!hasMoreArchivedTasks);
   }
 
   /**
@@ -226,6 +365,137 @@ public class TasksView extends VBox implements ButtonClickSubject {
     this.getChildren().setAll(openTasksTable);
   }
 
+  /**
+   * Displays the faceted tasks view, with a panel of facets to filter all tasks on.
+   */
+  public void facetedTasksView() {
+    facetedTasksTable = new MFXTableView<>(facetedTasks);
+    facetedTasksTable.setFooterVisible(false);
+    populateTable(facetedTasksTable, facetedTasksColumns);
+    setClickAction(facetedTasksTable);
+    HBox.setHgrow(facetedTasksTable, Priority.ALWAYS);
+
+    facetPanel = new VBox();
+    facetPanel.getStyleClass().add("facet-panel");
+
+    ScrollPane facetScrollPane = new ScrollPane(facetPanel);
+    facetScrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+    facetScrollPane.setFitToWidth(true);
+    facetScrollPane.setMinWidth(200);
+    facetScrollPane.getStyleClass().add("facet-scroll-pane");
+
+    facetedTasksLayout = new HBox(10, facetScrollPane, facetedTasksTable);
+    VBox.setVgrow(facetedTasksLayout, Priority.ALWAYS);
+
+    this.getChildren().setAll(facetedTasksLayout);
+    buildFacetPanel();
+    updateFacetedTasks();
+  }
+
+  /**
+   * Builds the controls of the facet panel, one check box per value of every facet in the facet
+   * index. The controls are only built when the index changes, and updated in place when the
+   * filter selection changes.
+   */
+  private void buildFacetPanel() {
+    facetValueBoxes.clear();
+    if (facetIndex == null) {
+      facetPanel.getChildren().clear();
+      return;
+    }
+
+    Label clearLabel = new Label("Clear filters");
+    clearLabel.getStyleClass().add("facet-clear-label");
+    clearLabel.setOnMouseClicked(mouseEvent -> {
+      taskFilter.clear();
+      updateFacetedTasks();
+    });
+
+    facetResultLabel = new Label();
+    facetResultLabel.getStyleClass().add("facet-value");
+    facetPanel.getChildren().setAll(facetResultLabel, clearLabel);
+
+    for (TaskFacet facet : FACET_ORDER) {
+      Label facetTitle = new Label(formatFacet(facet));
+      facetTitle.getStyleClass().add("facet-title");
+      facetPanel.getChildren().add(facetTitle);
+
+      Map<Object, CheckBox> valueBoxes = new LinkedHashMap<>();
+      for (Object value : facetIndex.getValues(facet)) {
+        CheckBox valueBox = new CheckBox();
+        valueBox.getStyleClass().add("facet-value");
+        valueBox.setOnAction(actionEvent -> {
+          taskFilter.toggle(facet, value);
+          updateFacetedTasks();
+        });
+        valueBoxes.put(value, valueBox);
+        facetPanel.getChildren().add(valueBox);
+      }
+      facetValueBoxes.put(facet, valueBoxes);
+    }
+  }
+
+  /**
+   * Updates the faceted tasks table, and the counts and selections of the controls in the facet
+   * panel, from the facet index and the current filter selection.
+   */
+  private void updateFacetedTasks() {
+    if (facetIndex == null) {
+      return;
+    }
+    facetedTasks.setAll(facetIndex.getTasks(taskFilter));
+    facetResultLabel.setText(facetedTasks.size() + " of " + facetIndex.size() + " tasks");
+
+    for (TaskFacet facet : FACET_ORDER) {
+      Map<Object, CheckBox> valueBoxes = facetValueBoxes.getOrDefault(facet, Map.of());
+      Map<Object, String> valueNames = facetValueNames.getOrDefault(facet, Map.of());
+      facetIndex.count(facet, taskFilter).forEach((value, count) -> {
+        CheckBox valueBox = valueBoxes.get(value);
+        if (valueBox != null) {
+          valueBox.setText(valueNames.getOrDefault(value, value.toString()) + " (" + count + ")");
+          valueBox.setSelected(taskFilter.isSelected(facet, value));
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns the title shown for a facet.
+   *
+   * @param facet the facet
+   * @return the title of the facet
+   */
+  private String formatFacet(TaskFacet facet) {
+    return switch (facet) {
+      case STATUS -> "Status";
+      case PRIORITY -> "Priority";
+      case SIZE -> "Size";
+      case DUE -> "Due";
+      case ASSIGNEE -> "Assignee";
+    };
+  }
+
+  /**
+   * Returns the text shown for a value of a facet.
+   *
+   * @param facet the facet of the value
+   * @param value the value
+   * @return the text of the value
+   */
+  private String formatFacetValue(TaskFacet facet, Object value) {
+    return switch (facet) {
+      case STATUS -> Boolean.TRUE.equals(value) ? "Completed" : "Open";
+      case DUE -> ((DueRange) value).getDisplayName();
+      case ASSIGNEE -> {
+        if (TaskFacetIndex.UNASSIGNED.equals(value)) {
+          yield "Unassigned";
+        }
+        yield formatUserName == null ? value.toString() : formatUserName.apply((UUID) value);
+      }
+      default -> value.toString();
+    };
+  }
+
   /**
    * Sets the columns for the tables.
    *
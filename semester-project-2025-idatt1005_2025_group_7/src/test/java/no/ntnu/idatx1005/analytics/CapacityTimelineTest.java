@@ -0,0 +1,113 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the CapacityTimeline.
+ */
+public class CapacityTimelineTest {
+  private final LocalDate today = LocalDate.of(2025, 4, 9);
+  private User user;
+  private CapacityTimeline timeline;
+
+  @BeforeEach
+  void setUp() {
+    user = new User(UUID.randomUUID(), "Test", "Test", "test@test.com", new byte[]{1, 2, 3},
+        new byte[]{4, 5, 6}, 20, false);
+    timeline = new CapacityTimeline(Clock.fixed(today.atTime(12, 0).toInstant(ZoneOffset.UTC),
+        ZoneOffset.UTC));
+  }
+
+  private Task createAssignedTask(Size size, LocalDate dueDate) {
+    Task task = new Task(UUID.randomUUID(), false, "Task", "", LocalDateTime.now(),
+        dueDate.atTime(12, 0), Priority.MEDIUM, size);
+    task.setAssignedUserIds(List.of(user.getId()));
+    return task;
+  }
+
+  @Nested
+  @DisplayName("Load Tests")
+  class LoadTests {
+    @Test
+    @DisplayName("Load is placed on the due day")
+    void loadIsPlacedOnTheDueDay() {
+      timeline.synchronize(List.of(createAssignedTask(Size.M, today.plusDays(2)),
+          createAssignedTask(Size.XS, today.minusDays(1))));
+
+      int[] dailyLoad = timeline.getDailyLoad(user.getId(), today, 3);
+      assertEquals(0, dailyLoad[0]);
+      assertEquals(6, dailyLoad[2]);
+      assertEquals(2, timeline.getOverdueLoad(user.getId()));
+      assertEquals(8, timeline.getTotalLoad(user.getId()));
+    }
+
+    @Test
+    @DisplayName("Completed and unassigned tasks have no load")
+    void completedAndUnassignedTasksHaveNoLoad() {
+      Task task = createAssignedTask(Size.L, today);
+      timeline.apply(task);
+
+      task.setCompleted(true);
+      timeline.apply(task);
+      assertEquals(0, timeline.getTotalLoad(user.getId()));
+
+      task.setCompleted(false);
+      task.setAssignedUserIds(List.of());
+      timeline.apply(task);
+      assertEquals(0, timeline.getTotalLoad(user.getId()));
+    }
+
+    @Test
+    @DisplayName("Moving the due date moves the load")
+    void movingTheDueDateMovesTheLoad() {
+      Task task = createAssignedTask(Size.S, today);
+      timeline.apply(task);
+
+      task.setDueDate(today.plusDays(10).atTime(12, 0));
+      timeline.synchronize(List.of(task));
+
+      assertEquals(0, timeline.getLoad(user.getId(), today, today.plusDays(9)));
+      assertEquals(4, timeline.getLoad(user.getId(), today.plusDays(10), today.plusDays(10)));
+    }
+  }
+
+  @Nested
+  @DisplayName("Peak Tests")
+  class PeakTests {
+    @Test
+    @DisplayName("Overdue load counts towards the current week")
+    void overdueLoadCountsTowardsTheCurrentWeek() {
+      timeline.synchronize(List.of(createAssignedTask(Size.XL, today.minusDays(30)),
+          createAssignedTask(Size.S, today.plusDays(3))));
+
+      assertEquals(14, timeline.getWeekLoad(user.getId(), today.plusDays(3)));
+    }
+
+    @Test
+    @DisplayName("Tasks that would exceed the capacity in a week overload the user")
+    void tasksThatWouldExceedTheCapacityInAWeekOverloadTheUser() {
+      timeline.synchronize(List.of(createAssignedTask(Size.XL, today.plusDays(20)),
+          createAssignedTask(Size.L, today.plusDays(22))));
+
+      assertFalse(timeline.wouldOverload(user, today.plusDays(2), Size.XL.getValue()));
+      assertTrue(timeline.wouldOverload(user, today.plusDays(18), Size.S.getValue()));
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import no.ntnu.idatx1005.model.user.User;
+import no.ntnu.idatx1005.service.DatabaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the FairnessLedger.
+ */
+public class FairnessLedgerTest {
+  // Wednesday 2025-04-09 at noon
+  private final LocalDateTime now = LocalDateTime.of(2025, 4, 9, 12, 0);
+  private User user;
+  private FairnessLedger ledger;
+
+  @BeforeEach
+  void setUp() {
+    user = new User(UUID.randomUUID(), "Test", "Test", "test@test.com", new byte[]{1, 2, 3},
+        new byte[]{4, 5, 6}, 20, false);
+    ledger = new FairnessLedger(Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+  }
+
+  private Task createCompletedTask(Size size, LocalDateTime completedDate) {
+    Task task = new Task(UUID.randomUUID(), true, "Task", "", now.minusWeeks(20),
+        now.plusDays(1), Priority.MEDIUM, size);
+    task.setCompletedDate(completedDate);
+    task.setAssignedUserIds(List.of(user.getId()));
+    return task;
+  }
+
+  @Nested
+  @DisplayName("Window Tests")
+  class WindowTests {
+    @Test
+    @DisplayName("Completed work is summed per window")
+    void completedWorkIsSummedPerWindow() {
+      ledger.synchronize(List.of(createCompletedTask(Size.M, now),
+          createCompletedTask(Size.L, now.minusWeeks(6)),
+          createCompletedTask(Size.XL, now.minusWeeks(20))));
+
+      assertEquals(6, ledger.getCompletedWork(user.getId(), FairnessLedger.SHORT_WINDOW_WEEKS));
+      assertEquals(14, ledger.getCompletedWork(user.getId(), FairnessLedger.LONG_WINDOW_WEEKS));
+      assertEquals((6 + 14 / 3.0) / 2, ledger.getRecentWork(user), 0.0001);
+    }
+
+    @Test
+    @DisplayName("Restoring a task removes its work")
+    void restoringATaskRemovesItsWork() {
+      Task task = createCompletedTask(Size.M, now);
+      ledger.apply(task);
+
+      task.setCompleted(false);
+      ledger.apply(task);
+
+      assertEquals(0, ledger.getCompletedWork(user.getId(), FairnessLedger.LONG_WINDOW_WEEKS));
+    }
+
+    @Test
+    @DisplayName("Synchronizing changed tasks leaves the other tasks as they are")
+    void synchronizingChangedTasksLeavesTheOtherTasksAsTheyAre() {
+      Task kept = createCompletedTask(Size.M, now);
+      Task restored = createCompletedTask(Size.L, now);
+      Task removed = createCompletedTask(Size.S, now);
+      ledger.synchronize(List.of(kept, restored, removed));
+
+      restored.setCompleted(false);
+      ledger.synchronizeTasks(Set.of(restored.getId(), removed.getId()),
+          Map.of(restored.getId(), restored));
+
+      assertEquals(6, ledger.getCompletedWork(user.getId(), FairnessLedger.SHORT_WINDOW_WEEKS));
+    }
+
+    @Test
+    @DisplayName("Work moves with the assignees of a task")
+    void workMovesWithTheAssigneesOfATask() {
+      Task task = createCompletedTask(Size.S, now);
+      ledger.apply(task);
+      UUID otherUserId = UUID.randomUUID();
+
+      task.setAssignedUserIds(List.of(otherUserId));
+      ledger.apply(task);
+
+      assertEquals(0, ledger.getCompletedWork(user.getId(), FairnessLedger.SHORT_WINDOW_WEEKS));
+      assertEquals(4, ledger.getCompletedWork(otherUserId, FairnessLedger.SHORT_WINDOW_WEEKS));
+    }
+  }
+
+  @Nested
+  @DisplayName("Backfill Tests")
+  class BackfillTests {
+    @Test
+    @DisplayName("Tasks without a completion date use the changelog")
+    void tasksWithoutACompletionDateUseTheChangelog() {
+      Task task = createCompletedTask(Size.M, null);
+      task.setAssignedUserIds(List.of());
+      TaskChange completion = new TaskChange(UUID.randomUUID(), task.getId(),
+          DatabaseService.TASK_COMPLETED_CHANGE, user.getId(), now.minusWeeks(2));
+
+      ledger.backfill(List.of(completion), List.of(task));
+
+      assertEquals(6, ledger.getCompletedWork(user.getId(), FairnessLedger.SHORT_WINDOW_WEEKS));
+    }
+
+    @Test
+    @DisplayName("Tasks without any completion time are not credited")
+    void tasksWithoutAnyCompletionTimeAreNotCredited() {
+      ledger.backfill(List.of(), List.of(createCompletedTask(Size.M, null)));
+
+      assertEquals(0, ledger.getCompletedWork(user.getId(), FairnessLedger.LONG_WINDOW_WEEKS));
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the InsightsAggregator.
+ */
+public class InsightsAggregatorTest {
+  // Wednesday 2025-04-09 at noon
+  private final LocalDateTime now = LocalDateTime.of(2025, 4, 9, 12, 0);
+  private MutableClock clock;
+  private InsightsAggregator aggregator;
+  private List<InsightsSummary> notifications;
+
+  /**
+   * Clock that can be moved forward by the tests.
+   */
+  private static class MutableClock extends Clock {
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(now.toInstant(ZoneOffset.UTC));
+    aggregator = new InsightsAggregator(clock);
+    notifications = new ArrayList<>();
+    aggregator.addObserver(notifications::add);
+  }
+
+  private Task createTask(String name, Priority priority) {
+    return new Task(UUID.randomUUID(), false, name, "", now.minusDays(3), now.plusDays(3),
+        priority, Size.M);
+  }
+
+  private void complete(Task task, LocalDateTime completedDate) {
+    task.setCompleted(true);
+    task.setCompletedDate(completedDate);
+  }
+
+  @Nested
+  @DisplayName("Counter Tests")
+  class CounterTests {
+    @Test
+    @DisplayName("Open tasks are counted per priority")
+    void openTasksAreCountedPerPriority() {
+      aggregator.synchronize(List.of(createTask("A", Priority.HIGH),
+          createTask("B", Priority.HIGH), createTask("C", Priority.LOW)));
+
+      InsightsSummary summary = aggregator.getSummary();
+      assertEquals(2, summary.openByPriority().get(Priority.HIGH));
+      assertEquals(0, summary.openByPriority().get(Priority.MEDIUM));
+      assertEquals(1, summary.openByPriority().get(Priority.LOW));
+      assertEquals(3, summary.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Completing a task moves it from pending to completed today")
+    void completingATaskMovesItFromPendingToCompletedToday() {
+      Task task = createTask("Dishes", Priority.MEDIUM);
+      aggregator.apply(task);
+
+      complete(task, now);
+      aggregator.apply(task);
+
+      InsightsSummary summary = aggregator.getSummary();
+      assertEquals(0, summary.pendingCount());
+      assertEquals(0, summary.openByPriority().get(Priority.MEDIUM));
+      assertEquals(List.of("Dishes"), summary.completedToday());
+      assertEquals(List.of("Dishes"), summary.completedThisWeek());
+    }
+
+    @Test
+    @DisplayName("Tasks completed earlier this week only count for the week")
+    void tasksCompletedEarlierThisWeekOnlyCountForTheWeek() {
+      Task monday = createTask("Monday", Priority.LOW);
+      complete(monday, now.minusDays(2));
+      Task lastWeek = createTask("Last week", Priority.LOW);
+      complete(lastWeek, now.minusDays(3));
+      aggregator.synchronize(List.of(monday, lastWeek));
+
+      InsightsSummary summary = aggregator.getSummary();
+      assertTrue(summary.completedToday().isEmpty());
+      assertEquals(List.of("Monday"), summary.completedThisWeek());
+    }
+
+    @Test
+    @DisplayName("Synchronize removes tasks that no longer exist")
+    void synchronizeRemovesTasksThatNoLongerExist() {
+      Task task = createTask("Removed", Priority.HIGH);
+      aggregator.synchronize(List.of(task));
+      aggregator.synchronize(List.of());
+
+      assertEquals(0, aggregator.getSummary().pendingCount());
+      assertEquals(0, aggregator.getSummary().openByPriority().get(Priority.HIGH));
+    }
+
+    @Test
+    @DisplayName("Synchronizing changed tasks leaves the other tasks as they are")
+    void synchronizingChangedTasksLeavesTheOtherTasksAsTheyAre() {
+      Task kept = createTask("Kept", Priority.HIGH);
+      Task completed = createTask("Completed", Priority.LOW);
+      Task removed = createTask("Removed", Priority.LOW);
+      aggregator.synchronize(List.of(kept, completed, removed));
+
+      complete(completed, now);
+      aggregator.synchronizeTasks(Set.of(completed.getId(), removed.getId()),
+          Map.of(completed.getId(), completed));
+
+      InsightsSummary summary = aggregator.getSummary();
+      assertEquals(1, summary.pendingCount());
+      assertEquals(List.of("Kept"), summary.pendingPreview());
+      assertEquals(List.of("Completed"), summary.completedToday());
+      assertEquals(0, summary.openByPriority().get(Priority.LOW));
+    }
+
+    @Test
+    @DisplayName("Observers are only notified when counters change")
+    void observersAreOnlyNotifiedWhenCountersChange() {
+      Task task = createTask("Task", Priority.HIGH);
+      aggregator.apply(task);
+      aggregator.apply(task);
+      aggregator.synchronize(List.of(task));
+
+      assertEquals(1, notifications.size());
+    }
+  }
+
+  @Nested
+  @DisplayName("Rollover Tests")
+  class RolloverTests {
+    @Test
+    @DisplayName("Completed today is cleared on the next day")
+    void completedTodayIsClearedOnTheNextDay() {
+      Task task = createTask("Task", Priority.HIGH);
+      complete(task, now);
+      aggregator.apply(task);
+
+      clock.instant = now.plusDays(1).toInstant(ZoneOffset.UTC);
+      aggregator.rollover();
+
+      assertTrue(aggregator.getSummary().completedToday().isEmpty());
+      assertEquals(List.of("Task"), aggregator.getSummary().completedThisWeek());
+    }
+
+    @Test
+    @DisplayName("Completed this week is cleared in the next week")
+    void completedThisWeekIsClearedInTheNextWeek() {
+      Task task = createTask("Task", Priority.HIGH);
+      complete(task, now);
+      aggregator.apply(task);
+
+      clock.instant = now.plusDays(5).toInstant(ZoneOffset.UTC);
+      aggregator.apply(createTask("Other", Priority.LOW));
+
+      assertTrue(aggregator.getSummary().completedThisWeek().isEmpty());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package no.ntnu.idatx1005.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the LeadTimeHistogram.
+ */
+public class LeadTimeHistogramTest {
+  private LeadTimeHistogram histogram;
+
+  @BeforeEach
+  void setUp() {
+    histogram = new LeadTimeHistogram();
+  }
+
+  @Nested
+  @DisplayName("Bucket Tests")
+  class BucketTests {
+    @Test
+    @DisplayName("Small values get a bucket each")
+    void smallValuesGetABucketEach() {
+      assertEquals(0, LeadTimeHistogram.bucketIndex(0));
+      assertEquals(63, LeadTimeHistogram.bucketIndex(63));
+      assertEquals(63, LeadTimeHistogram.lowestValue(63));
+      assertEquals(63, LeadTimeHistogram.highestValue(63));
+    }
+
+    @Test
+    @DisplayName("Every value lies within its bucket")
+    void everyValueLiesWithinItsBucket() {
+      for (long value = 0; value < 200_000; value += 37) {
+        int index = LeadTimeHistogram.bucketIndex(value);
+        assertTrue(LeadTimeHistogram.lowestValue(index) <= value);
+        assertTrue(LeadTimeHistogram.highestValue(index) >= value);
+      }
+    }
+
+    @Test
+    @DisplayName("Buckets are adjacent")
+    void bucketsAreAdjacent() {
+      for (int index = 1; index < 500; index++) {
+        assertEquals(LeadTimeHistogram.highestValue(index - 1) + 1,
+            LeadTimeHistogram.lowestValue(index));
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Percentile Tests")
+  class PercentileTests {
+    @Test
+    @DisplayName("Empty histogram returns zero")
+    void emptyHistogramReturnsZero() {
+      assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    @DisplayName("Percentiles are within a few percent of the exact value")
+    void percentilesAreWithinAFewPercentOfTheExactValue() {
+      for (long value = 1; value <= 10_000; value++) {
+        histogram.record(value);
+      }
+
+      assertEquals(10_000, histogram.getTotalCount());
+      assertTrue(Math.abs(histogram.getValueAtPercentile(50) - 5_000) <= 5_000 * 0.03);
+      assertTrue(Math.abs(histogram.getValueAtPercentile(90) - 9_000) <= 9_000 * 0.03);
+      assertTrue(Math.abs(histogram.getValueAtPercentile(99) - 9_900) <= 9_900 * 0.03);
+    }
+
+    @Test
+    @DisplayName("Removed values no longer count")
+    void removedValuesNoLongerCount() {
+      histogram.record(10);
+      histogram.record(50_000);
+      histogram.remove(50_000);
+
+      assertEquals(1, histogram.getTotalCount());
+      assertEquals(10, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    @DisplayName("Merged histograms contain the values of both")
+    void mergedHistogramsContainTheValuesOfBoth() {
+      LeadTimeHistogram other = new LeadTimeHistogram();
+      histogram.record(5);
+      other.record(7);
+      other.record(100_000);
+
+      histogram.add(other);
+
+      assertEquals(3, histogram.getTotalCount());
+      assertEquals(7, histogram.getValueAtPercentile(50));
+    }
+  }
+}
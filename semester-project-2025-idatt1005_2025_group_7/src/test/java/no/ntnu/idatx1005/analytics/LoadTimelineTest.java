@@ -0,0 +1,93 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the LoadTimeline.
+ */
+public class LoadTimelineTest {
+  private final long today = 20_000;
+  private LoadTimeline timeline;
+
+  @BeforeEach
+  void setUp() {
+    timeline = new LoadTimeline();
+  }
+
+  @Nested
+  @DisplayName("Range Tests")
+  class RangeTests {
+    @Test
+    @DisplayName("Empty timeline has no load")
+    void emptyTimelineHasNoLoad() {
+      assertTrue(timeline.isEmpty());
+      assertEquals(0, timeline.getLoad(today, today + 10));
+    }
+
+    @Test
+    @DisplayName("Range load sums the days in the range")
+    void rangeLoadSumsTheDaysInTheRange() {
+      timeline.add(today, 4);
+      timeline.add(today + 2, 6);
+      timeline.add(today + 5, 10);
+
+      assertEquals(10, timeline.getLoad(today, today + 2));
+      assertEquals(16, timeline.getLoad(today + 1, today + 5));
+      assertEquals(6, timeline.getLoad(today + 2));
+      assertEquals(20, timeline.getTotal());
+    }
+
+    @Test
+    @DisplayName("Removed load no longer counts")
+    void removedLoadNoLongerCounts() {
+      timeline.add(today, 4);
+      timeline.add(today, -4);
+
+      assertTrue(timeline.isEmpty());
+      assertEquals(0, timeline.loadUpTo(today + 100));
+    }
+
+    @Test
+    @DisplayName("Timeline grows in both directions")
+    void timelineGrowsInBothDirections() {
+      timeline.add(today, 2);
+      timeline.add(today + 500, 8);
+      timeline.add(today - 300, 4);
+
+      assertEquals(4, timeline.loadUpTo(today - 1));
+      assertEquals(6, timeline.loadUpTo(today));
+      assertEquals(14, timeline.loadUpTo(today + 500));
+      assertEquals(8, timeline.getLoad(today + 1, today + 1000));
+    }
+
+    @Test
+    @DisplayName("Range loads match a plain sum")
+    void rangeLoadsMatchAPlainSum() {
+      Random random = new Random(42);
+      int[] expected = new int[400];
+      for (int i = 0; i < 1_000; i++) {
+        int day = random.nextInt(expected.length);
+        int load = random.nextInt(10) + 1;
+        expected[day] += load;
+        timeline.add(today - 200 + day, load);
+      }
+
+      for (int i = 0; i < 100; i++) {
+        int from = random.nextInt(expected.length);
+        int to = from + random.nextInt(expected.length - from);
+        int sum = 0;
+        for (int day = from; day <= to; day++) {
+          sum += expected[day];
+        }
+        assertEquals(sum, timeline.getLoad(today - 200 + from, today - 200 + to));
+      }
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the SickLeaveRebalancer.
+ */
+public class SickLeaveRebalancerTest {
+  private final LocalDate today = LocalDate.of(2025, 4, 9);
+  private User sickUser;
+  private WorkloadLedger ledger;
+  private CapacityTimeline timeline;
+  private SickLeaveRebalancer rebalancer;
+  private List<User> users;
+  private List<Task> tasks;
+
+  @BeforeEach
+  void setUp() {
+    sickUser = createUser("Sick", 30, true);
+    ledger = new WorkloadLedger();
+    timeline = new CapacityTimeline(Clock.fixed(today.atTime(12, 0).toInstant(ZoneOffset.UTC),
+        ZoneOffset.UTC));
+    rebalancer = new SickLeaveRebalancer(ledger, timeline);
+    users = new ArrayList<>(List.of(sickUser));
+    tasks = new ArrayList<>();
+  }
+
+  private User createUser(String name, int capacity, boolean sick) {
+    return new User(UUID.randomUUID(), name, name, name + "@test.com", new byte[]{1, 2, 3},
+        new byte[]{4, 5, 6}, capacity, sick);
+  }
+
+  private Task createTask(User assignee, Priority priority, Size size, LocalDate dueDate) {
+    Task task = new Task(UUID.randomUUID(), false, "Task", "", LocalDateTime.now(),
+        dueDate.atTime(12, 0), priority, size);
+    task.setAssignedUserIds(List.of(assignee.getId()));
+    tasks.add(task);
+    return task;
+  }
+
+  private void synchronize() {
+    ledger.synchronize(users, tasks);
+    timeline.synchronize(tasks);
+  }
+
+  @Nested
+  @DisplayName("Plan Tests")
+  class PlanTests {
+    @Test
+    @DisplayName("Tasks are moved to the user with the most capacity left")
+    void tasksAreMovedToTheUserWithTheMostCapacityLeft() {
+      User busy = createUser("Busy", 20, false);
+      User free = createUser("Free", 20, false);
+      users.addAll(List.of(busy, free));
+      createTask(busy, Priority.LOW, Size.L, today.plusDays(20));
+      Task task = createTask(sickUser, Priority.HIGH, Size.M, today.plusDays(1));
+      synchronize();
+
+      RebalancePlan plan = rebalancer.plan(sickUser);
+
+      assertEquals(1, plan.reassignments().size());
+      assertEquals(task.getId(), plan.reassignments().getFirst().task().getId());
+      assertEquals(free, plan.reassignments().getFirst().user());
+      assertTrue(plan.unplacedTasks().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Sick users do not receive tasks")
+    void sickUsersDoNotReceiveTasks() {
+      users.add(createUser("Also sick", 100, true));
+      createTask(sickUser, Priority.HIGH, Size.S, today.plusDays(1));
+      synchronize();
+
+      RebalancePlan plan = rebalancer.plan(sickUser);
+
+      assertTrue(plan.isEmpty());
+      assertEquals(1, plan.unplacedTasks().size());
+    }
+
+    @Test
+    @DisplayName("Planned tasks count towards the capacity of the receiving user")
+    void plannedTasksCountTowardsTheCapacityOfTheReceivingUser() {
+      User helper = createUser("Helper", 10, false);
+      users.add(helper);
+      Task urgent = createTask(sickUser, Priority.HIGH, Size.L, today.plusDays(1));
+      Task later = createTask(sickUser, Priority.LOW, Size.M, today.plusDays(2));
+      synchronize();
+
+      RebalancePlan plan = rebalancer.plan(sickUser);
+
+      assertEquals(1, plan.reassignments().size());
+      assertEquals(urgent.getId(), plan.reassignments().getFirst().task().getId());
+      assertEquals(List.of(later), plan.unplacedTasks());
+    }
+
+    @Test
+    @DisplayName("Shared tasks are not moved to a user that already has them")
+    void sharedTasksAreNotMovedToAUserThatAlreadyHasThem() {
+      User partner = createUser("Partner", 50, false);
+      User other = createUser("Other", 10, false);
+      users.addAll(List.of(partner, other));
+      Task shared = createTask(sickUser, Priority.HIGH, Size.S, today.plusDays(1));
+      shared.setAssignedUserIds(List.of(sickUser.getId(), partner.getId()));
+      synchronize();
+
+      RebalancePlan plan = rebalancer.plan(sickUser);
+
+      assertEquals(1, plan.reassignments().size());
+      assertEquals(other, plan.reassignments().getFirst().user());
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TaskAnalytics.
+ */
+public class TaskAnalyticsTest {
+  // Wednesday 2025-04-09 at noon
+  private final LocalDateTime now = LocalDateTime.of(2025, 4, 9, 12, 0);
+  private final UUID userId = UUID.randomUUID();
+  private TaskAnalytics analytics;
+  private List<AnalyticsSnapshot> notifications;
+
+  @BeforeEach
+  void setUp() {
+    analytics = new TaskAnalytics(Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    notifications = new ArrayList<>();
+    analytics.addObserver(notifications::add);
+  }
+
+  private Task createCompletedTask(Priority priority, long leadTimeHours,
+      LocalDateTime completedDate, boolean overdue) {
+    LocalDateTime dueDate = overdue ? completedDate.minusHours(1) : completedDate.plusHours(1);
+    Task task = new Task(UUID.randomUUID(), true, "Task", "",
+        completedDate.minusHours(leadTimeHours), dueDate, priority, Size.M);
+    task.setCompletedDate(completedDate);
+    task.setAssignedUserIds(List.of(userId));
+    return task;
+  }
+
+  @Nested
+  @DisplayName("Statistics Tests")
+  class StatisticsTests {
+    @Test
+    @DisplayName("Lead times are grouped by priority")
+    void leadTimesAreGroupedByPriority() {
+      analytics.synchronize(List.of(
+          createCompletedTask(Priority.HIGH, 2, now, false),
+          createCompletedTask(Priority.LOW, 48, now, false)));
+
+      AnalyticsSnapshot snapshot = analytics.getSnapshot();
+      assertEquals(2, snapshot.overall().completed());
+      assertEquals(120, snapshot.byPriority().get(Priority.HIGH).p50Minutes(), 4);
+      assertEquals(2880, snapshot.byPriority().get(Priority.LOW).p50Minutes(), 60);
+      assertNull(snapshot.byPriority().get(Priority.MEDIUM));
+      assertEquals(2, snapshot.byUser().get(userId).completed());
+    }
+
+    @Test
+    @DisplayName("Throughput is counted per week, oldest week first")
+    void throughputIsCountedPerWeekOldestWeekFirst() {
+      analytics.synchronize(List.of(
+          createCompletedTask(Priority.HIGH, 1, now, false),
+          createCompletedTask(Priority.HIGH, 1, now.minusDays(7), false),
+          createCompletedTask(Priority.HIGH, 1, now.minusDays(8), false)));
+
+      List<Long> throughput = analytics.getSnapshot().overall().weeklyThroughput();
+      assertEquals(TaskAnalytics.WINDOW_WEEKS, throughput.size());
+      assertEquals(1L, throughput.get(TaskAnalytics.WINDOW_WEEKS - 1));
+      assertEquals(2L, throughput.get(TaskAnalytics.WINDOW_WEEKS - 2));
+    }
+
+    @Test
+    @DisplayName("Overdue rate is the share of tasks completed after their due date")
+    void overdueRateIsTheShareOfTasksCompletedAfterTheirDueDate() {
+      analytics.synchronize(List.of(
+          createCompletedTask(Priority.HIGH, 1, now, true),
+          createCompletedTask(Priority.HIGH, 1, now, false),
+          createCompletedTask(Priority.HIGH, 1, now, false),
+          createCompletedTask(Priority.HIGH, 1, now, false)));
+
+      assertEquals(0.25, analytics.getSnapshot().overall().overdueRate(), 0.0001);
+    }
+
+    @Test
+    @DisplayName("Tasks completed before the window are ignored")
+    void tasksCompletedBeforeTheWindowAreIgnored() {
+      analytics.backfill(List.of(createCompletedTask(Priority.HIGH, 1,
+          now.minusWeeks(TaskAnalytics.WINDOW_WEEKS), false)));
+
+      assertEquals(0, analytics.getSnapshot().overall().completed());
+      assertEquals(LocalDate.of(2025, 1, 20), analytics.getSnapshot().firstWeek());
+    }
+  }
+
+  @Nested
+  @DisplayName("Update Tests")
+  class UpdateTests {
+    @Test
+    @DisplayName("Reopened tasks are removed from the statistics")
+    void reopenedTasksAreRemovedFromTheStatistics() {
+      Task task = createCompletedTask(Priority.MEDIUM, 3, now, false);
+      analytics.apply(task);
+
+      task.setCompleted(false);
+      analytics.apply(task);
+
+      assertEquals(0, analytics.getSnapshot().overall().completed());
+      assertEquals(0, analytics.getSnapshot().byPriority().get(Priority.MEDIUM).completed());
+    }
+
+    @Test
+    @DisplayName("Changed tasks are moved between groups")
+    void changedTasksAreMovedBetweenGroups() {
+      Task task = createCompletedTask(Priority.MEDIUM, 3, now, false);
+      analytics.apply(task);
+
+      task.setPriority(Priority.HIGH);
+      analytics.synchronize(List.of(task));
+
+      assertEquals(0, analytics.getSnapshot().byPriority().get(Priority.MEDIUM).completed());
+      assertEquals(1, analytics.getSnapshot().byPriority().get(Priority.HIGH).completed());
+      assertEquals(1, analytics.getSnapshot().overall().completed());
+    }
+
+    @Test
+    @DisplayName("Backfill does not count tasks already applied twice")
+    void backfillDoesNotCountTasksAlreadyAppliedTwice() {
+      Task applied = createCompletedTask(Priority.HIGH, 1, now, false);
+      analytics.apply(applied);
+
+      List<Task> completedTasks = new ArrayList<>();
+      completedTasks.add(applied);
+      for (int i = 0; i < 100; i++) {
+        completedTasks.add(createCompletedTask(Priority.LOW, i, now.minusDays(i % 30), i % 2 == 0));
+      }
+      analytics.backfill(completedTasks);
+
+      assertEquals(101, analytics.getSnapshot().overall().completed());
+      assertEquals(1, analytics.getSnapshot().byPriority().get(Priority.HIGH).completed());
+    }
+
+    @Test
+    @DisplayName("Observers are only notified when the statistics change")
+    void observersAreOnlyNotifiedWhenTheStatisticsChange() {
+      Task task = createCompletedTask(Priority.HIGH, 1, now, false);
+      analytics.apply(task);
+      analytics.apply(task);
+      analytics.synchronize(List.of(task));
+
+      assertEquals(1, notifications.size());
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package no.ntnu.idatx1005.analytics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the WorkloadLedger.
+ */
+public class WorkloadLedgerTest {
+  private User user;
+  private WorkloadLedger ledger;
+  private List<WorkloadChange> changes;
+
+  @BeforeEach
+  void setUp() {
+    user = new User(UUID.randomUUID(), "Test", "Test", "test@test.com", new byte[]{1, 2, 3},
+        new byte[]{4, 5, 6}, 100, false);
+    ledger = new WorkloadLedger();
+    changes = new ArrayList<>();
+    ledger.addObserver(changes::add);
+    ledger.synchronize(List.of(user), List.of());
+    changes.clear();
+  }
+
+  private Task createTask(Priority priority, Size size) {
+    return new Task(UUID.randomUUID(), false, "Task", "", LocalDateTime.now(),
+        LocalDateTime.now().plusDays(1), priority, size);
+  }
+
+  @Nested
+  @DisplayName("Workload Tests")
+  class WorkloadTests {
+    @Test
+    @DisplayName("Assigning a task moves it from unassigned to the workload")
+    void assigningATaskMovesItFromUnassignedToTheWorkload() {
+      Task task = createTask(Priority.HIGH, Size.L);
+      ledger.apply(task);
+      assertEquals(List.of(task), ledger.getUnassignedTasks());
+
+      task.setAssignedUserIds(List.of(user.getId()));
+      ledger.apply(task);
+
+      assertTrue(ledger.getUnassignedTasks().isEmpty());
+      assertEquals(8, ledger.getWorkload(user.getId()));
+      assertEquals(92, ledger.getAvailableCapacity(user));
+      WorkloadChange change = changes.get(changes.size() - 1);
+      assertEquals(Set.of(user.getId()), change.changedUserIds());
+      assertEquals(Set.of(task.getId()), change.removedTaskIds());
+    }
+
+    @Test
+    @DisplayName("Completing a task frees the workload")
+    void completingATaskFreesTheWorkload() {
+      Task task = createTask(Priority.HIGH, Size.M);
+      task.setAssignedUserIds(List.of(user.getId()));
+      ledger.apply(task);
+
+      task.setCompleted(true);
+      ledger.apply(task);
+
+      assertEquals(0, ledger.getWorkload(user.getId()));
+      assertTrue(ledger.getUnassignedTasks().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Unchanged tasks do not notify observers")
+    void unchangedTasksDoNotNotifyObservers() {
+      Task task = createTask(Priority.LOW, Size.S);
+      ledger.synchronize(List.of(user), List.of(task));
+      ledger.synchronize(List.of(user), List.of(task));
+      ledger.apply(task);
+
+      assertEquals(1, changes.size());
+      assertEquals(List.of(task), changes.get(0).updatedTasks());
+    }
+
+    @Test
+    @DisplayName("Synchronizing changed tasks leaves the other tasks as they are")
+    void synchronizingChangedTasksLeavesTheOtherTasksAsTheyAre() {
+      Task kept = createTask(Priority.LOW, Size.M);
+      kept.setAssignedUserIds(List.of(user.getId()));
+      Task assigned = createTask(Priority.HIGH, Size.L);
+      Task removed = createTask(Priority.LOW, Size.S);
+      ledger.synchronize(List.of(user), List.of(kept, assigned, removed));
+      changes.clear();
+
+      assigned.setAssignedUserIds(List.of(user.getId()));
+      ledger.synchronizeTasks(Set.of(assigned.getId(), removed.getId()),
+          Map.of(assigned.getId(), assigned));
+
+      assertEquals(6 + 8, ledger.getWorkload(user.getId()));
+      assertTrue(ledger.getUnassignedTasks().isEmpty());
+      assertEquals(1, changes.size());
+      assertEquals(Set.of(assigned.getId(), removed.getId()), changes.get(0).removedTaskIds());
+      assertEquals(List.of(user), ledger.getUsers());
+    }
+
+    @Test
+    @DisplayName("Removed users are reported as changed")
+    void removedUsersAreReportedAsChanged() {
+      ledger.synchronize(List.of(), List.of());
+
+      assertEquals(Set.of(user.getId()), changes.get(0).changedUserIds());
+      assertTrue(ledger.getUsers().isEmpty());
+    }
+  }
+
+  @Nested
+  @DisplayName("Order Tests")
+  class OrderTests {
+    @Test
+    @DisplayName("Unassigned tasks are ordered by priority and then size")
+    void unassignedTasksAreOrderedByPriorityAndThenSize() {
+      Task lowLarge = createTask(Priority.LOW, Size.XL);
+      Task highSmall = createTask(Priority.HIGH, Size.XS);
+      Task highLarge = createTask(Priority.HIGH, Size.L);
+      ledger.synchronize(List.of(user), List.of(lowLarge, highSmall, highLarge));
+
+      assertEquals(List.of(highLarge, highSmall, lowLarge), ledger.getUnassignedTasks());
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package no.ntnu.idatx1005.dao;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import no.ntnu.idatx1005.dao.exceptions.AssignmentConflictException;
+import no.ntnu.idatx1005.database.EmbeddedRemoteStore;
+import no.ntnu.idatx1005.database.Household;
+import no.ntnu.idatx1005.model.task.FieldChange;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import no.ntnu.idatx1005.model.task.TaskField;
+import no.ntnu.idatx1005.model.user.User;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the AssigneesDao, against the embedded remote store.
+ */
+public class AssigneesDaoTest {
+  private EmbeddedRemoteStore store;
+  private AssigneesDao assigneesDao;
+
+  @BeforeEach
+  void setUp() {
+    store = new EmbeddedRemoteStore("jdbc:h2:mem:assignees" + UUID.randomUUID(),
+        Path.of("setup", "dbSetup.sql"));
+    assigneesDao = new AssigneesDao(store, Household.DEFAULT_ID);
+  }
+
+  private Task insertTask(String name, boolean completed) throws SQLException {
+    return insertTask(name, completed, Household.DEFAULT_ID);
+  }
+
+  private Task insertTask(String name, boolean completed, UUID householdId)
+      throws SQLException {
+    Task task = new Task(UUID.randomUUID(), completed, name, "", LocalDateTime.now(),
+        LocalDateTime.now().plusDays(1), Priority.LOW, Size.S);
+    execute("INSERT INTO task (taskId, householdId, completed, name, createdDate, dueDate, "
+            + "priority, taskSize) VALUES (?, ?, ?, ?, NOW(), NOW(), 'LOW', 'S')",
+        task.getId().toString(), householdId.toString(), completed ? "1" : "0", name);
+    return task;
+  }
+
+  private User insertUser(String email) throws SQLException {
+    return insertUser(email, Household.DEFAULT_ID);
+  }
+
+  private User insertUser(String email, UUID householdId) throws SQLException {
+    User user = new User(UUID.randomUUID(), "Ola", "Nordmann", email, new byte[] {1},
+        new byte[] {2}, 10, false);
+    execute("INSERT INTO user (userId, firstName, lastName, email, passwordHash, salt, "
+            + "workloadCapacity) VALUES (?, 'Ola', 'Nordmann', ?, X'01', X'02', 10)",
+        user.getId().toString(), email);
+    execute("INSERT INTO household_member (householdId, userId) VALUES (?, ?)",
+        householdId.toString(), user.getId().toString());
+    return user;
+  }
+
+  private void execute(String sql, String... parameters) throws SQLException {
+    try (Connection connection = store.getConnection();
+        PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < parameters.length; i++) {
+        statement.setString(i + 1, parameters[i]);
+      }
+      statement.executeUpdate();
+    }
+  }
+
+  private long count(String sql) throws SQLException {
+    try (Connection connection = store.getConnection();
+        PreparedStatement select = connection.prepareStatement(sql);
+        ResultSet row = select.executeQuery()) {
+      row.next();
+      return row.getLong(1);
+    }
+  }
+
+  private int version(String table, String idColumn, UUID id) throws SQLException {
+    try (Connection connection = store.getConnection();
+        PreparedStatement select = connection.prepareStatement(
+            "SELECT version FROM " + table + " WHERE " + idColumn + " = ?")) {
+      select.setString(1, id.toString());
+      try (ResultSet row = select.executeQuery()) {
+        row.next();
+        return row.getInt(1);
+      }
+    }
+  }
+
+  private static List<TaskChange> changes(List<Task> tasks, User user) {
+    return tasks.stream().map(task -> new TaskChange(UUID.randomUUID(), task.getId(),
+        List.of(new FieldChange(TaskField.ASSIGNEE, null, user.getId().toString())),
+        user.getId(), LocalDateTime.now())).toList();
+  }
+
+  @Nested
+  @DisplayName("Assign Tests")
+  class AssignTests {
+    @Test
+    @DisplayName("Assignments, changelog and versions are stored together")
+    void assignmentsChangelogAndVersionsAreStoredTogether() throws SQLException {
+      Task vacuum = insertTask("Vacuum", false);
+      Task dishes = insertTask("Dishes", false);
+      User user = insertUser("ola@example.com");
+
+      assigneesDao.storeAssignments(List.of(vacuum, dishes), user,
+          changes(List.of(vacuum, dishes), user));
+
+      assertEquals(2, count("SELECT COUNT(*) FROM task_assignees"));
+      assertEquals(2, count("SELECT COUNT(*) FROM task_changelog"));
+      assertEquals(1, version("task", "taskId", vacuum.getId()));
+      assertEquals(1, version("user", "userId", user.getId()));
+    }
+
+    @Test
+    @DisplayName("Stale task version rolls back the whole batch and names the task")
+    void staleTaskVersionRollsBackTheWholeBatchAndNamesTheTask() throws SQLException {
+      Task vacuum = insertTask("Vacuum", false);
+      Task dishes = insertTask("Dishes", false);
+      User user = insertUser("ola@example.com");
+      execute("UPDATE task SET version = 1 WHERE taskId = ?", dishes.getId().toString());
+
+      AssignmentConflictException e = assertThrows(AssignmentConflictException.class,
+          () -> assigneesDao.storeAssignments(List.of(vacuum, dishes), user,
+              changes(List.of(vacuum, dishes), user)));
+
+      assertEquals(List.of(dishes.getId()), e.getConflictingTaskIds());
+      assertEquals(List.of(), e.getConflictingUserIds());
+      assertEquals(0, count("SELECT COUNT(*) FROM task_assignees"));
+      assertEquals(0, count("SELECT COUNT(*) FROM task_changelog"));
+      assertEquals(0, version("task", "taskId", vacuum.getId()));
+      assertEquals(0, version("user", "userId", user.getId()));
+    }
+
+    @Test
+    @DisplayName("Stale user version rolls back the whole batch and names the user")
+    void staleUserVersionRollsBackTheWholeBatchAndNamesTheUser() throws SQLException {
+      Task vacuum = insertTask("Vacuum", false);
+      User user = insertUser("ola@example.com");
+      execute("UPDATE user SET version = 1 WHERE userId = ?", user.getId().toString());
+
+      AssignmentConflictException e = assertThrows(AssignmentConflictException.class,
+          () -> assigneesDao.storeAssignments(List.of(vacuum), user,
+              changes(List.of(vacuum), user)));
+
+      assertEquals(List.of(), e.getConflictingTaskIds());
+      assertEquals(List.of(user.getId()), e.getConflictingUserIds());
+      assertEquals(0, count("SELECT COUNT(*) FROM task_assignees"));
+      assertEquals(0, version("task", "taskId", vacuum.getId()));
+    }
+
+    @Test
+    @DisplayName("Task completed in the meantime is a conflict")
+    void taskCompletedInTheMeantimeIsAConflict() throws SQLException {
+      Task vacuum = insertTask("Vacuum", false);
+      Task dishes = insertTask("Dishes", true);
+      User user = insertUser("ola@example.com");
+
+      AssignmentConflictException e = assertThrows(AssignmentConflictException.class,
+          () -> assigneesDao.storeAssignments(List.of(vacuum, dishes), user,
+              changes(List.of(vacuum, dishes), user)));
+
+      assertEquals(List.of(dishes.getId()), e.getConflictingTaskIds());
+      assertEquals(0, count("SELECT COUNT(*) FROM task_assignees"));
+    }
+
+    @Test
+    @DisplayName("Task and user of another household are conflicts")
+    void taskAndUserOfAnotherHouseholdAreConflicts() throws SQLException {
+      UUID cabin = UUID.randomUUID();
+      execute("INSERT INTO household (householdId, name) VALUES (?, 'Cabin')", cabin.toString());
+      Task vacuum = insertTask("Vacuum", false);
+      Task chopWood = insertTask("Chop wood", false, cabin);
+      User kari = insertUser("kari@example.com", cabin);
+
+      AssignmentConflictException e = assertThrows(AssignmentConflictException.class,
+          () -> assigneesDao.storeAssignments(List.of(vacuum, chopWood), kari,
+              changes(List.of(vacuum, chopWood), kari)));
+
+      assertEquals(List.of(chopWood.getId()), e.getConflictingTaskIds());
+      assertEquals(List.of(kari.getId()), e.getConflictingUserIds());
+      assertEquals(0, count("SELECT COUNT(*) FROM task_assignees"));
+      assertEquals(0, version("task", "taskId", chopWood.getId()));
+      assertEquals(0, version("user", "userId", kari.getId()));
+    }
+  }
+
+  @Nested
+  @DisplayName("Reassign Tests")
+  class ReassignTests {
+    @Test
+    @DisplayName("Stale receiving user rolls back every move and names the user")
+    void staleReceivingUserRollsBackEveryMoveAndNamesTheUser() throws SQLException {
+      Task vacuum = insertTask("Vacuum", false);
+      Task dishes = insertTask("Dishes", false);
+      User sick = insertUser("sick@example.com");
+      User kari = insertUser("kari@example.com");
+      User per = insertUser("per@example.com");
+      execute("INSERT INTO task_assignees (taskId, userId) VALUES (?, ?), (?, ?)",
+          vacuum.getId().toString(), sick.getId().toString(), dishes.getId().toString(),
+          sick.getId().toString());
+      execute("UPDATE user SET version = 3 WHERE userId = ?", per.getId().toString());
+      Map<Task, User> newUsers = new LinkedHashMap<>();
+      newUsers.put(vacuum, kari);
+      newUsers.put(dishes, per);
+
+      AssignmentConflictException e = assertThrows(AssignmentConflictException.class,
+          () -> assigneesDao.storeReassignments(sick.getId(), newUsers, List.of(kari, per),
+              changes(List.of(vacuum, dishes), kari)));
+
+      assertEquals(List.of(), e.getConflictingTaskIds());
+      assertEquals(List.of(per.getId()), e.getConflictingUserIds());
+      assertEquals(2, count("SELECT COUNT(*) FROM task_assignees WHERE userId = '"
+          + sick.getId() + "'"));
+      assertEquals(0, version("user", "userId", kari.getId()));
+    }
+  }
+}
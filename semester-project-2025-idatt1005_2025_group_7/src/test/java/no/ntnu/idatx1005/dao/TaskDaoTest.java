@@ -0,0 +1,175 @@
+package no.ntnu.idatx1005.dao;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.ntnu.idatx1005.dao.exceptions.WriteRejectedException;
+import no.ntnu.idatx1005.database.CircuitBreaker;
+import no.ntnu.idatx1005.database.EmbeddedRemoteStore;
+import no.ntnu.idatx1005.database.Household;
+import no.ntnu.idatx1005.database.RemoteStore;
+import no.ntnu.idatx1005.model.task.FieldChange;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import no.ntnu.idatx1005.model.task.TaskField;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TaskDao, against the embedded remote store.
+ */
+public class TaskDaoTest {
+  private EmbeddedRemoteStore store;
+  private AtomicInteger connections;
+  private TaskDao taskDao;
+  private UUID userId;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    store = new EmbeddedRemoteStore("jdbc:h2:mem:tasks" + UUID.randomUUID(),
+        Path.of("setup", "dbSetup.sql"));
+    connections = new AtomicInteger();
+    RemoteStore countingStore = new RemoteStore() {
+      @Override
+      public Connection getConnection() {
+        connections.incrementAndGet();
+        return store.getConnection();
+      }
+
+      @Override
+      public CircuitBreaker getCircuitBreaker() {
+        return store.getCircuitBreaker();
+      }
+    };
+    taskDao = new TaskDao(countingStore, new AssigneesDao(countingStore, Household.DEFAULT_ID),
+        Household.DEFAULT_ID);
+    userId = UUID.randomUUID();
+    try (Connection connection = store.getConnection();
+        PreparedStatement insert = connection.prepareStatement(
+            "INSERT INTO user (userId, firstName, lastName, email, passwordHash, salt, "
+                + "workloadCapacity) VALUES (?, 'Ola', 'Nordmann', 'ola@example.com', X'01', "
+                + "X'02', 10)")) {
+      insert.setString(1, userId.toString());
+      insert.executeUpdate();
+    }
+  }
+
+  private Task addTask(String description) {
+    Task task = new Task(UUID.randomUUID(), false, "Vacuum", description, LocalDateTime.now(),
+        LocalDateTime.now().plusDays(1), Priority.LOW, Size.S);
+    assertTrue(taskDao.addTaskIfAbsent(task));
+    return task;
+  }
+
+  private long count(String sql) throws SQLException {
+    try (Connection connection = store.getConnection();
+        PreparedStatement select = connection.prepareStatement(sql);
+        ResultSet row = select.executeQuery()) {
+      row.next();
+      return row.getLong(1);
+    }
+  }
+
+  private int version(Task task) throws SQLException {
+    try (Connection connection = store.getConnection();
+        PreparedStatement select = connection.prepareStatement(
+            "SELECT version FROM task WHERE taskId = ?")) {
+      select.setString(1, task.getId().toString());
+      try (ResultSet row = select.executeQuery()) {
+        row.next();
+        return row.getInt(1);
+      }
+    }
+  }
+
+  private TaskChange change(Task task, FieldChange revision) {
+    return new TaskChange(UUID.randomUUID(), task.getId(),
+        revision == null ? List.of() : List.of(revision), userId, LocalDateTime.now());
+  }
+
+  @Nested
+  @DisplayName("Description Revision Tests")
+  class DescriptionRevisionTests {
+    @Test
+    @DisplayName("New task stores its first revision with the task")
+    void newTaskStoresItsFirstRevisionWithTheTask() throws SQLException {
+      addTask("Living room");
+
+      assertEquals(1, connections.get());
+      assertEquals(1, count("SELECT COUNT(*) FROM task_description_history WHERE revision = 0"));
+    }
+
+    @Test
+    @DisplayName("Changed description is stored on the connection of the update")
+    void changedDescriptionIsStoredOnTheConnectionOfTheUpdate() throws SQLException {
+      Task task = addTask("Living room");
+      connections.set(0);
+      FieldChange[] revision = new FieldChange[1];
+
+      task.setDescription("Living room and hallway");
+      assertTrue(taskDao.updateTaskIfVersion(task, 0, UUID.randomUUID(), "Living room",
+          stored -> {
+            revision[0] = stored;
+            return change(task, stored);
+          }));
+
+      assertEquals(1, connections.get());
+      assertNotNull(revision[0]);
+      assertEquals(TaskField.DESCRIPTION_REVISION, revision[0].field());
+      assertEquals("1", revision[0].newValue());
+      assertEquals(2, count("SELECT COUNT(*) FROM task_description_history"));
+      assertEquals(1, count("SELECT COUNT(*) FROM task_changelog"));
+      assertEquals(1, version(task));
+    }
+
+    @Test
+    @DisplayName("Unchanged description stores no revision")
+    void unchangedDescriptionStoresNoRevision() throws SQLException {
+      Task task = addTask("Living room");
+      FieldChange[] revision = {new FieldChange(TaskField.NAME, null, null)};
+
+      task.setName("Vacuum upstairs");
+      assertTrue(taskDao.updateTaskIfVersion(task, 0, UUID.randomUUID(), null, stored -> {
+        revision[0] = stored;
+        return change(task, stored);
+      }));
+
+      assertNull(revision[0]);
+      assertEquals(1, count("SELECT COUNT(*) FROM task_description_history"));
+    }
+
+    @Test
+    @DisplayName("Revision that cannot be stored rolls back the update")
+    void revisionThatCannotBeStoredRollsBackTheUpdate() throws SQLException {
+      Task task = addTask("Living room");
+      try (Connection connection = store.getConnection();
+          PreparedStatement drop = connection.prepareStatement(
+              "DROP TABLE task_description_history")) {
+        drop.executeUpdate();
+      }
+
+      task.setDescription("Living room and hallway");
+      assertThrows(WriteRejectedException.class, () -> taskDao.updateTaskIfVersion(task, 0,
+          UUID.randomUUID(), "Living room", stored -> change(task, stored)));
+
+      assertEquals(0, version(task));
+      assertEquals(0, count("SELECT COUNT(*) FROM task_changelog"));
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package no.ntnu.idatx1005.database;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the CircuitBreaker.
+ */
+public class CircuitBreakerTest {
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+  private MutableClock clock;
+  private List<CircuitBreaker.State> states;
+  private CircuitBreaker breaker;
+
+  /**
+   * Clock that can be moved forward by the tests.
+   */
+  private static class MutableClock extends Clock {
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(Instant.parse("2025-05-02T12:00:00Z"));
+    states = new ArrayList<>();
+    breaker = new CircuitBreaker(3, OPEN_DURATION, clock);
+    breaker.addObserver(states::add);
+  }
+
+  /**
+   * Fails as many accesses as it takes to open the breaker.
+   */
+  private void open() {
+    for (int i = 0; i < 3; i++) {
+      assertTrue(breaker.tryAcquire());
+      breaker.recordFailure();
+    }
+  }
+
+  @Nested
+  @DisplayName("Open Tests")
+  class OpenTests {
+    @Test
+    @DisplayName("Breaker opens after the failure threshold")
+    void breakerOpensAfterTheFailureThreshold() {
+      open();
+
+      assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+      assertEquals(List.of(CircuitBreaker.State.OPEN), states);
+    }
+
+    @Test
+    @DisplayName("Success resets the failures in a row")
+    void successResetsTheFailuresInARow() {
+      breaker.recordFailure();
+      breaker.recordFailure();
+      breaker.recordSuccess();
+      breaker.recordFailure();
+
+      assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Open breaker rejects accesses and counts them")
+    void openBreakerRejectsAccessesAndCountsThem() {
+      open();
+
+      assertFalse(breaker.tryAcquire());
+      assertFalse(breaker.tryAcquire());
+
+      assertEquals(2, breaker.getRejectedCount());
+      assertEquals(3, breaker.getFailureCount());
+      assertEquals(1, breaker.getOpenedCount());
+    }
+  }
+
+  @Nested
+  @DisplayName("Half Open Tests")
+  class HalfOpenTests {
+    @Test
+    @DisplayName("Single probe is let through after the open duration")
+    void singleProbeIsLetThroughAfterTheOpenDuration() {
+      open();
+      clock.instant = clock.instant.plus(OPEN_DURATION);
+
+      assertTrue(breaker.tryAcquire());
+      assertFalse(breaker.tryAcquire());
+      assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Successful probe closes the breaker")
+    void successfulProbeClosesTheBreaker() {
+      open();
+      clock.instant = clock.instant.plus(OPEN_DURATION);
+
+      breaker.tryAcquire();
+      breaker.recordSuccess();
+
+      assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+      assertTrue(breaker.tryAcquire());
+      assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN,
+          CircuitBreaker.State.CLOSED), states);
+    }
+
+    @Test
+    @DisplayName("Failed probe opens the breaker again")
+    void failedProbeOpensTheBreakerAgain() {
+      open();
+      clock.instant = clock.instant.plus(OPEN_DURATION);
+
+      breaker.tryAcquire();
+      breaker.recordFailure();
+
+      assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+      assertFalse(breaker.tryAcquire());
+      assertEquals(2, breaker.getOpenedCount());
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package no.ntnu.idatx1005.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.h2.jdbcx.JdbcDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the read replica routing of the DbConnectionProvider, with two embedded
+ * databases standing in for the primary and the replica.
+ */
+public class DbConnectionProviderTest {
+  private static final Instant NOW = Instant.parse("2025-05-02T12:00:00Z");
+  private MutableClock clock;
+  private JdbcDataSource primary;
+  private JdbcDataSource replica;
+  private Connection primaryKeepAlive;
+  private Connection replicaKeepAlive;
+
+  /**
+   * Clock that can be moved forward by the tests.
+   */
+  private static class MutableClock extends Clock {
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    clock = new MutableClock(NOW);
+    primary = embeddedDatabase("primary");
+    replica = embeddedDatabase("replica");
+    primaryKeepAlive = primary.getConnection();
+    replicaKeepAlive = replica.getConnection();
+    setUpDatabase(primaryKeepAlive, "primary", NOW);
+    setUpDatabase(replicaKeepAlive, "replica", NOW);
+  }
+
+  @AfterEach
+  void tearDown() throws SQLException {
+    primaryKeepAlive.close();
+    replicaKeepAlive.close();
+  }
+
+  private static JdbcDataSource embeddedDatabase(String name) {
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + name + UUID.randomUUID());
+    return dataSource;
+  }
+
+  /**
+   * Creates the heartbeat of a database, and a table holding the name of the database, so the
+   * tests can tell which database served a connection.
+   */
+  private static void setUpDatabase(Connection connection, String name, Instant beatAt)
+      throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE replication_heartbeat (id INT PRIMARY KEY, "
+          + "beatAt TIMESTAMP(3) NOT NULL)");
+      statement.execute("CREATE TABLE role (name VARCHAR(16))");
+      statement.execute("INSERT INTO role VALUES ('" + name + "')");
+    }
+    try (PreparedStatement insert = connection.prepareStatement(
+        "INSERT INTO replication_heartbeat VALUES (1, ?)")) {
+      insert.setTimestamp(1, Timestamp.from(beatAt));
+      insert.executeUpdate();
+    }
+  }
+
+  private static void setHeartbeat(Connection connection, Instant beatAt) throws SQLException {
+    try (PreparedStatement update = connection.prepareStatement(
+        "UPDATE replication_heartbeat SET beatAt = ? WHERE id = 1")) {
+      update.setTimestamp(1, Timestamp.from(beatAt));
+      update.executeUpdate();
+    }
+  }
+
+  private static String role(Connection connection) throws SQLException {
+    try (connection;
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT name FROM role")) {
+      resultSet.next();
+      return resultSet.getString("name");
+    }
+  }
+
+  @Nested
+  @DisplayName("Routing Tests")
+  class RoutingTests {
+    @Test
+    @DisplayName("Read is served by the caught up replica")
+    void readIsServedByTheCaughtUpReplica() throws SQLException {
+      DbConnectionProvider provider = new DbConnectionProvider(primary, replica, clock);
+
+      assertEquals("replica", role(provider.getReadConnection()));
+      assertEquals(1, provider.getReplicaRouter().getReplicaReadCount());
+    }
+
+    @Test
+    @DisplayName("Read is served by the primary without a replica")
+    void readIsServedByThePrimaryWithoutAReplica() throws SQLException {
+      DbConnectionProvider provider = new DbConnectionProvider(primary, null, clock);
+
+      assertEquals("primary", role(provider.getReadConnection()));
+    }
+
+    @Test
+    @DisplayName("Write goes to the primary and its read as well")
+    void writeGoesToThePrimaryAndItsReadAsWell() throws SQLException {
+      DbConnectionProvider provider = new DbConnectionProvider(primary, replica, clock);
+
+      assertEquals("primary", role(provider.getWriteConnection()));
+      assertEquals("primary", role(provider.getReadConnection()));
+
+      clock.instant = clock.instant.plus(DbConnectionProvider.MAX_REPLICA_LAG);
+      assertEquals("replica", role(provider.getReadConnection()));
+    }
+
+    @Test
+    @DisplayName("Read from the primary keeps the next read on the replica")
+    void readFromThePrimaryKeepsTheNextReadOnTheReplica() throws SQLException {
+      DbConnectionProvider provider = new DbConnectionProvider(primary, replica, clock);
+
+      assertEquals("primary", role(provider.getConnection()));
+      assertEquals("replica", role(provider.getReadConnection()));
+    }
+  }
+
+  @Nested
+  @DisplayName("Fallback Tests")
+  class FallbackTests {
+    @Test
+    @DisplayName("Read is served by the primary while the replica lags behind")
+    void readIsServedByThePrimaryWhileTheReplicaLagsBehind() throws SQLException {
+      setHeartbeat(primaryKeepAlive,
+          NOW.plus(DbConnectionProvider.MAX_REPLICA_LAG).plusSeconds(1));
+      DbConnectionProvider provider = new DbConnectionProvider(primary, replica, clock);
+
+      assertEquals("primary", role(provider.getReadConnection()));
+    }
+
+    @Test
+    @DisplayName("Read returns to the replica once it caught up")
+    void readReturnsToTheReplicaOnceItCaughtUp() throws SQLException {
+      Instant beat = NOW.plus(DbConnectionProvider.MAX_REPLICA_LAG).plusSeconds(1);
+      setHeartbeat(primaryKeepAlive, beat);
+      DbConnectionProvider provider = new DbConnectionProvider(primary, replica, clock);
+      role(provider.getReadConnection());
+
+      setHeartbeat(replicaKeepAlive, beat);
+      clock.instant = clock.instant.plus(DbConnectionProvider.LAG_PROBE_INTERVAL);
+
+      assertEquals("replica", role(provider.getReadConnection()));
+    }
+
+    @Test
+    @DisplayName("Read is served by the primary when the replica cannot be reached")
+    void readIsServedByThePrimaryWhenTheReplicaCannotBeReached() throws SQLException {
+      JdbcDataSource unreachable = new JdbcDataSource();
+      unreachable.setURL("jdbc:h2:mem:missing" + UUID.randomUUID() + ";IFEXISTS=TRUE");
+      DbConnectionProvider provider = new DbConnectionProvider(primary, unreachable, clock);
+
+      assertEquals("primary", role(provider.getReadConnection()));
+      assertEquals(CircuitBreaker.State.CLOSED, provider.getCircuitBreaker().getState());
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package no.ntnu.idatx1005.database;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import no.ntnu.idatx1005.dao.AssigneesDao;
+import no.ntnu.idatx1005.dao.TaskDao;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the EmbeddedRemoteStore.
+ */
+public class EmbeddedRemoteStoreTest {
+
+  @Nested
+  @DisplayName("Script Translation Tests")
+  class ScriptTranslationTests {
+    @Test
+    @DisplayName("Session settings, transactions and events are left out")
+    void sessionSettingsTransactionsAndEventsAreLeftOut() {
+      List<String> statements = EmbeddedRemoteStore.translateScript("""
+          -- Comment
+          SET SQL_MODE = "NO_AUTO_VALUE_ON_ZERO";
+          START TRANSACTION;
+          CREATE EVENT `beat`
+            ON SCHEDULE EVERY 1 SECOND
+            DO UPDATE `heartbeat` SET `beatAt` = NOW() WHERE `id` = 1;
+          COMMIT;
+          """);
+
+      assertTrue(statements.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Table options and character sets are dropped")
+    void tableOptionsAndCharacterSetsAreDropped() {
+      List<String> statements = EmbeddedRemoteStore.translateScript("""
+          CREATE TABLE `task` (
+            `taskId` varchar(36) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL
+          ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+          """);
+
+      assertEquals(List.of("CREATE TABLE task (\n  taskId varchar(36) NOT NULL\n)"), statements);
+    }
+
+    @Test
+    @DisplayName("Clauses of an altered table are split and keys become indexes")
+    void clausesOfAnAlteredTableAreSplitAndKeysBecomeIndexes() {
+      List<String> statements = EmbeddedRemoteStore.translateScript("""
+          ALTER TABLE `task_assignees`
+            ADD PRIMARY KEY (`taskId`,`userId`),
+            ADD KEY `fk_taskId` (`taskId`) USING BTREE;
+          """);
+
+      assertEquals(List.of("ALTER TABLE task_assignees ADD PRIMARY KEY (taskId,userId)",
+          "CREATE INDEX task_assignees_fk_taskId ON task_assignees (taskId)"), statements);
+    }
+  }
+
+  @Nested
+  @DisplayName("Function Tests")
+  class FunctionTests {
+    @Test
+    @DisplayName("CRC32 hashes the UTF-8 bytes of the text")
+    void crc32HashesTheUtf8BytesOfTheText() {
+      CRC32 crc = new CRC32();
+      crc.update("Støvsuging:1".getBytes(StandardCharsets.UTF_8));
+
+      assertEquals(crc.getValue(), EmbeddedRemoteStore.crc32("Støvsuging:1"));
+      assertNull(EmbeddedRemoteStore.crc32(null));
+    }
+
+    @Test
+    @DisplayName("HEX gives upper case digits")
+    void hexGivesUpperCaseDigits() {
+      assertEquals("00AB", EmbeddedRemoteStore.hex(new byte[] {0, (byte) 0xab}));
+    }
+
+    @Test
+    @DisplayName("DATE_FORMAT formats like MySQL")
+    void dateFormatFormatsLikeMySql() {
+      Timestamp time = Timestamp.valueOf(LocalDateTime.of(2025, 5, 2, 8, 4, 9));
+
+      assertEquals("2025-05-02 08:04:09",
+          EmbeddedRemoteStore.dateFormat(time, "%Y-%m-%d %H:%i:%s"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Backend Tests")
+  class BackendTests {
+    private EmbeddedRemoteStore newStore() {
+      return new EmbeddedRemoteStore("jdbc:h2:mem:remote" + UUID.randomUUID(),
+          EmbeddedRemoteStore.DEFAULT_SETUP_SCRIPT);
+    }
+
+    @Test
+    @DisplayName("Tasks are written through the DAOs")
+    void tasksAreWrittenThroughTheDaos() {
+      EmbeddedRemoteStore store = newStore();
+      TaskDao taskDao = new TaskDao(store, new AssigneesDao(store, Household.DEFAULT_ID),
+          Household.DEFAULT_ID);
+      Task task = new Task(UUID.randomUUID(), false, "Vacuum", "", LocalDateTime.now(),
+          LocalDateTime.now().plusDays(1), Priority.LOW, Size.S);
+
+      assertTrue(taskDao.addTaskIfAbsent(task));
+      assertFalse(taskDao.deleteTaskIfVersion(task.getId(), task.getVersion() + 1));
+      assertTrue(taskDao.deleteTaskIfVersion(task.getId(), task.getVersion()));
+      // A replayed deletion finds the task gone, which counts as deleted
+      assertTrue(taskDao.deleteTaskIfVersion(task.getId(), task.getVersion()));
+    }
+
+    @Test
+    @DisplayName("Tasks are added to the household of the DAO")
+    void tasksAreAddedToTheHouseholdOfTheDao() throws SQLException {
+      EmbeddedRemoteStore store = newStore();
+      UUID cabin = UUID.randomUUID();
+      try (Connection connection = store.getConnection();
+          PreparedStatement insert = connection.prepareStatement(
+              "INSERT INTO household (householdId, name) VALUES (?, 'Cabin')")) {
+        insert.setString(1, cabin.toString());
+        insert.executeUpdate();
+      }
+      TaskDao taskDao = new TaskDao(store, new AssigneesDao(store, cabin), cabin);
+      Task task = new Task(UUID.randomUUID(), false, "Chop wood", "", LocalDateTime.now(),
+          LocalDateTime.now().plusDays(1), Priority.LOW, Size.S);
+
+      assertTrue(taskDao.addTaskIfAbsent(task));
+      try (Connection connection = store.getConnection();
+          PreparedStatement select = connection.prepareStatement(
+              "SELECT householdId FROM task WHERE taskId = ?")) {
+        select.setString(1, task.getId().toString());
+        try (ResultSet row = select.executeQuery()) {
+          assertTrue(row.next());
+          assertEquals(cabin.toString(), row.getString(1));
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Tasks of another household are never changed or deleted")
+    void tasksOfAnotherHouseholdAreNeverChangedOrDeleted() throws SQLException {
+      EmbeddedRemoteStore store = newStore();
+      UUID cabin = UUID.randomUUID();
+      try (Connection connection = store.getConnection();
+          PreparedStatement insert = connection.prepareStatement(
+              "INSERT INTO household (householdId, name) VALUES (?, 'Cabin')")) {
+        insert.setString(1, cabin.toString());
+        insert.executeUpdate();
+      }
+      TaskDao homeDao = new TaskDao(store, new AssigneesDao(store, Household.DEFAULT_ID),
+          Household.DEFAULT_ID);
+      TaskDao cabinDao = new TaskDao(store, new AssigneesDao(store, cabin), cabin);
+      Task task = new Task(UUID.randomUUID(), false, "Vacuum", "", LocalDateTime.now(),
+          LocalDateTime.now().plusDays(1), Priority.LOW, Size.S);
+      homeDao.addTaskIfAbsent(task);
+
+      task.setName("Chop wood");
+      assertFalse(cabinDao.updateTaskIfVersion(task, task.getVersion(), UUID.randomUUID(), null,
+          revision -> fail("No changelog entry is made for a task of another household")));
+      cabinDao.deleteTaskIfVersion(task.getId(), task.getVersion());
+
+      try (Connection connection = store.getConnection();
+          PreparedStatement select = connection.prepareStatement(
+              "SELECT name, version FROM task WHERE taskId = ?")) {
+        select.setString(1, task.getId().toString());
+        try (ResultSet row = select.executeQuery()) {
+          assertTrue(row.next());
+          assertEquals("Vacuum", row.getString("name"));
+          assertEquals(0, row.getInt("version"));
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Fingerprint of a table is taken with the MySQL functions")
+    void fingerprintOfATableIsTakenWithTheMySqlFunctions() throws SQLException {
+      EmbeddedRemoteStore store = newStore();
+
+      try (Connection connection = store.getConnection();
+          PreparedStatement select = connection.prepareStatement(
+              "SELECT COUNT(*), COALESCE(SUM(CRC32(CONCAT(taskId, ':', version))), 0) FROM task");
+          ResultSet row = select.executeQuery()) {
+        assertTrue(row.next());
+        assertEquals(0, row.getLong(1));
+      }
+    }
+
+    @Test
+    @DisplayName("Seeded database is reused")
+    void seededDatabaseIsReused() {
+      String url = "jdbc:h2:mem:remote" + UUID.randomUUID();
+      new EmbeddedRemoteStore(url, EmbeddedRemoteStore.DEFAULT_SETUP_SCRIPT);
+
+      assertDoesNotThrow(() -> new EmbeddedRemoteStore(url, Path.of("missing.sql")));
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package no.ntnu.idatx1005.database;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the MonitoredConnection, on a stand-in connection whose statements fail with a
+ * chosen error.
+ */
+public class MonitoredConnectionTest {
+  private CircuitBreaker circuitBreaker;
+  private AtomicReference<SQLException> error;
+  private AtomicInteger queryTimeout;
+  private Connection connection;
+
+  @BeforeEach
+  void setUp() {
+    circuitBreaker = new CircuitBreaker(3, Duration.ofSeconds(30), Clock.systemUTC());
+    error = new AtomicReference<>();
+    queryTimeout = new AtomicInteger();
+    connection = MonitoredConnection.wrap(failingConnection(), circuitBreaker,
+        Duration.ofSeconds(10));
+  }
+
+  /**
+   * Creates a connection whose statements throw the current error when executed.
+   */
+  private Connection failingConnection() {
+    PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+        PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "setQueryTimeout" -> {
+            queryTimeout.set((int) args[0]);
+            yield null;
+          }
+          case "executeUpdate" -> {
+            if (error.get() != null) {
+              throw error.get();
+            }
+            yield 1;
+          }
+          default -> null;
+        });
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[] {Connection.class},
+        (proxy, method, args) -> "prepareStatement".equals(method.getName()) ? statement : null);
+  }
+
+  private void executeFailing(SQLException e) throws SQLException {
+    error.set(e);
+    PreparedStatement statement = connection.prepareStatement("UPDATE task SET name = ?");
+    assertThrows(e.getClass(), statement::executeUpdate);
+  }
+
+  @Nested
+  @DisplayName("Failure Tests")
+  class FailureTests {
+    @Test
+    @DisplayName("Lost connections during statements open the breaker")
+    void lostConnectionsDuringStatementsOpenTheBreaker() throws SQLException {
+      for (int i = 0; i < 3; i++) {
+        executeFailing(new SQLException("Communications link failure", "08S01"));
+      }
+
+      assertEquals(3, circuitBreaker.getFailureCount());
+      assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Statements that time out count as failures")
+    void statementsThatTimeOutCountAsFailures() throws SQLException {
+      executeFailing(new SQLTimeoutException("Statement cancelled due to timeout"));
+
+      assertEquals(1, circuitBreaker.getFailureCount());
+    }
+
+    @Test
+    @DisplayName("Errors the database answered with are not failures")
+    void errorsTheDatabaseAnsweredWithAreNotFailures() throws SQLException {
+      for (int i = 0; i < 3; i++) {
+        executeFailing(new SQLException("Duplicate entry", "23000"));
+      }
+
+      assertEquals(0, circuitBreaker.getFailureCount());
+      assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+  }
+
+  @Nested
+  @DisplayName("Timeout Tests")
+  class TimeoutTests {
+    @Test
+    @DisplayName("Statements get the query timeout of the connection")
+    void statementsGetTheQueryTimeoutOfTheConnection() throws SQLException {
+      connection.prepareStatement("SELECT 1").executeUpdate();
+
+      assertEquals(10, queryTimeout.get());
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package no.ntnu.idatx1005.database;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the ReplicaRouter.
+ */
+public class ReplicaRouterTest {
+  private static final Duration MAX_LAG = Duration.ofSeconds(5);
+  private static final Duration PROBE_INTERVAL = Duration.ofSeconds(10);
+  private MutableClock clock;
+  private Duration lag;
+  private int probes;
+  private ReplicaRouter router;
+
+  /**
+   * Clock that can be moved forward by the tests.
+   */
+  private static class MutableClock extends Clock {
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(Instant.parse("2025-05-02T12:00:00Z"));
+    lag = Duration.ofMillis(200);
+    probes = 0;
+    router = new ReplicaRouter(clock, MAX_LAG, PROBE_INTERVAL, () -> {
+      probes++;
+      if (lag == null) {
+        throw new DatabaseConnectionException("Replica is not answering");
+      }
+      return lag;
+    });
+  }
+
+  @Nested
+  @DisplayName("Lag Tests")
+  class LagTests {
+    @Test
+    @DisplayName("Caught up replica serves reads")
+    void caughtUpReplicaServesReads() {
+      assertTrue(router.useReplica());
+      assertEquals(1, router.getReplicaReadCount());
+    }
+
+    @Test
+    @DisplayName("Lagging replica sends reads to the primary")
+    void laggingReplicaSendsReadsToThePrimary() {
+      lag = MAX_LAG.plusMillis(1);
+
+      assertFalse(router.useReplica());
+      assertEquals(1, router.getPrimaryReadCount());
+    }
+
+    @Test
+    @DisplayName("Unmeasured lag sends reads to the primary")
+    void unmeasuredLagSendsReadsToThePrimary() {
+      lag = null;
+
+      assertFalse(router.useReplica());
+      assertNull(router.getLag());
+    }
+
+    @Test
+    @DisplayName("Lag is measured once per probe interval")
+    void lagIsMeasuredOncePerProbeInterval() {
+      router.useReplica();
+      lag = MAX_LAG.plusSeconds(1);
+
+      assertTrue(router.useReplica());
+      assertEquals(1, probes);
+
+      clock.instant = clock.instant.plus(PROBE_INTERVAL);
+      assertFalse(router.useReplica());
+      assertEquals(2, probes);
+    }
+
+    @Test
+    @DisplayName("Replica failure sends reads to the primary until the next probe")
+    void replicaFailureSendsReadsToThePrimaryUntilTheNextProbe() {
+      router.useReplica();
+
+      router.recordReplicaFailure();
+
+      assertFalse(router.useReplica());
+      clock.instant = clock.instant.plus(PROBE_INTERVAL);
+      assertTrue(router.useReplica());
+    }
+  }
+
+  @Nested
+  @DisplayName("Read Your Writes Tests")
+  class ReadYourWritesTests {
+    @Test
+    @DisplayName("Reads right after a write go to the primary")
+    void readsRightAfterAWriteGoToThePrimary() {
+      router.recordWrite();
+
+      assertFalse(router.useReplica());
+      clock.instant = clock.instant.plus(MAX_LAG).minusMillis(1);
+      assertFalse(router.useReplica());
+    }
+
+    @Test
+    @DisplayName("Reads go to the replica again once it had time to catch up")
+    void readsGoToTheReplicaAgainOnceItHadTimeToCatchUp() {
+      router.recordWrite();
+
+      clock.instant = clock.instant.plus(MAX_LAG);
+
+      assertTrue(router.useReplica());
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the ArchivedTask model.
+ */
+public class ArchivedTaskTest {
+  private Task task;
+  private UUID userId;
+
+  @BeforeEach
+  void setUp() {
+    task = new Task(UUID.randomUUID(), true, "Clean the kitchen",
+        "Wipe the counters and empty the dishwasher. ".repeat(4),
+        LocalDateTime.of(2024, 1, 2, 10, 0), LocalDateTime.of(2024, 1, 5, 18, 0),
+        Priority.HIGH, Size.M);
+    task.setCompletedDate(LocalDateTime.of(2024, 1, 4, 20, 30));
+    task.setVersion(7);
+    userId = UUID.randomUUID();
+    task.addAssignedUserId(userId);
+  }
+
+  @Nested
+  @DisplayName("Compression Tests")
+  class CompressionTests {
+    @Test
+    @DisplayName("Archived task is decompressed to what it was compressed from")
+    void archivedTaskIsDecompressedToWhatItWasCompressedFrom() {
+      TaskChange change = new TaskChange(UUID.randomUUID(), task.getId(),
+          List.of(new FieldChange(TaskField.COMPLETED, null, "1")), userId,
+          LocalDateTime.of(2024, 1, 4, 20, 30));
+      TaskChange legacyChange = new TaskChange(UUID.randomUUID(), task.getId(),
+          "Task was created", userId, LocalDateTime.of(2024, 1, 2, 10, 0));
+      DescriptionRevision revision = new DescriptionRevision(task.getId(), 0, true,
+          task.getDescription());
+
+      ArchivedTask archived = ArchivedTask.decompress(
+          new ArchivedTask(task, List.of(legacyChange, change), List.of(revision)).compress());
+
+      assertEquals(task.getId(), archived.task().getId());
+      assertEquals(task.getName(), archived.task().getName());
+      assertEquals(task.getDescription(), archived.task().getDescription());
+      assertEquals(task.getCompletedDate(), archived.task().getCompletedDate());
+      assertEquals(Priority.HIGH, archived.task().getPriority());
+      assertEquals(7, archived.task().getVersion());
+      assertEquals(List.of(userId), archived.task().getAssignedUserIds());
+      assertEquals(List.of(legacyChange, change), archived.changes());
+      assertEquals(List.of(revision), archived.descriptionHistory());
+    }
+
+    @Test
+    @DisplayName("Payload is smaller than the text it holds")
+    void payloadIsSmallerThanTheTextItHolds() {
+      task.setDescription("Wipe the counters and empty the dishwasher. ".repeat(20));
+      byte[] payload = new ArchivedTask(task, List.of(), List.of()).compress();
+
+      assertTrue(payload.length < task.getDescription().length());
+    }
+
+    @Test
+    @DisplayName("Malformed payload is rejected")
+    void malformedPayloadIsRejected() {
+      assertThrows(IllegalArgumentException.class,
+          () -> ArchivedTask.decompress(new byte[] {1, 2, 3}));
+    }
+  }
+
+  @Nested
+  @DisplayName("Archive Date Tests")
+  class ArchiveDateTests {
+    @Test
+    @DisplayName("Task completed before completion dates were recorded uses its due date")
+    void taskCompletedBeforeCompletionDatesWereRecordedUsesItsDueDate() {
+      assertEquals(task.getCompletedDate(),
+          new ArchivedTask(task, List.of(), List.of()).archiveDate());
+
+      task.setCompletedDate(null);
+      ArchivedTask archived = ArchivedTask.decompress(
+          new ArchivedTask(task, List.of(), List.of()).compress());
+
+      assertNull(archived.task().getCompletedDate());
+      assertEquals(task.getDueDate(), archived.archiveDate());
+    }
+  }
+}
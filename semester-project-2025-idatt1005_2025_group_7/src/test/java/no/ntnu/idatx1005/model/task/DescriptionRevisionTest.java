@@ -0,0 +1,134 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the DescriptionRevision model.
+ */
+public class DescriptionRevisionTest {
+  private static final UUID TASK_ID = UUID.randomUUID();
+
+  /**
+   * Returns the descriptions of a task whose long description is edited a little every time.
+   *
+   * @param count the number of descriptions
+   * @return the descriptions, oldest first
+   */
+  private static List<String> editedDescriptions(int count) {
+    List<String> descriptions = new ArrayList<>();
+    StringBuilder description = new StringBuilder(
+        "Empty the dishwasher and wipe the counters. ".repeat(5));
+    for (int i = 0; i < count; i++) {
+      description.replace(0, description.indexOf(" "), "Step" + i);
+      description.append(" Check shelf ").append(i).append('.');
+      descriptions.add(description.toString());
+    }
+    return descriptions;
+  }
+
+  /**
+   * Returns the history of the given descriptions.
+   *
+   * @param descriptions the descriptions, oldest first
+   * @return the revisions of the history
+   */
+  private static List<DescriptionRevision> history(List<String> descriptions) {
+    List<DescriptionRevision> revisions = new ArrayList<>();
+    for (int i = 0; i < descriptions.size(); i++) {
+      revisions.add(DescriptionRevision.of(TASK_ID, i, i == 0 ? null : descriptions.get(i - 1),
+          descriptions.get(i)));
+    }
+    return revisions;
+  }
+
+  @Nested
+  @DisplayName("Snapshot Tests")
+  class SnapshotTests {
+    @Test
+    @DisplayName("Every eighth revision is a snapshot")
+    void everyEighthRevisionIsASnapshot() {
+      List<DescriptionRevision> revisions = history(editedDescriptions(17));
+
+      assertTrue(revisions.get(0).snapshot());
+      assertFalse(revisions.get(7).snapshot());
+      assertTrue(revisions.get(8).snapshot());
+      assertTrue(revisions.get(16).snapshot());
+      assertEquals(8, DescriptionRevision.snapshotOf(15));
+      assertEquals(16, DescriptionRevision.snapshotOf(16));
+    }
+
+    @Test
+    @DisplayName("Rewrite of the whole description is a snapshot")
+    void rewriteOfTheWholeDescriptionIsASnapshot() {
+      String oldText = "Empty the dishwasher. ".repeat(2000);
+      String newText = "Vacuum under the sofa! ".repeat(2000);
+
+      DescriptionRevision revision = DescriptionRevision.of(TASK_ID, 9, oldText, newText);
+
+      assertTrue(revision.snapshot());
+      assertEquals(newText, revision.content());
+      assertEquals(newText, DescriptionRevision.reconstruct(List.of(
+          DescriptionRevision.of(TASK_ID, 8, null, oldText), revision)).get(9));
+    }
+  }
+
+  @Nested
+  @DisplayName("Reconstruction Tests")
+  class ReconstructionTests {
+    @Test
+    @DisplayName("Every revision is reconstructed from its snapshot")
+    void everyRevisionIsReconstructedFromItsSnapshot() {
+      List<String> descriptions = editedDescriptions(20);
+      List<DescriptionRevision> revisions = history(descriptions);
+
+      for (int i = 0; i < descriptions.size(); i++) {
+        int snapshot = DescriptionRevision.snapshotOf(i);
+        Map<Integer, String> reconstructed =
+            DescriptionRevision.reconstruct(revisions.subList(snapshot, i + 1));
+        assertEquals(descriptions.get(i), reconstructed.get(i));
+      }
+    }
+
+    @Test
+    @DisplayName("Revisions without their snapshot are not reconstructed")
+    void revisionsWithoutTheirSnapshotAreNotReconstructed() {
+      List<DescriptionRevision> revisions = history(editedDescriptions(10));
+      List<DescriptionRevision> gap = new ArrayList<>(revisions.subList(0, 3));
+      gap.addAll(revisions.subList(4, 10));
+
+      Map<Integer, String> reconstructed = DescriptionRevision.reconstruct(gap);
+
+      assertEquals(Set.of(0, 1, 2, 8, 9), reconstructed.keySet());
+    }
+  }
+
+  @Nested
+  @DisplayName("Size Tests")
+  class SizeTests {
+    @Test
+    @DisplayName("History takes a fraction of the space of full descriptions")
+    void historyTakesAFractionOfTheSpaceOfFullDescriptions() {
+      List<String> descriptions = editedDescriptions(40);
+
+      int fullBytes = descriptions.stream().mapToInt(String::length).sum();
+      int historyBytes = history(descriptions).stream()
+          .mapToInt(revision -> revision.content().length()).sum();
+
+      // 40 edits of a description growing from about 240 to 780 characters
+      assertEquals(21595, fullBytes);
+      assertEquals(3632, historyBytes);
+      assertTrue(historyBytes * 4 < fullBytes);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the FieldChange model.
+ */
+public class FieldChangeTest {
+
+  @Nested
+  @DisplayName("Encoding Tests")
+  class EncodingTests {
+    @Test
+    @DisplayName("Changes are decoded to what they were encoded from")
+    void changesAreDecodedToWhatTheyWereEncodedFrom() {
+      List<FieldChange> changes = List.of(
+          new FieldChange(TaskField.NAME, "Wash: kitchen", "Wash; bathroom \\ floor"),
+          new FieldChange(TaskField.DESCRIPTION, null, ""),
+          new FieldChange(TaskField.COMPLETED, null, "1"),
+          new FieldChange(TaskField.ASSIGNEE, UUID.randomUUID().toString(), null),
+          new FieldChange(TaskField.PRIORITY, "=LOW", "HIGH="));
+
+      assertEquals(changes, FieldChange.decode(FieldChange.encode(changes)));
+    }
+
+    @Test
+    @DisplayName("Name change is encoded compactly")
+    void nameChangeIsEncodedCompactly() {
+      assertEquals("N:=Old name:=New name", FieldChange.encode(
+          List.of(new FieldChange(TaskField.NAME, "Old name", "New name"))));
+      assertEquals("C::=1", FieldChange.encode(
+          List.of(new FieldChange(TaskField.COMPLETED, null, "1"))));
+    }
+
+    @Test
+    @DisplayName("Null or empty text decodes to no changes")
+    void nullOrEmptyTextDecodesToNoChanges() {
+      assertTrue(FieldChange.decode(null).isEmpty());
+      assertTrue(FieldChange.decode("").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Malformed text is rejected")
+    void malformedTextIsRejected() {
+      assertThrows(IllegalArgumentException.class, () -> FieldChange.decode("N:=a"));
+      assertThrows(IllegalArgumentException.class, () -> FieldChange.decode("X::=1"));
+      assertThrows(IllegalArgumentException.class, () -> FieldChange.decode("N:=a:=b\\"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Rendering Tests")
+  class RenderingTests {
+    @Test
+    @DisplayName("Changes are rendered as the sentences they used to be logged as")
+    void changesAreRenderedAsTheSentencesTheyUsedToBeLoggedAs() {
+      UUID userId = UUID.randomUUID();
+
+      assertEquals("Priority was changed from LOW to HIGH",
+          new FieldChange(TaskField.PRIORITY, "LOW", "HIGH").describe(id -> "Kari Nordmann"));
+      assertEquals("Due date was changed from 09/04/25 to 11/04/25",
+          new FieldChange(TaskField.DUE_DATE, "2025-04-09T12:00", "2025-04-11T12:00")
+              .describe(id -> "Kari Nordmann"));
+      assertEquals("Kari Nordmann was added as an assignee",
+          new FieldChange(TaskField.ASSIGNEE, null, userId.toString())
+              .describe(id -> id.equals(userId) ? "Kari Nordmann" : "Unknown user"));
+      assertEquals("Task was restored",
+          new FieldChange(TaskField.COMPLETED, null, "0").describe(id -> "Kari Nordmann"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Size Tests")
+  class SizeTests {
+    private static final int ROW_OVERHEAD = 3 * 36 + 5;
+
+    @Test
+    @DisplayName("Structured edit takes less than half the space of the sentences")
+    void structuredEditTakesLessThanHalfTheSpaceOfTheSentences() {
+      String oldDescription = "Empty the dishwasher and wipe the counters. ".repeat(5);
+      String newDescription = oldDescription + "Take out the recycling as well.";
+      UUID userId = UUID.randomUUID();
+      List<String> sentences = List.of(
+          "Name was changed from 'Kitchen' to 'Kitchen and recycling'",
+          String.format("Description was updated from '%s' to '%s'", oldDescription,
+              newDescription),
+          "Priority was changed from LOW to HIGH",
+          "Kari Nordmann was added as an assignee");
+      List<FieldChange> fields = List.of(
+          new FieldChange(TaskField.NAME, "Kitchen", "Kitchen and recycling"),
+          new FieldChange(TaskField.DESCRIPTION, null, newDescription),
+          new FieldChange(TaskField.PRIORITY, "LOW", "HIGH"),
+          new FieldChange(TaskField.ASSIGNEE, null, userId.toString()));
+
+      int sentenceBytes = sentences.stream().mapToInt(s -> ROW_OVERHEAD + s.length()).sum();
+      int structuredBytes = ROW_OVERHEAD + FieldChange.encode(fields).length();
+
+      // 4 rows of 1093 bytes against 1 row of 456 bytes
+      assertEquals(1093, sentenceBytes);
+      assertEquals(456, structuredBytes);
+      assertTrue(structuredBytes * 2 < sentenceBytes);
+      assertEquals(sentences.get(0), new TaskChange(UUID.randomUUID(), UUID.randomUUID(),
+          fields, userId, LocalDateTime.now()).describe(id -> "Kari Nordmann").split("; ")[0]);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package no.ntnu.idatx1005.model.task;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TextDiff model.
+ */
+public class TextDiffTest {
+
+  /**
+   * Returns a text of numbered words with the given stem.
+   *
+   * @param stem the stem of the words
+   * @param count the number of words
+   * @return the words, separated by spaces
+   */
+  private static String words(String stem, int count) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      text.append(stem).append(i).append(' ');
+    }
+    return text.toString();
+  }
+
+  @Nested
+  @DisplayName("Diff Tests")
+  class DiffTests {
+    @Test
+    @DisplayName("Diff turns the old text into the new text")
+    void diffTurnsTheOldTextIntoTheNewText() {
+      List<String[]> versions = List.of(
+          new String[] {"Wash the floor", "Wash the kitchen floor"},
+          new String[] {"Wash the floor on Monday.", "Vacuum the floor on Friday!"},
+          new String[] {"", "Empty the bins"},
+          new String[] {"Empty the bins", ""},
+          new String[] {"Same text", "Same text"},
+          new String[] {"a b c a b b a", "c b a b a c"});
+
+      for (String[] version : versions) {
+        TextDiff diff = TextDiff.between(version[0], version[1]);
+        assertEquals(version[1], diff.apply(version[0]));
+        assertEquals(version[1], TextDiff.decode(diff.encode()).apply(version[0]));
+      }
+    }
+
+    @Test
+    @DisplayName("Inserted word is stored as one small edit")
+    void insertedWordIsStoredAsOneSmallEdit() {
+      assertEquals("=9+8:kitchen =5",
+          TextDiff.between("Wash the floor", "Wash the kitchen floor").encode());
+    }
+
+    @Test
+    @DisplayName("Rewrite of a long text replaces the whole text")
+    void rewriteOfALongTextReplacesTheWholeText() {
+      String oldText = words("dust", 8000);
+      String newText = words("mop", 8000);
+
+      TextDiff diff = TextDiff.between(oldText, newText);
+
+      assertTrue(diff.replacesAll());
+      assertEquals(newText, diff.apply(oldText));
+      assertEquals(newText, TextDiff.decode(diff.encode()).apply(oldText));
+    }
+
+    @Test
+    @DisplayName("Small edit of a long text is stored as a small edit")
+    void smallEditOfALongTextIsStoredAsASmallEdit() {
+      String oldText = words("dust", 8000);
+      String newText = oldText.replace("dust4000 ", "dust4000 and polish ");
+
+      TextDiff diff = TextDiff.between(oldText, newText);
+
+      assertFalse(diff.replacesAll());
+      assertEquals(3, diff.edits().size());
+      assertEquals(newText, diff.apply(oldText));
+    }
+
+    @Test
+    @DisplayName("Diff that does not fit the text is rejected")
+    void diffThatDoesNotFitTheTextIsRejected() {
+      TextDiff diff = TextDiff.between("Wash the floor", "Wash the kitchen floor");
+
+      assertThrows(IllegalArgumentException.class, () -> diff.apply("Wash"));
+      assertThrows(IllegalArgumentException.class, () -> diff.apply("Wash the floor today"));
+    }
+
+    @Test
+    @DisplayName("Malformed text is rejected")
+    void malformedTextIsRejected() {
+      assertThrows(IllegalArgumentException.class, () -> TextDiff.decode("=x"));
+      assertThrows(IllegalArgumentException.class, () -> TextDiff.decode("+5:abc"));
+      assertThrows(IllegalArgumentException.class, () -> TextDiff.decode("*3"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Rendering Tests")
+  class RenderingTests {
+    @Test
+    @DisplayName("Diff is rendered as what was added, removed and changed")
+    void diffIsRenderedAsWhatWasAddedRemovedAndChanged() {
+      String oldText = "Wash the floor on Monday, and dry it.";
+      String newText = "Wash the kitchen floor on Friday afternoon, and dry it.";
+
+      assertEquals("added 'kitchen', changed 'Monday' to 'Friday afternoon'",
+          TextDiff.between(oldText, newText).describe(oldText));
+      assertEquals("removed 'and dry it.'",
+          TextDiff.between("Wash, and dry it.", "Wash,").describe("Wash, and dry it."));
+      assertEquals("whitespace was changed",
+          TextDiff.between("Wash it", "Wash  it").describe("Wash it"));
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package no.ntnu.idatx1005.search;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TaskFacetIndex.
+ */
+public class TaskFacetIndexTest {
+  private final LocalDate today = LocalDate.of(2025, 4, 10);
+  private final UUID userId = UUID.randomUUID();
+  private Task highOverdue;
+  private Task highToday;
+  private Task lowCompleted;
+  private TaskFacetIndex index;
+  private TaskFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    highOverdue = createTask(Priority.HIGH, Size.S, today.minusDays(2), false);
+    highToday = createTask(Priority.HIGH, Size.L, today, false);
+    highToday.setAssignedUserIds(List.of(userId));
+    lowCompleted = createTask(Priority.LOW, Size.L, today.plusDays(3), true);
+    lowCompleted.setAssignedUserIds(List.of(userId));
+    index = new TaskFacetIndex(List.of(highOverdue, highToday, lowCompleted), today);
+    filter = new TaskFilter();
+  }
+
+  private Task createTask(Priority priority, Size size, LocalDate dueDate, boolean completed) {
+    return new Task(UUID.randomUUID(), completed, "Task", "", LocalDateTime.now(),
+        dueDate.atTime(12, 0), priority, size);
+  }
+
+  @Nested
+  @DisplayName("Match Tests")
+  class MatchTests {
+    @Test
+    @DisplayName("Empty filter matches all tasks in order")
+    void emptyFilterMatchesAllTasksInOrder() {
+      assertEquals(List.of(highOverdue, highToday, lowCompleted), index.getTasks(filter));
+    }
+
+    @Test
+    @DisplayName("Values of the same facet are combined with or")
+    void valuesOfTheSameFacetAreCombinedWithOr() {
+      filter.toggle(TaskFacet.SIZE, Size.S);
+      filter.toggle(TaskFacet.SIZE, Size.L);
+
+      assertEquals(3, index.match(filter).cardinality());
+    }
+
+    @Test
+    @DisplayName("Different facets are combined with and")
+    void differentFacetsAreCombinedWithAnd() {
+      filter.toggle(TaskFacet.PRIORITY, Priority.HIGH);
+      filter.toggle(TaskFacet.ASSIGNEE, userId);
+
+      assertEquals(List.of(highToday), index.getTasks(filter));
+    }
+
+    @Test
+    @DisplayName("Due ranges bucket tasks relative to today")
+    void dueRangesBucketTasksRelativeToToday() {
+      filter.toggle(TaskFacet.DUE, DueRange.OVERDUE);
+      assertEquals(List.of(highOverdue), index.getTasks(filter));
+
+      filter.toggle(TaskFacet.DUE, DueRange.OVERDUE);
+      filter.toggle(TaskFacet.DUE, DueRange.NEXT_7_DAYS);
+      assertEquals(List.of(lowCompleted), index.getTasks(filter));
+    }
+
+    @Test
+    @DisplayName("Tasks without assignees match the unassigned value")
+    void tasksWithoutAssigneesMatchTheUnassignedValue() {
+      filter.toggle(TaskFacet.ASSIGNEE, TaskFacetIndex.UNASSIGNED);
+
+      assertEquals(List.of(highOverdue), index.getTasks(filter));
+    }
+  }
+
+  @Nested
+  @DisplayName("Count Tests")
+  class CountTests {
+    @Test
+    @DisplayName("Counts ignore the selection of the counted facet")
+    void countsIgnoreTheSelectionOfTheCountedFacet() {
+      filter.toggle(TaskFacet.PRIORITY, Priority.HIGH);
+
+      Map<Object, Integer> counts = index.count(TaskFacet.PRIORITY, filter);
+
+      assertEquals(2, counts.get(Priority.HIGH));
+      assertEquals(0, counts.get(Priority.MEDIUM));
+      assertEquals(1, counts.get(Priority.LOW));
+    }
+
+    @Test
+    @DisplayName("Counts are restricted by other facets")
+    void countsAreRestrictedByOtherFacets() {
+      filter.toggle(TaskFacet.STATUS, false);
+
+      Map<Object, Integer> counts = index.count(TaskFacet.SIZE, filter);
+
+      assertEquals(1, counts.get(Size.S));
+      assertEquals(1, counts.get(Size.L));
+    }
+  }
+
+  @Nested
+  @DisplayName("Filter Tests")
+  class FilterTests {
+    @Test
+    @DisplayName("Toggle twice deselects the value")
+    void toggleTwiceDeselectsTheValue() {
+      filter.toggle(TaskFacet.PRIORITY, Priority.LOW);
+      assertTrue(filter.isSelected(TaskFacet.PRIORITY, Priority.LOW));
+
+      filter.toggle(TaskFacet.PRIORITY, Priority.LOW);
+      assertFalse(filter.isSelected(TaskFacet.PRIORITY, Priority.LOW));
+      assertTrue(filter.getSelected(TaskFacet.PRIORITY).isEmpty());
+    }
+  }
+}
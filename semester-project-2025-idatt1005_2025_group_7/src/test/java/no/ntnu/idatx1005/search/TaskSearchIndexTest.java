@@ -0,0 +1,210 @@
+package no.ntnu.idatx1005.search;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import no.ntnu.idatx1005.model.task.FieldChange;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskChange;
+import no.ntnu.idatx1005.model.task.TaskField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TaskSearchIndex.
+ */
+public class TaskSearchIndexTest {
+  private TaskSearchIndex index;
+  private Task dishes;
+  private Task laundry;
+  private List<Task> tasks;
+  private List<TaskChange> changes;
+
+  @BeforeEach
+  void setUp() {
+    index = new TaskSearchIndex();
+    dishes = createTask("Wash dishes", "Empty the dishwasher and wash the pans");
+    laundry = createTask("Laundry", "Fold the towels in the bathroom");
+    tasks = new ArrayList<>(List.of(dishes, laundry));
+    changes = new ArrayList<>(List.of(new TaskChange(UUID.randomUUID(), laundry.getId(),
+        "Due date changed from 2025-04-01 to 2025-04-08", UUID.randomUUID(),
+        LocalDateTime.now())));
+    index.synchronize(tasks, changes);
+  }
+
+  private Task createTask(String name, String description) {
+    return new Task(UUID.randomUUID(), false, name, description, LocalDateTime.now(),
+        LocalDateTime.now().plusDays(1), Priority.MEDIUM, Size.M);
+  }
+
+  @Nested
+  @DisplayName("Tokenizer Tests")
+  class TokenizerTests {
+    @Test
+    @DisplayName("Tokenize splits on separators and lower-cases terms")
+    void tokenizeSplitsOnSeparatorsAndLowerCasesTerms() {
+      assertEquals(List.of("vask", "badet", "før", "kl", "18"),
+          Tokenizer.tokenize("Vask badet, FØR kl.18!"));
+    }
+
+    @Test
+    @DisplayName("Tokenize returns no terms for null")
+    void tokenizeReturnsNoTermsForNull() {
+      assertTrue(Tokenizer.tokenize(null).isEmpty());
+    }
+  }
+
+  @Nested
+  @DisplayName("Search Tests")
+  class SearchTests {
+    @Test
+    @DisplayName("Search finds task by word in description")
+    void searchFindsTaskByWordInDescription() {
+      SearchResults results = index.search("towels", 10);
+
+      assertEquals(1, results.results().size());
+      assertEquals(laundry.getId(), results.results().getFirst().taskId());
+      assertEquals(SearchResultType.TASK, results.results().getFirst().type());
+    }
+
+    @Test
+    @DisplayName("Search matches last term as prefix")
+    void searchMatchesLastTermAsPrefix() {
+      SearchResults results = index.search("dishw", 10);
+
+      assertEquals(1, results.results().size());
+      assertEquals(dishes.getId(), results.results().getFirst().taskId());
+    }
+
+    @Test
+    @DisplayName("Search requires all terms to match")
+    void searchRequiresAllTermsToMatch() {
+      assertTrue(index.search("wash towels", 10).results().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Search finds change history with task name as title")
+    void searchFindsChangeHistoryWithTaskNameAsTitle() {
+      SearchResults results = index.search("due date", 10);
+
+      assertEquals(1, results.results().size());
+      assertEquals(SearchResultType.HISTORY, results.results().getFirst().type());
+      assertEquals("Laundry", results.results().getFirst().title());
+    }
+
+    @Test
+    @DisplayName("Facet counts include types filtered out of the results")
+    void facetCountsIncludeTypesFilteredOutOfTheResults() {
+      tasks.add(createTask("Change date of party", "Due next week"));
+      index.synchronize(tasks, changes);
+
+      SearchResults results = index.search("due", EnumSet.of(SearchResultType.TASK), 10);
+
+      assertEquals(1, results.results().size());
+      assertEquals(1, results.count(SearchResultType.TASK));
+      assertEquals(1, results.count(SearchResultType.HISTORY));
+    }
+
+    @Test
+    @DisplayName("Matches in task name rank above matches in description")
+    void matchesInTaskNameRankAboveMatchesInDescription() {
+      Task bathroom = createTask("Clean bathroom", "Scrub the sink");
+      tasks.add(bathroom);
+      index.synchronize(tasks, changes);
+
+      assertEquals(bathroom.getId(), index.search("bathroom", 10).results().getFirst().taskId());
+    }
+  }
+
+  @Nested
+  @DisplayName("Synchronize Tests")
+  class SynchronizeTests {
+    @Test
+    @DisplayName("Synchronize removes deleted tasks")
+    void synchronizeRemovesDeletedTasks() {
+      tasks.remove(dishes);
+      index.synchronize(tasks, changes);
+
+      assertTrue(index.search("dishes", 10).results().isEmpty());
+      assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Synchronize reindexes changed descriptions")
+    void synchronizeReindexesChangedDescriptions() {
+      laundry.setDescription("Hang the sheets");
+      index.synchronize(tasks, changes);
+
+      assertTrue(index.search("towels", 10).results().isEmpty());
+      assertEquals(1, index.search("sheets", 10).results().size());
+    }
+
+    @Test
+    @DisplayName("Synchronize reindexes renamed tasks and keeps unchanged ones")
+    void synchronizeReindexesRenamedTasksAndKeepsUnchangedOnes() {
+      laundry.setName("Ironing");
+      index.synchronize(tasks, changes);
+
+      assertTrue(index.search("laundry", 10).results().isEmpty());
+      assertEquals(laundry.getId(), index.search("ironing", 10).results().getFirst().taskId());
+      assertEquals(dishes.getId(), index.search("dishes", 10).results().getFirst().taskId());
+      assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Changelog entries are rendered only once")
+    void changelogEntriesAreRenderedOnlyOnce() {
+      AtomicInteger lookups = new AtomicInteger();
+      index = new TaskSearchIndex(since -> List.of(), id -> {
+        lookups.incrementAndGet();
+        return "Kari";
+      }, Clock.systemDefaultZone());
+      changes.add(new TaskChange(UUID.randomUUID(), dishes.getId(),
+          List.of(new FieldChange(TaskField.ASSIGNEE, null, UUID.randomUUID().toString())),
+          UUID.randomUUID(), LocalDateTime.now()));
+
+      index.synchronize(tasks, changes);
+      index.synchronize(tasks, changes);
+
+      assertEquals(1, lookups.get());
+      assertEquals(1, index.search("kari", 10).results().size());
+    }
+
+    @Test
+    @DisplayName("History is fetched from the start of the window and old entries are dropped")
+    void historyIsFetchedFromTheStartOfTheWindowAndOldEntriesAreDropped() {
+      LocalDateTime now = LocalDateTime.of(2025, 4, 30, 12, 0);
+      Clock clock = Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+      AtomicReference<LocalDateTime> requestedSince = new AtomicReference<>();
+      TaskChange recent = new TaskChange(UUID.randomUUID(), laundry.getId(),
+          "Priority changed from LOW to HIGH", UUID.randomUUID(), now.minusDays(1));
+      TaskChange old = new TaskChange(UUID.randomUUID(), laundry.getId(),
+          "Size changed from S to XL", UUID.randomUUID(),
+          now.minusDays(TaskSearchIndex.HISTORY_WINDOW_DAYS + 1));
+      index = new TaskSearchIndex(since -> {
+        requestedSince.set(since);
+        return List.of(recent, old);
+      }, id -> "Kari", clock);
+
+      index.synchronizeWithHistory(tasks);
+
+      assertEquals(now.minusDays(TaskSearchIndex.HISTORY_WINDOW_DAYS), requestedSince.get());
+      assertEquals(1, index.search("priority", 10).results().size());
+      assertTrue(index.search("size", 10).results().isEmpty());
+    }
+  }
+}
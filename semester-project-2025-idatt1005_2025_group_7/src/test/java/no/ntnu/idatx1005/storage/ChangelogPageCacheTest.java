@@ -0,0 +1,123 @@
+package no.ntnu.idatx1005.storage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import no.ntnu.idatx1005.model.task.ChangelogEntry;
+import no.ntnu.idatx1005.model.task.ChangelogPage;
+import no.ntnu.idatx1005.model.task.TaskChange;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the ChangelogPageCache.
+ */
+public class ChangelogPageCacheTest {
+  private static final int PAGE_SIZE = 2;
+  private UUID taskId;
+  private List<TaskChange> changelog;
+  private List<TaskChange> fetchedAfter;
+  private ChangelogPageCache cache;
+
+  @BeforeEach
+  void setUp() {
+    taskId = UUID.randomUUID();
+    changelog = new ArrayList<>();
+    LocalDateTime now = LocalDateTime.of(2025, 4, 9, 12, 0);
+    for (int i = 0; i < 5; i++) {
+      changelog.add(new TaskChange(UUID.randomUUID(), taskId, "Change " + i, UUID.randomUUID(),
+          now.minusMinutes(i)));
+    }
+    fetchedAfter = new ArrayList<>();
+    cache = new ChangelogPageCache(3);
+  }
+
+  /**
+   * Fetches a page of the changelog the way the remote database would, newest first.
+   */
+  private ChangelogPage fetch(UUID id, TaskChange after) {
+    fetchedAfter.add(after);
+    int start = after == null ? 0 : changelog.indexOf(after) + 1;
+    int end = Math.min(start + PAGE_SIZE, changelog.size());
+    List<ChangelogEntry> entries = changelog.subList(start, end).stream()
+        .map(change -> new ChangelogEntry(change, "Kari Nordmann"))
+        .toList();
+    return new ChangelogPage(entries, end < changelog.size());
+  }
+
+  @Nested
+  @DisplayName("Paging Tests")
+  class PagingTests {
+    @Test
+    @DisplayName("Page starts after the last change of the previous page")
+    void pageStartsAfterTheLastChangeOfThePreviousPage() {
+      ChangelogPage page = cache.getPage(taskId, 0, 1, ChangelogPageCacheTest.this::fetch);
+
+      assertEquals(changelog.subList(2, 4), page.entries().stream()
+          .map(ChangelogEntry::change).toList());
+      assertNull(fetchedAfter.get(0));
+      assertEquals(changelog.get(1), fetchedAfter.get(1));
+    }
+
+    @Test
+    @DisplayName("Page past the end is empty")
+    void pagePastTheEndIsEmpty() {
+      ChangelogPage page = cache.getPage(taskId, 0, 5, ChangelogPageCacheTest.this::fetch);
+
+      assertTrue(page.entries().isEmpty());
+      assertEquals(3, fetchedAfter.size());
+    }
+  }
+
+  @Nested
+  @DisplayName("Caching Tests")
+  class CachingTests {
+    @Test
+    @DisplayName("Viewed pages are not fetched again")
+    void viewedPagesAreNotFetchedAgain() {
+      cache.getPage(taskId, 0, 1, ChangelogPageCacheTest.this::fetch);
+      cache.getPage(taskId, 0, 0, ChangelogPageCacheTest.this::fetch);
+      cache.getPage(taskId, 0, 1, ChangelogPageCacheTest.this::fetch);
+
+      assertEquals(2, fetchedAfter.size());
+    }
+
+    @Test
+    @DisplayName("Pages are fetched again once the task has changed")
+    void pagesAreFetchedAgainOnceTheTaskHasChanged() {
+      cache.getPage(taskId, 0, 0, ChangelogPageCacheTest.this::fetch);
+      cache.getPage(taskId, 1, 0, ChangelogPageCacheTest.this::fetch);
+      cache.invalidate(taskId);
+      cache.getPage(taskId, 1, 0, ChangelogPageCacheTest.this::fetch);
+
+      assertEquals(3, fetchedAfter.size());
+    }
+
+    @Test
+    @DisplayName("Least recently viewed page is evicted")
+    void leastRecentlyViewedPageIsEvicted() {
+      cache.getPage(taskId, 0, 2, ChangelogPageCacheTest.this::fetch);
+      UUID otherTaskId = UUID.randomUUID();
+      cache.getPage(otherTaskId, 0, 0, ChangelogPageCacheTest.this::fetch);
+
+      assertEquals(3, cache.size());
+      fetchedAfter.clear();
+      cache.getPage(taskId, 0, 0, ChangelogPageCacheTest.this::fetch);
+      assertEquals(1, fetchedAfter.size());
+    }
+
+    @Test
+    @DisplayName("Capacity must be positive")
+    void capacityMustBePositive() {
+      assertThrows(IllegalArgumentException.class, () -> new ChangelogPageCache(0));
+    }
+  }
+}
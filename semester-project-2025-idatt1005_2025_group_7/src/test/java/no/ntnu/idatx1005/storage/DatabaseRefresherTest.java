@@ -0,0 +1,263 @@
+package no.ntnu.idatx1005.storage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the DatabaseRefresher.
+ */
+public class DatabaseRefresherTest {
+  private MutableClock clock;
+  private ScheduledExecutorService scheduler;
+  private AtomicInteger fullRefreshes;
+  private AtomicInteger taskRefreshes;
+  private Runnable fullRefresh;
+  private Runnable taskRefresh;
+  private List<TableFingerprint> remote;
+  private DatabaseRefresher refresher;
+
+  /**
+   * Clock that can be moved forward by the tests.
+   */
+  private static class MutableClock extends Clock {
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock(Instant.parse("2025-04-09T12:00:00Z"));
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    fullRefreshes = new AtomicInteger();
+    taskRefreshes = new AtomicInteger();
+    fullRefresh = fullRefreshes::incrementAndGet;
+    taskRefresh = taskRefreshes::incrementAndGet;
+    remote = fingerprint(1);
+    refresher = new DatabaseRefresher(scheduler, clock, () -> 1.0, () -> fullRefresh.run(),
+        Map.of(RefreshTier.USERS, () -> { }, RefreshTier.TASKS, () -> taskRefresh.run()),
+        tier -> remote);
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  private List<TableFingerprint> fingerprint(long checksum) {
+    return List.of(new TableFingerprint("task", 1, checksum));
+  }
+
+  @Nested
+  @DisplayName("Backoff Tests")
+  class BackoffTests {
+    @Test
+    @DisplayName("Backoff doubles with every failure up to the maximum")
+    void backoffDoublesWithEveryFailureUpToTheMaximum() {
+      Duration interval = Duration.ofSeconds(60);
+
+      assertEquals(Duration.ofSeconds(120), DatabaseRefresher.backoff(interval, 1, 1.0));
+      assertEquals(Duration.ofSeconds(240), DatabaseRefresher.backoff(interval, 2, 1.0));
+      assertEquals(DatabaseRefresher.MAX_BACKOFF, DatabaseRefresher.backoff(interval, 30, 1.0));
+    }
+
+    @Test
+    @DisplayName("Half of the backoff is jitter")
+    void halfOfTheBackoffIsJitter() {
+      Duration interval = Duration.ofSeconds(60);
+
+      assertEquals(Duration.ofSeconds(60), DatabaseRefresher.backoff(interval, 1, 0.0));
+      assertEquals(Duration.ofSeconds(90), DatabaseRefresher.backoff(interval, 1, 0.5));
+    }
+
+    @Test
+    @DisplayName("Failing tier backs off and recovers to its interval")
+    void failingTierBacksOffAndRecoversToItsInterval() {
+      taskRefresh = () -> {
+        throw new RuntimeException("Remote database is down");
+      };
+      assertEquals(Duration.ofSeconds(120), refresher.runTier(RefreshTier.TASKS));
+      assertEquals(Duration.ofSeconds(240), refresher.runTier(RefreshTier.TASKS));
+
+      taskRefresh = taskRefreshes::incrementAndGet;
+      assertEquals(Duration.ofSeconds(60), refresher.runTier(RefreshTier.TASKS));
+      assertEquals(1, taskRefreshes.get());
+    }
+  }
+
+  @Nested
+  @DisplayName("Pause Tests")
+  class PauseTests {
+    @Test
+    @DisplayName("Paused tier is not refreshed until resumed")
+    void pausedTierIsNotRefreshedUntilResumed() throws InterruptedException {
+      refresher.pause(DatabaseRefresher.PauseReason.HIDDEN);
+      assertNull(refresher.runTier(RefreshTier.TASKS));
+      assertEquals(0, taskRefreshes.get());
+
+      CountDownLatch refreshed = new CountDownLatch(1);
+      taskRefresh = refreshed::countDown;
+      refresher.resume(DatabaseRefresher.PauseReason.HIDDEN);
+
+      assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Refreshes stay paused until every reason is resumed")
+    void refreshesStayPausedUntilEveryReasonIsResumed() {
+      refresher.pause(DatabaseRefresher.PauseReason.HIDDEN);
+      refresher.pause(DatabaseRefresher.PauseReason.LOGGED_OUT);
+      refresher.resume(DatabaseRefresher.PauseReason.HIDDEN);
+
+      assertTrue(refresher.isPaused());
+      assertNull(refresher.runTier(RefreshTier.TASKS));
+    }
+
+    @Test
+    @DisplayName("Idle user skips the refresh")
+    void idleUserSkipsTheRefresh() {
+      clock.instant = clock.instant.plus(DatabaseRefresher.IDLE_TIMEOUT).plusSeconds(1);
+      assertEquals(Duration.ofSeconds(60), refresher.runTier(RefreshTier.TASKS));
+      assertEquals(0, taskRefreshes.get());
+
+      refresher.recordActivity();
+      refresher.runTier(RefreshTier.TASKS);
+      assertEquals(1, taskRefreshes.get());
+    }
+
+    @Test
+    @DisplayName("Interval must be positive")
+    void intervalMustBePositive() {
+      assertThrows(IllegalArgumentException.class,
+          () -> refresher.setInterval(RefreshTier.TASKS, Duration.ZERO));
+    }
+  }
+
+  @Nested
+  @DisplayName("Single Flight Tests")
+  class SingleFlightTests {
+    @Test
+    @DisplayName("Concurrent manual refreshes share one refresh")
+    void concurrentManualRefreshesShareOneRefresh() throws InterruptedException {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      fullRefresh = () -> {
+        fullRefreshes.incrementAndGet();
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      };
+      Thread first = new Thread(refresher::refreshNow);
+      first.start();
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+
+      Thread second = new Thread(refresher::refreshNow);
+      second.start();
+      while (second.getState() != Thread.State.WAITING) {
+        Thread.sleep(1);
+      }
+      // A scheduled refresh during the manual one is skipped
+      assertEquals(Duration.ofSeconds(60), refresher.runTier(RefreshTier.TASKS));
+      release.countDown();
+      first.join();
+      second.join();
+
+      assertEquals(1, fullRefreshes.get());
+      assertEquals(0, taskRefreshes.get());
+    }
+
+    @Test
+    @DisplayName("Scheduled refresh is skipped right after a manual refresh")
+    void scheduledRefreshIsSkippedRightAfterAManualRefresh() {
+      refresher.refreshNow();
+      refresher.runTier(RefreshTier.TASKS);
+
+      assertEquals(1, fullRefreshes.get());
+      assertEquals(0, taskRefreshes.get());
+    }
+  }
+
+  @Nested
+  @DisplayName("Fingerprint Tests")
+  class FingerprintTests {
+    @Test
+    @DisplayName("Unchanged tier is only cloned once")
+    void unchangedTierIsOnlyClonedOnce() {
+      refresher.runTier(RefreshTier.TASKS);
+      refresher.runTier(RefreshTier.TASKS);
+      refresher.runTier(RefreshTier.TASKS);
+
+      assertEquals(1, taskRefreshes.get());
+      SyncMetrics metrics = refresher.getSyncMetrics();
+      assertEquals(1, metrics.getCount(RefreshTier.TASKS, SyncMetrics.Outcome.EXECUTED));
+      assertEquals(2, metrics.getCount(RefreshTier.TASKS, SyncMetrics.Outcome.UNCHANGED));
+      assertEquals(2.0 / 3, metrics.getUnchangedRatio(RefreshTier.TASKS), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Changed fingerprint clones the tier again")
+    void changedFingerprintClonesTheTierAgain() {
+      refresher.runTier(RefreshTier.TASKS);
+      remote = fingerprint(2);
+      refresher.runTier(RefreshTier.TASKS);
+
+      assertEquals(2, taskRefreshes.get());
+    }
+
+    @Test
+    @DisplayName("Failed clone is retried even if the fingerprint is unchanged")
+    void failedCloneIsRetriedEvenIfTheFingerprintIsUnchanged() {
+      taskRefresh = () -> {
+        throw new RuntimeException("Connection lost");
+      };
+      refresher.runTier(RefreshTier.TASKS);
+
+      taskRefresh = taskRefreshes::incrementAndGet;
+      refresher.runTier(RefreshTier.TASKS);
+
+      assertEquals(1, taskRefreshes.get());
+      assertEquals(1, refresher.getSyncMetrics().getCount(RefreshTier.TASKS,
+          SyncMetrics.Outcome.FAILED));
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package no.ntnu.idatx1005.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the LocalSnapshotStore.
+ */
+public class LocalSnapshotStoreTest {
+  private Path directory;
+  private Path file;
+  private Map<String, List<Object[]>> localTables;
+  private List<Map<String, List<Object[]>>> restored;
+  private LocalSnapshotStore store;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    directory = Files.createTempDirectory("snapshot");
+    file = directory.resolve("localdb.snapshot");
+    localTables = Map.of("user", List.of(), "task", List.of(), "task_assignees", List.of());
+    restored = new ArrayList<>();
+    store = new LocalSnapshotStore(Executors.newSingleThreadScheduledExecutor(),
+        Clock.fixed(Instant.parse("2025-04-30T12:00:00Z"), ZoneOffset.UTC), file,
+        Duration.ofMinutes(10), () -> localTables, restored::add);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Load Tests")
+  class LoadTests {
+    @Test
+    @DisplayName("Saved snapshot is restored into the local storage")
+    void savedSnapshotIsRestoredIntoTheLocalStorage() {
+      localTables = Map.of("user", List.<Object[]>of(new Object[] {"id", "Ola", "Nordmann",
+          "ola@example.com", new byte[] {1}, new byte[] {2}, 10, false, 0}),
+          "task", List.of(), "task_assignees", List.of());
+
+      assertTrue(store.save());
+      assertTrue(store.load());
+
+      assertEquals(1, restored.size());
+      assertEquals(1, restored.getFirst().get("user").size());
+    }
+
+    @Test
+    @DisplayName("Missing snapshot is not loaded")
+    void missingSnapshotIsNotLoaded() {
+      assertFalse(store.load());
+      assertTrue(restored.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Damaged snapshot is not loaded")
+    void damagedSnapshotIsNotLoaded() throws IOException {
+      Files.writeString(file, "not a snapshot");
+
+      assertFalse(store.load());
+      assertTrue(restored.isEmpty());
+    }
+  }
+
+  @Nested
+  @DisplayName("Save Tests")
+  class SaveTests {
+    @Test
+    @DisplayName("Failed read of the local storage is not saved")
+    void failedReadOfTheLocalStorageIsNotSaved() {
+      store = new LocalSnapshotStore(Executors.newSingleThreadScheduledExecutor(),
+          Clock.systemUTC(), file, Duration.ofMinutes(10), () -> {
+            throw new RuntimeException("Local database is closed");
+          }, restored::add);
+
+      assertFalse(store.save());
+      assertFalse(Files.exists(file));
+    }
+  }
+}
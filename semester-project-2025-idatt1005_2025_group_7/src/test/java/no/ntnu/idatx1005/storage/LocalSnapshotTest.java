@@ -0,0 +1,174 @@
+package no.ntnu.idatx1005.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the LocalSnapshot.
+ */
+public class LocalSnapshotTest {
+  private static final Instant SAVED_AT = Instant.parse("2025-04-30T12:00:00Z");
+  private Path directory;
+  private Path file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    directory = Files.createTempDirectory("snapshot");
+    file = directory.resolve("localdb.snapshot");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private static Object[] user(UUID userId) {
+    return new Object[] {userId.toString(), "Ola", "Nordmann", "ola@example.com",
+        new byte[] {1, 2, 3}, new byte[] {4, 5}, 10, false, 3};
+  }
+
+  private static Object[] task(UUID taskId, boolean completed) {
+    Timestamp created = Timestamp.valueOf(LocalDateTime.of(2025, 4, 1, 8, 30));
+    return new Object[] {taskId.toString(), "Vacuum", "The living room", completed, created,
+        Timestamp.valueOf(LocalDateTime.of(2025, 4, 2, 18, 0)),
+        completed ? Timestamp.valueOf(LocalDateTime.of(2025, 4, 2, 17, 45, 12)) : null,
+        "HIGH", "M", 3, null};
+  }
+
+  private static Map<String, List<Object[]>> tables(int taskCount) {
+    UUID userId = UUID.randomUUID();
+    List<Object[]> tasks = new ArrayList<>();
+    List<Object[]> assignments = new ArrayList<>();
+    for (int i = 0; i < taskCount; i++) {
+      UUID taskId = UUID.randomUUID();
+      tasks.add(task(taskId, i % 2 == 0));
+      assignments.add(new Object[] {taskId.toString(), userId.toString()});
+    }
+    return Map.of("user", List.<Object[]>of(user(userId)), "task", tasks,
+        "task_assignees", assignments);
+  }
+
+  @Nested
+  @DisplayName("Round Trip Tests")
+  class RoundTripTests {
+    @Test
+    @DisplayName("Snapshot is read back with the same rows and values")
+    void snapshotIsReadBackWithTheSameRowsAndValues() throws IOException {
+      Map<String, List<Object[]>> tables = tables(3);
+      new LocalSnapshot(SAVED_AT, tables).writeTo(file);
+
+      LocalSnapshot snapshot = LocalSnapshot.readFrom(file);
+
+      assertEquals(SAVED_AT, snapshot.savedAt());
+      for (TableDiff.TableSpec spec : TableDiff.TABLES) {
+        List<Object[]> expected = tables.get(spec.name());
+        List<Object[]> actual = snapshot.tables().get(spec.name());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+          assertArrayEquals(expected.get(i), actual.get(i));
+        }
+      }
+    }
+
+    @Test
+    @DisplayName("Null values are read back as null")
+    void nullValuesAreReadBackAsNull() throws IOException {
+      new LocalSnapshot(SAVED_AT, tables(1)).writeTo(file);
+
+      Object[] task = LocalSnapshot.readFrom(file).tables().get("task").getFirst();
+
+      assertNull(task[10]);
+    }
+
+    @Test
+    @DisplayName("Writing replaces the previous snapshot without leaving temporary files")
+    void writingReplacesThePreviousSnapshotWithoutLeavingTemporaryFiles() throws IOException {
+      new LocalSnapshot(SAVED_AT, tables(5)).writeTo(file);
+      long size = new LocalSnapshot(SAVED_AT.plusSeconds(60), tables(1)).writeTo(file);
+
+      assertEquals(size, Files.size(file));
+      assertEquals(1, LocalSnapshot.readFrom(file).tables().get("task").size());
+      try (Stream<Path> paths = Files.list(directory)) {
+        assertEquals(List.of(file), paths.toList());
+      }
+    }
+
+    @Test
+    @DisplayName("Snapshot of a household is a few hundred bytes per task")
+    void snapshotOfAHouseholdIsAFewHundredBytesPerTask() throws IOException {
+      long size = new LocalSnapshot(SAVED_AT, tables(1000)).writeTo(file);
+
+      assertTrue(size < 1000 * 250, "Snapshot was " + size + " bytes");
+      assertEquals(1000, LocalSnapshot.readFrom(file).tables().get("task").size());
+    }
+  }
+
+  @Nested
+  @DisplayName("Validation Tests")
+  class ValidationTests {
+    @Test
+    @DisplayName("Damaged snapshot is rejected")
+    void damagedSnapshotIsRejected() throws IOException {
+      new LocalSnapshot(SAVED_AT, tables(3)).writeTo(file);
+      byte[] bytes = Files.readAllBytes(file);
+      bytes[bytes.length / 2] ^= 0x10;
+      Files.write(file, bytes);
+
+      assertThrows(IllegalArgumentException.class, () -> LocalSnapshot.readFrom(file));
+    }
+
+    @Test
+    @DisplayName("Snapshot cut short is rejected")
+    void snapshotCutShortIsRejected() throws IOException {
+      new LocalSnapshot(SAVED_AT, tables(3)).writeTo(file);
+      byte[] bytes = Files.readAllBytes(file);
+      Files.write(file, Arrays.copyOf(bytes, bytes.length - 20));
+
+      assertThrows(IllegalArgumentException.class, () -> LocalSnapshot.readFrom(file));
+    }
+
+    @Test
+    @DisplayName("File that is not a snapshot is rejected")
+    void fileThatIsNotASnapshotIsRejected() throws IOException {
+      Files.writeString(file, "userId,firstName\n");
+
+      assertThrows(IllegalArgumentException.class, () -> LocalSnapshot.readFrom(file));
+    }
+
+    @Test
+    @DisplayName("Snapshot missing a table cannot be written")
+    void snapshotMissingATableCannotBeWritten() {
+      LocalSnapshot snapshot = new LocalSnapshot(SAVED_AT, Map.of("user", List.of()));
+
+      assertThrows(IllegalArgumentException.class, () -> snapshot.writeTo(file));
+      assertFalse(Files.exists(file));
+    }
+  }
+}
@@ -0,0 +1,309 @@
+package no.ntnu.idatx1005.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import no.ntnu.idatx1005.database.exceptions.DatabaseConnectionException;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.observer.PendingWritesObserver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the OutboxReplayer.
+ */
+public class OutboxReplayerTest {
+  private Path directory;
+  private List<UUID> replayed;
+  private List<UUID> applied;
+  private List<Collection<UUID>> refreshed;
+  private Set<UUID> conflicting;
+  private Set<UUID> unreachable;
+  private Set<UUID> refused;
+  private Set<UUID> broken;
+  private List<Integer> pendingCounts;
+  private List<UUID> conflicts;
+  private List<UUID> failures;
+  private OutboxReplayer replayer;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    directory = Files.createTempDirectory("replayer");
+    replayed = new ArrayList<>();
+    applied = new ArrayList<>();
+    refreshed = new ArrayList<>();
+    conflicting = new HashSet<>();
+    unreachable = new HashSet<>();
+    refused = new HashSet<>();
+    broken = new HashSet<>();
+    pendingCounts = new ArrayList<>();
+    conflicts = new ArrayList<>();
+    failures = new ArrayList<>();
+    replayer = newReplayer();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private OutboxReplayer newReplayer() {
+    OutboxReplayer outboxReplayer = new OutboxReplayer(Executors.newSingleThreadScheduledExecutor(),
+        new WriteOutbox(directory.resolve("outbox.log")),
+        new WriteOutbox(directory.resolve("outbox.log.dead")), write -> {
+          if (unreachable.contains(write.id())) {
+            throw new DatabaseConnectionException("Connection refused");
+          }
+          if (broken.contains(write.id())) {
+            throw new IllegalStateException("Broken write");
+          }
+          replayed.add(write.id());
+          if (refused.contains(write.id())) {
+            return PendingWrite.Outcome.FAILED;
+          }
+          return conflicting.contains(write.id()) ? PendingWrite.Outcome.CONFLICT
+              : PendingWrite.Outcome.APPLIED;
+        }, write -> applied.add(write.id()), refreshed::add);
+    outboxReplayer.addObserver(new PendingWritesObserver() {
+      @Override
+      public void onPendingWritesChanged(int pendingCount) {
+        pendingCounts.add(pendingCount);
+      }
+
+      @Override
+      public void onWriteConflict(PendingWrite write) {
+        conflicts.add(write.id());
+      }
+
+      @Override
+      public void onWriteFailed(PendingWrite write) {
+        failures.add(write.id());
+      }
+    });
+    return outboxReplayer;
+  }
+
+  private static PendingWrite write(Task task) {
+    return new PendingWrite(UUID.randomUUID(), PendingWrite.Kind.UPDATE_TASK, task,
+        task.getVersion(), null, List.of(), UUID.randomUUID(), LocalDateTime.now());
+  }
+
+  private static Task task(String name) {
+    return new Task(UUID.randomUUID(), false, name, "", LocalDateTime.now(),
+        LocalDateTime.now().plusDays(1), Priority.LOW, Size.S);
+  }
+
+  @Nested
+  @DisplayName("Submit Tests")
+  class SubmitTests {
+    @Test
+    @DisplayName("Submitted write is applied locally and counted as pending")
+    void submittedWriteIsAppliedLocallyAndCountedAsPending() {
+      PendingWrite write = write(task("Vacuum"));
+
+      replayer.submit(write);
+
+      assertEquals(List.of(write.id()), applied);
+      assertEquals(1, replayer.getPendingCount());
+      assertEquals(List.of(1), pendingCounts);
+      assertTrue(replayed.isEmpty());
+    }
+  }
+
+  @Nested
+  @DisplayName("Replay Tests")
+  class ReplayTests {
+    @Test
+    @DisplayName("Writes are replayed in the order they were submitted")
+    void writesAreReplayedInTheOrderTheyWereSubmitted() {
+      List<UUID> submitted = new ArrayList<>();
+      for (int i = 0; i < OutboxReplayer.BATCH_SIZE + 5; i++) {
+        PendingWrite write = write(task("Task " + i));
+        submitted.add(write.id());
+        replayer.submit(write);
+      }
+
+      assertEquals(submitted.size(), replayer.replayNow());
+
+      assertEquals(submitted, replayed);
+      assertEquals(0, replayer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Replay stops at an unreachable database and resumes from the same write")
+    void replayStopsAtAnUnreachableDatabaseAndResumesFromTheSameWrite() {
+      PendingWrite first = write(task("Vacuum"));
+      PendingWrite second = write(task("Dishes"));
+      PendingWrite third = write(task("Laundry"));
+      replayer.submit(first);
+      replayer.submit(second);
+      replayer.submit(third);
+      unreachable.add(second.id());
+
+      assertThrows(DatabaseConnectionException.class, () -> replayer.replayNow());
+      assertEquals(List.of(first.id()), replayed);
+      assertEquals(2, replayer.getPendingCount());
+
+      unreachable.clear();
+      replayer.replayNow();
+
+      assertEquals(List.of(first.id(), second.id(), third.id()), replayed);
+    }
+
+    @Test
+    @DisplayName("Writes left after a restart are replayed")
+    void writesLeftAfterARestartAreReplayed() {
+      PendingWrite write = write(task("Vacuum"));
+      replayer.submit(write);
+
+      OutboxReplayer restarted = newReplayer();
+
+      assertEquals(1, restarted.getPendingCount());
+      restarted.replayNow();
+      assertEquals(List.of(write.id()), replayed);
+    }
+
+    @Test
+    @DisplayName("Rejected write is dropped and reported")
+    void rejectedWriteIsDroppedAndReported() {
+      PendingWrite write = write(task("Vacuum"));
+      replayer.submit(write);
+      conflicting.add(write.id());
+
+      replayer.replayNow();
+
+      assertEquals(List.of(write.id()), conflicts);
+      assertEquals(0, replayer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Writes queued behind a rejected write to the same task are dropped")
+    void writesQueuedBehindARejectedWriteToTheSameTaskAreDropped() {
+      Task task = task("Vacuum");
+      PendingWrite rejected = write(task);
+      task.setVersion(task.getVersion() + 1);
+      PendingWrite stale = write(task);
+      PendingWrite other = write(task("Dishes"));
+      replayer.submit(rejected);
+      replayer.submit(stale);
+      replayer.submit(other);
+      conflicting.add(rejected.id());
+
+      replayer.replayNow();
+
+      assertEquals(List.of(rejected.id(), other.id()), replayed);
+      assertEquals(List.of(rejected.id(), stale.id()), conflicts);
+      assertEquals(List.of(task.getId()), refreshed.getFirst());
+      assertEquals(0, replayer.getPendingCount());
+      assertEquals(0, replayer.getDeadLetterCount());
+    }
+
+    @Test
+    @DisplayName("Write submitted after the refresh of a rejected write is replayed")
+    void writeSubmittedAfterTheRefreshOfARejectedWriteIsReplayed() {
+      Task task = task("Vacuum");
+      PendingWrite rejected = write(task);
+      replayer.submit(rejected);
+      conflicting.add(rejected.id());
+      replayer.replayNow();
+
+      PendingWrite next = write(task);
+      replayer.submit(next);
+      replayer.replayNow();
+
+      assertEquals(List.of(rejected.id(), next.id()), replayed);
+      assertEquals(List.of(rejected.id()), conflicts);
+    }
+
+    @Test
+    @DisplayName("Refused write is dropped and reported as a failure, not a conflict")
+    void refusedWriteIsDroppedAndReportedAsAFailureNotAConflict() {
+      PendingWrite refusedWrite = write(task("Vacuum"));
+      PendingWrite next = write(task("Dishes"));
+      replayer.submit(refusedWrite);
+      replayer.submit(next);
+      refused.add(refusedWrite.id());
+
+      replayer.replayNow();
+
+      assertEquals(List.of(refusedWrite.id()), failures);
+      assertTrue(conflicts.isEmpty());
+      assertEquals(List.of(refusedWrite.id(), next.id()), replayed);
+      assertEquals(0, replayer.getPendingCount());
+      assertEquals(1, replayer.getDeadLetterCount());
+    }
+
+    @Test
+    @DisplayName("Write that keeps failing is moved to the dead letters and unblocks the queue")
+    void writeThatKeepsFailingIsMovedToTheDeadLettersAndUnblocksTheQueue() {
+      PendingWrite brokenWrite = write(task("Vacuum"));
+      PendingWrite next = write(task("Dishes"));
+      replayer.submit(brokenWrite);
+      replayer.submit(next);
+      broken.add(brokenWrite.id());
+
+      for (int i = 1; i < OutboxReplayer.MAX_ATTEMPTS; i++) {
+        assertThrows(IllegalStateException.class, () -> replayer.replayNow());
+        assertEquals(2, replayer.getPendingCount());
+      }
+      replayer.replayNow();
+
+      assertEquals(List.of(brokenWrite.id()), failures);
+      assertEquals(List.of(next.id()), replayed);
+      assertEquals(0, replayer.getPendingCount());
+      assertEquals(1, replayer.getDeadLetterCount());
+    }
+
+    @Test
+    @DisplayName("Lost connection never counts as a failed attempt")
+    void lostConnectionNeverCountsAsAFailedAttempt() {
+      PendingWrite write = write(task("Vacuum"));
+      replayer.submit(write);
+      unreachable.add(write.id());
+
+      for (int i = 0; i < OutboxReplayer.MAX_ATTEMPTS * 2; i++) {
+        assertThrows(DatabaseConnectionException.class, () -> replayer.replayNow());
+      }
+
+      assertEquals(1, replayer.getPendingCount());
+      assertEquals(0, replayer.getDeadLetterCount());
+      assertTrue(failures.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Written tasks are refreshed once every write was replayed")
+    void writtenTasksAreRefreshedOnceEveryWriteWasReplayed() {
+      Task task = task("Vacuum");
+      replayer.submit(write(task));
+      replayer.submit(write(task));
+
+      replayer.replayNow();
+
+      assertEquals(List.of(List.of(task.getId())), refreshed);
+      assertEquals(0, (int) pendingCounts.getLast());
+    }
+  }
+}
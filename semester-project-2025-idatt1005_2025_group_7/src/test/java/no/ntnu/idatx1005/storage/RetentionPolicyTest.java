@@ -0,0 +1,56 @@
+package no.ntnu.idatx1005.storage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the RetentionPolicy.
+ */
+public class RetentionPolicyTest {
+
+  @Nested
+  @DisplayName("Environment Tests")
+  class EnvironmentTests {
+    @Test
+    @DisplayName("Unset variables keep the default policy")
+    void unsetVariablesKeepTheDefaultPolicy() {
+      assertEquals(RetentionPolicy.DEFAULT, RetentionPolicy.fromEnvironment(name -> null));
+    }
+
+    @Test
+    @DisplayName("Variables configure the policy")
+    void variablesConfigureThePolicy() {
+      Map<String, String> environment = Map.of("ARCHIVE_AFTER_MONTHS", "12",
+          "ARCHIVE_BATCH_SIZE", " 20 ", "ARCHIVE_INTERVAL_HOURS", "24");
+
+      assertEquals(new RetentionPolicy(Period.ofMonths(12), 20, Duration.ofHours(24)),
+          RetentionPolicy.fromEnvironment(environment::get));
+    }
+
+    @Test
+    @DisplayName("Invalid variables are rejected")
+    void invalidVariablesAreRejected() {
+      assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.fromEnvironment(
+          Map.of("ARCHIVE_AFTER_MONTHS", "six")::get));
+      assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.fromEnvironment(
+          Map.of("ARCHIVE_AFTER_MONTHS", "1")::get));
+      assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.fromEnvironment(
+          Map.of("ARCHIVE_BATCH_SIZE", "0")::get));
+    }
+  }
+
+  @Test
+  @DisplayName("Cutoff is the retention period before now")
+  void cutoffIsTheRetentionPeriodBeforeNow() {
+    assertEquals(LocalDateTime.of(2024, 10, 30, 12, 0),
+        RetentionPolicy.DEFAULT.cutoff(LocalDateTime.of(2025, 4, 30, 12, 0)));
+  }
+}
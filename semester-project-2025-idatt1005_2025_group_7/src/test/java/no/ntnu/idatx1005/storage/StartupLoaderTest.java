@@ -0,0 +1,174 @@
+package no.ntnu.idatx1005.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the StartupLoader.
+ */
+public class StartupLoaderTest {
+  private List<StartupLoader.Stage> loaded;
+  private List<StartupLoader.Stage> notified;
+  private AtomicInteger fullRefreshes;
+  private Consumer<StartupLoader.Stage> stageLoader;
+  private StartupLoader loader;
+
+  @BeforeEach
+  void setUp() {
+    loaded = new ArrayList<>();
+    notified = new ArrayList<>();
+    fullRefreshes = new AtomicInteger();
+    stageLoader = loaded::add;
+    loader = new StartupLoader(Runnable::run, stage -> stageLoader.accept(stage),
+        fullRefreshes::incrementAndGet);
+    loader.addObserver(notified::add);
+  }
+
+  @Nested
+  @DisplayName("Stage Tests")
+  class StageTests {
+    @Test
+    @DisplayName("Stages are loaded and published in order")
+    void stagesAreLoadedAndPublishedInOrder() {
+      List<StartupLoader.Stage> readyBeforeCompleted = new ArrayList<>();
+      loader.addObserver(stage -> {
+        if (stage == StartupLoader.Stage.OPEN_TASKS) {
+          for (StartupLoader.Stage other : StartupLoader.Stage.values()) {
+            if (loader.isReady(other)) {
+              readyBeforeCompleted.add(other);
+            }
+          }
+        }
+      });
+      loader.start();
+
+      List<StartupLoader.Stage> stages = List.of(StartupLoader.Stage.values());
+      assertEquals(stages, loaded);
+      assertEquals(stages, notified);
+      assertEquals(stages.subList(0, 2), readyBeforeCompleted);
+      assertEquals(0, fullRefreshes.get());
+    }
+
+    @Test
+    @DisplayName("Stages are not ready before the loader is started")
+    void stagesAreNotReadyBeforeTheLoaderIsStarted() {
+      assertFalse(loader.isReady(StartupLoader.Stage.USERS));
+      assertFalse(loader.whenReady(StartupLoader.Stage.USERS).isDone());
+
+      loader.start();
+      loader.start();
+
+      assertTrue(loader.whenReady(StartupLoader.Stage.USERS).isDone());
+      assertEquals(StartupLoader.Stage.values().length, loaded.size());
+    }
+
+    @Test
+    @DisplayName("Completing a returned future does not mark the stage ready")
+    void completingAReturnedFutureDoesNotMarkTheStageReady() {
+      loader.whenReady(StartupLoader.Stage.USERS).complete(null);
+
+      assertFalse(loader.isReady(StartupLoader.Stage.USERS));
+    }
+  }
+
+  @Nested
+  @DisplayName("Failure Tests")
+  class FailureTests {
+    @Test
+    @DisplayName("Failed stage falls back to a full refresh for the remaining stages")
+    void failedStageFallsBackToAFullRefreshForTheRemainingStages() {
+      stageLoader = stage -> {
+        if (stage == StartupLoader.Stage.OPEN_TASKS) {
+          throw new RuntimeException("Remote database is down");
+        }
+        loaded.add(stage);
+      };
+      loader.start();
+
+      assertEquals(List.of(StartupLoader.Stage.USERS), loaded);
+      assertEquals(1, fullRefreshes.get());
+      assertEquals(List.of(StartupLoader.Stage.values()), notified);
+    }
+
+    @Test
+    @DisplayName("Stages are marked ready even if the full refresh fails")
+    void stagesAreMarkedReadyEvenIfTheFullRefreshFails() {
+      stageLoader = stage -> {
+        throw new RuntimeException("Remote database is down");
+      };
+      loader = new StartupLoader(Runnable::run, stage -> stageLoader.accept(stage), () -> {
+        throw new RuntimeException("Still down");
+      });
+      loader.start();
+
+      for (StartupLoader.Stage stage : StartupLoader.Stage.values()) {
+        assertTrue(loader.isReady(stage));
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Snapshot Tests")
+  class SnapshotTests {
+    @Test
+    @DisplayName("Loaded snapshot marks every stage ready and is then reconciled")
+    void loadedSnapshotMarksEveryStageReadyAndIsThenReconciled() {
+      List<String> events = new ArrayList<>();
+      loader = new StartupLoader(Runnable::run, () -> true, () -> events.add("reconciled"),
+          stage -> stageLoader.accept(stage), fullRefreshes::incrementAndGet);
+      loader.addObserver(stage -> events.add(stage.name()));
+      loader.start();
+
+      assertEquals(List.of("USERS", "OPEN_TASKS", "COMPLETED_TASKS", "reconciled"), events);
+      assertEquals(List.of(), loaded);
+      assertEquals(0, fullRefreshes.get());
+    }
+
+    @Test
+    @DisplayName("Missing snapshot loads the stages from the remote database")
+    void missingSnapshotLoadsTheStagesFromTheRemoteDatabase() {
+      AtomicInteger reconciles = new AtomicInteger();
+      loader = new StartupLoader(Runnable::run, () -> false, reconciles::incrementAndGet,
+          stage -> stageLoader.accept(stage), fullRefreshes::incrementAndGet);
+      loader.start();
+
+      assertEquals(List.of(StartupLoader.Stage.values()), loaded);
+      assertEquals(0, reconciles.get());
+    }
+
+    @Test
+    @DisplayName("Failing snapshot load falls back to the remote database")
+    void failingSnapshotLoadFallsBackToTheRemoteDatabase() {
+      loader = new StartupLoader(Runnable::run, () -> {
+        throw new RuntimeException("Disk is full");
+      }, () -> { }, stage -> stageLoader.accept(stage), fullRefreshes::incrementAndGet);
+      loader.start();
+
+      assertEquals(List.of(StartupLoader.Stage.values()), loaded);
+    }
+
+    @Test
+    @DisplayName("Stages stay ready if the reconciliation fails")
+    void stagesStayReadyIfTheReconciliationFails() {
+      loader = new StartupLoader(Runnable::run, () -> true, () -> {
+        throw new RuntimeException("Remote database is down");
+      }, stage -> stageLoader.accept(stage), fullRefreshes::incrementAndGet);
+      loader.start();
+
+      for (StartupLoader.Stage stage : StartupLoader.Stage.values()) {
+        assertTrue(loader.isReady(stage));
+      }
+      assertEquals(0, fullRefreshes.get());
+    }
+  }
+}
@@ -0,0 +1,251 @@
+package no.ntnu.idatx1005.storage;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import no.ntnu.idatx1005.database.EmbeddedRemoteStore;
+import no.ntnu.idatx1005.database.Household;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TableDiff.
+ */
+public class TableDiffTest {
+
+  @Nested
+  @DisplayName("Hash Tests")
+  class HashTests {
+    @Test
+    @DisplayName("Row hash matches the CRC32 of the remote database")
+    void rowHashMatchesTheCrc32OfTheRemoteDatabase() {
+      // SELECT CRC32('hello') in MySQL
+      assertEquals(907060870L, TableDiff.hashRow(List.of("hello")));
+      // CONCAT_WS('|', 'hello', 'world')
+      assertEquals(TableDiff.hashRow(List.of("hello|world")),
+          TableDiff.hashRow(List.of("hello", "world")));
+    }
+
+    @Test
+    @DisplayName("Optional columns missing remotely are left out of the hash")
+    void optionalColumnsMissingRemotelyAreLeftOutOfTheHash() {
+      TableDiff.TableSpec task = TableDiff.TABLES.get(1);
+      TableDiff.TableSpec withoutVersion = task.withRemoteColumns(Set.of("taskid", "name"));
+
+      assertTrue(task.rowHashExpression().contains("version"));
+      assertFalse(withoutVersion.rowHashExpression().contains("version"));
+      assertEquals(task.columns().size() - 1, withoutVersion.columns().size());
+    }
+  }
+
+  @Nested
+  @DisplayName("Bucket Tests")
+  class BucketTests {
+    @Test
+    @DisplayName("Only buckets with different hashes mismatch")
+    void onlyBucketsWithDifferentHashesMismatch() {
+      Map<String, TableDiff.Bucket> local = Map.of(
+          "a", new TableDiff.Bucket(2, 10),
+          "b", new TableDiff.Bucket(1, 5));
+      Map<String, TableDiff.Bucket> remote = Map.of(
+          "a", new TableDiff.Bucket(2, 10),
+          "b", new TableDiff.Bucket(1, 6),
+          "c", new TableDiff.Bucket(1, 7));
+
+      assertEquals(Set.of("b", "c"), TableDiff.mismatching(local, remote));
+    }
+
+    @Test
+    @DisplayName("Equal trees have no mismatching buckets")
+    void equalTreesHaveNoMismatchingBuckets() {
+      Map<String, TableDiff.Bucket> buckets = Map.of("a", new TableDiff.Bucket(3, 42));
+
+      assertTrue(TableDiff.mismatching(buckets, Map.copyOf(buckets)).isEmpty());
+    }
+  }
+
+  @Nested
+  @DisplayName("Row Diff Tests")
+  class RowDiffTests {
+    @Test
+    @DisplayName("Rows are sorted into inserts, updates and deletes")
+    void rowsAreSortedIntoInsertsUpdatesAndDeletes() {
+      Map<String, Long> local = Map.of("kept", 1L, "changed", 2L, "removed", 3L);
+      Map<String, Long> remote = Map.of("kept", 1L, "changed", 4L, "added", 5L);
+
+      TableDiff.RowDiff diff = TableDiff.diffRows(local, remote);
+
+      assertEquals(Set.of("added"), diff.inserted());
+      assertEquals(Set.of("changed"), diff.updated());
+      assertEquals(Set.of("removed"), diff.deleted());
+      assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Equal rows give an empty diff")
+    void equalRowsGiveAnEmptyDiff() {
+      Map<String, Long> rows = Map.of("a", 1L, "b", 2L);
+
+      assertTrue(TableDiff.diffRows(rows, Map.copyOf(rows)).isEmpty());
+    }
+  }
+
+  @Nested
+  @DisplayName("Partition Tests")
+  class PartitionTests {
+    private static final UUID HOME = Household.DEFAULT_ID;
+    private final UUID cabin = UUID.randomUUID();
+    private final String vacuum = UUID.randomUUID().toString();
+    private final String dishes = UUID.randomUUID().toString();
+    private final String chopWood = UUID.randomUUID().toString();
+    private final String ola = UUID.randomUUID().toString();
+    private final String kari = UUID.randomUUID().toString();
+    private EmbeddedRemoteStore remote;
+    private Connection remoteConnection;
+    private Connection mirror;
+
+    /**
+     * Seeds the remote database with two households, each with its own tasks, member and
+     * assignment, and creates an empty mirror of the task table.
+     */
+    @BeforeEach
+    void setUp() throws SQLException {
+      remote = new EmbeddedRemoteStore("jdbc:h2:mem:partition" + UUID.randomUUID(),
+          Path.of("setup", "dbSetup.sql"));
+      remoteConnection = remote.getConnection();
+      execute(remoteConnection, "INSERT INTO household (householdId, name) VALUES (?, 'Cabin')",
+          cabin.toString());
+      insertTask(vacuum, HOME, "Vacuum");
+      insertTask(dishes, HOME, "Dishes");
+      insertTask(chopWood, cabin, "Chop wood");
+      insertMember(ola, HOME);
+      insertMember(kari, cabin);
+      execute(remoteConnection, "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)",
+          vacuum, ola);
+      execute(remoteConnection, "INSERT INTO task_assignees (taskId, userId) VALUES (?, ?)",
+          chopWood, kari);
+
+      mirror = DriverManager.getConnection("jdbc:h2:mem:mirror" + UUID.randomUUID());
+      execute(mirror, "CREATE TABLE task (taskId VARCHAR(36) PRIMARY KEY NOT NULL, "
+          + "name VARCHAR(255) NOT NULL, description TEXT, completed BOOLEAN, "
+          + "createdDate DATETIME, dueDate DATETIME, completedDate DATETIME, "
+          + "priority VARCHAR(255), taskSize VARCHAR(255), taskWeight INT, "
+          + "version INT DEFAULT 0)");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+      remoteConnection.close();
+      mirror.close();
+    }
+
+    private void insertTask(String taskId, UUID householdId, String name) throws SQLException {
+      execute(remoteConnection, "INSERT INTO task (taskId, householdId, completed, name, "
+              + "createdDate, dueDate, priority, taskSize) "
+              + "VALUES (?, ?, 0, ?, NOW(), NOW(), 'LOW', 'S')",
+          taskId, householdId.toString(), name);
+    }
+
+    private void insertMember(String userId, UUID householdId) throws SQLException {
+      execute(remoteConnection, "INSERT INTO user (userId, firstName, lastName, email, "
+          + "passwordHash, salt, workloadCapacity) "
+          + "VALUES (?, 'Ola', 'Nordmann', ?, X'01', X'02', 10)", userId, userId + "@example.com");
+      execute(remoteConnection, "INSERT INTO household_member (householdId, userId) "
+          + "VALUES (?, ?)", householdId.toString(), userId);
+    }
+
+    private static void execute(Connection connection, String sql, String... parameters)
+        throws SQLException {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        for (int i = 0; i < parameters.length; i++) {
+          statement.setString(i + 1, parameters[i]);
+        }
+        statement.execute();
+      }
+    }
+
+    private static TableDiff.TableSpec spec(String table) {
+      return TableDiff.TABLES.stream().filter(spec -> spec.name().equals(table)).findFirst()
+          .orElseThrow();
+    }
+
+    private Set<String> fetchKeys(String table, UUID householdId) throws SQLException {
+      Set<String> keys = new HashSet<>();
+      for (Object[] row : TableDiff.fetchPartition(remoteConnection, spec(table), null,
+          householdId, new HashSet<Statement>())) {
+        keys.add(row[0] + (table.equals("task_assignees") ? "|" + row[1] : ""));
+      }
+      return keys;
+    }
+
+    private Set<String> mirroredTaskIds() throws SQLException {
+      Set<String> taskIds = new HashSet<>();
+      try (PreparedStatement select = mirror.prepareStatement("SELECT taskId FROM task");
+          ResultSet rows = select.executeQuery()) {
+        while (rows.next()) {
+          taskIds.add(rows.getString(1));
+        }
+      }
+      return taskIds;
+    }
+
+    @Test
+    @DisplayName("Clone fetches only the rows of the household")
+    void cloneFetchesOnlyTheRowsOfTheHousehold() throws SQLException {
+      assertEquals(Set.of(vacuum, dishes), fetchKeys("task", HOME));
+      assertEquals(Set.of(ola), fetchKeys("user", HOME));
+      assertEquals(Set.of(vacuum + "|" + ola), fetchKeys("task_assignees", HOME));
+      assertEquals(Set.of(chopWood), fetchKeys("task", cabin));
+    }
+
+    @Test
+    @DisplayName("Fingerprint ignores the rows of other households")
+    void fingerprintIgnoresTheRowsOfOtherHouseholds() throws SQLException {
+      String rowHash = "CRC32(CONCAT(taskId, ':', version))";
+      TableFingerprint before = TableDiff.fingerprint(remoteConnection, spec("task"), rowHash,
+          HOME);
+
+      execute(remoteConnection, "UPDATE task SET version = version + 1 WHERE taskId = ?",
+          chopWood);
+
+      assertEquals(2, before.rowCount());
+      assertEquals(before, TableDiff.fingerprint(remoteConnection, spec("task"), rowHash,
+          HOME));
+      assertEquals(1, TableDiff.fingerprint(remoteConnection, spec("task"), rowHash, cabin)
+          .rowCount());
+    }
+
+    @Test
+    @DisplayName("Diff merges and deletes only the rows of the household")
+    void diffMergesAndDeletesOnlyTheRowsOfTheHousehold() throws SQLException {
+      String removed = UUID.randomUUID().toString();
+      execute(mirror, "INSERT INTO task (taskId, name) VALUES (?, 'Old name')", vacuum);
+      execute(mirror, "INSERT INTO task (taskId, name) VALUES (?, 'Removed')", removed);
+      TableDiff diff = new TableDiff(spec("task"), HOME);
+
+      diff.merge(remoteConnection, mirror);
+      diff.deleteRemoved(mirror);
+
+      assertEquals(Set.of(vacuum, dishes), mirroredTaskIds());
+      assertEquals(Set.of(dishes), diff.getRowDiff().inserted());
+      assertEquals(Set.of(vacuum), diff.getRowDiff().updated());
+      assertEquals(Set.of(removed), diff.getRowDiff().deleted());
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package no.ntnu.idatx1005.storage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TaskArchiver.
+ */
+public class TaskArchiverTest {
+  private static final RetentionPolicy POLICY =
+      new RetentionPolicy(Period.ofMonths(6), 10, Duration.ofHours(6));
+  private ScheduledExecutorService scheduler;
+  private List<UUID> remoteTasks;
+  private List<LocalDateTime> cutoffs;
+  private AtomicInteger refreshes;
+  private ToIntFunction<List<UUID>> archive;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    remoteTasks = new ArrayList<>();
+    cutoffs = new ArrayList<>();
+    refreshes = new AtomicInteger();
+    archive = taskIds -> {
+      remoteTasks.removeAll(taskIds);
+      return taskIds.size();
+    };
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  private TaskArchiver archiver() {
+    Clock clock = Clock.fixed(Instant.parse("2025-04-30T12:00:00Z"), ZoneOffset.UTC);
+    return new TaskArchiver(scheduler, clock, POLICY, (cutoff, limit) -> {
+      cutoffs.add(cutoff);
+      return remoteTasks.stream().limit(limit).toList();
+    }, taskIds -> archive.applyAsInt(taskIds), refreshes::incrementAndGet);
+  }
+
+  private void addRemoteTasks(int count) {
+    Stream.generate(UUID::randomUUID).limit(count).forEach(remoteTasks::add);
+  }
+
+  @Test
+  @DisplayName("Old completed tasks are archived in batches")
+  void oldCompletedTasksAreArchivedInBatches() {
+    addRemoteTasks(25);
+
+    assertEquals(25, archiver().archiveNow());
+
+    assertEquals(0, remoteTasks.size());
+    assertEquals(3, cutoffs.size());
+    assertEquals(LocalDateTime.of(2024, 10, 30, 12, 0), cutoffs.getFirst());
+    assertEquals(1, refreshes.get());
+  }
+
+  @Test
+  @DisplayName("Large backlog is archived over several runs")
+  void largeBacklogIsArchivedOverSeveralRuns() {
+    addRemoteTasks(TaskArchiver.MAX_BATCHES_PER_RUN * POLICY.batchSize() + 5);
+    TaskArchiver archiver = archiver();
+
+    assertEquals(TaskArchiver.MAX_BATCHES_PER_RUN * POLICY.batchSize(), archiver.archiveNow());
+    assertEquals(5, archiver.archiveNow());
+    assertEquals(2, refreshes.get());
+  }
+
+  @Test
+  @DisplayName("Nothing to archive leaves the local storage alone")
+  void nothingToArchiveLeavesTheLocalStorageAlone() {
+    assertEquals(0, archiver().archiveNow());
+    assertEquals(0, refreshes.get());
+  }
+
+  @Test
+  @DisplayName("Failed batch stops the run")
+  void failedBatchStopsTheRun() {
+    addRemoteTasks(25);
+    archive = taskIds -> 0;
+
+    assertEquals(0, archiver().archiveNow());
+    assertEquals(1, cutoffs.size());
+    assertEquals(0, refreshes.get());
+  }
+}
@@ -0,0 +1,176 @@
+package no.ntnu.idatx1005.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import no.ntnu.idatx1005.model.task.FieldChange;
+import no.ntnu.idatx1005.model.task.Priority;
+import no.ntnu.idatx1005.model.task.Size;
+import no.ntnu.idatx1005.model.task.Task;
+import no.ntnu.idatx1005.model.task.TaskField;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the WriteOutbox.
+ */
+public class WriteOutboxTest {
+  private Path directory;
+  private Path file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    directory = Files.createTempDirectory("outbox");
+    file = directory.resolve("outbox.log");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private static PendingWrite write(String name) {
+    Task task = new Task(UUID.randomUUID(), false, name, "Description",
+        LocalDateTime.of(2025, 4, 1, 12, 0), LocalDateTime.of(2025, 4, 8, 12, 0), Priority.HIGH,
+        Size.M);
+    task.addAssignedUserId(UUID.randomUUID());
+    task.setVersion(3);
+    return new PendingWrite(UUID.randomUUID(), PendingWrite.Kind.UPDATE_TASK, task, 2, "Old",
+        List.of(new FieldChange(TaskField.NAME, "Before", name)), UUID.randomUUID(),
+        LocalDateTime.of(2025, 4, 2, 9, 30));
+  }
+
+  @Nested
+  @DisplayName("Append Tests")
+  class AppendTests {
+    @Test
+    @DisplayName("Appended writes are read back in order after reopening")
+    void appendedWritesAreReadBackInOrderAfterReopening() {
+      WriteOutbox outbox = new WriteOutbox(file);
+      PendingWrite first = write("Vacuum");
+      PendingWrite second = write("Dishes");
+      outbox.append(first);
+      outbox.append(second);
+
+      List<PendingWrite> writes = new WriteOutbox(file).peek(10);
+
+      assertEquals(List.of(first.id(), second.id()), writes.stream().map(PendingWrite::id)
+          .toList());
+    }
+
+    @Test
+    @DisplayName("Write is stored with all of its values")
+    void writeIsStoredWithAllOfItsValues() {
+      PendingWrite write = write("Vacuum");
+      new WriteOutbox(file).append(write);
+
+      PendingWrite stored = new WriteOutbox(file).peek(1).getFirst();
+
+      assertEquals(write.kind(), stored.kind());
+      assertEquals(write.baseVersion(), stored.baseVersion());
+      assertEquals(write.oldDescription(), stored.oldDescription());
+      assertEquals(write.fields(), stored.fields());
+      assertEquals(write.changedBy(), stored.changedBy());
+      assertEquals(write.createdAt(), stored.createdAt());
+      assertEquals(write.task().getId(), stored.task().getId());
+      assertEquals(write.task().getName(), stored.task().getName());
+      assertEquals(write.task().getDueDate(), stored.task().getDueDate());
+      assertEquals(write.task().getVersion(), stored.task().getVersion());
+      assertEquals(write.task().getAssignedUserIds(), stored.task().getAssignedUserIds());
+    }
+
+    @Test
+    @DisplayName("Later changes to the task do not alter the pending write")
+    void laterChangesToTheTaskDoNotAlterThePendingWrite() {
+      WriteOutbox outbox = new WriteOutbox(file);
+      PendingWrite write = write("Vacuum");
+      outbox.append(write);
+
+      write.task().setName("Renamed");
+
+      assertEquals("Vacuum", outbox.peek(1).getFirst().task().getName());
+    }
+  }
+
+  @Nested
+  @DisplayName("Recovery Tests")
+  class RecoveryTests {
+    @Test
+    @DisplayName("Torn record at the end is discarded")
+    void tornRecordAtTheEndIsDiscarded() throws IOException {
+      WriteOutbox outbox = new WriteOutbox(file);
+      PendingWrite first = write("Vacuum");
+      outbox.append(first);
+      outbox.append(write("Dishes"));
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        channel.truncate(channel.size() - 3);
+      }
+
+      WriteOutbox reopened = new WriteOutbox(file);
+
+      assertEquals(1, reopened.size());
+      assertEquals(first.id(), reopened.peek(1).getFirst().id());
+    }
+
+    @Test
+    @DisplayName("Writes appended after a torn record are kept")
+    void writesAppendedAfterATornRecordAreKept() throws IOException {
+      new WriteOutbox(file).append(write("Vacuum"));
+      Files.write(file, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+      WriteOutbox reopened = new WriteOutbox(file);
+      reopened.append(write("Dishes"));
+
+      assertEquals(2, new WriteOutbox(file).size());
+    }
+  }
+
+  @Nested
+  @DisplayName("Acknowledge Tests")
+  class AcknowledgeTests {
+    @Test
+    @DisplayName("Acknowledged writes are removed from the file")
+    void acknowledgedWritesAreRemovedFromTheFile() {
+      WriteOutbox outbox = new WriteOutbox(file);
+      outbox.append(write("Vacuum"));
+      PendingWrite second = write("Dishes");
+      outbox.append(second);
+
+      outbox.acknowledge(1);
+
+      WriteOutbox reopened = new WriteOutbox(file);
+      assertEquals(1, reopened.size());
+      assertEquals(second.id(), reopened.peek(1).getFirst().id());
+    }
+
+    @Test
+    @DisplayName("Acknowledging every write deletes the file")
+    void acknowledgingEveryWriteDeletesTheFile() {
+      WriteOutbox outbox = new WriteOutbox(file);
+      outbox.append(write("Vacuum"));
+
+      outbox.acknowledge(1);
+
+      assertTrue(outbox.isEmpty());
+      assertFalse(Files.exists(file));
+    }
+  }
+}